@@ -0,0 +1,119 @@
+package se.liu.feljo718.towerdefence.benchmark;
+
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.board.TileType;
+import se.liu.feljo718.towerdefence.enemy.EnemyType;
+import se.liu.feljo718.towerdefence.handler.SoundManager;
+import se.liu.feljo718.towerdefence.tower.TowerType;
+
+import java.io.File;
+
+/**
+ * Builds populated game boards for the benchmarks.
+ * <p>
+ * Every benchmark works on a board of the same size as the one the game opens, filled with a given number of towers and enemies. Boards
+ * are built the same way every time, so results from different commits can be compared directly. Sound is switched off, since a benchmark
+ * measuring {@code Clip} start-up would tell us nothing about the game logic.
+ *
+ * @author feljo718
+ * @see BoardTickBenchmark
+ */
+public final class BenchmarkBoards
+{
+    public static final int BOARD_WIDTH = 20;
+    public static final int BOARD_HEIGHT = 15;
+    /** Roughly the number of moves an enemy needs to walk the default path, used to spread enemies out along it. */
+    private static final int PATH_MOVES = 400;
+
+    private BenchmarkBoards() {
+    }
+
+    /**
+     * Prepares the JVM for running game code in a benchmark: headless AWT, no sound, and a working directory that does not contain the
+     * game's own resource files.
+     * <p>
+     * The game reads and writes its JSON files relative to the working directory. Running from the repository root would make
+     * {@code HighscoreList.addScore} overwrite the real highscores, so that is refused.
+     *
+     * @throws IllegalStateException If the benchmarks are started from the repository root
+     */
+    public static void prepareEnvironment() {
+	if (new File("resources" + File.separator + "maps.json").exists() && new File("src").isDirectory()) {
+	    throw new IllegalStateException("Run the benchmarks from the benchmarks directory so the game's resource files are left alone");
+	}
+	System.setProperty("java.awt.headless", "true");
+	SoundManager.setEnabled(false);
+    }
+
+    /**
+     * Creates a board with the given number of towers and enemies.
+     *
+     * @param mapName The map to load
+     * @param towers  The number of towers to place on grass tiles
+     * @param enemies The number of enemies to spawn
+     *
+     * @return The populated board
+     */
+    public static Board createBoard(String mapName, int towers, int enemies) {
+	Board board = new Board(BOARD_WIDTH, BOARD_HEIGHT, mapName);
+	placeTowers(board, towers);
+	spawnEnemies(board, enemies);
+	return board;
+    }
+
+    /**
+     * Places towers of every type on grass tiles, starting next to the path so that they have something to shoot at. If the board runs
+     * out of grass the remaining towers go on any free tile. A tile holds one tower, so the count is capped by the size of the board.
+     */
+    private static void placeTowers(Board board, int count) {
+	TowerType[] types = TowerType.values();
+	int placed = 0;
+	for (int distance = 1; placed < count && distance < board.getWidth(); distance++) {
+	    for (int row = 1; row < board.getHeight() && placed < count; row++) {
+		for (int col = 0; col < board.getWidth() && placed < count; col++) {
+		    if (board.getTileAt(row, col) == TileType.GRASS && distanceToPath(board, row, col) == distance) {
+			board.getTowerFactory().createTower(types[placed % types.length], row, col);
+			placed++;
+		    }
+		}
+	    }
+	}
+	for (int row = 1; row < board.getHeight() && placed < count; row++) {
+	    for (int col = 0; col < board.getWidth() && placed < count; col++) {
+		if (board.getTowerFactory().getRegistry().isFree(row, col)) {
+		    board.getTowerFactory().createTower(types[placed % types.length], row, col);
+		    placed++;
+		}
+	    }
+	}
+    }
+
+    private static int distanceToPath(Board board, int row, int col) {
+	int best = Integer.MAX_VALUE;
+	for (int r = 1; r < board.getHeight(); r++) {
+	    for (int c = 0; c < board.getWidth(); c++) {
+		if (board.getTileAt(r, c) == TileType.PATH) {
+		    best = Math.min(best, Math.max(Math.abs(r - row), Math.abs(c - col)));
+		}
+	    }
+	}
+	return best;
+    }
+
+    /**
+     * Spawns enemies of every type and spreads them out along the path by moving the ones already spawned between spawns. Moving stops
+     * before the first enemy reaches the end, so large counts bunch up near the start instead of leaking.
+     */
+    private static void spawnEnemies(Board board, int count) {
+	EnemyType[] types = EnemyType.values();
+	int spacing = count == 0 ? 0 : Math.max(1, PATH_MOVES / count);
+	int moves = 0;
+	for (int i = 0; i < count; i++) {
+	    board.getEnemyFactory().spawnEnemy(types[i % types.length]);
+	    for (int move = 0; move < spacing && moves < PATH_MOVES * 3 / 4; move++) {
+		board.getEnemyFactory().moveEnemies();
+		moves++;
+	    }
+	}
+    }
+}
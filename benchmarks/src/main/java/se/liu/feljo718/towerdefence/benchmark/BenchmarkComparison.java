@@ -0,0 +1,97 @@
+package se.liu.feljo718.towerdefence.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH result files written with {@code -rf json} and reports how much every benchmark changed.
+ * <p>
+ * Usage: {@code BenchmarkComparison <baseline.json> <candidate.json> [threshold percent]}. A benchmark counts as a regression when it got
+ * slower by more than the threshold (10% by default) and the difference is larger than the combined error of the two measurements. The
+ * program exits with status 1 if any benchmark regressed, so it can be used to stop a change before it is merged.
+ *
+ * @author feljo718
+ */
+public final class BenchmarkComparison
+{
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10.0;
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+	if (args.length < 2) {
+	    System.err.println("Usage: BenchmarkComparison <baseline.json> <candidate.json> [threshold percent]");
+	    System.exit(2);
+	}
+	double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+
+	Map<String, Result> baseline = readResults(args[0]);
+	Map<String, Result> candidate = readResults(args[1]);
+
+	boolean regressed = false;
+	System.out.printf("%-70s %12s %12s %9s%n", "Benchmark", "Baseline", "Candidate", "Change");
+	for (Map.Entry<String, Result> entry : new TreeMap<>(candidate).entrySet()) {
+	    Result before = baseline.get(entry.getKey());
+	    Result after = entry.getValue();
+	    if (before == null) {
+		System.out.printf("%-70s %12s %12.3f %9s%n", entry.getKey(), "-", after.score, "new");
+		continue;
+	    }
+
+	    double change = (after.score - before.score) / before.score * 100.0;
+	    // For average-time benchmarks a higher score is worse, for throughput benchmarks a lower one
+	    double slowdown = after.higherIsBetter ? -change : change;
+	    boolean significant = Math.abs(after.score - before.score) > before.error + after.error;
+	    boolean isRegression = slowdown > threshold && significant;
+	    regressed |= isRegression;
+
+	    System.out.printf("%-70s %12.3f %12.3f %+8.1f%%%s%n", entry.getKey(), before.score, after.score, change,
+			      isRegression ? "  REGRESSION" : "");
+	}
+
+	System.exit(regressed ? 1 : 0);
+    }
+
+    private static Map<String, Result> readResults(String file) throws IOException {
+	Map<String, Result> results = new LinkedHashMap<>();
+	try (Reader reader = new FileReader(file)) {
+	    JsonArray runs = JsonParser.parseReader(reader).getAsJsonArray();
+	    for (JsonElement element : runs) {
+		JsonObject run = element.getAsJsonObject();
+		JsonObject metric = run.getAsJsonObject("primaryMetric");
+		double error = metric.get("scoreError").isJsonPrimitive() ? metric.get("scoreError").getAsDouble() : 0.0;
+		if (Double.isNaN(error)) {
+		    error = 0.0;
+		}
+		boolean higherIsBetter = "thrpt".equals(run.get("mode").getAsString());
+		results.put(describe(run), new Result(metric.get("score").getAsDouble(), error, higherIsBetter));
+	    }
+	}
+	return results;
+    }
+
+    private static String describe(JsonObject run) {
+	String name = run.get("benchmark").getAsString();
+	StringBuilder sb = new StringBuilder(name.substring(name.lastIndexOf('.', name.lastIndexOf('.') - 1) + 1));
+	if (run.has("params")) {
+	    for (Map.Entry<String, JsonElement> param : new TreeMap<>(run.getAsJsonObject("params").asMap()).entrySet()) {
+		sb.append(' ').append(param.getKey()).append('=').append(param.getValue().getAsString());
+	    }
+	}
+	return sb.toString();
+    }
+
+    private record Result(double score, double error, boolean higherIsBetter)
+    {
+    }
+}
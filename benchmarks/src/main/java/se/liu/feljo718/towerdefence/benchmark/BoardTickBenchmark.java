@@ -0,0 +1,69 @@
+package se.liu.feljo718.towerdefence.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import se.liu.feljo718.towerdefence.board.Board;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full game tick for different numbers of enemies and towers.
+ * <p>
+ * Ticking changes the board: enemies walk, die and leak, so a board that has been ticked for a whole measurement iteration no longer has
+ * the requested population. Each invocation therefore starts from a freshly built board and runs {@value #TICKS_PER_INVOCATION} ticks,
+ * which is long enough to make the invocation setup cost negligible and short enough that the population stays roughly constant. The
+ * reported score is the time of a single tick.
+ *
+ * @author feljo718
+ * @see BenchmarkBoards
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardTickBenchmark
+{
+    private static final int TICKS_PER_INVOCATION = 60;
+
+    @Param({ "10", "100", "1000" })
+    private int enemies;
+
+    @Param({ "0", "10", "50" })
+    private int towers;
+
+    private Board board = null;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+	BenchmarkBoards.prepareEnvironment();
+    }
+
+    @Setup(Level.Invocation)
+    public void createBoard() {
+	board = BenchmarkBoards.createBoard("Default Map", towers, enemies);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TICKS_PER_INVOCATION)
+    public void tick(Blackhole blackhole) {
+	for (int i = 0; i < TICKS_PER_INVOCATION; i++) {
+	    board.tick();
+	}
+	blackhole.consume(board.getCoins());
+	blackhole.consume(board.getLives());
+    }
+}
@@ -0,0 +1,93 @@
+package se.liu.feljo718.towerdefence.benchmark;
+
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import se.liu.feljo718.towerdefence.highscore.Highscore;
+import se.liu.feljo718.towerdefence.highscore.HighscoreStore;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures adding a score to a highscore store of a given size and asking for the best scores. The score is appended to the log on the
+ * persistence thread, and closing the store at the end of an iteration waits for the appends.
+ * <p>
+ * The snapshot is written to {@code resources/highscore.json} below the working directory, which is why the benchmarks refuse to run
+ * from the repository root. Before every iteration the snapshot is rewritten with the requested number of scores, in the format of older
+ * versions, the log is removed and a new store is loaded, so the store only grows by the scores added during one iteration.
+ *
+ * @author feljo718
+ * @see HighscoreStore#add(Highscore)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HighscoreBenchmark
+{
+    private static final long SEED = 718;
+    private static final int MAX_SCORE = 5000;
+
+    @Param({ "10", "1000", "1000000" })
+    private int existingScores;
+
+    private final Random random = new Random(SEED);
+    private HighscoreStore highscores = null;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+	BenchmarkBoards.prepareEnvironment();
+    }
+
+    @Setup(Level.Iteration)
+    public void writeScoreFile() throws IOException {
+	List<Highscore> scores = new ArrayList<>();
+	for (int i = 0; i < existingScores; i++) {
+	    scores.add(new Highscore("Player" + i, random.nextInt(MAX_SCORE)));
+	}
+
+	File file = new File("resources", "highscore.json");
+	file.getParentFile().mkdirs();
+	try (Writer writer = new FileWriter(file)) {
+	    new Gson().toJson(scores, writer);
+	}
+	new File("resources", "highscore.log").delete();
+	new File("resources", "highscore.log.compacting").delete();
+	highscores = new HighscoreStore("highscore.json");
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeStore() throws IOException {
+	highscores.close();
+    }
+
+    @Benchmark
+    public void addScore() {
+	highscores.add(new Highscore("Benchmark", random.nextInt(MAX_SCORE), "Default Map"));
+    }
+
+    @Benchmark
+    public List<Highscore> topScores() {
+	return highscores.getTopScores(HighscoreStore.TOP_K);
+    }
+}
@@ -0,0 +1,63 @@
+package se.liu.feljo718.towerdefence.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import se.liu.feljo718.towerdefence.board.LevelDefinition;
+import se.liu.feljo718.towerdefence.board.TileType;
+import se.liu.feljo718.towerdefence.handler.LevelReader;
+import se.liu.feljo718.towerdefence.handler.MapReader;
+
+import java.io.FileNotFoundException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading the map and level definitions from their JSON files.
+ * <p>
+ * The benchmarks run from the benchmarks directory, where there is no {@code resources} folder, so the files are read from the classpath
+ * just like in a packaged game.
+ *
+ * @author feljo718
+ * @see MapReader
+ * @see LevelReader
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonLoadingBenchmark
+{
+    @Param({ "Default Map", "Desert Map" })
+    private String mapName;
+
+    private MapReader mapReader = null;
+    private LevelReader levelReader = null;
+
+    @Setup
+    public void prepare() {
+	BenchmarkBoards.prepareEnvironment();
+	mapReader = new MapReader("maps.json", BenchmarkBoards.BOARD_WIDTH, BenchmarkBoards.BOARD_HEIGHT, mapName);
+	levelReader = new LevelReader();
+    }
+
+    @Benchmark
+    public TileType[][] loadMap() throws FileNotFoundException {
+	return mapReader.loadFromJson();
+    }
+
+    @Benchmark
+    public List<LevelDefinition> loadLevels() {
+	return levelReader.getLevels();
+    }
+}
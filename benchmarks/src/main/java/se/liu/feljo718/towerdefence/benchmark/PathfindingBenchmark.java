@@ -0,0 +1,76 @@
+package se.liu.feljo718.towerdefence.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.board.FlowField;
+import se.liu.feljo718.towerdefence.enemy.EnemyPathfinding;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to walk the whole path of each map, tile by tile, with {@link EnemyPathfinding}, and to compute the
+ * {@link FlowField} the walk follows.
+ * <p>
+ * Reaching the end costs the board a life, so the board's lives go negative during the run. Nothing listens for game over on a benchmark
+ * board, so this has no effect on the measurement.
+ *
+ * @author feljo718
+ * @see EnemyPathfinding
+ * @see FlowField
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathfindingBenchmark
+{
+    @Param({ "Default Map", "Forest Map", "Desert Map" })
+    private String mapName;
+
+    private Board board = null;
+
+    @Setup
+    public void prepare() {
+	BenchmarkBoards.prepareEnvironment();
+	board = BenchmarkBoards.createBoard(mapName, 0, 0);
+    }
+
+    /**
+     * Walks from the start tile to the end tile.
+     *
+     * @return The number of tiles visited, so the walk cannot be optimised away
+     */
+    @Benchmark
+    public int walkPath() {
+	EnemyPathfinding pathfinding = new EnemyPathfinding(board);
+	int steps = 0;
+	while (pathfinding.hasNextTarget()) {
+	    pathfinding.reachedTargetPoint();
+	    steps++;
+	}
+	return steps;
+    }
+
+    /**
+     * Computes the distances of the map from scratch.
+     *
+     * @return The distance of the first spawn, so the search cannot be optimised away
+     */
+    @Benchmark
+    public int buildFlowField() {
+	FlowField field = new FlowField(board.getTileGrid());
+	return field.getDistance(field.chooseSpawn(0));
+    }
+}
@@ -0,0 +1,71 @@
+package se.liu.feljo718.towerdefence.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.board.BoardComponent;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures painting one frame of the board into an offscreen image.
+ * <p>
+ * The component is painted through {@link Component#paint(Graphics)}, which runs {@code paintComponent} and then paints the control panel
+ * on top, the same work Swing does for a repaint. No window is opened, so the benchmark runs on headless machines.
+ *
+ * @author feljo718
+ * @see BoardComponent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark
+{
+    @Param({ "10", "100", "1000" })
+    private int enemies;
+
+    @Param({ "10", "50" })
+    private int towers;
+
+    private BoardComponent component = null;
+    private BufferedImage image = null;
+    private Graphics2D graphics = null;
+
+    @Setup
+    public void prepare() {
+	BenchmarkBoards.prepareEnvironment();
+	Board board = BenchmarkBoards.createBoard("Default Map", towers, enemies);
+	component = new BoardComponent(board);
+	Dimension size = component.getPreferredSize();
+	component.setSize(size);
+	component.doLayout();
+	image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_ARGB);
+	graphics = image.createGraphics();
+    }
+
+    @TearDown
+    public void dispose() {
+	graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paint() {
+	component.paint(graphics);
+	return image;
+    }
+}
@@ -0,0 +1,100 @@
+package se.liu.feljo718.towerdefence.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.board.BoardComponent;
+import se.liu.feljo718.towerdefence.scenario.PathStyle;
+import se.liu.feljo718.towerdefence.scenario.ScenarioGenerator;
+import se.liu.feljo718.towerdefence.scenario.TowerLayoutReader;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures painting one frame of a large generated scenario into an offscreen image of a fixed window size.
+ * <p>
+ * The view is scrolled to the middle of the map and the first level is played for a while, so that enemies, towers and range circles are
+ * spread over the whole map. Only the part inside the window should be drawn, so the time per frame should stay about the same for every
+ * map size.
+ *
+ * @author feljo718
+ * @see BoardComponent
+ * @see ScenarioGenerator
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Djava.awt.headless=true", "-Xmx4g" })
+public class ScenarioRenderBenchmark
+{
+    private static final long SEED = 718;
+    private static final int LEVELS = 1;
+    private static final int ENEMIES = 20000;
+    private static final int SPAWN_DELAY = 20;
+    private static final double TOWER_DENSITY = 0.1;
+    private static final int TICKS = 2000;
+    private static final String FOLDER = "generated";
+
+    @Param({ "20", "100", "300", "1000" })
+    private int size;
+
+    @Param({ "false", "true" })
+    private boolean ranges;
+
+    private BoardComponent component = null;
+    private BufferedImage image = null;
+    private Graphics2D graphics = null;
+
+    @Setup
+    public void prepare() throws IOException {
+	BenchmarkBoards.prepareEnvironment();
+	String name = ScenarioGenerator.defaultName(PathStyle.SERPENTINE, size, size, SEED);
+	new ScenarioGenerator(SEED, size, size, PathStyle.SERPENTINE).writeScenario(new File("resources", FOLDER), name, LEVELS, ENEMIES,
+										    SPAWN_DELAY, TOWER_DENSITY);
+	Board board = new Board(size, size, FOLDER + "/" + ScenarioGenerator.mapFileName(name),
+				FOLDER + "/" + ScenarioGenerator.levelFileName(name), name);
+	new TowerLayoutReader(FOLDER + "/" + ScenarioGenerator.towerFileName(name)).placeTowers(board);
+	board.startNextRound();
+	for (int i = 0; i < TICKS; i++) {
+	    board.tick();
+	}
+
+	component = new BoardComponent(board);
+	component.setSize(BoardComponent.MAX_VIEW_SIZE);
+	component.doLayout();
+	component.getViewport().setViewSize(component.getWidth(), component.getHeight() - BoardComponent.TILE_SIZE);
+	component.getViewport().centerOn(board.getHeight() / 2, board.getWidth() / 2);
+	if (ranges) {
+	    component.setShowRangeCircles(true);
+	}
+	image = new BufferedImage(component.getWidth(), component.getHeight(), BufferedImage.TYPE_INT_ARGB);
+	graphics = image.createGraphics();
+    }
+
+    @TearDown
+    public void dispose() {
+	graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paint() {
+	component.paint(graphics);
+	return image;
+    }
+}
@@ -0,0 +1,80 @@
+package se.liu.feljo718.towerdefence.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.scenario.PathStyle;
+import se.liu.feljo718.towerdefence.scenario.ScenarioGenerator;
+import se.liu.feljo718.towerdefence.scenario.TowerLayoutReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures game ticks on large generated scenarios, to find where the game stops scaling.
+ * <p>
+ * A square scenario of the given size is generated once per trial. Every iteration then starts from a fresh board with the generated
+ * towers and runs the first level, so enemies keep spawning during the iteration like they would in a real game.
+ *
+ * @author feljo718
+ * @see ScenarioGenerator
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ScenarioTickBenchmark
+{
+    private static final long SEED = 718;
+    private static final int LEVELS = 10;
+    private static final int ENEMIES = 20000;
+    private static final int SPAWN_DELAY = 20;
+    private static final double TOWER_DENSITY = 0.1;
+    private static final String FOLDER = "generated";
+
+    @Param({ "100", "300", "1000" })
+    private int size;
+
+    @Param({ "SERPENTINE", "BRANCHING" })
+    private PathStyle style;
+
+    private String name = null;
+    private Board board = null;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+	BenchmarkBoards.prepareEnvironment();
+	name = ScenarioGenerator.defaultName(style, size, size, SEED);
+	new ScenarioGenerator(SEED, size, size, style).writeScenario(new File("resources", FOLDER), name, LEVELS, ENEMIES, SPAWN_DELAY,
+								     TOWER_DENSITY);
+    }
+
+    @Setup(Level.Iteration)
+    public void createBoard() throws IOException {
+	String mapFile = FOLDER + "/" + ScenarioGenerator.mapFileName(name);
+	String levelFile = FOLDER + "/" + ScenarioGenerator.levelFileName(name);
+	board = new Board(size, size, mapFile, levelFile, name);
+	new TowerLayoutReader(FOLDER + "/" + ScenarioGenerator.towerFileName(name)).placeTowers(board);
+	board.startNextRound();
+    }
+
+    @Benchmark
+    public void tick(Blackhole blackhole) {
+	board.tick();
+	blackhole.consume(board.getEnemyFactory().getEnemies().size());
+    }
+}
@@ -0,0 +1,89 @@
+package se.liu.feljo718.towerdefence.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.enemy.Enemy;
+import se.liu.feljo718.towerdefence.tower.SplashTower;
+import se.liu.feljo718.towerdefence.tower.Tower;
+import se.liu.feljo718.towerdefence.tower.TowerType;
+
+import java.awt.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures target selection and area damage of a single tower against a crowd of enemies.
+ * <p>
+ * The enemies are never removed, so the crowd stays the same throughout the run. Their health drops below zero during the splash
+ * benchmark, which does not change the amount of work done per call.
+ *
+ * @author feljo718
+ * @see Tower#findTarget(List)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TowerTargetingBenchmark
+{
+    @Param({ "10", "100", "1000" })
+    private int enemies;
+
+    private List<Enemy> enemyList = null;
+    private Tower tower = null;
+    private SplashProbe splashTower = null;
+    private Enemy splashTarget = null;
+
+    @Setup
+    public void prepare() {
+	BenchmarkBoards.prepareEnvironment();
+	Board board = BenchmarkBoards.createBoard("Default Map", 0, enemies);
+	enemyList = board.getEnemyFactory().getEnemies();
+
+	// Put the towers in the middle of the path so that a good share of the enemies is in range
+	Point middle = enemyList.get(enemyList.size() / 2).getPosition();
+	tower = board.getTowerFactory().createTower(TowerType.BASIC, middle.y, middle.x);
+	splashTower = new SplashProbe(new Point(middle));
+	splashTower.setBoard(board);
+	splashTarget = enemyList.get(enemyList.size() / 2);
+    }
+
+    @Benchmark
+    public Enemy findTarget() {
+	return tower.findTarget(enemyList);
+    }
+
+    @Benchmark
+    public void performSplashAttack() {
+	splashTower.splash(splashTarget);
+    }
+
+    /**
+     * A splash tower that exposes its area attack, so it can be measured without the sound, explosion and event overhead of
+     * {@link Tower#shoot(Enemy, double)}.
+     */
+    private static class SplashProbe extends SplashTower
+    {
+	private static final double SPLASH_RADIUS = 0.5;
+
+	private SplashProbe(Point position) {
+	    super(position);
+	}
+
+	private void splash(Enemy target) {
+	    performSplashAttack(target, SPLASH_RADIUS, "Splash");
+	}
+    }
+}
@@ -4,16 +4,26 @@ import se.liu.feljo718.towerdefence.board.Board;
 import se.liu.feljo718.towerdefence.board.BoardComponent;
 import se.liu.feljo718.towerdefence.board.BoardListener;
 import se.liu.feljo718.towerdefence.handler.LogHandler;
+import se.liu.feljo718.towerdefence.handler.PersistenceCallback;
 import se.liu.feljo718.towerdefence.highscore.Highscore;
 import se.liu.feljo718.towerdefence.highscore.HighscoreList;
+import se.liu.feljo718.towerdefence.highscore.LeaderboardClient;
+import se.liu.feljo718.towerdefence.highscore.LeaderboardServer;
+import se.liu.feljo718.towerdefence.lockstep.LockstepListener;
+import se.liu.feljo718.towerdefence.lockstep.LockstepSession;
+import se.liu.feljo718.towerdefence.spectator.SpectatorServer;
+import se.liu.feljo718.towerdefence.startup.StartupTimeline;
+import se.liu.feljo718.towerdefence.startup.TrainingRun;
+import se.liu.feljo718.towerdefence.startup.Warmup;
 import se.liu.feljo718.towerdefence.viewer.MainMenu;
 import se.liu.feljo718.towerdefence.viewer.MenuOptions;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.io.IOException;
-import java.io.UncheckedIOException;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
 import java.util.logging.Level;
 
 /**
@@ -22,6 +32,15 @@ import java.util.logging.Level;
  * This class implements the BoardListener interface to receive notifications when the game state changes. It manages the game window, menu
  * system, and the animation timer that drives the game loop. The viewer also handles various UI-related events like pausing, restarting,
  * and exiting the game.
+ * <p>
+ * If the system property {@value SpectatorServer#PORT_PROPERTY} is set, the game is streamed to spectators on that port after every tick,
+ * see {@link SpectatorServer}.
+ * <p>
+ * If the system property {@value LeaderboardServer#PORT_PROPERTY} is set, the game serves its highscores to other workstations, and if
+ * {@value LeaderboardClient#URL_PROPERTY} is set, scores are also sent to the leaderboard served there, see {@link LeaderboardServer}.
+ * <p>
+ * A game shared with another player is driven by its {@link LockstepSession}, which decides when the board ticks. Such a game cannot be
+ * paused, and the player is told if the other player leaves or the two boards drift apart.
  *
  * @author feljo718
  * @see Board
@@ -30,8 +49,7 @@ import java.util.logging.Level;
  */
 public class TowerDefenceViewer implements BoardListener
 {
-    private static final int FRAME_RATE = 60;
-    private static final int TIMER_DELAY = 1000 / FRAME_RATE;
+    private static final int TIMER_DELAY = Board.FRAME_MILLIS;
     private static final String GAME_TITLE = "Tower Defence";
     private static final String PAUSE_TEXT = "Pause";
     private static final String RESUME_TEXT = "Resume";
@@ -39,6 +57,10 @@ public class TowerDefenceViewer implements BoardListener
     private final Board board;
     private final HighscoreList highscoreList;
     private final JFrame frame;
+    /** Streams the game to spectators, or null if spectating is not enabled. */
+    private final SpectatorServer spectatorServer;
+    /** Shares the board with another player, or null if the game is not shared. */
+    private final LockstepSession session;
 
     private Timer clockTimer = null;
     private JMenuItem pauseButton;
@@ -51,6 +73,16 @@ public class TowerDefenceViewer implements BoardListener
      * @param board The game board to display and control
      */
     public TowerDefenceViewer(Board board) {
+	this(board, null);
+    }
+
+    /**
+     * Creates a game viewer for a board shared with another player.
+     *
+     * @param board   The game board to display and control
+     * @param session The session the board is shared through, or null if it is not shared
+     */
+    public TowerDefenceViewer(Board board, LockstepSession session) {
 	if (board == null) {
 	    throw new IllegalArgumentException("Board cannot be null");
 	}
@@ -58,23 +90,46 @@ public class TowerDefenceViewer implements BoardListener
 	this.board = board;
 	this.board.addBoardListener(this);
 	this.highscoreList = new HighscoreList();
+	this.session = session;
+	if (session != null) {
+	    session.addListener(new SharedGameListener());
+	}
 
 	// Initialize UI
 	this.frame = createFrame();
+	this.spectatorServer = SpectatorServer.startIfEnabled(board);
+	board.getMetrics().register();
 	startGame();
+
+	if (TrainingRun.isEnabled()) {
+	    TrainingRun.play(board);
+	}
     }
 
     /**
      * Main entry point for the game
+     * <p>
+     * Starts the {@link Warmup} before building the main menu, so that content, images and audio are loaded while the menu is shown. The
+     * launch is recorded in the {@link StartupTimeline}, which is written to the log once the first game frame has been painted.
      *
      * @param args Command line arguments (not used)
      */
     public static void main(String[] args) {
+	StartupTimeline.mark("main");
+	StartupTimeline.time("logging", () -> LogHandler.fine(TowerDefenceViewer.class, "Logging initialized"));
+	Warmup.start();
+	LeaderboardServer.startIfEnabled();
 	SwingUtilities.invokeLater(() -> {
+	    long start = System.nanoTime();
 	    MainMenu menu = new MainMenu();
 	    menu.initialize(); // First initialize the UI components
 	    menu.show();      // Then make the menu visible
+	    StartupTimeline.record("create main menu", start);
 	    LogHandler.info(TowerDefenceViewer.class, "Application started");
+
+	    if (TrainingRun.isEnabled()) {
+		menu.startNewGame();
+	    }
 	});
     }
 
@@ -98,13 +153,8 @@ public class TowerDefenceViewer implements BoardListener
 					    "Game Over", JOptionPane.INFORMATION_MESSAGE);
 
 	if (playerName != null && !playerName.trim().isEmpty()) {
-	    try {
-		highscoreList.addScore(new Highscore(playerName, score));
-		showHighscores();
-	    } catch (IOException e) {
-		LogHandler.severe(TowerDefenceViewer.class, "Error loading image: " + e.getMessage());
-		throw new UncheckedIOException("Failed to load required game resources", e);
-	    }
+	    saveHighscore(playerName, score);
+	    showHighscores();
 	}
 
 	// Ask if player wants to restart
@@ -127,7 +177,14 @@ public class TowerDefenceViewer implements BoardListener
 	    Action doOneStep = new AbstractAction()
 	    {
 		@Override public void actionPerformed(ActionEvent e) {
-		    board.tick();
+		    if (session != null) {
+			session.advance();
+		    } else {
+			board.tick();
+		    }
+		    if (spectatorServer != null) {
+			spectatorServer.publish();
+		    }
 		}
 	    };
 	    clockTimer = new Timer(TIMER_DELAY, doOneStep);
@@ -156,6 +213,20 @@ public class TowerDefenceViewer implements BoardListener
 	// Create menu bar
 	gameFrame.setJMenuBar(createMenuBar());
 
+	// Stop exposing the board through JMX, to spectators and to the other player once its window is gone
+	gameFrame.addWindowListener(new WindowAdapter()
+	{
+	    @Override public void windowClosed(WindowEvent e) {
+		board.getMetrics().unregister();
+		if (spectatorServer != null) {
+		    spectatorServer.close();
+		}
+		if (session != null) {
+		    session.close();
+		}
+	    }
+	});
+
 	gameFrame.pack();
 	return gameFrame;
     }
@@ -215,7 +286,7 @@ public class TowerDefenceViewer implements BoardListener
 	stopTick();
 	frame.dispose();
 	SwingUtilities.invokeLater(() -> {
-	    Board newBoard = new Board(20, 15);
+	    Board newBoard = new Board(Board.DEFAULT_WIDTH, Board.DEFAULT_HEIGHT);
 	    TowerDefenceViewer viewer = new TowerDefenceViewer(newBoard);
 	    viewer.show();
 	});
@@ -230,6 +301,7 @@ public class TowerDefenceViewer implements BoardListener
 	SwingUtilities.invokeLater(() -> {
 	    // Create a fresh board with the same dimensions as the current one
 	    Board newBoard = new Board(board.getWidth(), board.getHeight() - 1); // Subtract 1 for interface row
+	    newBoard.setMazeMode(board.isMazeMode());
 	    TowerDefenceViewer viewer = new TowerDefenceViewer(newBoard);
 	    viewer.show();
 	});
@@ -250,17 +322,19 @@ public class TowerDefenceViewer implements BoardListener
 
     /**
      * Toggles the pause state of the game
+     * <p>
+     * The game loop keeps running while the board is paused, so that actions the player takes during the pause are still applied. A game
+     * shared with another player cannot be paused.
      */
     private void togglePause() {
+	if (session != null && session.isConnected()) {
+	    JOptionPane.showMessageDialog(frame, "A game shared with another player cannot be paused.", "Pause",
+					  JOptionPane.INFORMATION_MESSAGE);
+	    return;
+	}
 	if (clockTimer != null) {
-	    boolean isPausing = clockTimer.isRunning();
-
-	    // Toggle timer state
-	    if (isPausing) {
-		clockTimer.stop();
-	    } else {
-		clockTimer.start();
-	    }
+	    boolean isPausing = !board.isPaused();
+	    board.setPaused(isPausing);
 
 	    // Update UI based on new state
 	    pauseButton.setText(isPausing ? RESUME_TEXT : PAUSE_TEXT);
@@ -270,6 +344,36 @@ public class TowerDefenceViewer implements BoardListener
 	}
     }
 
+    /**
+     * Adds the score to the highscore list. The list shows it at once, while it is written to disk in the background. The player is told
+     * if that fails. If a shared leaderboard is configured, the score is sent to it as well, and a failure to do so is only logged.
+     *
+     * @param playerName The name the player entered
+     * @param score      The score reached
+     */
+    private void saveHighscore(String playerName, int score) {
+	Highscore highscore = new Highscore(playerName, score, board.getMapName());
+	highscoreList.addScore(highscore, new PersistenceCallback()
+	{
+	    @Override public void saved(File file) {
+		LogHandler.info(TowerDefenceViewer.class, "Saved highscore of " + playerName + " to " + file);
+	    }
+
+	    @Override public void failed(File file, Exception cause) {
+		SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(frame, "Your highscore could not be saved:\n" + cause.getMessage(),
+									       "Error", JOptionPane.ERROR_MESSAGE));
+	    }
+	});
+
+	LeaderboardClient leaderboard = LeaderboardClient.getShared();
+	if (leaderboard != null) {
+	    leaderboard.submit(highscore).exceptionally(cause -> {
+		LogHandler.logWarning(TowerDefenceViewer.class, "Could not send the highscore to the leaderboard: " + cause.getMessage());
+		return null;
+	    });
+	}
+    }
+
     /**
      * Shows the current highscores
      */
@@ -345,6 +449,23 @@ public class TowerDefenceViewer implements BoardListener
 	}
     }
 
+    /**
+     * Tells the player what goes wrong in a shared game. Called on the thread that ticks the board.
+     */
+    private class SharedGameListener implements LockstepListener
+    {
+	@Override public void desynced(long fromTick, long toTick) {
+	    SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(frame, "Your board and the other player's board are no longer " +
+										  "the same.\nWhat you see may differ from what they see.",
+									   "Shared Game", JOptionPane.WARNING_MESSAGE));
+	}
+
+	@Override public void peerLeft(String reason) {
+	    SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(frame, reason + ".\nThe game goes on with you alone.",
+									   "Shared Game", JOptionPane.INFORMATION_MESSAGE));
+	}
+    }
+
     @Override public void gameCompleted() {
 	stopTick();
 	SwingUtilities.invokeLater(this::handleGameCompletion);
@@ -361,13 +482,8 @@ public class TowerDefenceViewer implements BoardListener
 						   "\nEnter your name for the highscore:", "Victory!", JOptionPane.INFORMATION_MESSAGE);
 
 	if (playerName != null && !playerName.trim().isEmpty()) {
-	    try {
-		highscoreList.addScore(new Highscore(playerName, score));
-		showHighscores();
-	    } catch (IOException e) {
-		LogHandler.severe(TowerDefenceViewer.class, "Error saving highscore: " + e.getMessage());
-		throw new UncheckedIOException("Failed to save highscore", e);
-	    }
+	    saveHighscore(playerName, score);
+	    showHighscores();
 	}
 
 	// Ask if player wants to restart
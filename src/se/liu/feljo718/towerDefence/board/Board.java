@@ -1,19 +1,31 @@
 package se.liu.feljo718.towerdefence.board;
 
 import com.google.gson.JsonSyntaxException;
+import se.liu.feljo718.towerdefence.command.Command;
+import se.liu.feljo718.towerdefence.command.CommandQueue;
+import se.liu.feljo718.towerdefence.command.CommandResult;
+import se.liu.feljo718.towerdefence.command.CommandSink;
+import se.liu.feljo718.towerdefence.enemy.Enemy;
 import se.liu.feljo718.towerdefence.enemy.EnemyFactory;
-import se.liu.feljo718.towerdefence.handler.LevelReader;
+import se.liu.feljo718.towerdefence.handler.ContentCache;
 import se.liu.feljo718.towerdefence.handler.LogHandler;
-import se.liu.feljo718.towerdefence.handler.MapReader;
+import se.liu.feljo718.towerdefence.metrics.BoardMetrics;
+import se.liu.feljo718.towerdefence.metrics.TickBudgetRecorder;
+import se.liu.feljo718.towerdefence.metrics.TickEvent;
+import se.liu.feljo718.towerdefence.metrics.TickPhase;
+import se.liu.feljo718.towerdefence.metrics.TickProfiler;
+import se.liu.feljo718.towerdefence.telemetry.Telemetry;
+import se.liu.feljo718.towerdefence.telemetry.TelemetryEventType;
 import se.liu.feljo718.towerdefence.tower.TowerFactory;
 import se.liu.feljo718.towerdefence.viewer.Explosion;
 
 import java.awt.*;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The core game board that manages the state and logic of the Tower Defense game.
@@ -23,16 +35,44 @@ import java.util.List;
  * <p>
  * The board uses a coordinate system with [row, column] indexing where [0,0] is at the top-left. The first row (row 0) is reserved for
  * interface elements, with the playable map starting at row 1.
+ * <p>
+ * In maze mode towers may also be built on open ground, which enemies then walk over. Every tower placed or removed changes the route, and
+ * the board's {@link FlowField} is repaired around the tower instead of being computed again. Placements that would leave a spawn or an
+ * enemy without any way to an exit are refused by {@link #canPlaceTower(int, int)}.
+ * <p>
+ * Player actions reach the board as {@link Command}s through {@link #submit(Command)}. They are queued and applied at the start of the next
+ * {@link #tick()}, so the interface never changes the board while a tick is running.
+ * <p>
+ * A board between rounds can be {@link #copy() copied} to play ahead on another thread, for example to forecast how the next round will
+ * go. Copies share nothing that changes with the original and do not play sounds or record telemetry.
  *
  * @author feljo718
  */
 public class Board
 {
+    /** The width of the playable map of a normal game in tiles. */
+    public static final int DEFAULT_WIDTH = 20;
+    /** The height of the playable map of a normal game in tiles, without the interface row. */
+    public static final int DEFAULT_HEIGHT = 15;
+    /** The map played when the player has not chosen one. */
+    public static final String DEFAULT_MAP = "Default Map";
     /** JSON file containing map configuration data. */
-    private static final String MAP_FILE = "maps.json";
+    public static final String MAP_FILE = "maps.json";
+    /** JSON file containing the level definitions. */
+    public static final String LEVEL_FILE = "levels.json";
+    /** The highest game speed, in simulation steps per frame. */
+    public static final int MAX_GAME_SPEED = 8;
     private static final int STARTING_LIVES = 15;
     private static final int STARTING_COINS = 350;
     private static final int LEVEL_COMPLETION_BONUS = 100;
+    /** The frame rate the game loop aims for, one tick per frame at normal speed. */
+    public static final int FRAME_RATE = 60;
+    /** The delay between frames of the game loop's timer, which counts whole milliseconds. */
+    public static final int FRAME_MILLIS = 1000 / FRAME_RATE;
+    /** The time budget of a tick is the frame the timer actually gives it. */
+    private static final long EXPECTED_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(FRAME_MILLIS);
+    /** Simulated time that passes in one tick, matching the frame time used by the towers. */
+    private static final int TICK_MILLIS = 17;
 
     private final List<BoardListener> boardListeners;
     private final int width;
@@ -41,24 +81,62 @@ public class Board
     private final TowerFactory towerFactory;
     private final List<Explosion> explosions = new ArrayList<>();
     private final String mapName;
-    private TileType[][] tiles = null;
+    private final String mapFile;
+    private final String levelFile;
+    private final TickProfiler tickProfiler = new TickProfiler(EXPECTED_TICK_NANOS);
+    private final BoardMetrics metrics;
+    private final CommandQueue commandQueue = new CommandQueue();
+    private volatile CommandSink commandSink = commandQueue;
+    private final boolean copy;
+    private TileGrid tiles = null;
+    private FlowField flowField = null;
+    private boolean mazeMode = false;
+    private int[] enemyTiles = new int[0];
     private Level currentLevel = null;
-    private List<Level> levels;
+    private List<LevelDefinition> levels;
     private int currentLevelIndex = -1;
+    private long tickCount = 0;
+    private long gameTime = 0;
+    private volatile boolean paused = false;
+    private volatile int gameSpeed = 1;
     private int lives = STARTING_LIVES;
     private int coins = STARTING_COINS;
+    private int lastEntityId = 0;
+    private long damageDealt = 0;
+    private long damageAbsorbed = 0;
+    private long commandCount = 0;
 
 
     public Board(final int width, final int height, final String mapName) {
+	this(width, height, MAP_FILE, LEVEL_FILE, mapName);
+    }
+
+    /**
+     * Creates a board that reads its map and levels from the given files instead of the bundled ones.
+     * <p>
+     * The file names are resolved like the bundled files, relative to the {@code resources} folder, so generated scenarios such as those
+     * written by {@link se.liu.feljo718.towerdefence.scenario.ScenarioGenerator} can be loaded from a subfolder of it.
+     *
+     * @param width     The width of the playable map in tiles
+     * @param height    The height of the playable map in tiles
+     * @param mapFile   The JSON file containing the map
+     * @param levelFile The JSON file containing the levels
+     * @param mapName   The name of the map to load from the map file
+     */
+    public Board(final int width, final int height, final String mapFile, final String levelFile, final String mapName) {
 	if (width < 1 || height < 1) {
 	    throw new IllegalArgumentException("Board dimensions must be positive values");
 	}
 
 	this.width = width;
 	this.height = height + 1; // Add 1 for interface row
-	this.mapName = mapName != null ? mapName : "Default Map";
+	this.mapName = mapName != null ? mapName : DEFAULT_MAP;
+	this.mapFile = mapFile;
+	this.levelFile = levelFile;
 	this.boardListeners = new ArrayList<>();
 	this.levels = new ArrayList<>();
+	this.metrics = new BoardMetrics(this);
+	this.copy = false;
 
 	loadMap();
 	this.enemyFactory = new EnemyFactory(this);
@@ -67,17 +145,100 @@ public class Board
     }
 
     public Board(final int width, final int height) {
-	this(width, height, "Default Map");
+	this(width, height, DEFAULT_MAP);
+    }
+
+    private Board(Board original) {
+	this.width = original.width;
+	this.height = original.height;
+	this.mapName = original.mapName;
+	this.mapFile = original.mapFile;
+	this.levelFile = original.levelFile;
+	this.boardListeners = new ArrayList<>();
+	this.metrics = new BoardMetrics(this);
+	this.copy = true;
+
+	// The level definitions never change, only the levels being played have state
+	this.levels = original.levels;
+	this.currentLevelIndex = original.currentLevelIndex;
+	this.tiles = original.tiles.copy();
+	this.mazeMode = original.mazeMode;
+	this.tickCount = original.tickCount;
+	this.gameTime = original.gameTime;
+	this.gameSpeed = original.gameSpeed;
+	this.lives = original.lives;
+	this.coins = original.coins;
+	// Enemy routes depend on their ids, so the copy hands out the same ids the original would
+	this.lastEntityId = original.lastEntityId;
+	this.commandCount = original.commandCount;
+
+	this.enemyFactory = new EnemyFactory(this);
+	this.towerFactory = new TowerFactory(this);
+	towerFactory.copyTowers(original.towerFactory);
+    }
+
+    /**
+     * Makes an independent copy of the board between rounds, with the same map, towers, powerups, coins, lives and clocks. Must be called
+     * on the thread that ticks the board. The copy can then be ticked on any one thread without affecting the original.
+     * <p>
+     * Enemies are not copied, so the board must not be in the middle of a round. Listeners, queued commands and explosions stay with the
+     * original.
+     *
+     * @return The copy, ready to start the next round
+     * @throws IllegalStateException If a round is being played
+     */
+    public Board copy() {
+	if (!isRoundCleared()) {
+	    throw new IllegalStateException("A board can only be copied between rounds");
+	}
+	return new Board(this);
+    }
+
+    /**
+     * Returns true if this board was made by {@link #copy()}. Copies play ahead of the real game, so they stay silent and are left out of
+     * telemetry and tick budget recordings.
+     */
+    public boolean isCopy() {
+	return copy;
+    }
+
+    /**
+     * Reads a map of the bundled map file into the {@link ContentCache} without creating a board, so that the next board with this map
+     * does not read the file. Failures are only logged, the board reports them again when it loads the map.
+     *
+     * @param width   The width of the playable map in tiles
+     * @param height  The height of the playable map in tiles
+     * @param mapName The name of the map
+     */
+    public static void preloadMap(int width, int height, String mapName) {
+	try {
+	    ContentCache.getMap(MAP_FILE, mapName, width, height);
+	} catch (JsonSyntaxException | IllegalArgumentException e) {
+	    LogHandler.fine(Board.class, "Could not preload map '" + mapName + "': " + e.getMessage());
+	}
+    }
+
+    /**
+     * Reads the bundled levels into the {@link ContentCache} without creating a board. Failures are only logged, the board reports them
+     * again when it loads the levels.
+     */
+    public static void preloadLevels() {
+	try {
+	    ContentCache.getLevels(LEVEL_FILE);
+	} catch (JsonSyntaxException e) {
+	    LogHandler.fine(Board.class, "Could not preload levels: " + e.getMessage());
+	}
     }
 
 
     /**
      * Loads game levels from configuration. If loading fails, initializes with an empty level list as fallback.
+     * <p>
+     * The level definitions come from the {@link ContentCache}, so only the first board reads the file.
      */
     private void loadLevels() {
 	try {
-	    LevelReader levelReader = new LevelReader();
-	    List<Level> loadedLevels = levelReader.getLevels();
+	    List<LevelDefinition> loadedLevels = ContentCache.getLevels(levelFile);
 
 	    if (loadedLevels == null || loadedLevels.isEmpty()) {
 		// No levels found - create empty list as fallback
@@ -120,7 +281,7 @@ public class Board
 
 	    currentLevelIndex++;
 	    if (currentLevelIndex < levels.size()) {
-		startLevel(levels.get(currentLevelIndex));
+		startLevel(new Level(levels.get(currentLevelIndex)));
 	    }
 	}
     }
@@ -134,9 +295,74 @@ public class Board
     }
 
     /**
-     * Updates the game state for a single frame.
+     * Advances the game by one frame of the game loop.
      * <p>
-     * This method is called repeatedly as part of the game loop and performs several key operations:
+     * While the board is paused nothing is simulated. Otherwise the simulation is stepped {@link #getGameSpeed()} times, so a higher game
+     * speed makes everything happen faster without changing the frame rate. Pending state snapshot requests are answered at the end of the
+     * frame, when the board is in a consistent state.
+     * <p>
+     * Commands submitted since the last frame are applied first, also while the board is paused, so the player can build during a pause.
+     */
+    public void tick() {
+	int applied = commandQueue.drain(this);
+	if (applied > 0) {
+	    commandCount += applied;
+	    // Also tells listeners about commands applied while paused, when no step does it
+	    notifyListeners();
+	}
+	if (!paused) {
+	    int steps = gameSpeed;
+	    for (int i = 0; i < steps; i++) {
+		step();
+	    }
+	}
+	metrics.frameCompleted();
+    }
+
+    /**
+     * Queues a player action to be applied at the start of the next tick. Safe to call from any thread.
+     *
+     * @param command The action to apply
+     *
+     * @return A future completed with the outcome of the action on the thread that ticks the board
+     */
+    public <T> CompletableFuture<CommandResult<T>> submit(Command<T> command) {
+	return commandSink.submit(command);
+    }
+
+    /**
+     * Queues a command to be applied at the start of the next tick, past the {@link #setCommandSink(CommandSink) command sink}. Used by
+     * a sink to hand the board the commands it has decided to apply. Safe to call from any thread.
+     *
+     * @param command The action to apply
+     *
+     * @return A future completed with the outcome of the action on the thread that ticks the board
+     */
+    public <T> CompletableFuture<CommandResult<T>> enqueue(Command<T> command) {
+	return commandQueue.submit(command);
+    }
+
+    /**
+     * Sends the commands submitted from now on somewhere else than straight to the next tick, for example to another player.
+     *
+     * @param sink Where submitted commands go, or null to apply them at the next tick again
+     */
+    public void setCommandSink(CommandSink sink) {
+	commandSink = sink != null ? sink : commandQueue;
+    }
+
+    /**
+     * Returns the number of commands applied to the board so far. Anything derived from the board's state, such as a forecast, is out of
+     * date once this number has changed.
+     */
+    public long getCommandCount() {
+	return commandCount;
+    }
+
+    /**
+     * Updates the game state for a single simulation step.
+     * <p>
+     * This method performs several key operations:
      * <ul>
      *   <li>Spawns new enemies based on the current level timing</li>
      *   <li>Processes enemy movement across the board</li>
@@ -144,26 +370,65 @@ public class Board
      *   <li>Cleans up defeated enemies</li>
      *   <li>Notifies listeners of state changes</li>
      * </ul>
+     * Each step is timed by the board's {@link TickProfiler} when it is enabled, or when a slow tick should be reported to Flight
+     * Recorder.
      */
-    public void tick() {
-	long currentTime = System.currentTimeMillis();
+    private void step() {
+	TickEvent tickEvent = new TickEvent();
+	tickEvent.begin();
+	long tickStart = tickProfiler.startTick(tickEvent.isEnabled() || (!copy && TickBudgetRecorder.isArmed()));
+	tickCount++;
+	gameTime += TICK_MILLIS;
 
 	// Handle enemy spawning
 	if (currentLevel != null && !currentLevel.isCompleted()) {
-	    if (currentLevel.shouldSpawnEnemy(currentTime)) {
+	    if (currentLevel.shouldSpawnEnemy(gameTime)) {
 		enemyFactory.spawnEnemy(currentLevel.getCurrentEnemyType());
 	    }
 	}
+	long phaseStart = tickProfiler.endPhase(TickPhase.SPAWN, tickStart);
 
 	// Update explosions
 	updateExplosions();
+	phaseStart = tickProfiler.endPhase(TickPhase.EXPLOSIONS, phaseStart);
 
 	// Process game logic
 	enemyFactory.moveEnemies();
+	phaseStart = tickProfiler.endPhase(TickPhase.MOVE_ENEMIES, phaseStart);
 	towerFactory.tick();
+	phaseStart = tickProfiler.endPhase(TickPhase.TOWERS, phaseStart);
 	enemyFactory.removeFinishedEnemies();
+	phaseStart = tickProfiler.endPhase(TickPhase.REMOVE_ENEMIES, phaseStart);
 
 	notifyListeners();
+	tickProfiler.endPhase(TickPhase.NOTIFY_LISTENERS, phaseStart);
+	tickProfiler.endTick(tickStart);
+
+	tickEvent.end();
+	if (tickEvent.shouldCommit()) {
+	    commitTickEvent(tickEvent);
+	}
+	if (tickStart != 0 && !copy) {
+	    TickBudgetRecorder.tickCompleted(tickProfiler.getLastPhaseNanos(TickPhase.TOTAL));
+	}
+	metrics.stepCompleted();
+    }
+
+    /**
+     * Fills in the per-phase breakdown of a slow tick and hands it to Flight Recorder.
+     */
+    private void commitTickEvent(TickEvent tickEvent) {
+	tickEvent.tick = tickCount;
+	tickEvent.round = getRound();
+	tickEvent.enemies = enemyFactory.getEnemies().size();
+	tickEvent.towers = towerFactory.getTowers().size();
+	tickEvent.spawn = tickProfiler.getLastPhaseNanos(TickPhase.SPAWN);
+	tickEvent.explosions = tickProfiler.getLastPhaseNanos(TickPhase.EXPLOSIONS);
+	tickEvent.moveEnemies = tickProfiler.getLastPhaseNanos(TickPhase.MOVE_ENEMIES);
+	tickEvent.towersPhase = tickProfiler.getLastPhaseNanos(TickPhase.TOWERS);
+	tickEvent.removeEnemies = tickProfiler.getLastPhaseNanos(TickPhase.REMOVE_ENEMIES);
+	tickEvent.notifyListeners = tickProfiler.getLastPhaseNanos(TickPhase.NOTIFY_LISTENERS);
+	tickEvent.commit();
     }
 
     /**
@@ -183,41 +448,34 @@ public class Board
     /**
      * Loads the game map from the configured file.
      * <p>
-     * Creates a tile grid with an additional interface row at the top. The method reads a map layout from the JSON file and adds an
-     * interface row at position 0, shifting the actual game map down by one row.
+     * Creates a tile grid with an additional interface row at the top. The method takes the map layout from the {@link ContentCache},
+     * which reads the JSON file the first time the map is used, and adds an interface row at position 0, shifting the actual game map down
+     * by one row.
      */
     private void loadMap() {
 	try {
-	    MapReader mapReader = new MapReader(MAP_FILE, width, height - 1, mapName);
-	    TileType[][] gameMap = mapReader.getMap();
+	    MapDefinition gameMap = ContentCache.getMap(mapFile, mapName, width, height - 1);
 
-	    if (gameMap == null || gameMap.length != height - 1) {
+	    if (gameMap.getHeight() != height - 1 || gameMap.getWidth() != width) {
 		LogHandler.logWarning(Board.class, "Invalid game map dimensions");
 		createDefaultMap();
 		return;
 	    }
 
-	    // Validate row lengths
-	    for (TileType[] row : gameMap) {
-		if (row == null || row.length != width) {
-		    LogHandler.logWarning(Board.class, "Invalid row width in game map");
-		    createDefaultMap();
-		    return;
-		}
-	    }
-
 	    // Initialize tiles with interface row
-	    tiles = new TileType[height][width];
-	    Arrays.fill(tiles[0], TileType.INTERFACE);
+	    TileGrid grid = new TileGrid(width, height, TileType.INTERFACE);
 
-	    // Copy game map into tiles array
+	    // Copy game map into the grid, the shared definition itself is never changed
+	    TileType[] rowTiles = new TileType[width];
 	    for (int row = 0; row < height - 1; row++) {
-		System.arraycopy(gameMap[row], 0, tiles[row + 1], 0, width);
+		gameMap.copyRow(row, rowTiles);
+		grid.setRow(row + 1, rowTiles);
 	    }
+	    tiles = grid;
 
 	    LogHandler.info(Board.class, "Map '" + mapName + "' loaded successfully");
 
-	} catch (JsonSyntaxException e) {
+	} catch (JsonSyntaxException | IllegalArgumentException e) {
 	    LogHandler.severe(Board.class, "Failed to parse map file: " + e.getMessage(), e);
 	    createDefaultMap();
 	    return;
@@ -233,32 +491,28 @@ public class Board
      * Creates a simple default map if map loading fails.
      */
     private void createDefaultMap() {
-	tiles = new TileType[height][width];
+	// Fill game area with grass by default
+	tiles = new TileGrid(width, height, TileType.GRASS);
 
 	// Fill interface row
 	for (int col = 0; col < width; col++) {
-	    tiles[0][col] = TileType.INTERFACE;
-	}
-
-	// Fill game area with grass by default
-	for (int row = 1; row < height; row++) {
-	    for (int col = 0; col < width; col++) {
-		tiles[row][col] = TileType.GRASS;
-	    }
+	    tiles.setTile(0, col, TileType.INTERFACE);
 	}
 
 	// Create a simple path
 	for (int col = 0; col < width; col++) {
-	    tiles[height / 2][col] = TileType.PATH;
+	    tiles.setTile(height / 2, col, TileType.PATH);
 	}
 
 	// Start and end points
-	tiles[height / 2][0] = TileType.START;
-	tiles[height / 2][width - 1] = TileType.END;
+	tiles.setTile(height / 2, 0, TileType.START);
+	tiles.setTile(height / 2, width - 1, TileType.END);
     }
 
     /**
      * Gets the tile type at the specified position.
+     * <p>
+     * Code that only needs to know what a tile allows, or that looks at many tiles, should use the flags of {@link #getTileGrid()}.
      *
      * @param row The row index
      * @param col The column index
@@ -266,10 +520,107 @@ public class Board
      * @return The tile type at the specified position, or null if out of bounds
      */
     public TileType getTileAt(int row, int col) {
-	if (row < 0 || row >= height || col < 0 || col >= width) {
-	    return null;
+	return tiles.getTile(row, col);
+    }
+
+    /**
+     * Returns the packed tiles of the board, including the interface row and which tiles have a tower on them.
+     */
+    public TileGrid getTileGrid() {
+	return tiles;
+    }
+
+    /**
+     * Returns true if towers can be built on open ground for the enemies to walk around.
+     */
+    public boolean isMazeMode() {
+	return mazeMode;
+    }
+
+    /**
+     * Turns maze mode on or off. Open ground without a tower becomes walkable in maze mode, and the flow field is computed again.
+     *
+     * @param enabled true to let enemies walk over open ground
+     */
+    public void setMazeMode(boolean enabled) {
+	if (enabled == mazeMode) {
+	    return;
+	}
+	mazeMode = enabled;
+	for (int row = 0; row < height; row++) {
+	    for (int col = 0; col < width; col++) {
+		if (tiles.isBuildable(row, col)) {
+		    tiles.setWalkable(row, col, enabled);
+		}
+	    }
+	}
+	if (flowField != null) {
+	    flowField.rebuild();
 	}
-	return tiles[row][col];
+	LogHandler.info(Board.class, "Maze mode " + (enabled ? "enabled" : "disabled"));
+    }
+
+    /**
+     * Checks whether a tower may be placed on a tile.
+     * <p>
+     * The tile must be buildable and free. In maze mode the tower must also leave every spawn and every enemy a way to an exit, and no
+     * enemy may be standing on or walking onto the tile.
+     *
+     * @param row The board row
+     * @param col The board column
+     *
+     * @return true if the tower may be placed
+     */
+    public boolean canPlaceTower(int row, int col) {
+	if (!tiles.isBuildable(row, col)) {
+	    return false;
+	}
+	if (!mazeMode) {
+	    return true;
+	}
+
+	List<Enemy> enemies = enemyFactory.getEnemies();
+	if (enemyTiles.length < enemies.size() * 2) {
+	    enemyTiles = new int[enemies.size() * 2];
+	}
+	int count = 0;
+	for (Enemy enemy : enemies) {
+	    enemyTiles[count++] = enemy.getTileIndex();
+	    enemyTiles[count++] = enemy.getTargetTileIndex();
+	}
+	return getFlowField().canBlock(tiles.indexOf(row, col), enemyTiles, count);
+    }
+
+    /**
+     * Records that a tower was placed on or removed from a tile. Called by the {@link TowerFactory}.
+     * <p>
+     * In maze mode the tile's walkability changes with it and the flow field is repaired around the tile.
+     *
+     * @param row      The board row
+     * @param col      The board column
+     * @param hasTower true if a tower now stands on the tile
+     */
+    public void setTowerOnTile(int row, int col, boolean hasTower) {
+	tiles.setOccupied(row, col, hasTower);
+	if (!mazeMode || !tiles.hasFlags(row, col, TileGrid.BUILDABLE)) {
+	    return;
+	}
+	tiles.setWalkable(row, col, !hasTower);
+	if (flowField != null) {
+	    int index = tiles.indexOf(row, col);
+	    int changed = hasTower ? flowField.block(index) : flowField.unblock(index);
+	    LogHandler.fine(Board.class, () -> "Route repaired around (" + row + "," + col + "), " + changed + " tiles changed");
+	}
+    }
+
+    /**
+     * Returns the distances to the exits that all enemies on the board walk by. The field is computed the first time it is needed.
+     */
+    public FlowField getFlowField() {
+	if (flowField == null) {
+	    flowField = new FlowField(tiles);
+	}
+	return flowField;
     }
 
 
@@ -291,8 +642,42 @@ public class Board
     }
 
 
+    /**
+     * Returns the number of levels loaded for the board, which is the number of rounds a game can have.
+     */
+    public int getLevelCount() {
+	return levels.size();
+    }
+
+    /**
+     * Returns true if no round is being played: no round has been started yet, or every enemy of the current round has been spawned and
+     * none is left on the board.
+     */
+    public boolean isRoundCleared() {
+	return currentLevel == null || (currentLevel.isCompleted() && enemyFactory.getEnemies().isEmpty());
+    }
+
+
+    /**
+     * Starts the level of the given round straight away, as if the rounds before it had been played. Used by tools that study one level
+     * at a time instead of a whole game.
+     *
+     * @param round The one-based round to play
+     *
+     * @throws IllegalArgumentException If the board has no level for the round
+     */
+    public void startRound(int round) {
+	if (round < 1 || round > levels.size()) {
+	    throw new IllegalArgumentException("Round " + round + " is outside the " + levels.size() + " loaded levels");
+	}
+	currentLevelIndex = round - 1;
+	startLevel(new Level(levels.get(currentLevelIndex)));
+    }
+
+
     public void startLevel(Level level) {
 	if (level != null) {
+	    level.setRound(getRound());
 	    this.currentLevel = level;
 	    notifyListeners();
 	}
@@ -321,6 +706,7 @@ public class Board
 
     public void livesLost() {
 	lives--;
+	Telemetry.record(this, TelemetryEventType.LIFE_LOST, 0, 0, 0, 0, 0, lives);
 	notifyListeners();
 
 	if (lives <= 0) {
@@ -329,6 +715,21 @@ public class Board
     }
 
 
+    /**
+     * Tells the listeners that an enemy reached the exit. Called by the {@link EnemyFactory} when it removes the enemy, after the life has
+     * been taken.
+     *
+     * @param enemy The enemy that got through
+     */
+    public void enemyLeaked(Enemy enemy) {
+	synchronized (boardListeners) {
+	    for (BoardListener listener : boardListeners) {
+		listener.enemyLeaked(enemy);
+	    }
+	}
+    }
+
+
     private void showGameOverDialog() {
 	synchronized (boardListeners) {
 	    for (BoardListener listener : boardListeners) {
@@ -340,6 +741,7 @@ public class Board
 
     public void gainCoins(int amount) {
 	coins += amount;
+	Telemetry.record(this, TelemetryEventType.COINS, 0, 0, 0, 0, 0, amount);
 	notifyListeners();
     }
 
@@ -359,6 +761,35 @@ public class Board
     }
 
 
+    /**
+     * Counts a hit on an enemy for {@link #getDamageDealt()} and {@link #getDamageAbsorbed()}.
+     *
+     * @param damage The damage of the hit
+     * @param health The health the enemy had before the hit
+     */
+    public void recordDamage(int damage, int health) {
+	damageDealt += damage;
+	damageAbsorbed += Math.max(0, Math.min(damage, health));
+    }
+
+
+    /**
+     * Returns the damage towers have dealt on this board, including damage beyond what the enemies they hit had left.
+     */
+    public long getDamageDealt() {
+	return damageDealt;
+    }
+
+
+    /**
+     * Returns the part of {@link #getDamageDealt()} that actually took health off enemies. The rest was overkill: shots that finished off
+     * an enemy with more damage than needed, or hit an enemy that was already dead.
+     */
+    public long getDamageAbsorbed() {
+	return damageAbsorbed;
+    }
+
+
     public void addExplosion(Point position) {
 	if (position != null) {
 	    explosions.add(new Explosion(position));
@@ -369,4 +800,93 @@ public class Board
     public List<Explosion> getExplosions() {
 	return Collections.unmodifiableList(explosions);
     }
+
+
+    /**
+     * Returns the number of ticks this board has simulated.
+     *
+     * @return The tick count
+     */
+    public long getTickCount() {
+	return tickCount;
+    }
+
+
+    /**
+     * Hands out the next entity id on this board. Enemies and towers get an id when they are put on the board, so that telemetry can
+     * tell them apart.
+     *
+     * @return An id that is unique on this board, starting at 1
+     */
+    public int nextEntityId() {
+	return ++lastEntityId;
+    }
+
+
+    /**
+     * Returns the simulated time that has passed on this board. All gameplay timing (spawn delays, slow effects, powerup durations) is
+     * measured in this time rather than wall-clock time, so it scales with the game speed and stops while the board is paused.
+     *
+     * @return The game time in milliseconds
+     */
+    public long getGameTime() {
+	return gameTime;
+    }
+
+    public boolean isPaused() {
+	return paused;
+    }
+
+    /**
+     * Pauses or resumes the simulation. A paused board keeps answering {@link #tick()} calls but does not advance.
+     *
+     * @param paused {@code true} to pause
+     */
+    public void setPaused(boolean paused) {
+	this.paused = paused;
+    }
+
+    public int getGameSpeed() {
+	return gameSpeed;
+    }
+
+    /**
+     * Sets how many simulation steps are run per call to {@link #tick()}.
+     *
+     * @param gameSpeed The number of steps per frame, between 1 and {@value #MAX_GAME_SPEED}
+     *
+     * @throws IllegalArgumentException if the speed is out of range
+     */
+    public void setGameSpeed(int gameSpeed) {
+	if (gameSpeed < 1 || gameSpeed > MAX_GAME_SPEED) {
+	    throw new IllegalArgumentException("Game speed must be between 1 and " + MAX_GAME_SPEED);
+	}
+	this.gameSpeed = gameSpeed;
+    }
+
+    public String getMapName() {
+	return mapName;
+    }
+
+    /**
+     * Returns the file the map was read from, relative to the {@code resources} folder.
+     */
+    public String getMapFile() {
+	return mapFile;
+    }
+
+    /**
+     * Returns the file the levels were read from, relative to the {@code resources} folder.
+     */
+    public String getLevelFile() {
+	return levelFile;
+    }
+
+    public BoardMetrics getMetrics() {
+	return metrics;
+    }
+
+    public TickProfiler getTickProfiler() {
+	return tickProfiler;
+    }
 }
\ No newline at end of file
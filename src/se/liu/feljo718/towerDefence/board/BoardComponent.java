@@ -1,20 +1,30 @@
 package se.liu.feljo718.towerdefence.board;
 
+import se.liu.feljo718.towerdefence.command.PlaceTowerCommand;
+import se.liu.feljo718.towerdefence.command.StartRoundCommand;
 import se.liu.feljo718.towerdefence.enemy.Enemy;
+import se.liu.feljo718.towerdefence.handler.AssetCache;
 import se.liu.feljo718.towerdefence.handler.LogHandler;
+import se.liu.feljo718.towerdefence.startup.StartupTimeline;
 import se.liu.feljo718.towerdefence.tower.Tower;
 import se.liu.feljo718.towerdefence.tower.TowerType;
 import se.liu.feljo718.towerdefence.viewer.Explosion;
+import se.liu.feljo718.towerdefence.viewer.ForecastOverlay;
+import se.liu.feljo718.towerdefence.viewer.PerformanceOverlay;
 import se.liu.feljo718.towerdefence.viewer.TowerMenu;
 import se.liu.feljo718.towerdefence.viewer.TowerShop;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.io.IOException;
-import java.net.URL;
+import java.awt.event.MouseWheelEvent;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A visual representation of the Tower Defense game board.
@@ -23,6 +33,15 @@ import java.net.URL;
  * placement and selection.
  * <p>
  * The component implements BoardListener to receive updates from the game board and refresh the display when the game state changes.
+ * <p>
+ * Maps larger than the window are shown through a {@link Viewport}: dragging with the mouse or the arrow keys scroll the map, and the
+ * mouse wheel or the plus and minus keys zoom around the cursor. Only what intersects the visible area is drawn, with the background
+ * taken from a {@link TileChunkCache}, so the cost of a frame depends on the size of the window and not on the size of the map.
+ * <p>
+ * Between rounds the "Forecast" button shows what the next round is expected to do to the current defence, see {@link ForecastOverlay}.
+ * <p>
+ * The map, enemies and towers are drawn by static methods, which the
+ * {@link se.liu.feljo718.towerdefence.spectator.SpectatorViewer SpectatorViewer} also uses to draw a game it only knows from a stream.
  *
  * @author feljo718
  * @see Board
@@ -34,6 +53,8 @@ public class BoardComponent extends JComponent implements BoardListener
     public static final int TILE_SIZE = 40;
     /** The size of enemy sprites in pixels. */
     public static final int ENEMY_SIZE = 30;
+    /** The largest size the component asks for, larger maps are scrolled. */
+    public static final Dimension MAX_VIEW_SIZE = new Dimension(1280, 800);
 
     private static final Color GRASS_COLOR = Color.decode("#228B22");
     private static final Color PATH_COLOR = Color.decode("#996600");
@@ -43,6 +64,10 @@ public class BoardComponent extends JComponent implements BoardListener
     private static final Color SAND_COLOR = Color.decode("#D2B48C");
     private static final Color RANGE_COLOR = new Color(173, 216, 230, 128);
     private static final Color POWERUP_GLOW = new Color(255, 255, 0, 100);
+    private static final Color OUTSIDE_MAP_COLOR = Color.DARK_GRAY;
+    private static final String TOGGLE_PERFORMANCE_OVERLAY = "togglePerformanceOverlay";
+    /** How far one press of an arrow key scrolls, in tiles. */
+    private static final int KEY_PAN_TILES = 2;
 
     private final Board board;
     private final JLabel livesLabel;
@@ -51,10 +76,20 @@ public class BoardComponent extends JComponent implements BoardListener
     private final JButton buyMenuButton;
     private final JButton nextRoundButton;
     private final JButton viewCircleButton;
+    private final JButton forecastButton;
+    private final transient PerformanceOverlay performanceOverlay;
+    private final transient ForecastOverlay forecastOverlay;
+    private final JPanel controlPanel;
+    private final transient Viewport viewport;
+    private final transient TileChunkCache chunkCache;
+    /** Reused every frame for the towers inside the view. */
+    private final transient List<Tower> visibleTowers = new ArrayList<>();
     private boolean placingTower = false;
     private TowerType selectedTower = null;
     private boolean showRangeCircles = false;
+    private boolean showPerformanceOverlay = false;
     private Image explosionImage = null;
+    private boolean framePainted = false;
 
 
     public BoardComponent(Board board) {
@@ -68,31 +103,44 @@ public class BoardComponent extends JComponent implements BoardListener
 	nextRoundButton = new JButton("Next Round");
 	roundLabel = new JLabel("Round: " + board.getRound());
 	viewCircleButton = new JButton("View Range");
+	forecastButton = new JButton("Forecast");
+	performanceOverlay = new PerformanceOverlay(board);
+	forecastOverlay = new ForecastOverlay(board, this);
+	controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
+	viewport = new Viewport(board);
+	chunkCache = new TileChunkCache(board);
 
 	setUpUI();
 	setUpListeners();
-	loadExplosionImage();
+	explosionImage = AssetCache.getImage(AssetCache.EXPLOSION_IMAGE);
     }
 
     /**
      * Sets up the UI layout using proper layout managers
      */
     private void setUpUI() {
-	// Create a panel for the UI controls at the top
-	JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
+	// The panel for the UI controls covers the interface row at the top
 	controlPanel.add(livesLabel);
 	controlPanel.add(buyMenuButton);
 	controlPanel.add(nextRoundButton);
 	controlPanel.add(roundLabel);
 	controlPanel.add(viewCircleButton);
+	controlPanel.add(forecastButton);
 	controlPanel.add(coinsLabel);
 
 	// Use null layout for the main component since we need precise positioning for the game grid
 	setLayout(null);
 
-	// Position control panel at the top
-	controlPanel.setBounds(0, 0, board.getWidth() * TILE_SIZE, TILE_SIZE);
+	// Position control panel at the top, it follows the width of the window
+	controlPanel.setBounds(0, 0, getPreferredSize().width, TILE_SIZE);
 	add(controlPanel);
+	addComponentListener(new ComponentAdapter()
+	{
+	    @Override public void componentResized(ComponentEvent e) {
+		controlPanel.setBounds(0, 0, getWidth(), TILE_SIZE);
+		viewport.setViewSize(getWidth(), getHeight() - TILE_SIZE);
+	    }
+	});
     }
 
     /**
@@ -100,16 +148,36 @@ public class BoardComponent extends JComponent implements BoardListener
      */
     private void setUpListeners() {
 	buyMenuButton.addActionListener(e -> showTowerShop());
-	nextRoundButton.addActionListener(e -> board.startNextRound());
-	viewCircleButton.addActionListener(e -> {
-	    showRangeCircles = !showRangeCircles;
-	    viewCircleButton.setText(showRangeCircles ? "Hide Ranges" : "View Ranges");
-	    repaint();
+	nextRoundButton.addActionListener(e -> board.submit(new StartRoundCommand()));
+	viewCircleButton.addActionListener(e -> setShowRangeCircles(!showRangeCircles));
+	forecastButton.addActionListener(e -> setShowForecast(!forecastOverlay.isEnabled()));
+
+	// F3 toggles the performance overlay
+	getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), TOGGLE_PERFORMANCE_OVERLAY);
+	getActionMap().put(TOGGLE_PERFORMANCE_OVERLAY, new AbstractAction()
+	{
+	    @Override public void actionPerformed(ActionEvent e) {
+		togglePerformanceOverlay();
+	    }
 	});
 
-	addMouseListener(new MouseAdapter()
+	// Arrow keys scroll the map, plus and minus zoom around the middle of the view
+	bindKey(KeyEvent.VK_LEFT, "panLeft", () -> panTiles(-KEY_PAN_TILES, 0));
+	bindKey(KeyEvent.VK_RIGHT, "panRight", () -> panTiles(KEY_PAN_TILES, 0));
+	bindKey(KeyEvent.VK_UP, "panUp", () -> panTiles(0, -KEY_PAN_TILES));
+	bindKey(KeyEvent.VK_DOWN, "panDown", () -> panTiles(0, KEY_PAN_TILES));
+	bindKey(KeyEvent.VK_PLUS, "zoomIn", () -> zoom(1, viewport.getViewWidth() / 2, viewport.getViewHeight() / 2));
+	bindKey(KeyEvent.VK_EQUALS, "zoomIn", () -> zoom(1, viewport.getViewWidth() / 2, viewport.getViewHeight() / 2));
+	bindKey(KeyEvent.VK_MINUS, "zoomOut", () -> zoom(-1, viewport.getViewWidth() / 2, viewport.getViewHeight() / 2));
+
+	MouseAdapter mouseHandler = new MouseAdapter()
 	{
+	    private Point dragStart = null;
+
 	    @Override public void mouseClicked(MouseEvent e) {
+		if (e.getY() < TILE_SIZE) {
+		    return;
+		}
 		if (placingTower) {
 		    placeTower(e.getX(), e.getY());
 		} else {
@@ -121,33 +189,82 @@ public class BoardComponent extends JComponent implements BoardListener
 		    }
 		}
 	    }
+
+	    @Override public void mousePressed(MouseEvent e) {
+		dragStart = e.getPoint();
+	    }
+
+	    @Override public void mouseReleased(MouseEvent e) {
+		dragStart = null;
+	    }
+
+	    @Override public void mouseDragged(MouseEvent e) {
+		if (dragStart != null) {
+		    viewport.pan(dragStart.x - e.getX(), dragStart.y - e.getY());
+		    dragStart = e.getPoint();
+		    repaint();
+		}
+	    }
+
+	    @Override public void mouseWheelMoved(MouseWheelEvent e) {
+		zoom(-e.getWheelRotation(), e.getX(), e.getY() - TILE_SIZE);
+	    }
+	};
+	addMouseListener(mouseHandler);
+	addMouseMotionListener(mouseHandler);
+	addMouseWheelListener(mouseHandler);
+    }
+
+    private void bindKey(int keyCode, String actionName, Runnable action) {
+	getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(keyCode, 0), actionName);
+	getActionMap().put(actionName, new AbstractAction()
+	{
+	    @Override public void actionPerformed(ActionEvent e) {
+		action.run();
+	    }
 	});
     }
 
+    private void panTiles(int columns, int rows) {
+	viewport.pan(columns * viewport.getTileSize(), rows * viewport.getTileSize());
+	repaint();
+    }
+
+    private void zoom(int steps, int anchorX, int anchorY) {
+	if (viewport.zoom(steps, anchorX, anchorY)) {
+	    repaint();
+	}
+    }
+
     /**
-     * Loads the explosion image from either the classpath or filesystem
+     * Shows or hides the range circles of all towers in view.
+     *
+     * @param show true to draw the range circles
      */
-    private void loadExplosionImage() {
-	try {
-	    // Try classpath first
-	    URL imageUrl = getClass().getClassLoader().getResource("images/explosion.png");
-	    if (imageUrl != null) {
-		explosionImage = ImageIO.read(imageUrl);
-		if (explosionImage != null) {
-		    LogHandler.info(BoardComponent.class, "Loaded explosion image from classpath: " + imageUrl);
-		    return;
-		} else {
-		    LogHandler.logWarning(BoardComponent.class, "Failed to read explosion image from: " + imageUrl);
-		}
-	    }
-	    LogHandler.logWarning(BoardComponent.class, "Explosion image not found in classpath or resources directory");
-	    explosionImage = null; // Set default value when image not found
-	} catch (IOException e) {
-	    LogHandler.severe(BoardComponent.class, "Error loading explosion image: " + e.getMessage(), e);
-	    explosionImage = null;
-	    return;
-	    // No need to crash the game if the image is not found
-	}
+    public void setShowRangeCircles(boolean show) {
+	showRangeCircles = show;
+	viewCircleButton.setText(showRangeCircles ? "Hide Ranges" : "View Ranges");
+	repaint();
+    }
+
+    /**
+     * Shows or hides the forecast of the next round.
+     *
+     * @param show true to forecast the next round whenever the board is between rounds
+     */
+    public void setShowForecast(boolean show) {
+	forecastOverlay.setEnabled(show);
+	forecastButton.setText(show ? "Hide Forecast" : "Forecast");
+	repaint();
+    }
+
+    /**
+     * Shows or hides the performance overlay. The board's tick profiler only runs while the overlay is visible.
+     */
+    private void togglePerformanceOverlay() {
+	showPerformanceOverlay = !showPerformanceOverlay;
+	board.getTickProfiler().setEnabled(showPerformanceOverlay);
+	repaint();
     }
 
     /**
@@ -171,15 +288,19 @@ public class BoardComponent extends JComponent implements BoardListener
     /**
      * Places a tower at the specified pixel coordinates on the board.
      * <p>
-     * Converts pixel coordinates to board grid coordinates and attempts to place the currently selected tower. The tower is only placed if
-     * the target tile is a valid placement location (grass) and the player has sufficient coins.
+     * Converts pixel coordinates to board grid coordinates through the viewport and attempts to place the currently selected tower. The
+     * tower is only placed if the target tile is a valid placement location (grass or sand without a tower) and the player has sufficient
+     * coins. In maze mode the tower must also leave the enemies a route, see {@link Board#canPlaceTower(int, int)}.
+     * <p>
+     * The placement is submitted as a {@link PlaceTowerCommand} and carried out at the start of the next tick. A rejected placement is
+     * logged and signalled with a beep.
      *
-     * @param x The x-coordinate in pixels where the tower should be placed
-     * @param y The y-coordinate in pixels where the tower should be placed
+     * @param x The x-coordinate in component pixels where the tower should be placed
+     * @param y The y-coordinate in component pixels where the tower should be placed
      */
     private void placeTower(int x, int y) {
-	int col = x / TILE_SIZE;
-	int row = y / TILE_SIZE;
+	int col = viewport.toColumn(x);
+	int row = viewport.toRow(y - TILE_SIZE);
 
 	// Validate grid bounds
 	if (col < 0 || col >= board.getWidth() || row < 0 || row >= board.getHeight()) {
@@ -187,155 +308,219 @@ public class BoardComponent extends JComponent implements BoardListener
 	    return;
 	}
 
-	if (board.getTileAt(row, col) == TileType.GRASS || board.getTileAt(row, col) == TileType.SAND) {
-	    // Only deduct money if tower placement was successful
-	    Tower tower = board.getTowerFactory().createTower(selectedTower, row, col);
-	    if (tower != null) {
-		board.gainCoins(-getTowerCost(selectedTower));
+	board.submit(new PlaceTowerCommand(selectedTower, row, col)).thenAcceptAsync(result -> {
+	    if (!result.isAccepted()) {
+		LogHandler.info(BoardComponent.class, "No tower at ({0,number,#},{1,number,#}): {2}", row, col, result.getRejection());
+		Toolkit.getDefaultToolkit().beep();
 	    }
-	}
-
+	}, SwingUtilities::invokeLater);
 
 	placingTower = false;
 	selectedTower = null;
 	setCursor(Cursor.getDefaultCursor());
     }
 
-    private int getTowerCost(TowerType type) {
-	return switch (type) {
-	    case BASIC -> 100;
-	    case SNIPER, SPLASH -> 150;
-	    case BOMBER -> 250;
-	    case SLOW -> 175;
-	};
-    }
-
-
     /**
      * Locates a tower at the specified pixel coordinates.
      * <p>
-     * Converts pixel coordinates to board grid coordinates and checks if any tower is positioned at that location.
+     * Converts pixel coordinates to board grid coordinates through the viewport and checks if any tower is positioned at that location.
      *
-     * @param x The x-coordinate in pixels
-     * @param y The y-coordinate in pixels
+     * @param x The x-coordinate in component pixels
+     * @param y The y-coordinate in component pixels
      *
      * @return The tower at the specified position, or null if no tower exists there
      */
     private Tower getTowerAt(int x, int y) {
-	int col = x / TILE_SIZE;
-	int row = y / TILE_SIZE;
-
-	// Add bounds checking
-	if (col < 0 || col >= board.getWidth() || row < 0 || row >= board.getHeight()) {
-	    return null;
-	}
+	int col = viewport.toColumn(x);
+	int row = viewport.toRow(y - TILE_SIZE);
 
-	// Check if any tower is at this position
-	for (Tower tower : board.getTowerFactory().getTowers()) {
-	    Point pos = tower.getPosition();
-	    if (pos.x == col && pos.y == row) {
-		return tower;
-	    }
-	}
-	return null;
+	return board.getTowerFactory().getTowerAt(row, col);
     }
 
     /**
-     * Renders the game board, towers, enemies and UI elements.
+     * Renders the visible part of the game board, towers, enemies and UI elements.
      * <p>
      * This method handles the complete visual rendering of the game state, including:
      * <ul>
-     *   <li>The tile grid with different terrain types</li>
-     *   <li>All active enemies with appropriate colors based on type</li>
-     *   <li>All placed towers</li>
-     *   <li>Tower range indicators (when enabled)</li>
-     *   <li>Grid lines for visual clarity</li>
+     *   <li>The tile grid with different terrain types, from the chunk cache</li>
+     *   <li>All visible enemies with appropriate colors based on type</li>
+     *   <li>All visible towers</li>
+     *   <li>Tower range indicators that reach into the view (when enabled)</li>
+     *   <li>The forecast of the next round (when enabled)</li>
+     *   <li>The performance overlay (when enabled)</li>
      * </ul>
+     * The entities are drawn in board pixels through a transform that applies the viewport's offset and zoom.
      *
      * @param g The Graphics object used for drawing
      */
     @Override protected void paintComponent(Graphics g) {
+	long paintStart = System.nanoTime();
 	super.paintComponent(g);
 	Graphics2D g2d = (Graphics2D) g;
+	viewport.setViewSize(getWidth(), getHeight() - TILE_SIZE);
+
+	drawBackground(g2d, getWidth(), getHeight());
 
-	// Draw board tiles
-	drawTiles(g2d);
+	Graphics2D mapGraphics = createMapGraphics(g2d, viewport, chunkCache);
+	try {
+	    Rectangle visible = viewport.getVisibleBounds();
 
-	// Draw enemies
-	drawEnemies(g2d);
+	    // Draw enemies
+	    drawEnemies(mapGraphics, visible);
 
-	// Draw towers
-	drawTowers(g2d);
+	    // Draw towers
+	    drawTowers(mapGraphics, viewport.getVisibleTiles());
 
-	// Draw grid lines
-	drawGrid(g2d);
+	    // Draw tower range circles if enabled
+	    if (showRangeCircles) {
+		drawRangeCircles(mapGraphics, visible);
+	    }
 
-	// Draw tower range circles if enabled
-	if (showRangeCircles) {
-	    drawRangeCircles(g2d);
+	    // Draw explosions
+	    drawExplosions(mapGraphics, visible);
+
+	    // Mark where the forecast expects enemies to get away
+	    forecastOverlay.drawLeaks(mapGraphics, visible, TILE_SIZE);
+	} finally {
+	    mapGraphics.dispose();
 	}
 
-	// Draw explosions
-	drawExplosions(g2d);
-    }
+	forecastOverlay.drawSummary(g2d, 0, getHeight());
 
-    private void drawTiles(Graphics2D g2d) {
-	for (int row = 0; row < board.getHeight(); row++) {
-	    for (int col = 0; col < board.getWidth(); col++) {
-		TileType tile = board.getTileAt(row, col);
-		switch (tile) {
-		    case GRASS -> g2d.setColor(GRASS_COLOR);
-		    case PATH -> g2d.setColor(PATH_COLOR);
-		    case START, END -> g2d.setColor(START_END_COLOR);
-		    case WATER -> g2d.setColor(WATER_COLOR);
-		    case INTERFACE -> g2d.setColor(INTERFACE_COLOR);
-		    case SAND -> g2d.setColor(SAND_COLOR);
-		}
-		g2d.fillRect(col * TILE_SIZE, row * TILE_SIZE, TILE_SIZE, TILE_SIZE);
-	    }
+	if (showPerformanceOverlay) {
+	    performanceOverlay.draw(g2d, 0, TILE_SIZE);
+	}
+
+	long paintNanos = System.nanoTime() - paintStart;
+	board.getTickProfiler().recordRender(paintNanos);
+	board.getMetrics().recordFrameRender(paintNanos);
+
+	if (!framePainted) {
+	    framePainted = true;
+	    StartupTimeline.gameFramePainted();
 	}
     }
 
-    private void drawEnemies(Graphics2D g2d) {
+    /**
+     * Returns the colour a tile type is drawn with.
+     *
+     * @param tile The tile type
+     *
+     * @return The fill colour of the tile
+     */
+    static Color getTileColor(TileType tile) {
+	return switch (tile) {
+	    case GRASS -> GRASS_COLOR;
+	    case PATH -> PATH_COLOR;
+	    case START, END -> START_END_COLOR;
+	    case WATER -> WATER_COLOR;
+	    case INTERFACE -> INTERFACE_COLOR;
+	    case SAND -> SAND_COLOR;
+	};
+    }
+
+    /**
+     * Fills the interface row at the top and the area below it that the map does not cover.
+     *
+     * @param g2d    The graphics context of the whole component
+     * @param width  The width of the component
+     * @param height The height of the component
+     */
+    public static void drawBackground(Graphics2D g2d, int width, int height) {
+	// The interface row stays at the top, the map is drawn below it
+	g2d.setColor(INTERFACE_COLOR);
+	g2d.fillRect(0, 0, width, TILE_SIZE);
+	g2d.setColor(OUTSIDE_MAP_COLOR);
+	g2d.fillRect(0, TILE_SIZE, width, height - TILE_SIZE);
+    }
+
+    /**
+     * Draws the visible part of the map below the interface row and returns a graphics context for drawing on top of it in board pixels.
+     * The caller disposes of the returned context.
+     * <p>
+     * Board pixels are the pixels of the whole board at the normal tile size, with the interface row at the top, so an entity is drawn at
+     * its row and column times {@link #TILE_SIZE} whatever part of the map is shown and however far it is zoomed.
+     *
+     * @param g2d        The graphics context of the whole component
+     * @param viewport   The viewport deciding what is visible
+     * @param chunkCache The cache of the map's background
+     *
+     * @return A context clipped to the map area and transformed to board pixels
+     */
+    public static Graphics2D createMapGraphics(Graphics2D g2d, Viewport viewport, TileChunkCache chunkCache) {
+	Graphics2D mapGraphics = (Graphics2D) g2d.create(0, TILE_SIZE, viewport.getViewWidth(), viewport.getViewHeight());
+
+	// Draw board tiles and grid lines
+	chunkCache.draw(mapGraphics, viewport);
+
+	// Everything else is drawn in board pixels, where the map starts one tile down
+	mapGraphics.translate(-viewport.getOffsetX(), -viewport.getOffsetY());
+	mapGraphics.scale(viewport.getScale(), viewport.getScale());
+	mapGraphics.translate(0, -TILE_SIZE);
+	return mapGraphics;
+    }
+
+    private void drawEnemies(Graphics2D g2d, Rectangle visible) {
 	for (Enemy enemy : board.getEnemyFactory().getEnemies()) {
 	    Point pixelPos = enemy.getPixelPosition();
-	    g2d.setColor(enemy.getColor());
-	    int x = pixelPos.x + (TILE_SIZE - ENEMY_SIZE) / 2;
-	    int y = pixelPos.y + (TILE_SIZE - ENEMY_SIZE) / 2;
-	    g2d.fillOval(x, y, ENEMY_SIZE, ENEMY_SIZE);
+	    drawEnemy(g2d, visible, pixelPos.x, pixelPos.y, enemy.getColor());
 	}
     }
 
-    private void drawTowers(Graphics2D g2d) {
-	for (Tower tower : board.getTowerFactory().getTowers()) {
-	    int tileSize = TILE_SIZE;
-	    int x = tower.getPosition().x * tileSize;
-	    int y = tower.getPosition().y * tileSize;
-
-	    // Draw the base tower
-	    g2d.setColor(tower.getColor());
-	    g2d.fillRect(x + tileSize / 4, y + tileSize / 4, tileSize / 2, tileSize / 2);
-
-	    // Draw a glowing effect for towers with active powerups
-	    if (!tower.getActivePowerups().isEmpty()) {
-		g2d.setColor(POWERUP_GLOW);
-		g2d.fillOval(x, y, tileSize, tileSize);
-	    }
+    /**
+     * Draws an enemy if it is inside the visible area.
+     *
+     * @param g2d     The graphics context, in board pixels
+     * @param visible The visible area in board pixels
+     * @param pixelX  The left edge of the tile the enemy is on, in board pixels
+     * @param pixelY  The top edge of the tile the enemy is on, in board pixels
+     * @param color   The colour of the enemy's type
+     */
+    public static void drawEnemy(Graphics2D g2d, Rectangle visible, int pixelX, int pixelY, Color color) {
+	int offset = (TILE_SIZE - ENEMY_SIZE) / 2;
+	int x = pixelX + offset;
+	int y = pixelY + offset;
+	if (!visible.intersects(x, y, ENEMY_SIZE, ENEMY_SIZE)) {
+	    return;
 	}
+	g2d.setColor(color);
+	g2d.fillOval(x, y, ENEMY_SIZE, ENEMY_SIZE);
     }
 
-    private void drawGrid(Graphics2D g2d) {
-	g2d.setColor(Color.BLACK);
-
-	for (int row = 1; row <= board.getHeight(); row++) {
-	    g2d.drawLine(0, row * TILE_SIZE, board.getWidth() * TILE_SIZE, row * TILE_SIZE);
+    private void drawTowers(Graphics2D g2d, Rectangle visibleTiles) {
+	visibleTowers.clear();
+	board.getTowerFactory().getRegistry().collectInArea(visibleTiles, visibleTowers);
+	for (Tower tower : visibleTowers) {
+	    drawTower(g2d, tower.getPosition().y, tower.getPosition().x, tower.getColor(), !tower.getActivePowerups().isEmpty());
 	}
-	for (int col = 0; col <= board.getWidth(); col++) {
-	    g2d.drawLine(col * TILE_SIZE, TILE_SIZE, col * TILE_SIZE, board.getHeight() * TILE_SIZE);
+    }
+
+    /**
+     * Draws a tower on its tile.
+     *
+     * @param g2d     The graphics context, in board pixels
+     * @param row     The board row of the tower
+     * @param col     The board column of the tower
+     * @param color   The colour of the tower's type
+     * @param powered true if the tower has an active powerup, which makes it glow
+     */
+    public static void drawTower(Graphics2D g2d, int row, int col, Color color, boolean powered) {
+	int tileSize = TILE_SIZE;
+	int x = col * tileSize;
+	int y = row * tileSize;
+
+	// Draw the base tower
+	g2d.setColor(color);
+	g2d.fillRect(x + tileSize / 4, y + tileSize / 4, tileSize / 2, tileSize / 2);
+
+	// Draw a glowing effect for towers with active powerups
+	if (powered) {
+	    g2d.setColor(POWERUP_GLOW);
+	    g2d.fillOval(x, y, tileSize, tileSize);
 	}
     }
 
-    private void drawRangeCircles(Graphics2D g2d) {
+    private void drawRangeCircles(Graphics2D g2d, Rectangle visible) {
 	g2d.setColor(RANGE_COLOR);
 
 	for (Tower tower : board.getTowerFactory().getTowers()) {
@@ -348,24 +533,43 @@ public class BoardComponent extends JComponent implements BoardListener
 
 	    // Draw circle with diameter = range * 2 * TILE_SIZE
 	    double diameter = range * 2 * TILE_SIZE;
-	    g2d.drawOval((int) (centerX - diameter / 2), (int) (centerY - diameter / 2), (int) diameter, (int) diameter);
+	    int left = (int) (centerX - diameter / 2);
+	    int top = (int) (centerY - diameter / 2);
+	    if (visible.intersects(left, top, (int) diameter + 1, (int) diameter + 1)) {
+		g2d.drawOval(left, top, (int) diameter, (int) diameter);
+	    }
 	}
     }
 
-    private void drawExplosions(Graphics2D g2d) {
+    private void drawExplosions(Graphics2D g2d, Rectangle visible) {
 	if (explosionImage != null) {
+	    int width = explosionImage.getWidth(null);
+	    int height = explosionImage.getHeight(null);
 	    for (Explosion explosion : board.getExplosions()) {
 		Point pos = explosion.getPosition();
 		// Center the explosion on the enemy
-		int x = pos.x - explosionImage.getWidth(null) / 2;
-		int y = pos.y - explosionImage.getHeight(null) / 2;
-		g2d.drawImage(explosionImage, x, y, null);
+		int x = pos.x - width / 2;
+		int y = pos.y - height / 2;
+		if (visible.intersects(x, y, width, height)) {
+		    g2d.drawImage(explosionImage, x, y, null);
+		}
 	    }
 	}
     }
 
+    /**
+     * Returns the viewport, which decides which part of the map is shown.
+     */
+    public Viewport getViewport() {
+	return viewport;
+    }
+
+    /**
+     * Returns the size of the whole map, up to {@link #MAX_VIEW_SIZE}. Larger maps are scrolled.
+     */
     @Override public Dimension getPreferredSize() {
-	return new Dimension(board.getWidth() * TILE_SIZE, board.getHeight() * TILE_SIZE);
+	return new Dimension(Math.min(board.getWidth() * TILE_SIZE, MAX_VIEW_SIZE.width),
+			     Math.min(board.getHeight() * TILE_SIZE, MAX_VIEW_SIZE.height));
     }
 
     /**
@@ -378,6 +582,7 @@ public class BoardComponent extends JComponent implements BoardListener
 	livesLabel.setText("Lives: " + board.getLives());
 	coinsLabel.setText("Coins: " + board.getCoins());
 	roundLabel.setText("Round: " + board.getRound());
+	forecastOverlay.update();
 	repaint();
     }
 
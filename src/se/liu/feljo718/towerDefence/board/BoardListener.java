@@ -1,5 +1,7 @@
 package se.liu.feljo718.towerdefence.board;
 
+import se.liu.feljo718.towerdefence.enemy.Enemy;
+
 /**
  * An interface for classes that need to respond to changes in the game board state.
  * <p>
@@ -38,4 +40,13 @@ public interface BoardListener
     void gameOver();
 
     void gameCompleted();
+
+    /**
+     * Called when an enemy reaches the exit and is removed from the board. Does nothing unless overridden, since most listeners only need
+     * {@link #boardChanged()} to see that a life was lost.
+     *
+     * @param enemy The enemy that got through
+     */
+    default void enemyLeaked(Enemy enemy) {
+    }
 }
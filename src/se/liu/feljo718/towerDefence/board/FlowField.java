@@ -0,0 +1,566 @@
+package se.liu.feljo718.towerdefence.board;
+
+import se.liu.feljo718.towerdefence.handler.LogHandler;
+
+import java.util.Arrays;
+
+/**
+ * Distance from every walkable tile of a board to the nearest exit, shared by all enemies on the board.
+ * <p>
+ * The field is computed by one breadth-first search that starts from all {@link TileGrid#EXIT} tiles at once and spreads over the
+ * {@link TileGrid#WALKABLE} tiles. {@link TileGrid#SPAWN} tiles get a distance as well, but the search does not pass through them. After
+ * that an enemy finds its next tile by looking at the distances of the four neighbours of the tile it stands on, which takes constant time
+ * and creates no objects, however many enemies share the field.
+ * <p>
+ * Enemies do not only walk straight downhill. Where the path forks, a neighbour that is further from the exit can also be chosen, with a
+ * lower weight, so that enemies spread over the branches of a map instead of all taking the shortest one. Every step that does not bring
+ * an enemy closer to the exit is paid for out of a detour budget of {@link #MAX_DETOUR} tiles, and once the budget is spent the enemy only
+ * moves downhill. Every enemy therefore reaches an exit in at most its distance plus the budget steps, even on maps with loops.
+ * <p>
+ * Choices are made by hashing the enemy id and the tile, not by a random generator, so the same game always plays out the same way.
+ * <p>
+ * When a single tile changes whether it is walkable, as happens when a tower is built or sold in maze mode, the field does not have to be
+ * rebuilt. {@link #block(int)} and {@link #unblock(int)} repair only the distances that depend on the tile: when a tile is blocked, the
+ * tiles whose shortest route ran through it are found by following the distances uphill, and only those are searched again, starting
+ * from their unaffected neighbours. {@link #canBlock(int, int[], int)} answers beforehand whether blocking a tile would cut a spawn or an
+ * enemy off from every exit. It searches outwards from the tile's uphill neighbours only until each of them meets a tile that is at most
+ * as far from an exit as the blocked tile, since such a tile cannot have had its route through it. On open ground that takes a few steps,
+ * and a route that really is cut off costs a search of the part of the map behind the cut.
+ * <p>
+ * The field has to be {@link #rebuild() rebuilt} when more tiles change at once.
+ *
+ * @author feljo718
+ * @see TileGrid
+ * @see se.liu.feljo718.towerdefence.enemy.EnemyPathfinding
+ */
+public final class FlowField
+{
+    /** The distance of tiles from which no exit can be reached. */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    /** How many tiles an enemy may walk in total on top of the shortest route. */
+    public static final int MAX_DETOUR = 32;
+    /** The weight of a step that brings the enemy one tile closer to the exit. */
+    private static final int DOWNHILL_WEIGHT = 4;
+    /** The weight of a step that keeps or increases the distance to the exit. */
+    private static final int DETOUR_WEIGHT = 1;
+
+    private final TileGrid grid;
+    private final int[] distances;
+    private final int[] queue;
+    private final int[] around = new int[4];
+    private final int[] supportAround = new int[4];
+    private final int[] starts = new int[4];
+    private final int[] failedSearches = new int[4];
+    private int[] spawns = new int[0];
+    /** Per tile stamps for the incremental updates, compared with {@link #generation} so that they never have to be cleared. */
+    private int[] marks = null;
+    private int generation = 0;
+    private int[] affected = null;
+    private long[] seeds = null;
+
+    /**
+     * Creates the flow field of a grid and computes it.
+     *
+     * @param grid The tiles to walk over
+     */
+    public FlowField(TileGrid grid) {
+	this.grid = grid;
+	this.distances = new int[grid.size()];
+	this.queue = new int[grid.size()];
+	rebuild();
+    }
+
+    /**
+     * Computes all distances again from the current tiles.
+     */
+    public void rebuild() {
+	Arrays.fill(distances, UNREACHABLE);
+	int head = 0;
+	int tail = 0;
+	int spawnCount = 0;
+	for (int index = 0; index < distances.length; index++) {
+	    if (grid.hasFlags(index, TileGrid.EXIT)) {
+		distances[index] = 0;
+		queue[tail++] = index;
+	    }
+	    if (grid.hasFlags(index, TileGrid.SPAWN)) {
+		spawnCount++;
+	    }
+	}
+
+	int width = grid.getWidth();
+	int height = grid.getHeight();
+	while (head < tail) {
+	    int index = queue[head++];
+	    int next = distances[index] + 1;
+	    int row = index / width;
+	    int col = index - row * width;
+	    if (col > 0) {
+		tail = visit(index - 1, next, tail);
+	    }
+	    if (col < width - 1) {
+		tail = visit(index + 1, next, tail);
+	    }
+	    if (row > 0) {
+		tail = visit(index - width, next, tail);
+	    }
+	    if (row < height - 1) {
+		tail = visit(index + width, next, tail);
+	    }
+	}
+
+	spawns = new int[spawnCount];
+	int found = 0;
+	for (int index = 0; index < distances.length && found < spawnCount; index++) {
+	    if (grid.hasFlags(index, TileGrid.SPAWN)) {
+		spawns[found++] = index;
+		if (distances[index] == UNREACHABLE) {
+		    LogHandler.logWarning(FlowField.class, "No exit can be reached from the spawn at (" + grid.rowOf(index) + "," +
+							   grid.columnOf(index) + ")");
+		}
+	    }
+	}
+    }
+
+    /**
+     * Checks whether a walkable tile can be blocked without cutting any spawn or any of the given tiles off from every exit.
+     *
+     * @param index         The tile to block, which must still be walkable in the grid
+     * @param occupied      Tiles that must keep a route, such as those enemies stand on or walk to. A tile in this list can itself never
+     *                      be blocked
+     * @param occupiedCount The number of tiles in {@code occupied} to look at
+     *
+     * @return true if every spawn and occupied tile that can reach an exit now still could after blocking the tile
+     */
+    public boolean canBlock(int index, int[] occupied, int occupiedCount) {
+	for (int i = 0; i < occupiedCount; i++) {
+	    if (occupied[i] == index) {
+		return false;
+	    }
+	}
+	int limit = distances[index];
+	if (limit == UNREACHABLE || !grid.hasFlags(index, TileGrid.WALKABLE)) {
+	    return true;
+	}
+
+	int checkStart = nextGeneration();
+	int searches = 0;
+	int failedCount = 0;
+	neighbours(index, starts);
+	for (int start : starts) {
+	    // Neighbours no further from an exit than the tile never had their route through it
+	    if (start < 0 || distances[start] == UNREACHABLE || distances[start] <= limit || marks[start] >= checkStart) {
+		continue;
+	    }
+	    // Enemies never walk through a spawn, so a spawn next to the tile is only looked at once the searches are done
+	    if (!grid.hasFlags(start, TileGrid.WALKABLE)) {
+		continue;
+	    }
+	    int searchGeneration = searches++ == 0 ? checkStart : nextGeneration();
+	    if (!searchAround(start, index, limit, searchGeneration, checkStart)) {
+		if (isMarked(occupied, occupiedCount, searchGeneration)) {
+		    return false;
+		}
+		failedSearches[failedCount++] = searchGeneration;
+	    }
+	}
+	return !isSpawnCutOff(index, failedCount);
+    }
+
+    /**
+     * Searches from a tile for another way to an exit that does not pass the blocked tile.
+     *
+     * @return true if the search found a way, false if it has marked every tile it can reach with the given generation and found none
+     */
+    private boolean searchAround(int start, int blocked, int limit, int searchGeneration, int checkStart) {
+	int head = 0;
+	int tail = 0;
+	marks[start] = searchGeneration;
+	queue[tail++] = start;
+	while (head < tail) {
+	    neighbours(queue[head++], around);
+	    for (int next : around) {
+		if (next < 0 || next == blocked) {
+		    continue;
+		}
+		if (marks[next] >= checkStart) {
+		    // Reaching the area of an earlier search in the same check means reaching its exit as well
+		    if (marks[next] != searchGeneration) {
+			return true;
+		    }
+		    continue;
+		}
+		if (!grid.hasFlags(next, TileGrid.WALKABLE)) {
+		    continue;
+		}
+		if (distances[next] <= limit) {
+		    return true;
+		}
+		marks[next] = searchGeneration;
+		queue[tail++] = next;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Checks whether a spawn that can reach an exit now would be left without a route once the tile is blocked. The searches that failed
+     * have each marked a whole region that is cut off, and every other tile that has a route now keeps it: a tile whose route ran through
+     * the blocked tile is connected to one of its uphill neighbours and so to the region of a search. A spawn that borders a cut-off region
+     * can still have another neighbour outside of it, so a spawn is only cut off when none of its walkable neighbours has a route left.
+     */
+    private boolean isSpawnCutOff(int blocked, int failedCount) {
+	for (int spawn : spawns) {
+	    if (distances[spawn] == UNREACHABLE) {
+		continue;
+	    }
+	    boolean routeLeft = false;
+	    neighbours(spawn, around);
+	    for (int next : around) {
+		if (next >= 0 && next != blocked && distances[next] != UNREACHABLE && grid.hasFlags(next, TileGrid.WALKABLE) &&
+		    !isFailed(marks[next], failedCount)) {
+		    routeLeft = true;
+		    break;
+		}
+	    }
+	    if (!routeLeft) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    private boolean isFailed(int mark, int failedCount) {
+	for (int i = 0; i < failedCount; i++) {
+	    if (failedSearches[i] == mark) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    private boolean isMarked(int[] tiles, int count, int searchGeneration) {
+	for (int i = 0; i < count; i++) {
+	    if (tiles[i] >= 0 && marks[tiles[i]] == searchGeneration) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Updates the distances after a tile has stopped being walkable. The grid must already show the tile as not walkable.
+     *
+     * @param index The tile that was blocked
+     *
+     * @return The number of tiles whose distance had to be searched again
+     */
+    public int block(int index) {
+	int old = distances[index];
+	if (old == UNREACHABLE) {
+	    return 0;
+	}
+	distances[index] = UNREACHABLE;
+	int affectedGeneration = nextGeneration();
+	int queuedGeneration = -affectedGeneration;
+	if (affected == null) {
+	    affected = new int[distances.length];
+	    seeds = new long[distances.length];
+	}
+
+	// Find the tiles that lost their route: those one step further out that no longer have a neighbour one step closer in. The queue
+	// holds tiles in order of distance, so a tile is only looked at once every tile closer in has been decided.
+	int head = 0;
+	int tail = 0;
+	neighbours(index, around);
+	for (int next : around) {
+	    if (next >= 0 && distances[next] == old + 1) {
+		marks[next] = queuedGeneration;
+		queue[tail++] = next;
+	    }
+	}
+	int affectedCount = 0;
+	while (head < tail) {
+	    int tile = queue[head++];
+	    int distance = distances[tile];
+	    if (hasSupport(tile, distance)) {
+		continue;
+	    }
+	    marks[tile] = affectedGeneration;
+	    affected[affectedCount++] = tile;
+	    distances[tile] = UNREACHABLE;
+	    if (!grid.hasFlags(tile, TileGrid.WALKABLE)) {
+		continue;
+	    }
+	    neighbours(tile, around);
+	    for (int next : around) {
+		if (next >= 0 && distances[next] == distance + 1 && marks[next] != queuedGeneration && marks[next] != affectedGeneration) {
+		    marks[next] = queuedGeneration;
+		    queue[tail++] = next;
+		}
+	    }
+	}
+
+	// Search the affected tiles again, starting from the distances of their unaffected neighbours
+	int seedCount = 0;
+	for (int i = 0; i < affectedCount; i++) {
+	    int tile = affected[i];
+	    int best = UNREACHABLE;
+	    neighbours(tile, around);
+	    for (int next : around) {
+		if (next >= 0 && marks[next] != affectedGeneration && distances[next] != UNREACHABLE &&
+		    grid.hasFlags(next, TileGrid.WALKABLE)) {
+		    best = Math.min(best, distances[next] + 1);
+		}
+	    }
+	    if (best != UNREACHABLE) {
+		seeds[seedCount++] = ((long) best << 32) | tile;
+	    }
+	}
+	Arrays.sort(seeds, 0, seedCount);
+
+	// Tiles are taken from the sorted seeds and the queue in order of distance, like a breadth-first search with many starts
+	head = 0;
+	tail = 0;
+	int seed = 0;
+	while (seed < seedCount || head < tail) {
+	    int tile;
+	    int distance;
+	    if (head < tail && (seed >= seedCount || distances[queue[head]] <= (int) (seeds[seed] >>> 32))) {
+		tile = queue[head++];
+		distance = distances[tile];
+	    } else {
+		tile = (int) seeds[seed];
+		distance = (int) (seeds[seed++] >>> 32);
+		if (distances[tile] <= distance) {
+		    continue;
+		}
+		distances[tile] = distance;
+	    }
+	    if (!grid.hasFlags(tile, TileGrid.WALKABLE)) {
+		continue;
+	    }
+	    neighbours(tile, around);
+	    for (int next : around) {
+		if (next >= 0 && marks[next] == affectedGeneration && distances[next] > distance + 1) {
+		    distances[next] = distance + 1;
+		    queue[tail++] = next;
+		}
+	    }
+	}
+	return affectedCount;
+    }
+
+    private boolean hasSupport(int tile, int distance) {
+	if (distance == 0 || distance == UNREACHABLE) {
+	    return true;
+	}
+	neighbours(tile, supportAround);
+	for (int next : supportAround) {
+	    if (next >= 0 && distances[next] == distance - 1 && grid.hasFlags(next, TileGrid.WALKABLE)) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Updates the distances after a tile has become walkable. The grid must already show the tile as walkable.
+     *
+     * @param index The tile that was opened
+     *
+     * @return The number of tiles that got closer to an exit, including the opened tile
+     */
+    public int unblock(int index) {
+	int best = UNREACHABLE;
+	neighbours(index, around);
+	for (int next : around) {
+	    if (next >= 0 && distances[next] != UNREACHABLE && grid.hasFlags(next, TileGrid.WALKABLE)) {
+		best = Math.min(best, distances[next] + 1);
+	    }
+	}
+	if (grid.hasFlags(index, TileGrid.EXIT)) {
+	    best = 0;
+	}
+	if (best >= distances[index]) {
+	    return 0;
+	}
+
+	distances[index] = best;
+	int changed = 1;
+	int head = 0;
+	int tail = 0;
+	queue[tail++] = index;
+	while (head < tail) {
+	    int tile = queue[head++];
+	    int next = distances[tile] + 1;
+	    neighbours(tile, around);
+	    for (int neighbour : around) {
+		if (neighbour < 0 || distances[neighbour] <= next) {
+		    continue;
+		}
+		int flags = grid.getFlags(neighbour);
+		if ((flags & TileGrid.WALKABLE) != 0) {
+		    distances[neighbour] = next;
+		    queue[tail++] = neighbour;
+		    changed++;
+		} else if ((flags & TileGrid.SPAWN) != 0) {
+		    distances[neighbour] = next;
+		    changed++;
+		}
+	    }
+	}
+	return changed;
+    }
+
+    /**
+     * Writes the indices of the four neighbours of a tile into the given array, -1 for those outside the grid.
+     */
+    private void neighbours(int index, int[] into) {
+	int width = grid.getWidth();
+	int row = index / width;
+	int col = index - row * width;
+	into[0] = col > 0 ? index - 1 : -1;
+	into[1] = col < width - 1 ? index + 1 : -1;
+	into[2] = row > 0 ? index - width : -1;
+	into[3] = row < grid.getHeight() - 1 ? index + width : -1;
+    }
+
+    private int nextGeneration() {
+	if (marks == null) {
+	    marks = new int[distances.length];
+	}
+	if (generation == Integer.MAX_VALUE) {
+	    Arrays.fill(marks, 0);
+	    generation = 0;
+	}
+	return ++generation;
+    }
+
+    private int visit(int index, int distance, int tail) {
+	if (distances[index] != UNREACHABLE) {
+	    return tail;
+	}
+	int flags = grid.getFlags(index);
+	if ((flags & TileGrid.WALKABLE) != 0) {
+	    distances[index] = distance;
+	    queue[tail] = index;
+	    return tail + 1;
+	}
+	if ((flags & TileGrid.SPAWN) != 0) {
+	    // Enemies start here, but never walk through another spawn on their way
+	    distances[index] = distance;
+	}
+	return tail;
+    }
+
+    /**
+     * Returns the distance in steps from a tile to the nearest exit.
+     *
+     * @param index The tile index, see {@link TileGrid#indexOf(int, int)}
+     *
+     * @return The distance, or {@link #UNREACHABLE}
+     */
+    public int getDistance(int index) {
+	return distances[index];
+    }
+
+    public int getSpawnCount() {
+	return spawns.length;
+    }
+
+    /**
+     * Returns the spawn an enemy starts from. Enemies are spread over all spawns in turn.
+     *
+     * @param enemyId The id of the enemy
+     *
+     * @return The tile index of the spawn, or -1 if the map has no spawn
+     */
+    public int chooseSpawn(int enemyId) {
+	if (spawns.length == 0) {
+	    return -1;
+	}
+	return spawns[Math.floorMod(enemyId, spawns.length)];
+    }
+
+    /**
+     * Chooses the tile an enemy moves to next.
+     * <p>
+     * Candidates are the walkable neighbours, except the tile the enemy came from, that an exit can be reached from. Each candidate costs
+     * {@code distance(next) - distance(current) + 1} of the detour budget, which is zero for a step downhill, and candidates the budget
+     * cannot pay for are left out. One of the rest is picked by weight. If no candidate is left the enemy walks back the way it came.
+     *
+     * @param current  The tile the enemy stands on
+     * @param previous The tile the enemy came from, or -1
+     * @param budget   The detour budget the enemy has left
+     * @param enemyId  The id of the enemy, which makes its choices differ from those of other enemies
+     *
+     * @return The tile to move to, or -1 if the enemy is at an exit or cannot move
+     */
+    public int nextStep(int current, int previous, int budget, int enemyId) {
+	int distance = distances[current];
+	if (distance == 0 || distance == UNREACHABLE) {
+	    return -1;
+	}
+
+	int width = grid.getWidth();
+	int row = current / width;
+	int col = current - row * width;
+	int left = col > 0 ? current - 1 : -1;
+	int right = col < width - 1 ? current + 1 : -1;
+	int up = row > 0 ? current - width : -1;
+	int down = row < grid.getHeight() - 1 ? current + width : -1;
+
+	int leftWeight = weight(left, previous, distance, budget);
+	int rightWeight = weight(right, previous, distance, budget);
+	int upWeight = weight(up, previous, distance, budget);
+	int downWeight = weight(down, previous, distance, budget);
+	int total = leftWeight + rightWeight + upWeight + downWeight;
+	if (total == 0) {
+	    return previous >= 0 && distances[previous] != UNREACHABLE ? previous : -1;
+	}
+
+	int pick = Math.floorMod(mix(enemyId, current), total);
+	if ((pick -= leftWeight) < 0) {
+	    return left;
+	}
+	if ((pick -= rightWeight) < 0) {
+	    return right;
+	}
+	if (pick - upWeight < 0) {
+	    return up;
+	}
+	return down;
+    }
+
+    /**
+     * Returns how much of the detour budget a step from a tile at the given distance to the given tile costs.
+     */
+    public int detourCost(int distance, int next) {
+	return distances[next] - distance + 1;
+    }
+
+    private int weight(int next, int previous, int distance, int budget) {
+	if (next < 0 || next == previous || !grid.hasFlags(next, TileGrid.WALKABLE) || distances[next] == UNREACHABLE) {
+	    return 0;
+	}
+	int cost = distances[next] - distance + 1;
+	if (cost == 0) {
+	    return DOWNHILL_WEIGHT;
+	}
+	return cost <= budget ? DETOUR_WEIGHT : 0;
+    }
+
+    /**
+     * Mixes two ints into a well spread hash, the finalizer of MurmurHash3.
+     */
+    private static int mix(int enemyId, int tile) {
+	int hash = enemyId * 0x9E3779B9 + tile;
+	hash ^= hash >>> 16;
+	hash *= 0x85EBCA6B;
+	hash ^= hash >>> 13;
+	hash *= 0xC2B2AE35;
+	hash ^= hash >>> 16;
+	return hash;
+    }
+}
@@ -2,8 +2,9 @@ package se.liu.feljo718.towerdefence.board;
 
 import se.liu.feljo718.towerdefence.enemy.EnemyType;
 import se.liu.feljo718.towerdefence.enemy.Wave;
+import se.liu.feljo718.towerdefence.metrics.LevelEvent;
+import se.liu.feljo718.towerdefence.metrics.WaveEvent;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -11,49 +12,67 @@ import java.util.List;
  * <p>
  * This class manages the progression of enemy waves, controls spawn timing, and tracks completion status of the level. Each level consists
  * of multiple waves of enemies with configurable delay between waves.
+ * <p>
+ * The waves themselves belong to an immutable {@link LevelDefinition} that is shared between boards, while a level only holds the
+ * progress of one board through it. A new level is therefore created every time a definition is played.
+ * <p>
+ * The level reports its progress to Flight Recorder as one {@link LevelEvent} for the whole level and one {@link WaveEvent} per wave, which
+ * makes it possible to line up GC pauses and slow ticks with the wave that was running at the time.
  *
  * @author feljo718
+ * @see LevelDefinition
  * @see Wave
  * @see EnemyType
  */
 public class Level
 {
+    /** Spawn time used before the first spawn, far enough in the past that the first enemy appears at once. */
+    private static final long NEVER_SPAWNED = Long.MIN_VALUE / 2;
+    private final LevelDefinition definition;
     private final List<Wave> waves;
     private final int waveCooldown;
     private int currentWave;
     private int enemiesSpawned;
     private long lastSpawnTime;
+    private int round = 0;
+    private LevelEvent levelEvent = null;
+    private WaveEvent waveEvent = null;
 
     /**
-     * Creates a new level with the specified name and wave cooldown period.
-     * <p>
-     * Initializes an empty collection of waves and sets initial counters.
+     * Creates the runtime state for playing the given level definition.
      *
-     * @param name         The display name of this level
-     * @param waveCooldown The time in milliseconds between consecutive waves
+     * @param definition The waves and wave cooldown of the level
      */
-    public Level(int waveCooldown) {
-	this.waves = new ArrayList<>();
-	this.waveCooldown = waveCooldown;
+    public Level(LevelDefinition definition) {
+	this.definition = definition;
+	this.waves = definition.getWaves();
+	this.waveCooldown = definition.getWaveCooldown();
 	resetLevel();
     }
 
     public void resetLevel() {
 	this.currentWave = 0;
 	this.enemiesSpawned = 0;
-	this.lastSpawnTime = System.currentTimeMillis();
+	this.lastSpawnTime = NEVER_SPAWNED;
     }
 
-    public void addWave(Wave wave) {
-	if (wave != null) {
-	    waves.add(wave);
-	}
+    /**
+     * Sets the round number this level is played as, used to label its Flight Recorder events.
+     *
+     * @param round The one-based round number
+     */
+    public void setRound(int round) {
+	this.round = round;
+    }
+
+    public LevelDefinition getDefinition() {
+	return definition;
     }
 
     /**
      * Determines if an enemy should be spawned at the current time.
      *
-     * @param currentTime The current system time in milliseconds
+     * @param currentTime The current game time in milliseconds
      *
      * @return {@code true} if an enemy should be spawned; {@code false} otherwise
      */
@@ -67,15 +86,22 @@ public class Level
 	// Check if wave is complete
 	if (enemiesSpawned >= currentWaveObj.getCount()) {
 	    if (currentTime - lastSpawnTime >= waveCooldown) {
+		endWaveEvent();
 		currentWave++;
 		enemiesSpawned = 0;
 		lastSpawnTime = currentTime;
+		if (currentWave >= waves.size()) {
+		    endLevelEvent();
+		}
 	    }
 	    return false;
 	}
 
 	// Check spawn delay
 	if (currentTime - lastSpawnTime >= currentWaveObj.getSpawnDelay()) {
+	    if (enemiesSpawned == 0) {
+		beginWaveEvent(currentWaveObj);
+	    }
 	    enemiesSpawned++;
 	    lastSpawnTime = currentTime;
 	    return true;
@@ -84,6 +110,36 @@ public class Level
 	return false;
     }
 
+    private void beginWaveEvent(Wave wave) {
+	if (levelEvent == null) {
+	    levelEvent = new LevelEvent();
+	    levelEvent.begin();
+	}
+	waveEvent = new WaveEvent();
+	waveEvent.begin();
+	waveEvent.round = round;
+	waveEvent.waveIndex = currentWave;
+	waveEvent.enemyType = wave.getEnemyType().name();
+	waveEvent.count = wave.getCount();
+	waveEvent.spawnDelay = wave.getSpawnDelay();
+    }
+
+    private void endWaveEvent() {
+	if (waveEvent != null) {
+	    waveEvent.commit();
+	    waveEvent = null;
+	}
+    }
+
+    private void endLevelEvent() {
+	if (levelEvent != null) {
+	    levelEvent.round = round;
+	    levelEvent.waves = waves.size();
+	    levelEvent.commit();
+	    levelEvent = null;
+	}
+    }
+
     /**
      * Gets the enemy type for the current wave.
      *
@@ -0,0 +1,41 @@
+package se.liu.feljo718.towerdefence.board;
+
+import se.liu.feljo718.towerdefence.enemy.Wave;
+
+import java.util.List;
+
+/**
+ * The immutable content of a level: its waves and the cooldown between them.
+ * <p>
+ * Definitions are loaded once and shared by every board that plays them, see
+ * {@link se.liu.feljo718.towerdefence.handler.ContentCache}. The progress through a level on a particular board is kept in a separate
+ * {@link Level}.
+ *
+ * @author feljo718
+ * @see Level
+ * @see Wave
+ */
+public final class LevelDefinition
+{
+    private final int waveCooldown;
+    private final List<Wave> waves;
+
+    /**
+     * Creates a level definition.
+     *
+     * @param waveCooldown The time in milliseconds between consecutive waves
+     * @param waves        The waves of the level, in the order they are sent
+     */
+    public LevelDefinition(int waveCooldown, List<Wave> waves) {
+	this.waveCooldown = waveCooldown;
+	this.waves = List.copyOf(waves);
+    }
+
+    public int getWaveCooldown() {
+	return waveCooldown;
+    }
+
+    public List<Wave> getWaves() {
+	return waves;
+    }
+}
@@ -0,0 +1,71 @@
+package se.liu.feljo718.towerdefence.board;
+
+import java.util.Arrays;
+
+/**
+ * The immutable layout of a map, without the board's interface row.
+ * <p>
+ * Definitions are loaded once and shared by every board that uses the map, see
+ * {@link se.liu.feljo718.towerdefence.handler.ContentCache}. A board copies the tiles into its own grid when it is created, so the
+ * definition itself is never changed.
+ *
+ * @author feljo718
+ * @see Board
+ * @see TileType
+ */
+public final class MapDefinition
+{
+    private final String name;
+    private final TileType[][] tiles;
+
+    /**
+     * Creates a map definition from a grid of tiles. The grid is copied.
+     *
+     * @param name  The name of the map
+     * @param tiles The tiles, indexed by row and column
+     *
+     * @throws IllegalArgumentException If the grid is empty, has rows of different lengths or contains null tiles
+     */
+    public MapDefinition(String name, TileType[][] tiles) {
+	if (tiles.length == 0 || tiles[0].length == 0) {
+	    throw new IllegalArgumentException("Map '" + name + "' has no tiles");
+	}
+	this.name = name;
+	this.tiles = new TileType[tiles.length][];
+	for (int row = 0; row < tiles.length; row++) {
+	    if (tiles[row] == null || tiles[row].length != tiles[0].length) {
+		throw new IllegalArgumentException("Map '" + name + "' has rows of different widths");
+	    }
+	    if (Arrays.asList(tiles[row]).contains(null)) {
+		throw new IllegalArgumentException("Map '" + name + "' has missing tiles in row " + row);
+	    }
+	    this.tiles[row] = tiles[row].clone();
+	}
+    }
+
+    public String getName() {
+	return name;
+    }
+
+    public int getWidth() {
+	return tiles[0].length;
+    }
+
+    public int getHeight() {
+	return tiles.length;
+    }
+
+    public TileType getTile(int row, int col) {
+	return tiles[row][col];
+    }
+
+    /**
+     * Copies one row of tiles into the given array.
+     *
+     * @param row    The row to copy
+     * @param target The array to copy into, at least as long as the map is wide
+     */
+    public void copyRow(int row, TileType[] target) {
+	System.arraycopy(tiles[row], 0, target, 0, tiles[row].length);
+    }
+}
@@ -0,0 +1,143 @@
+package se.liu.feljo718.towerdefence.board;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of pre-drawn square chunks of the map background, so that painting the tiles costs a handful of image copies per frame.
+ * <p>
+ * A chunk is {@link #CHUNK_TILES} by {@link #CHUNK_TILES} tiles drawn once, with their grid lines, into an image at the current tile size.
+ * Only chunks that intersect the viewport are drawn, and a chunk is only drawn into its image the first time it becomes visible. The
+ * number of images kept is bounded by how many chunks fit on screen, so neither memory nor paint time grows with the size of the map.
+ * <p>
+ * Changing the zoom throws all chunks away, since they are drawn at one tile size. The tiles of a board are only set while it is loaded, so
+ * a drawn chunk never goes stale.
+ *
+ * @author feljo718
+ * @see Viewport
+ * @see BoardComponent
+ */
+public class TileChunkCache
+{
+    /** The width and height of a chunk in tiles. */
+    public static final int CHUNK_TILES = 16;
+    /** Below this tile size the grid lines would cover most of the tiles, so they are left out. */
+    private static final int MIN_GRID_TILE_SIZE = 10;
+    /** How many screens' worth of chunks are kept, so that panning back and forth does not redraw them. */
+    private static final int SCREENS_KEPT = 2;
+    private static final int MIN_CHUNKS_KEPT = 16;
+
+    private final Board board;
+    private final LinkedHashMap<Long, BufferedImage> chunks = new LinkedHashMap<>(MIN_CHUNKS_KEPT, 0.75f, true)
+    {
+	@Override protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+	    return size() > capacity;
+	}
+    };
+    private int chunkTileSize = 0;
+    private int capacity = MIN_CHUNKS_KEPT;
+    private long chunksDrawn = 0;
+
+    /**
+     * Creates an empty cache for the given board.
+     *
+     * @param board The board whose tiles are drawn
+     */
+    public TileChunkCache(Board board) {
+	this.board = board;
+    }
+
+    /**
+     * Draws the part of the background that is visible in the viewport.
+     *
+     * @param g2d      The graphics to draw on, translated so that the top left of the view is at the origin
+     * @param viewport The viewport deciding what is visible
+     */
+    public void draw(Graphics2D g2d, Viewport viewport) {
+	int tileSize = viewport.getTileSize();
+	if (tileSize != chunkTileSize) {
+	    chunks.clear();
+	    chunkTileSize = tileSize;
+	}
+
+	int chunkSize = CHUNK_TILES * tileSize;
+	Rectangle tiles = viewport.getVisibleTiles();
+	if (tiles.isEmpty()) {
+	    return;
+	}
+	int firstChunkX = tiles.x / CHUNK_TILES;
+	int lastChunkX = (tiles.x + tiles.width - 1) / CHUNK_TILES;
+	// Chunks are counted in map rows, which start below the interface row
+	int firstChunkY = (tiles.y - 1) / CHUNK_TILES;
+	int lastChunkY = (tiles.y - 1 + tiles.height - 1) / CHUNK_TILES;
+
+	int visibleChunks = (lastChunkX - firstChunkX + 2) * (lastChunkY - firstChunkY + 2);
+	capacity = Math.max(MIN_CHUNKS_KEPT, visibleChunks * SCREENS_KEPT);
+
+	for (int chunkY = firstChunkY; chunkY <= lastChunkY; chunkY++) {
+	    for (int chunkX = firstChunkX; chunkX <= lastChunkX; chunkX++) {
+		BufferedImage image = getChunk(chunkX, chunkY, tileSize);
+		g2d.drawImage(image, chunkX * chunkSize - viewport.getOffsetX(), chunkY * chunkSize - viewport.getOffsetY(), null);
+	    }
+	}
+    }
+
+    /**
+     * Returns the number of chunks drawn into an image since the cache was created.
+     */
+    public long getChunksDrawn() {
+	return chunksDrawn;
+    }
+
+    public int getCachedChunkCount() {
+	return chunks.size();
+    }
+
+    private BufferedImage getChunk(int chunkX, int chunkY, int tileSize) {
+	long key = ((long) chunkY << 32) | (chunkX & 0xFFFFFFFFL);
+	BufferedImage image = chunks.get(key);
+	if (image == null) {
+	    image = drawChunk(chunkX, chunkY, tileSize);
+	    chunks.put(key, image);
+	}
+	return image;
+    }
+
+    private BufferedImage drawChunk(int chunkX, int chunkY, int tileSize) {
+	int firstCol = chunkX * CHUNK_TILES;
+	int firstRow = chunkY * CHUNK_TILES + 1;
+	int cols = Math.min(CHUNK_TILES, board.getWidth() - firstCol);
+	int rows = Math.min(CHUNK_TILES, board.getHeight() - firstRow);
+
+	// Chunks at the right and bottom edge of the map get an extra pixel for the closing grid line, others leave it to the next chunk
+	boolean grid = tileSize >= MIN_GRID_TILE_SIZE;
+	int extraWidth = grid && firstCol + cols == board.getWidth() ? 1 : 0;
+	int extraHeight = grid && firstRow + rows == board.getHeight() ? 1 : 0;
+	BufferedImage image = new BufferedImage(cols * tileSize + extraWidth, rows * tileSize + extraHeight, BufferedImage.TYPE_INT_RGB);
+	Graphics2D g2d = image.createGraphics();
+	try {
+	    for (int row = 0; row < rows; row++) {
+		for (int col = 0; col < cols; col++) {
+		    g2d.setColor(BoardComponent.getTileColor(board.getTileAt(firstRow + row, firstCol + col)));
+		    g2d.fillRect(col * tileSize, row * tileSize, tileSize, tileSize);
+		}
+	    }
+
+	    if (grid) {
+		g2d.setColor(Color.BLACK);
+		for (int row = 0; row <= rows; row++) {
+		    g2d.drawLine(0, row * tileSize, cols * tileSize, row * tileSize);
+		}
+		for (int col = 0; col <= cols; col++) {
+		    g2d.drawLine(col * tileSize, 0, col * tileSize, rows * tileSize);
+		}
+	    }
+	} finally {
+	    g2d.dispose();
+	}
+	chunksDrawn++;
+	return image;
+    }
+}
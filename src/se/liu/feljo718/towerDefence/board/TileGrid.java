@@ -0,0 +1,250 @@
+package se.liu.feljo718.towerdefence.board;
+
+import java.util.Arrays;
+
+/**
+ * The tiles of a board, packed into one byte per tile.
+ * <p>
+ * The low bits of each byte hold the {@link TileType}, the high bits hold flags that are worked out once when the tile is set, so that
+ * questions such as "can enemies walk here" or "can a tower be built here" are answered with one array load and a mask instead of
+ * comparing enum values:
+ * <ul>
+ *   <li>{@link #WALKABLE} - enemies can move onto the tile, set for path and end tiles, and in maze mode for open ground</li>
+ *   <li>{@link #BUILDABLE} - towers can be built on the tile, set for grass and sand</li>
+ *   <li>{@link #OCCUPIED} - a tower stands on the tile, kept up to date by the {@link se.liu.feljo718.towerdefence.tower.TowerFactory}</li>
+ *   <li>{@link #SPAWN} - enemies enter the map here</li>
+ *   <li>{@link #EXIT} - enemies leave the map here and cost a life</li>
+ * </ul>
+ * The tiles are stored row by row in a flat array. The checked accessors treat positions outside the grid as having no flags. Code that
+ * walks over many tiles, such as path searches over large maps, can instead work with {@link #indexOf(int, int)} and the index-based
+ * accessors, which skip the bounds checks. Neighbours of an interior tile are then simply one step or {@link #getWidth()} steps away.
+ *
+ * @author feljo718
+ * @see Board
+ * @see TileType
+ */
+public final class TileGrid
+{
+    /** Enemies can move onto the tile. */
+    public static final int WALKABLE = 1 << 3;
+    /** Towers can be built on the tile when it is not {@link #OCCUPIED}. */
+    public static final int BUILDABLE = 1 << 4;
+    /** A tower stands on the tile. */
+    public static final int OCCUPIED = 1 << 5;
+    /** Enemies enter the map on the tile. */
+    public static final int SPAWN = 1 << 6;
+    /** Enemies leave the map on the tile. */
+    public static final int EXIT = 1 << 7;
+
+    private static final int TYPE_MASK = (1 << 3) - 1;
+    private static final int FLAG_MASK = 0xFF & ~TYPE_MASK;
+    private static final TileType[] TYPES = TileType.values();
+    /** The packed byte of a tile of each type, indexed by ordinal, without the occupied flag. */
+    private static final byte[] CELLS = new byte[TYPES.length];
+
+    static {
+	if (TYPES.length > TYPE_MASK + 1) {
+	    throw new ExceptionInInitializerError("Too many tile types to pack into " + Integer.bitCount(TYPE_MASK) + " bits");
+	}
+	for (TileType type : TYPES) {
+	    int flags = switch (type) {
+		case PATH -> WALKABLE;
+		case END -> WALKABLE | EXIT;
+		case START -> SPAWN;
+		case GRASS, SAND -> BUILDABLE;
+		case WATER, INTERFACE -> 0;
+	    };
+	    CELLS[type.ordinal()] = (byte) (type.ordinal() | flags);
+	}
+    }
+
+    private final int width;
+    private final int height;
+    private final byte[] cells;
+
+    /**
+     * Creates a grid of the given size filled with one tile type.
+     *
+     * @param width  The number of columns
+     * @param height The number of rows
+     * @param fill   The tile type of every tile
+     */
+    public TileGrid(int width, int height, TileType fill) {
+	if (width < 1 || height < 1) {
+	    throw new IllegalArgumentException("Grid dimensions must be positive values");
+	}
+	this.width = width;
+	this.height = height;
+	this.cells = new byte[Math.multiplyExact(width, height)];
+	Arrays.fill(cells, CELLS[fill.ordinal()]);
+    }
+
+    private TileGrid(TileGrid original) {
+	this.width = original.width;
+	this.height = original.height;
+	this.cells = original.cells.clone();
+    }
+
+    /**
+     * Returns an independent copy of the grid, including the occupied flags.
+     */
+    public TileGrid copy() {
+	return new TileGrid(this);
+    }
+
+    public int getWidth() {
+	return width;
+    }
+
+    public int getHeight() {
+	return height;
+    }
+
+    /**
+     * Returns the number of tiles, which is one more than the largest index.
+     */
+    public int size() {
+	return cells.length;
+    }
+
+    public boolean contains(int row, int col) {
+	return row >= 0 && row < height && col >= 0 && col < width;
+    }
+
+    /**
+     * Returns true if the position has a neighbour inside the grid in every direction, so that its neighbours can be reached by index
+     * arithmetic without bounds checks.
+     */
+    public boolean isInterior(int row, int col) {
+	return row > 0 && row < height - 1 && col > 0 && col < width - 1;
+    }
+
+    /**
+     * Returns the index of a position for the index-based accessors. The position is not checked.
+     */
+    public int indexOf(int row, int col) {
+	return row * width + col;
+    }
+
+    public int rowOf(int index) {
+	return index / width;
+    }
+
+    public int columnOf(int index) {
+	return index % width;
+    }
+
+    /**
+     * Returns the tile type at the given position.
+     *
+     * @return The tile type, or null if the position is outside the grid
+     */
+    public TileType getTile(int row, int col) {
+	if (!contains(row, col)) {
+	    return null;
+	}
+	return TYPES[cells[indexOf(row, col)] & TYPE_MASK];
+    }
+
+    /**
+     * Returns the flags of the tile at the given position.
+     *
+     * @return The flags, or 0 if the position is outside the grid
+     */
+    public int getFlags(int row, int col) {
+	if (!contains(row, col)) {
+	    return 0;
+	}
+	return cells[indexOf(row, col)] & FLAG_MASK;
+    }
+
+    /**
+     * Returns true if the tile at the given position has all of the given flags. Positions outside the grid have no flags.
+     */
+    public boolean hasFlags(int row, int col, int flags) {
+	return (getFlags(row, col) & flags) == flags;
+    }
+
+    public boolean isWalkable(int row, int col) {
+	return hasFlags(row, col, WALKABLE);
+    }
+
+    /**
+     * Returns true if a tower can be built at the given position: the tile is buildable and no tower stands on it yet.
+     */
+    public boolean isBuildable(int row, int col) {
+	return (getFlags(row, col) & (BUILDABLE | OCCUPIED)) == BUILDABLE;
+    }
+
+    /**
+     * Returns the tile type at the given index, which must be inside the grid.
+     */
+    public TileType getTile(int index) {
+	return TYPES[cells[index] & TYPE_MASK];
+    }
+
+    /**
+     * Returns the flags of the tile at the given index, which must be inside the grid.
+     */
+    public int getFlags(int index) {
+	return cells[index] & FLAG_MASK;
+    }
+
+    /**
+     * Returns true if the tile at the given index, which must be inside the grid, has all of the given flags.
+     */
+    public boolean hasFlags(int index, int flags) {
+	return (cells[index] & flags) == flags;
+    }
+
+    /**
+     * Changes the type of a tile. Whether a tower stands on it is kept.
+     *
+     * @throws IndexOutOfBoundsException If the position is outside the grid
+     */
+    public void setTile(int row, int col, TileType type) {
+	int index = checkedIndex(row, col);
+	cells[index] = (byte) (CELLS[type.ordinal()] | (cells[index] & OCCUPIED));
+    }
+
+    /**
+     * Fills a whole row with tiles, clearing the occupied flags of the row.
+     *
+     * @param row   The row to fill
+     * @param tiles The tiles of the row, at least as many as the grid is wide
+     */
+    public void setRow(int row, TileType[] tiles) {
+	int start = checkedIndex(row, 0);
+	for (int col = 0; col < width; col++) {
+	    cells[start + col] = CELLS[tiles[col].ordinal()];
+	}
+    }
+
+    /**
+     * Marks whether a tower stands on a tile.
+     *
+     * @throws IndexOutOfBoundsException If the position is outside the grid
+     */
+    public void setOccupied(int row, int col, boolean occupied) {
+	int index = checkedIndex(row, col);
+	cells[index] = (byte) (occupied ? cells[index] | OCCUPIED : cells[index] & ~OCCUPIED);
+    }
+
+    /**
+     * Marks whether enemies can walk on a tile, overriding what its type says. Used by maze mode, where open ground is walkable until a
+     * tower is built on it.
+     *
+     * @throws IndexOutOfBoundsException If the position is outside the grid
+     */
+    public void setWalkable(int row, int col, boolean walkable) {
+	int index = checkedIndex(row, col);
+	cells[index] = (byte) (walkable ? cells[index] | WALKABLE : cells[index] & ~WALKABLE);
+    }
+
+    private int checkedIndex(int row, int col) {
+	if (!contains(row, col)) {
+	    throw new IndexOutOfBoundsException("Tile (" + row + "," + col + ") is outside the " + width + "x" + height + " grid");
+	}
+	return indexOf(row, col);
+    }
+}
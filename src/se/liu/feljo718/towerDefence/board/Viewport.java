@@ -0,0 +1,209 @@
+package se.liu.feljo718.towerdefence.board;
+
+import java.awt.Rectangle;
+
+/**
+ * The part of the map that is shown on screen, with pan and zoom.
+ * <p>
+ * The viewport works in screen pixels of the zoomed map: its offset is where the visible area starts inside the map as it would look if
+ * the whole map was drawn at the current zoom. The map starts below the board's interface row, so screen row zero of the viewport is the
+ * first map row and not the interface row.
+ * <p>
+ * Zooming picks one of a fixed set of tile sizes. All of them are whole pixels, so that tiles, chunks and entities drawn at the same zoom
+ * line up exactly without seams.
+ * <p>
+ * When the map is smaller than the viewport along an axis it is centred along that axis, which gives a negative offset.
+ *
+ * @author feljo718
+ * @see BoardComponent
+ * @see TileChunkCache
+ */
+public class Viewport
+{
+    /** The tile sizes in pixels the viewport can zoom between, from the furthest out to the closest in. */
+    private static final int[] TILE_SIZES = { 4, 6, 8, 10, 12, 16, 20, 24, 32, 40, 48, 64, 80 };
+
+    private final int columns;
+    private final int rows;
+    private int zoomLevel;
+    private int offsetX = 0;
+    private int offsetY = 0;
+    private int viewWidth = 0;
+    private int viewHeight = 0;
+
+    /**
+     * Creates a viewport for the given board, at the normal tile size and scrolled to the top left corner.
+     *
+     * @param board The board to show
+     */
+    public Viewport(Board board) {
+	this.columns = board.getWidth();
+	this.rows = board.getHeight() - 1;
+	this.zoomLevel = indexOf(BoardComponent.TILE_SIZE);
+    }
+
+    private static int indexOf(int tileSize) {
+	for (int i = 0; i < TILE_SIZES.length; i++) {
+	    if (TILE_SIZES[i] >= tileSize) {
+		return i;
+	    }
+	}
+	return TILE_SIZES.length - 1;
+    }
+
+    /**
+     * Sets the size of the area the map is drawn in. The map area does not include the interface row.
+     *
+     * @param width  The width in pixels
+     * @param height The height in pixels
+     */
+    public void setViewSize(int width, int height) {
+	if (width == viewWidth && height == viewHeight) {
+	    return;
+	}
+	viewWidth = Math.max(0, width);
+	viewHeight = Math.max(0, height);
+	clamp();
+    }
+
+    /**
+     * Scrolls the view by the given distance in screen pixels. The view stops at the edges of the map.
+     *
+     * @param dx How far to move right
+     * @param dy How far to move down
+     */
+    public void pan(int dx, int dy) {
+	offsetX += dx;
+	offsetY += dy;
+	clamp();
+    }
+
+    /**
+     * Zooms in or out by a number of steps, keeping the map point under the given screen position in place.
+     *
+     * @param steps   Positive to zoom in, negative to zoom out
+     * @param anchorX The x position in the view to zoom around
+     * @param anchorY The y position in the view to zoom around
+     *
+     * @return true if the zoom changed
+     */
+    public boolean zoom(int steps, int anchorX, int anchorY) {
+	int level = Math.max(0, Math.min(TILE_SIZES.length - 1, zoomLevel + steps));
+	if (level == zoomLevel) {
+	    return false;
+	}
+	int oldSize = getTileSize();
+	zoomLevel = level;
+	int newSize = getTileSize();
+
+	// The map point under the anchor, in tiles, stays under the anchor
+	double anchorColumn = (double) (anchorX + offsetX) / oldSize;
+	double anchorRow = (double) (anchorY + offsetY) / oldSize;
+	offsetX = (int) Math.round(anchorColumn * newSize) - anchorX;
+	offsetY = (int) Math.round(anchorRow * newSize) - anchorY;
+	clamp();
+	return true;
+    }
+
+    /**
+     * Moves the view so that the given tile is in the middle, as far as the edges of the map allow.
+     *
+     * @param row The board row, counting the interface row
+     * @param col The board column
+     */
+    public void centerOn(int row, int col) {
+	int tileSize = getTileSize();
+	offsetX = col * tileSize + tileSize / 2 - viewWidth / 2;
+	offsetY = (row - 1) * tileSize + tileSize / 2 - viewHeight / 2;
+	clamp();
+    }
+
+    private void clamp() {
+	offsetX = clampAxis(offsetX, columns * getTileSize(), viewWidth);
+	offsetY = clampAxis(offsetY, rows * getTileSize(), viewHeight);
+    }
+
+    private static int clampAxis(int offset, int mapSize, int viewSize) {
+	if (mapSize <= viewSize) {
+	    return -(viewSize - mapSize) / 2;
+	}
+	return Math.max(0, Math.min(mapSize - viewSize, offset));
+    }
+
+    /**
+     * Returns the board column shown at the given x position in the view. The column may be outside the board.
+     */
+    public int toColumn(int x) {
+	return Math.floorDiv(x + offsetX, getTileSize());
+    }
+
+    /**
+     * Returns the board row shown at the given y position in the view, counting the interface row. The row may be outside the board.
+     */
+    public int toRow(int y) {
+	return Math.floorDiv(y + offsetY, getTileSize()) + 1;
+    }
+
+    /**
+     * Returns the board tiles that are at least partly visible.
+     *
+     * @return The visible tiles, with x and y as the first column and board row and the size in tiles, possibly empty
+     */
+    public Rectangle getVisibleTiles() {
+	int tileSize = getTileSize();
+	int firstColumn = Math.max(0, Math.floorDiv(offsetX, tileSize));
+	int firstRow = Math.max(0, Math.floorDiv(offsetY, tileSize));
+	int lastColumn = Math.min(columns - 1, Math.floorDiv(offsetX + viewWidth - 1, tileSize));
+	int lastRow = Math.min(rows - 1, Math.floorDiv(offsetY + viewHeight - 1, tileSize));
+	return new Rectangle(firstColumn, firstRow + 1, Math.max(0, lastColumn - firstColumn + 1), Math.max(0, lastRow - firstRow + 1));
+    }
+
+    /**
+     * Returns the visible area in board pixels, the unzoomed coordinates that enemies and explosions use.
+     *
+     * @return The visible area, which includes the interface row offset
+     */
+    public Rectangle getVisibleBounds() {
+	double scale = getScale();
+	int x = (int) Math.floor(offsetX / scale);
+	int y = (int) Math.floor(offsetY / scale) + BoardComponent.TILE_SIZE;
+	int width = (int) Math.ceil(viewWidth / scale) + 1;
+	int height = (int) Math.ceil(viewHeight / scale) + 1;
+	return new Rectangle(x, y, width, height);
+    }
+
+    /**
+     * Returns how many screen pixels one board pixel takes up at the current zoom.
+     */
+    public double getScale() {
+	return (double) getTileSize() / BoardComponent.TILE_SIZE;
+    }
+
+    public int getTileSize() {
+	return TILE_SIZES[zoomLevel];
+    }
+
+    public int getOffsetX() {
+	return offsetX;
+    }
+
+    public int getOffsetY() {
+	return offsetY;
+    }
+
+    public int getViewWidth() {
+	return viewWidth;
+    }
+
+    public int getViewHeight() {
+	return viewHeight;
+    }
+
+    public int getColumns() {
+	return columns;
+    }
+
+    public int getRows() {
+	return rows;
+    }
+}
@@ -0,0 +1,37 @@
+package se.liu.feljo718.towerdefence.command;
+
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.powerup.PowerupType;
+import se.liu.feljo718.towerdefence.tower.Tower;
+
+/**
+ * Buys a powerup for a tower.
+ * <p>
+ * Rejected if the player cannot afford it or the tower already has a powerup of the same type.
+ *
+ * @param towerId  The id of the tower to power up
+ * @param type     The type of powerup
+ * @param duration How long the powerup lasts in milliseconds
+ *
+ * @author feljo718
+ * @see Tower#applyPowerup(PowerupType, long)
+ */
+public record ApplyPowerupCommand(int towerId, PowerupType type, long duration) implements Command<Tower>
+{
+    @Override public CommandResult<Tower> apply(Board board) {
+	Tower tower = board.getTowerFactory().getRegistry().getById(towerId);
+	if (tower == null) {
+	    return CommandResult.rejected("The tower is no longer on the board");
+	}
+	if (tower.hasActivePowerupOfType(type)) {
+	    return CommandResult.rejected("This powerup is already active on the tower");
+	}
+	if (board.getCoins() < type.getCost()) {
+	    return CommandResult.rejected("Not enough coins");
+	}
+
+	board.gainCoins(-type.getCost());
+	tower.applyPowerup(type, duration);
+	return CommandResult.accepted(tower);
+    }
+}
@@ -0,0 +1,31 @@
+package se.liu.feljo718.towerdefence.command;
+
+import se.liu.feljo718.towerdefence.board.Board;
+
+/**
+ * A player action that changes the state of a board.
+ * <p>
+ * Commands are not applied where the player makes them but handed to {@link Board#submit(Command)}, which queues them until the start of
+ * the next tick. The game loop then applies all queued commands one after another before it simulates anything, so an action never lands
+ * in the middle of a tick and the simulation is only ever changed by the thread that runs it.
+ * <p>
+ * A command checks whether it can be carried out against the board as it is when the command is applied, not as it was when the player
+ * asked, since coins may have been spent or the tower sold in between.
+ *
+ * @param <T> The type of value the command produces when it is accepted
+ *
+ * @author feljo718
+ * @see CommandQueue
+ * @see CommandResult
+ */
+public interface Command<T>
+{
+    /**
+     * Checks the command against the board and carries it out if it is allowed. Called on the thread that ticks the board.
+     *
+     * @param board The board to change
+     *
+     * @return The outcome of the command
+     */
+    CommandResult<T> apply(Board board);
+}
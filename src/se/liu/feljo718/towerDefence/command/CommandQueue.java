@@ -0,0 +1,101 @@
+package se.liu.feljo718.towerdefence.command;
+
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.handler.LogHandler;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free queue of commands waiting for the next tick, written to by any thread and read by the thread that ticks the board.
+ * <p>
+ * The queue is a linked list with a single atomic tail. Adding a command swaps the new node into the tail and then links the old tail to
+ * it, so producers never wait for each other or for the game loop, and the game loop takes commands from the head without any atomic
+ * operation at all. A producer that has swapped the tail but not yet linked its node makes the queue look empty from that node on; its
+ * command is then simply picked up by the next drain.
+ * <p>
+ * Each command comes with a future that is completed with its {@link CommandResult} once the command has been applied. A command that
+ * throws completes its future exceptionally and does not stop the commands after it.
+ *
+ * @author feljo718
+ * @see Command
+ * @see Board#submit(Command)
+ */
+public final class CommandQueue implements CommandSink
+{
+    private final AtomicReference<Node> tail;
+    /** The node before the next command to apply. Only touched by the consumer. */
+    private Node head;
+
+    public CommandQueue() {
+	Node stub = new Node(null);
+	this.head = stub;
+	this.tail = new AtomicReference<>(stub);
+    }
+
+    /**
+     * Queues a command. Safe to call from any thread.
+     *
+     * @param command The command to apply at the start of the next tick
+     *
+     * @return A future completed with the outcome on the thread that ticks the board
+     */
+    @Override public <T> CompletableFuture<CommandResult<T>> submit(Command<T> command) {
+	Pending<T> pending = new Pending<>(command, new CompletableFuture<>());
+	Node node = new Node(pending);
+	Node previous = tail.getAndSet(node);
+	previous.next = node;
+	return pending.result();
+    }
+
+    /**
+     * Applies all queued commands to the board in the order they were submitted. Must only be called by the thread that ticks the board.
+     *
+     * @param board The board to apply the commands to
+     *
+     * @return The number of commands applied
+     */
+    public int drain(Board board) {
+	int applied = 0;
+	Node next = head.next;
+	while (next != null) {
+	    Pending<?> pending = next.pending;
+	    // The node becomes the new stub, so it must not keep the command alive
+	    next.pending = null;
+	    head = next;
+	    pending.apply(board);
+	    applied++;
+	    next = head.next;
+	}
+	return applied;
+    }
+
+    /**
+     * Returns true if no command is waiting. Only reliable on the consumer thread.
+     */
+    public boolean isEmpty() {
+	return head.next == null;
+    }
+
+    private static final class Node
+    {
+	private volatile Node next = null;
+	private Pending<?> pending;
+
+	private Node(Pending<?> pending) {
+	    this.pending = pending;
+	}
+    }
+
+    private record Pending<T>(Command<T> command, CompletableFuture<CommandResult<T>> result)
+    {
+	private void apply(Board board) {
+	    try {
+		result.complete(command.apply(board));
+	    } catch (RuntimeException e) {
+		LogHandler.severe(CommandQueue.class, "Command " + command + " failed", e);
+		result.completeExceptionally(e);
+	    }
+	}
+    }
+}
@@ -0,0 +1,50 @@
+package se.liu.feljo718.towerdefence.command;
+
+/**
+ * The outcome of a {@link Command}: either accepted with a value, or rejected with a reason that can be shown to the player.
+ *
+ * @param <T> The type of value of an accepted command
+ *
+ * @author feljo718
+ * @see Command
+ */
+public final class CommandResult<T>
+{
+    private final T value;
+    private final String rejection;
+
+    private CommandResult(T value, String rejection) {
+	this.value = value;
+	this.rejection = rejection;
+    }
+
+    public static <T> CommandResult<T> accepted(T value) {
+	return new CommandResult<>(value, null);
+    }
+
+    public static <T> CommandResult<T> rejected(String reason) {
+	return new CommandResult<>(null, reason);
+    }
+
+    public boolean isAccepted() {
+	return rejection == null;
+    }
+
+    /**
+     * Returns the value produced by the command, or null if it was rejected.
+     */
+    public T getValue() {
+	return value;
+    }
+
+    /**
+     * Returns why the command was rejected, or null if it was accepted.
+     */
+    public String getRejection() {
+	return rejection;
+    }
+
+    @Override public String toString() {
+	return isAccepted() ? "accepted: " + value : "rejected: " + rejection;
+    }
+}
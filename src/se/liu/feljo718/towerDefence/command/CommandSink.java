@@ -0,0 +1,27 @@
+package se.liu.feljo718.towerdefence.command;
+
+import se.liu.feljo718.towerdefence.board.Board;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Where the player's commands go when they are {@link Board#submit(Command) submitted} to a board.
+ * <p>
+ * Normally that is the board's own {@link CommandQueue}, which applies them at the start of the next tick. A board that is shared with
+ * another player sends them through a {@link se.liu.feljo718.towerdefence.lockstep.LockstepSession LockstepSession} instead, which
+ * decides on which tick they are applied on both machines.
+ *
+ * @author feljo718
+ * @see Board#setCommandSink(CommandSink)
+ */
+public interface CommandSink
+{
+    /**
+     * Accepts a command to be applied to the board later. Safe to call from any thread.
+     *
+     * @param command The command
+     *
+     * @return A future completed with the outcome on the thread that ticks the board
+     */
+    <T> CompletableFuture<CommandResult<T>> submit(Command<T> command);
+}
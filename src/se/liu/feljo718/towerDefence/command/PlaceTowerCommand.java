@@ -0,0 +1,45 @@
+package se.liu.feljo718.towerdefence.command;
+
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.tower.Tower;
+import se.liu.feljo718.towerdefence.tower.TowerType;
+import se.liu.feljo718.towerdefence.viewer.TowerShop;
+
+/**
+ * Buys a tower and puts it on a tile.
+ * <p>
+ * Rejected if the player cannot afford the tower, if the tile cannot be built on or already has a tower, or in maze mode if the tower
+ * would leave enemies without a way to an exit.
+ *
+ * @param type The type of tower to buy
+ * @param row  The board row, counting the interface row
+ * @param col  The board column
+ *
+ * @author feljo718
+ * @see Board#canPlaceTower(int, int)
+ */
+public record PlaceTowerCommand(TowerType type, int row, int col) implements Command<Tower>
+{
+    @Override public CommandResult<Tower> apply(Board board) {
+	int cost = TowerShop.getStaticTowerCost(type);
+	if (board.getCoins() < cost) {
+	    return CommandResult.rejected("Not enough coins, a " + type + " tower costs " + cost);
+	}
+	if (board.getTowerFactory().getTowerAt(row, col) != null) {
+	    return CommandResult.rejected("The tile already has a tower");
+	}
+	if (!board.canPlaceTower(row, col)) {
+	    if (board.isMazeMode() && board.getTileGrid().isBuildable(row, col)) {
+		return CommandResult.rejected("A tower here would block the route of the enemies");
+	    }
+	    return CommandResult.rejected("Towers cannot be built on this tile");
+	}
+
+	Tower tower = board.getTowerFactory().createTower(type, row, col);
+	if (tower == null) {
+	    return CommandResult.rejected("Towers cannot be built on this tile");
+	}
+	board.gainCoins(-cost);
+	return CommandResult.accepted(tower);
+    }
+}
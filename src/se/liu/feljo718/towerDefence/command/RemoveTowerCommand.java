@@ -0,0 +1,31 @@
+package se.liu.feljo718.towerdefence.command;
+
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.tower.Tower;
+import se.liu.feljo718.towerdefence.viewer.TowerShop;
+
+/**
+ * Sells a tower, freeing its tile and refunding part of its price.
+ *
+ * @param towerId The id of the tower to sell
+ *
+ * @author feljo718
+ */
+public record RemoveTowerCommand(int towerId) implements Command<Integer>
+{
+    /** The share of a tower's price the player gets back when selling it. */
+    public static final double REFUND_SHARE = 0.5;
+
+    /**
+     * Returns the accepted result with the number of coins refunded.
+     */
+    @Override public CommandResult<Integer> apply(Board board) {
+	Tower tower = board.getTowerFactory().getRegistry().getById(towerId);
+	if (tower == null || !board.getTowerFactory().removeTower(tower)) {
+	    return CommandResult.rejected("The tower is no longer on the board");
+	}
+	int refund = (int) (TowerShop.getStaticTowerCost(tower.getType()) * REFUND_SHARE);
+	board.gainCoins(refund);
+	return CommandResult.accepted(refund);
+    }
+}
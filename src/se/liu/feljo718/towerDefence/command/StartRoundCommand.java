@@ -0,0 +1,20 @@
+package se.liu.feljo718.towerdefence.command;
+
+import se.liu.feljo718.towerdefence.board.Board;
+
+/**
+ * Starts the next round, or does nothing while the current round is still being played.
+ *
+ * @author feljo718
+ * @see Board#startNextRound()
+ */
+public record StartRoundCommand() implements Command<Integer>
+{
+    /**
+     * Returns the accepted result with the round being played afterwards.
+     */
+    @Override public CommandResult<Integer> apply(Board board) {
+	board.startNextRound();
+	return CommandResult.accepted(board.getRound());
+    }
+}
@@ -0,0 +1,37 @@
+package se.liu.feljo718.towerdefence.command;
+
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.tower.Tower;
+import se.liu.feljo718.towerdefence.viewer.TowerShop;
+
+/**
+ * Upgrades a tower by one level for the price of a new tower of its type.
+ *
+ * @param towerId The id of the tower to upgrade
+ *
+ * @author feljo718
+ * @see Tower#upgrade()
+ */
+public record UpgradeTowerCommand(int towerId) implements Command<Integer>
+{
+    /**
+     * Returns the accepted result with the new level of the tower.
+     */
+    @Override public CommandResult<Integer> apply(Board board) {
+	Tower tower = board.getTowerFactory().getRegistry().getById(towerId);
+	if (tower == null) {
+	    return CommandResult.rejected("The tower is no longer on the board");
+	}
+	if (tower.getLevel() >= tower.getType().getMaxLevel()) {
+	    return CommandResult.rejected("Tower is already at maximum level");
+	}
+	int cost = TowerShop.getStaticTowerCost(tower.getType());
+	if (board.getCoins() < cost) {
+	    return CommandResult.rejected("Not enough coins to upgrade, you need " + cost + " coins");
+	}
+
+	board.gainCoins(-cost);
+	tower.upgrade();
+	return CommandResult.accepted(tower.getLevel());
+    }
+}
@@ -29,9 +29,13 @@ public class Enemy
 		   EnemyType.BOSS, new EnemyAttributes(2500, 0.06));
 
     private final EnemyType type;
+    private final Board board;
+    private final int id;
     private final EnemyPathfinding pathfinding;
     private final double speed;
     private int health;
+    /** The tile the enemy was on when it was last hit, or -1 if it has not been hit. */
+    private int lastHitTileIndex = -1;
     private double xPos;
     private double yPos;
     private double currentSpeedModifier = 1.0;
@@ -48,7 +52,9 @@ public class Enemy
      */
     public Enemy(EnemyType type, Board board) {
 	this.type = type;
-	this.pathfinding = new EnemyPathfinding(board);
+	this.board = board;
+	this.id = board.nextEntityId();
+	this.pathfinding = new EnemyPathfinding(board, id);
 	Point startPos = pathfinding.getCurrentPos();
 	this.xPos = startPos.x;
 	this.yPos = startPos.y;
@@ -63,23 +69,21 @@ public class Enemy
      * Lower values of factor mean slower movement (0.5 = half speed).
      *
      * @param factor The speed multiplier to apply (between 0 and 1)
-     * @param duration The duration in milliseconds that this effect lasts
+     * @param duration The duration in game time milliseconds that this effect lasts
      */
     public void applySpeedModifier(double factor, int duration) {
 	// Only apply if this modifier is stronger than current one
 	if (factor < currentSpeedModifier) {
 	    currentSpeedModifier = factor;
-	    speedModifierEndTime = System.currentTimeMillis() + duration;
+	    speedModifierEndTime = board.getGameTime() + duration;
 
-	    LogHandler.fine(Enemy.class,
-			    "Speed reduced to " + (factor * 100) + "% for " +
-			    (duration / 1000.0) + " seconds");
+	    LogHandler.fine(Enemy.class, () -> "Speed reduced to " + (factor * 100) + "% for " + (duration / 1000.0) + " seconds");
 	}
     }
 
     private void updateSpeedModifier() {
 	// Check if speed modifier has expired
-	if (System.currentTimeMillis() > speedModifierEndTime && currentSpeedModifier < 1.0) {
+	if (board.getGameTime() > speedModifierEndTime && currentSpeedModifier < 1.0) {
 	    currentSpeedModifier = 1.0; // Reset to normal speed
 	    LogHandler.fine(Enemy.class, "Speed returned to normal");
 	}
@@ -94,6 +98,24 @@ public class Enemy
 	return new Point((int) Math.round(xPos), (int) Math.round(yPos));
     }
 
+    /**
+     * Returns the column of this enemy, in tiles. Unlike {@link #getPosition()} the value is not rounded and no object is created.
+     *
+     * @return The exact column
+     */
+    public double getX() {
+	return xPos;
+    }
+
+    /**
+     * Returns the row of this enemy, in tiles, including the board's interface row.
+     *
+     * @return The exact row
+     */
+    public double getY() {
+	return yPos;
+    }
+
     /**
      * Returns the current pixel position of this enemy on the screen.
      * <p>
@@ -114,22 +136,21 @@ public class Enemy
     public void move() {
 	updateSpeedModifier();
 	double adjustedSpeed = speed * currentSpeedModifier;
-	Point target = pathfinding.getNextPosition();
-	if (target != null) {
-	    if (moveTowardsTarget(target, adjustedSpeed)) {
+	if (pathfinding.hasNextTarget()) {
+	    if (moveTowardsTarget(pathfinding.getTargetColumn(), pathfinding.getTargetRow(), adjustedSpeed)) {
 		pathfinding.reachedTargetPoint();
 	    }
 	}
     }
 
-    private boolean moveTowardsTarget(Point target, double currentSpeed) {
-	double dx = target.x - xPos;
-	double dy = target.y - yPos;
+    private boolean moveTowardsTarget(int targetX, int targetY, double currentSpeed) {
+	double dx = targetX - xPos;
+	double dy = targetY - yPos;
 	double distance = Math.sqrt(dx * dx + dy * dy);
 
 	if (distance <= currentSpeed) {
-	    xPos = target.x;
-	    yPos = target.y;
+	    xPos = targetX;
+	    yPos = targetY;
 	    return true;
 	} else {
 	    xPos += (dx / distance) * currentSpeed;
@@ -138,8 +159,32 @@ public class Enemy
 	}
     }
 
+    /**
+     * Returns the index in the board's tile grid of the tile this enemy last reached on its path.
+     */
+    public int getTileIndex() {
+	return pathfinding.getTileIndex();
+    }
+
+    /**
+     * Returns the index of the tile this enemy is walking to, or -1 if it is not walking anywhere.
+     */
+    public int getTargetTileIndex() {
+	return pathfinding.getTargetIndex();
+    }
+
     public void takeDamage(int damage) {
+	board.recordDamage(damage, health);
 	health -= damage;
+	lastHitTileIndex = pathfinding.getTileIndex();
+    }
+
+    /**
+     * Returns the index in the board's tile grid of the tile this enemy was on when a tower last hit it, or -1 if it has never been hit.
+     * For an enemy that got through, this is where the defence last had a chance to stop it.
+     */
+    public int getLastHitTileIndex() {
+	return lastHitTileIndex;
     }
 
     public boolean isDead() {
@@ -150,7 +195,30 @@ public class Enemy
 	return pathfinding.hasReachedEnd();
     }
 
+    public EnemyType getType() {
+	return type;
+    }
+
+    public int getId() {
+	return id;
+    }
+
+    public int getHealth() {
+	return health;
+    }
+
     public Color getColor() {
+	return getColor(type);
+    }
+
+    /**
+     * Returns the colour enemies of a type are drawn with.
+     *
+     * @param type The enemy type
+     *
+     * @return The fill colour of the enemy
+     */
+    public static Color getColor(EnemyType type) {
 	return switch (type) {
 	    case BASIC -> Color.BLACK;
 	    case FAST -> Color.RED;
@@ -1,8 +1,14 @@
 package se.liu.feljo718.towerdefence.enemy;
 
 import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.metrics.EnemyExitEvent;
+import se.liu.feljo718.towerdefence.metrics.EnemySpawnEvent;
+import se.liu.feljo718.towerdefence.telemetry.Telemetry;
+import se.liu.feljo718.towerdefence.telemetry.TelemetryEventType;
 
+import java.awt.*;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -20,6 +26,7 @@ public class EnemyFactory
     private static final int ENEMY_KILL_REWARD = 5;
     private final Board board;
     private final List<Enemy> enemies;
+    private int spawnedCount = 0;
 
     /**
      * Creates a new enemy factory for the specified game board.
@@ -34,8 +41,17 @@ public class EnemyFactory
     }
 
     public void spawnEnemy(EnemyType type) {
+	EnemySpawnEvent event = new EnemySpawnEvent();
+	event.begin();
 	Enemy enemy = new Enemy(type, board);
 	enemies.add(enemy);
+	spawnedCount++;
+	Telemetry.record(board, TelemetryEventType.SPAWN, type.ordinal(), enemy.getId(), 0, enemy.getX(), enemy.getY(), enemy.getHealth());
+	if (event.shouldCommit()) {
+	    event.enemyType = type.name();
+	    event.enemiesAlive = enemies.size();
+	    event.commit();
+	}
     }
 
     public void moveEnemies() {
@@ -44,18 +60,52 @@ public class EnemyFactory
 	}
     }
 
+    /**
+     * Removes the enemies that have left the map or died, paying the reward for each kill. Runs every simulation step, so it walks the
+     * list once with an iterator instead of copying it.
+     */
     public void removeFinishedEnemies() {
-	for (Enemy enemy : new ArrayList<>(enemies)) {
+	Iterator<Enemy> iterator = enemies.iterator();
+	while (iterator.hasNext()) {
+	    Enemy enemy = iterator.next();
 	    if (enemy.hasReachedEnd()) {
-		enemies.remove(enemy);
+		iterator.remove();
+		recordExit(enemy, EnemyExitEvent.LEAKED);
+		recordTelemetry(enemy, TelemetryEventType.LEAK, enemy.getHealth());
+		board.enemyLeaked(enemy);
 	    } else if (enemy.isDead()) {
 		board.gainCoins(ENEMY_KILL_REWARD);
-		enemies.remove(enemy);
+		iterator.remove();
+		recordExit(enemy, EnemyExitEvent.KILLED);
+		recordTelemetry(enemy, TelemetryEventType.KILL, ENEMY_KILL_REWARD);
 	    }
 	}
     }
 
+    private void recordExit(Enemy enemy, String outcome) {
+	EnemyExitEvent event = new EnemyExitEvent();
+	if (event.shouldCommit()) {
+	    Point position = enemy.getPosition();
+	    event.enemyType = enemy.getType().name();
+	    event.outcome = outcome;
+	    event.x = position.x;
+	    event.y = position.y;
+	    event.commit();
+	}
+    }
+
+    private void recordTelemetry(Enemy enemy, TelemetryEventType type, int amount) {
+	Telemetry.record(board, type, enemy.getType().ordinal(), enemy.getId(), 0, enemy.getX(), enemy.getY(), amount);
+    }
+
     public List<Enemy> getEnemies() {
 	return enemies;
     }
+
+    /**
+     * Returns the number of enemies spawned on the board since it was created.
+     */
+    public int getSpawnedCount() {
+	return spawnedCount;
+    }
 }
\ No newline at end of file
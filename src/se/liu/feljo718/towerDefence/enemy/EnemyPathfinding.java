@@ -1,115 +1,119 @@
 package se.liu.feljo718.towerdefence.enemy;
 
 import se.liu.feljo718.towerdefence.board.Board;
-import se.liu.feljo718.towerdefence.board.TileType;
+import se.liu.feljo718.towerdefence.board.FlowField;
+import se.liu.feljo718.towerdefence.board.TileGrid;
 
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Handles the movement logic for enemies along the game path.
  * <p>
- * This class implements pathfinding for enemies, tracking their positions as they navigate from the start tile to the end tile. It
- * determines valid moves, maintains position information, and detects when enemies reach the end of the path.
+ * This class tracks an enemy's position as it walks from a start tile to an end tile. The route itself is not worked out here: every
+ * step is taken from the board's shared {@link FlowField}, which knows the distance from every tile to the nearest end tile. Positions are
+ * kept as tile indices of the board's {@link TileGrid}, so that taking a step creates no objects.
+ * <p>
+ * Maps with several start tiles spread their enemies over them in turn, and at forks in the path the flow field picks a branch by
+ * weight, using up part of the enemy's detour budget for branches that are longer than the shortest route.
  *
  * @author feljo718
  * @see Enemy
  * @see Board
- * @see TileType
+ * @see FlowField
  */
 public class EnemyPathfinding
 {
+    private final TileGrid grid;
+    private final FlowField flowField;
     private final Board board;
-    private Point currentPos = null;
-    private Point previousPos = null;
-    private Point currentTarget = null;
+    private final int enemyId;
+    private int current;
+    private int previous = -1;
+    private int target = -1;
+    private int detourBudget = FlowField.MAX_DETOUR;
     private boolean reachedEnd;
 
     /**
      * Creates a new pathfinding instance for navigating the specified game board.
      * <p>
-     * Locates the start position on the board and initializes the enemy position.
+     * Places the enemy on the start tile chosen for it by the board's flow field.
      *
-     * @param board The game board containing the path to navigate
+     * @param board   The game board containing the path to navigate
+     * @param enemyId The id of the enemy, which decides its start tile and the branches it takes
      */
-    public EnemyPathfinding(Board board) {
+    public EnemyPathfinding(Board board, int enemyId) {
 	this.board = board;
+	this.grid = board.getTileGrid();
+	this.flowField = board.getFlowField();
+	this.enemyId = enemyId;
 	this.reachedEnd = false;
-	findStartPosition();
+	this.current = Math.max(0, flowField.chooseSpawn(enemyId));
     }
 
     /**
-     * Searches the board for the start tile and sets initial positions.
-     * <p>
-     * Scans the entire board to locate the tile marked as START and sets both current and previous positions to that location.
+     * Creates a new pathfinding instance for an enemy with id 0, which starts from the first start tile.
+     *
+     * @param board The game board containing the path to navigate
      */
-    private void findStartPosition() {
-	for (int row = 0; row < board.getHeight(); row++) {
-	    for (int col = 0; col < board.getWidth(); col++) {
-		if (board.getTileAt(row, col) == TileType.START) {
-		    currentPos = new Point(col, row);
-		    previousPos = new Point(col, row);
-		    return;
-		}
-	    }
-	}
+    public EnemyPathfinding(Board board) {
+	this(board, 0);
     }
 
     /**
-     * Determines the next target position along the path.
-     * <p>
-     * If the enemy has already reached the end, returns null. If no current target exists, calculates a new target position based on
-     * available moves.
+     * Works out the next tile along the path, unless it is already known.
      *
-     * @return The next Point the enemy should move toward, or null if path is complete
+     * @return true if there is a next tile, false if the enemy has reached the end or cannot move
      */
-    public Point getNextPosition() {
+    public boolean hasNextTarget() {
 	if (reachedEnd) {
-	    return null;
+	    return false;
 	}
-
-	if (currentTarget == null) {
-	    List<Point> possibleMoves = getPossibleMoves();
-	    if (!possibleMoves.isEmpty()) {
-		currentTarget = possibleMoves.getFirst();
-	    }
+	if (target < 0) {
+	    target = flowField.nextStep(current, previous, detourBudget, enemyId);
 	}
-	return currentTarget;
+	return target >= 0;
+    }
+
+    /**
+     * Returns the column of the next tile. Only valid after {@link #hasNextTarget()} returned true.
+     */
+    public int getTargetColumn() {
+	return grid.columnOf(target);
+    }
+
+    /**
+     * Returns the row of the next tile, including the interface row. Only valid after {@link #hasNextTarget()} returned true.
+     */
+    public int getTargetRow() {
+	return grid.rowOf(target);
     }
 
     /**
-     * Identifies all valid adjacent tiles where the enemy can move.
+     * Determines the next target position along the path.
      * <p>
-     * Checks the four adjacent tiles (up, down, left, right) to determine if they are valid path segments. Excludes the previous position
-     * to prevent backtracking.
+     * If the enemy has already reached the end, returns null. This creates a new point on every call, the game itself uses
+     * {@link #hasNextTarget()} and the target accessors instead.
      *
-     * @return A list of valid Point positions where the enemy can move next
+     * @return The next Point the enemy should move toward, or null if path is complete
      */
-    private List<Point> getPossibleMoves() {
-	List<Point> possibleMoves = new ArrayList<>();
-
-	for (Direction dir : Direction.values()) {
-	    int newX = currentPos.x + dir.getXOffset();
-	    int newY = currentPos.y + dir.getYOffset();
-
-	    if (isValidMove(newX, newY)) {
-		Point newPos = new Point(newX, newY);
-		if (!newPos.equals(previousPos)) {
-		    possibleMoves.add(newPos);
-		}
-	    }
+    public Point getNextPosition() {
+	if (!hasNextTarget()) {
+	    return null;
 	}
-	return possibleMoves;
+	return new Point(getTargetColumn(), getTargetRow());
     }
 
     /**
      * Updates position tracking after reaching the current target point.
      */
     public void reachedTargetPoint() {
-	previousPos = new Point(currentPos);
-	currentPos = new Point(currentTarget);
-	currentTarget = null;
+	if (target < 0) {
+	    return;
+	}
+	detourBudget -= Math.max(0, flowField.detourCost(flowField.getDistance(current), target));
+	previous = current;
+	current = target;
+	target = -1;
 
 	updatePathCompletionStatus();
     }
@@ -118,40 +122,31 @@ public class EnemyPathfinding
      * Checks if the enemy has reached the end tile and updates game state accordingly.
      */
     private void updatePathCompletionStatus() {
-	if (board.getTileAt(currentPos.y, currentPos.x) == TileType.END) {
+	if (grid.hasFlags(current, TileGrid.EXIT)) {
 	    reachedEnd = true;
 	    board.livesLost();
 	}
     }
 
     /**
-     * Determines if a potential move is valid within the game rules.
-     * <p>
-     * A move is valid if:
-     * <ul>
-     *   <li>The coordinates are within board boundaries</li>
-     *   <li>The tile at those coordinates is a path or end tile</li>
-     * </ul>
-     *
-     * @param x The x-coordinate to check
-     * @param y The y-coordinate to check
-     *
-     * @return {@code true} if the move is valid; {@code false} otherwise
+     * Returns the index in the board's {@link TileGrid} of the tile the enemy last reached.
      */
-    private boolean isValidMove(int x, int y) {
-	if (x < 0 || x >= board.getWidth() || y < 0 || y >= board.getHeight()) {
-	    return false;
-	}
-	TileType tileType = board.getTileAt(y, x);
-	return tileType == TileType.PATH || tileType == TileType.END;
+    public int getTileIndex() {
+	return current;
     }
 
+    /**
+     * Returns the index of the tile the enemy is walking to, or -1 if it has not chosen one.
+     */
+    public int getTargetIndex() {
+	return target;
+    }
 
     public Point getCurrentPos() {
-	return new Point(currentPos);
+	return new Point(grid.columnOf(current), grid.rowOf(current));
     }
 
     public boolean hasReachedEnd() {
 	return reachedEnd;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,53 @@
+package se.liu.feljo718.towerdefence.forecast;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What a {@link WaveForecaster} expects to happen in the next round if the player starts it with the defence they have.
+ *
+ * @param round        The one-based round that was forecast
+ * @param commandCount The {@link se.liu.feljo718.towerdefence.board.Board#getCommandCount() command count} of the board when it was
+ *                     copied; the forecast is out of date once the board's count differs
+ * @param enemies      The number of enemies of the round
+ * @param leaks        The number of enemies that reached the exit
+ * @param untouched    How many of those were never hit by any tower
+ * @param livesBefore  The lives before the round
+ * @param livesAfter   The lives after the round, zero or less if the game would be lost
+ * @param leakSites    Where the leaking enemies got away, most leaks first
+ * @param gameTime     The game time the round took, in milliseconds
+ * @param nanos        The wall-clock time the forecast took
+ *
+ * @author feljo718
+ * @see WaveForecaster
+ */
+public record WaveForecast(int round, long commandCount, int enemies, int leaks, int untouched, int livesBefore, int livesAfter,
+			   List<LeakSite> leakSites, long gameTime, long nanos)
+{
+    public boolean holds() {
+	return leaks == 0;
+    }
+
+    public boolean isGameOver() {
+	return livesAfter <= 0;
+    }
+
+    /**
+     * Returns how many times faster than real time the round was played.
+     */
+    public double getSpeedup() {
+	return TimeUnit.MILLISECONDS.toNanos(gameTime) / (double) Math.max(1, nanos);
+    }
+
+    /**
+     * A tile where enemies got away: the tile a leaking enemy was on when a tower last hit it, or the exit it reached if no tower ever
+     * did.
+     *
+     * @param row   The board row, counting the interface row
+     * @param col   The board column
+     * @param leaks The number of leaking enemies that got away here
+     */
+    public record LeakSite(int row, int col, int leaks)
+    {
+    }
+}
@@ -0,0 +1,153 @@
+package se.liu.feljo718.towerdefence.forecast;
+
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.board.BoardListener;
+import se.liu.feljo718.towerdefence.board.TileGrid;
+import se.liu.feljo718.towerdefence.enemy.Enemy;
+import se.liu.feljo718.towerdefence.handler.LogHandler;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Forecasts how the next round will go by playing it ahead on a copy of the board.
+ * <p>
+ * A forecast {@link Board#copy() copies} the board on the calling thread, which must be the thread that ticks the board, and plays the
+ * next round on the copy on a background thread. The copy is ticked as fast as the thread allows, so a round of a minute or more is
+ * usually forecast in a fraction of a second. Nothing in the simulation depends on the wall clock or on the event dispatch thread: the
+ * copy measures time in its own ticks and gives its enemies the same ids, and with that the same routes, as the real board would.
+ * <p>
+ * Only the latest forecast of a forecaster matters. Asking for a new one makes any forecast still running give up at its next check, and
+ * its future completes with a {@link CancellationException}. All forecasters share one low priority thread, so forecasting never takes
+ * more than one core from the game.
+ *
+ * @author feljo718
+ * @see WaveForecast
+ */
+public final class WaveForecaster
+{
+    /** A round still running after this many frames, about ten minutes of game time at the highest speed, is cut off. */
+    private static final long MAX_FRAMES = 60L * 60 * 10;
+    /** How often, in frames, a running forecast checks whether a newer one has been asked for. */
+    private static final int CHECK_FRAMES = 30;
+    private static final ExecutorService BACKGROUND = Executors.newSingleThreadExecutor(runnable -> {
+	Thread thread = new Thread(runnable, "wave-forecast");
+	thread.setDaemon(true);
+	thread.setPriority(Thread.MIN_PRIORITY);
+	return thread;
+    });
+
+    private final AtomicLong latestRequest = new AtomicLong();
+
+    /**
+     * Returns true if the board is between rounds and has another level to play, which is when a forecast can be made.
+     */
+    public static boolean canForecast(Board board) {
+	return board.isRoundCleared() && board.getRound() < board.getLevelCount();
+    }
+
+    /**
+     * Copies the board and forecasts its next round in the background.
+     *
+     * @param board The board, which must be between rounds; only called on the thread that ticks it
+     *
+     * @return A future completed with the forecast on the background thread
+     * @throws IllegalStateException If the board is in the middle of a round or has no next round
+     */
+    public CompletableFuture<WaveForecast> forecast(Board board) {
+	if (!canForecast(board)) {
+	    throw new IllegalStateException("There is no next round to forecast");
+	}
+	Board copy = board.copy();
+	long request = latestRequest.incrementAndGet();
+	return CompletableFuture.supplyAsync(() -> play(copy, request), BACKGROUND);
+    }
+
+    /**
+     * Makes any forecast still running give up.
+     */
+    public void cancel() {
+	latestRequest.incrementAndGet();
+    }
+
+    private WaveForecast play(Board board, long request) {
+	long start = System.nanoTime();
+	LeakRecorder leaks = new LeakRecorder(board.getTileGrid());
+	board.addBoardListener(leaks);
+	board.setGameSpeed(Board.MAX_GAME_SPEED);
+
+	int livesBefore = board.getLives();
+	int round = board.getRound() + 1;
+	long startTime = board.getGameTime();
+	board.startRound(round);
+	long frames = 0;
+	while (!board.isRoundCleared()) {
+	    board.tick();
+	    frames++;
+	    if (frames % CHECK_FRAMES == 0 && latestRequest.get() != request) {
+		throw new CancellationException("A newer forecast was asked for");
+	    }
+	    if (frames > MAX_FRAMES) {
+		LogHandler.logWarning(WaveForecaster.class, "Forecast of round " + round + " never ended, cut off");
+		break;
+	    }
+	}
+
+	WaveForecast forecast = new WaveForecast(round, board.getCommandCount(), board.getEnemyFactory().getSpawnedCount(), leaks.count,
+						 leaks.untouched, livesBefore, board.getLives(), leaks.getSites(),
+						 board.getGameTime() - startTime, System.nanoTime() - start);
+	LogHandler.fine(WaveForecaster.class, () -> "Forecast round " + round + ": " + forecast.leaks() + " of " + forecast.enemies() +
+						     " enemies leak, " + String.format("%.0f", forecast.getSpeedup()) + "x real time");
+	return forecast;
+    }
+
+    /**
+     * Collects where the enemies that get through were last hit.
+     */
+    private static final class LeakRecorder implements BoardListener
+    {
+	private final TileGrid tiles;
+	private final Map<Integer, Integer> leaksByTile = new LinkedHashMap<>();
+	private int count = 0;
+	private int untouched = 0;
+
+	private LeakRecorder(TileGrid tiles) {
+	    this.tiles = tiles;
+	}
+
+	@Override public void enemyLeaked(Enemy enemy) {
+	    count++;
+	    int tile = enemy.getLastHitTileIndex();
+	    if (tile < 0) {
+		untouched++;
+		tile = enemy.getTileIndex();
+	    }
+	    leaksByTile.merge(tile, 1, Integer::sum);
+	}
+
+	private List<WaveForecast.LeakSite> getSites() {
+	    List<WaveForecast.LeakSite> sites = new ArrayList<>(leaksByTile.size());
+	    for (Map.Entry<Integer, Integer> entry : leaksByTile.entrySet()) {
+		sites.add(new WaveForecast.LeakSite(tiles.rowOf(entry.getKey()), tiles.columnOf(entry.getKey()), entry.getValue()));
+	    }
+	    sites.sort((first, second) -> Integer.compare(second.leaks(), first.leaks()));
+	    return List.copyOf(sites);
+	}
+
+	@Override public void boardChanged() {
+	}
+
+	@Override public void gameOver() {
+	}
+
+	@Override public void gameCompleted() {
+	}
+    }
+}
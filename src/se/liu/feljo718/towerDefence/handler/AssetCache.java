@@ -0,0 +1,70 @@
+package se.liu.feljo718.towerdefence.handler;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads images from the classpath once and shares them between all boards.
+ * <p>
+ * Decoding an image with {@link ImageIO} also initialises the image I/O plugins, which takes longer than decoding itself. The startup
+ * warm-up therefore loads the images on a background thread while the main menu is shown, see {@link #preload()}. A board asking for an
+ * image that is still being loaded waits for that load instead of starting another one.
+ * <p>
+ * Images that cannot be found or read are logged once and remembered as missing.
+ *
+ * @author feljo718
+ * @see se.liu.feljo718.towerdefence.board.BoardComponent
+ */
+public final class AssetCache
+{
+    /** The image drawn where a tower hits an enemy. */
+    public static final String EXPLOSION_IMAGE = "images/explosion.png";
+    private static final Map<String, Optional<BufferedImage>> IMAGES = new ConcurrentHashMap<>();
+
+    private AssetCache() {
+    }
+
+    /**
+     * Returns an image from the classpath, loading it on first use.
+     *
+     * @param resource The resource name, relative to the classpath root
+     *
+     * @return The image, or null if it cannot be found or read
+     */
+    public static BufferedImage getImage(String resource) {
+	return IMAGES.computeIfAbsent(resource, AssetCache::loadImage).orElse(null);
+    }
+
+    /**
+     * Loads every image the game draws.
+     */
+    public static void preload() {
+	getImage(EXPLOSION_IMAGE);
+    }
+
+    private static Optional<BufferedImage> loadImage(String resource) {
+	URL imageUrl = AssetCache.class.getClassLoader().getResource(resource);
+	if (imageUrl == null) {
+	    LogHandler.logWarning(AssetCache.class, "Image not found in classpath: " + resource);
+	    return Optional.empty();
+	}
+	try {
+	    BufferedImage image = ImageIO.read(imageUrl);
+	    if (image == null) {
+		LogHandler.logWarning(AssetCache.class, "Failed to read image from: " + imageUrl);
+		return Optional.empty();
+	    }
+	    LogHandler.info(AssetCache.class, "Loaded image from classpath: " + imageUrl);
+	    return Optional.of(image);
+	} catch (IOException e) {
+	    // No need to crash the game if an image cannot be read
+	    LogHandler.severe(AssetCache.class, "Error loading image " + resource + ": " + e.getMessage(), e);
+	    return Optional.empty();
+	}
+    }
+}
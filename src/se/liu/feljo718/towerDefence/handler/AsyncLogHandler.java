@@ -0,0 +1,284 @@
+package se.liu.feljo718.towerdefence.handler;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Logging handler that hands records to a background thread, so that logging never blocks the thread that logs.
+ * <p>
+ * Published records are put into a bounded ring buffer without taking any lock. A single daemon thread takes them out again and passes
+ * them on to the wrapped handlers, which do the formatting and the actual writing. Formatting therefore also happens on the background
+ * thread, which is why parameterised messages such as {@code LogHandler.fine(clazz, "Hit {0} enemies", count)} cost the logging thread
+ * little more than creating the record.
+ * <p>
+ * When the buffer is full the {@link OverflowPolicy} decides what happens: by default the record is dropped and counted, so that a burst
+ * of log messages can never stall the game loop. Dropped records are reported with a warning once the writer has caught up again.
+ * <p>
+ * Closing the handler, which the JDK does for all root handlers on shutdown, writes all records still in the buffer before the wrapped
+ * handlers are closed.
+ *
+ * @author feljo718
+ * @see LogHandler
+ */
+public final class AsyncLogHandler extends Handler
+{
+    /** How long the writer sleeps when there is nothing to write, bounding the delay of a missed wake-up. */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    /** How long a producer waits between attempts when the buffer is full and the policy is {@link OverflowPolicy#BLOCK}. */
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long CLOSE_TIMEOUT_MILLIS = 2000;
+    private static final long FLUSH_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final List<Handler> targets;
+    private final OverflowPolicy policy;
+    private final RecordRing ring;
+    private final Thread writer;
+    private final LongAdder droppedRecords = new LongAdder();
+    private final AtomicLong unreportedDrops = new AtomicLong();
+    private volatile boolean running = true;
+    private volatile boolean writerSleeping = false;
+
+    /**
+     * What to do with a record when the buffer is full.
+     */
+    public enum OverflowPolicy
+    {
+	/** Throw the record away and count it. The logging thread never waits. */
+	DROP,
+	/** Wait until the writer has made room. Nothing is lost, but a slow disk can slow down the logging thread. */
+	BLOCK
+    }
+
+    /**
+     * Creates a handler that writes to the given handlers on a background thread.
+     *
+     * @param targets  The handlers that format and write the records
+     * @param capacity The number of records the buffer can hold, rounded up to a power of two
+     * @param policy   What to do when the buffer is full
+     */
+    public AsyncLogHandler(List<Handler> targets, int capacity, OverflowPolicy policy) {
+	this.targets = List.copyOf(targets);
+	this.policy = policy;
+	this.ring = new RecordRing(capacity);
+	setLevel(Level.ALL);
+
+	writer = new Thread(this::writeRecords, "log-writer");
+	writer.setDaemon(true);
+	writer.start();
+    }
+
+    @Override public void publish(LogRecord record) {
+	if (!running || !isLoggable(record)) {
+	    return;
+	}
+
+	while (!ring.offer(record)) {
+	    if (policy == OverflowPolicy.DROP || !running) {
+		droppedRecords.increment();
+		unreportedDrops.incrementAndGet();
+		return;
+	    }
+	    wakeWriter();
+	    LockSupport.parkNanos(FULL_PARK_NANOS);
+	}
+
+	if (writerSleeping) {
+	    wakeWriter();
+	}
+    }
+
+    private void wakeWriter() {
+	LockSupport.unpark(writer);
+    }
+
+    /**
+     * Waits up to a second for the buffer to be written and then flushes the wrapped handlers.
+     */
+    @Override public void flush() {
+	long deadline = System.nanoTime() + FLUSH_TIMEOUT_NANOS;
+	while (!ring.isEmpty() && writer.isAlive() && System.nanoTime() - deadline < 0) {
+	    wakeWriter();
+	    LockSupport.parkNanos(FULL_PARK_NANOS);
+	}
+	for (Handler target : targets) {
+	    target.flush();
+	}
+    }
+
+    /**
+     * Writes the remaining records, stops the writer thread and closes the wrapped handlers.
+     */
+    @Override public void close() {
+	if (!running) {
+	    return;
+	}
+	running = false;
+	wakeWriter();
+	try {
+	    writer.join(CLOSE_TIMEOUT_MILLIS);
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	}
+	for (Handler target : targets) {
+	    target.close();
+	}
+    }
+
+    /**
+     * Returns the number of records that were thrown away because the buffer was full.
+     *
+     * @return The number of dropped records since the handler was created
+     */
+    public long getDroppedRecordCount() {
+	return droppedRecords.sum();
+    }
+
+    /**
+     * Returns the number of records waiting to be written.
+     *
+     * @return The number of buffered records
+     */
+    public int getQueuedRecordCount() {
+	return ring.size();
+    }
+
+    public OverflowPolicy getPolicy() {
+	return policy;
+    }
+
+    /**
+     * Body of the writer thread. Runs until the handler is closed and the buffer is empty.
+     */
+    private void writeRecords() {
+	boolean wroteSinceFlush = false;
+	while (running || !ring.isEmpty()) {
+	    LogRecord record = ring.poll();
+	    if (record != null) {
+		deliver(record);
+		wroteSinceFlush = true;
+		continue;
+	    }
+
+	    reportDrops();
+	    if (wroteSinceFlush) {
+		for (Handler target : targets) {
+		    target.flush();
+		}
+		wroteSinceFlush = false;
+	    }
+
+	    writerSleeping = true;
+	    // Check again after announcing the sleep, a record published in between would otherwise wait for the timeout
+	    if (ring.isEmpty() && running) {
+		LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+	    }
+	    writerSleeping = false;
+	}
+	reportDrops();
+	for (Handler target : targets) {
+	    target.flush();
+	}
+    }
+
+    private void deliver(LogRecord record) {
+	for (Handler target : targets) {
+	    try {
+		target.publish(record);
+	    } catch (RuntimeException e) {
+		// A broken handler must not stop the writer, the remaining handlers still get the record
+		reportError("Log handler failed", e, ErrorManager.WRITE_FAILURE);
+	    }
+	}
+    }
+
+    private void reportDrops() {
+	long drops = unreportedDrops.getAndSet(0);
+	if (drops > 0) {
+	    LogRecord warning = new LogRecord(Level.WARNING, "Dropped " + drops + " log records because the log buffer was full");
+	    warning.setSourceClassName(AsyncLogHandler.class.getName());
+	    warning.setLoggerName(AsyncLogHandler.class.getName());
+	    deliver(warning);
+	}
+    }
+
+    /**
+     * Bounded multi-producer, single-consumer queue of log records.
+     * <p>
+     * Each slot carries a sequence number telling whose turn it is: a producer may fill slot {@code i} for position {@code p} when its
+     * sequence equals {@code p}, and the consumer may empty it when the sequence equals {@code p + 1}. Producers claim positions with a
+     * compare-and-set on the head counter, so neither side ever takes a lock.
+     */
+    private static class RecordRing
+    {
+	private final int mask;
+	private final AtomicReferenceArray<LogRecord> slots;
+	private final AtomicLongArray sequences;
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong tail = new AtomicLong();
+
+	private RecordRing(int requestedCapacity) {
+	    int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+	    mask = capacity - 1;
+	    slots = new AtomicReferenceArray<>(capacity);
+	    sequences = new AtomicLongArray(capacity);
+	    for (int i = 0; i < capacity; i++) {
+		sequences.set(i, i);
+	    }
+	}
+
+	private boolean offer(LogRecord record) {
+	    long position = head.get();
+	    while (true) {
+		int index = (int) (position & mask);
+		long difference = sequences.get(index) - position;
+		if (difference == 0) {
+		    long witness = head.compareAndExchange(position, position + 1);
+		    if (witness == position) {
+			slots.set(index, record);
+			sequences.setRelease(index, position + 1);
+			return true;
+		    }
+		    position = witness;
+		} else if (difference < 0) {
+		    // The slot still holds a record from one lap ago, so the ring is full
+		    return false;
+		} else {
+		    position = head.get();
+		}
+	    }
+	}
+
+	/**
+	 * Takes the oldest record out of the ring. Must only be called by the writer thread.
+	 */
+	private LogRecord poll() {
+	    long position = tail.get();
+	    int index = (int) (position & mask);
+	    if (sequences.getAcquire(index) != position + 1) {
+		return null;
+	    }
+	    LogRecord record = slots.get(index);
+	    slots.set(index, null);
+	    sequences.setRelease(index, position + mask + 1);
+	    tail.setRelease(position + 1);
+	    return record;
+	}
+
+	private boolean isEmpty() {
+	    return size() == 0;
+	}
+
+	private int size() {
+	    return (int) Math.max(0, head.get() - tail.get());
+	}
+    }
+}
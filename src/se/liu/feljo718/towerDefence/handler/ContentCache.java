@@ -0,0 +1,181 @@
+package se.liu.feljo718.towerdefence.handler;
+
+import se.liu.feljo718.towerdefence.board.LevelDefinition;
+import se.liu.feljo718.towerdefence.board.MapDefinition;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide cache of the immutable game content read from the JSON files.
+ * <p>
+ * Maps and levels are parsed the first time a board asks for them and then shared by every board in the process, so starting a new game
+ * or running many boards side by side costs no file access at all. Boards copy what they change, see {@link MapDefinition} and
+ * {@link LevelDefinition}, so the cached definitions are never modified.
+ * <p>
+ * Files read from the {@code resources} folder are watched with a {@link WatchService}. When a file is changed, replaced or deleted its
+ * entries are dropped, and the next board reads the new version. The folder is watched before the file is read, so a change made while
+ * the file is being parsed is not missed. Content read from the classpath cannot change and is never invalidated.
+ *
+ * @author feljo718
+ * @see MapReader
+ * @see LevelReader
+ */
+public final class ContentCache
+{
+    private static final String RESOURCES_FOLDER = "resources";
+
+    private static final Map<MapKey, MapDefinition> MAPS = new ConcurrentHashMap<>();
+    private static final Map<String, List<LevelDefinition>> LEVELS = new ConcurrentHashMap<>();
+    /** The cached files, by absolute path, mapped to the names they are cached under. */
+    private static final Map<Path, String> WATCHED_FILES = new ConcurrentHashMap<>();
+    private static final Set<Path> WATCHED_FOLDERS = ConcurrentHashMap.newKeySet();
+    private static final LongAdder LOADS = new LongAdder();
+    private static WatchService watchService = null;
+    private static boolean watchingFailed = false;
+
+    private ContentCache() {
+    }
+
+    /**
+     * Returns the named map from the given file, read at the given size.
+     *
+     * @param mapFile The map file, relative to the resources folder
+     * @param mapName The name of the map in the file
+     * @param width   The width of the map in tiles
+     * @param height  The height of the map in tiles, without the interface row
+     *
+     * @return The shared map definition
+     */
+    public static MapDefinition getMap(String mapFile, String mapName, int width, int height) {
+	watch(mapFile);
+	return MAPS.computeIfAbsent(new MapKey(mapFile, mapName, width, height), key -> {
+	    LOADS.increment();
+	    return new MapDefinition(mapName, new MapReader(mapFile, width, height, mapName).getMap());
+	});
+    }
+
+    /**
+     * Returns the levels defined in the given file.
+     *
+     * @param levelFile The level file, relative to the resources folder
+     *
+     * @return The shared, unmodifiable list of level definitions
+     * @throws com.google.gson.JsonSyntaxException If the file is malformed, in which case nothing is cached
+     */
+    public static List<LevelDefinition> getLevels(String levelFile) {
+	watch(levelFile);
+	return LEVELS.computeIfAbsent(levelFile, file -> {
+	    LOADS.increment();
+	    return List.copyOf(new LevelReader(file).getLevels());
+	});
+    }
+
+    /**
+     * Drops everything read from the given file.
+     *
+     * @param file The file, relative to the resources folder
+     */
+    public static void invalidate(String file) {
+	boolean removed = LEVELS.remove(file) != null;
+	removed |= MAPS.keySet().removeIf(key -> key.file().equals(file));
+	if (removed) {
+	    LogHandler.info(ContentCache.class, "Content of " + file + " changed, it will be read again");
+	}
+    }
+
+    /**
+     * Drops all cached content.
+     */
+    public static void invalidateAll() {
+	MAPS.clear();
+	LEVELS.clear();
+    }
+
+    /**
+     * Returns how many times content has been read from disk since the game started, which shows how well the cache works.
+     *
+     * @return The number of cache misses
+     */
+    public static long getLoadCount() {
+	return LOADS.sum();
+    }
+
+    private static void watch(String file) {
+	Path path = new File(RESOURCES_FOLDER, file).getAbsoluteFile().toPath().normalize();
+	if (WATCHED_FILES.putIfAbsent(path, file) != null) {
+	    return;
+	}
+	Path folder = path.getParent();
+	if (folder != null && folder.toFile().isDirectory() && WATCHED_FOLDERS.add(folder)) {
+	    register(folder);
+	}
+    }
+
+    private static synchronized void register(Path folder) {
+	if (watchingFailed) {
+	    return;
+	}
+	try {
+	    if (watchService == null) {
+		watchService = FileSystems.getDefault().newWatchService();
+		Thread watcher = new Thread(ContentCache::watchForChanges, "content-watcher");
+		watcher.setDaemon(true);
+		watcher.start();
+	    }
+	    folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+			    StandardWatchEventKinds.ENTRY_DELETE);
+	} catch (IOException e) {
+	    // Without a watch service the cache still works, it just keeps the content it has
+	    watchingFailed = true;
+	    LogHandler.logWarning(ContentCache.class, "Cannot watch content files for changes: " + e.getMessage());
+	}
+    }
+
+    /**
+     * Body of the watcher thread.
+     */
+    private static void watchForChanges() {
+	try {
+	    while (true) {
+		WatchKey key = watchService.take();
+		Path folder = (Path) key.watchable();
+		for (WatchEvent<?> event : key.pollEvents()) {
+		    if (event.context() instanceof Path changed) {
+			String file = WATCHED_FILES.get(folder.resolve(changed));
+			if (file != null) {
+			    invalidate(file);
+			}
+		    } else if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+			// Events were lost, so any file may have changed
+			invalidateAll();
+		    }
+		}
+		key.reset();
+	    }
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	} catch (ClosedWatchServiceException ignored) {
+	    // The JVM is shutting down
+	}
+    }
+
+    /**
+     * Maps are read at the size of the board, so the same map at another size is another entry.
+     */
+    private record MapKey(String file, String name, int width, int height)
+    {
+    }
+}
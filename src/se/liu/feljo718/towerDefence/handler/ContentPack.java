@@ -0,0 +1,249 @@
+package se.liu.feljo718.towerdefence.handler;
+
+import se.liu.feljo718.towerdefence.board.LevelDefinition;
+import se.liu.feljo718.towerdefence.board.TileType;
+import se.liu.feljo718.towerdefence.enemy.EnemyType;
+import se.liu.feljo718.towerdefence.enemy.Wave;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A precompiled binary form of a map or level file, read through a read-only memory mapping.
+ * <p>
+ * A pack is written next to its JSON file, as {@code maps.json.pack} for {@code maps.json}, by {@link ContentPackCompiler}. It starts
+ * with a header and an index, and only the entries that are asked for are decoded, so opening a pack and picking a map out of it takes
+ * the same time whatever the size of the file. All values are big-endian.
+ * <pre>
+ * Header (32 bytes)                  Map index entry (16 bytes)     Level index entry (12 bytes)
+ *  0  int   magic "TDCP"              0  int   name offset           0  int   wave cooldown
+ *  4  short format version            4  short name length           4  int   wave count
+ *  6  byte  kind, 1 maps 2 levels     6  short width                 8  int   wave table offset
+ *  7  byte  reserved                  8  short height
+ *  8  long  source file length       10  short reserved             Wave (9 bytes)
+ * 16  long  source file modified     12  int   tiles offset          0  byte  enemy type ordinal
+ * 24  int   entry count                                              1  int   count
+ * 28  int   first map in the file                                    5  int   spawn delay
+ * </pre>
+ * Map entries are sorted by the UTF-8 bytes of their names, so a map is found with a binary search. Tiles are stored row by row as the
+ * ordinal of their {@link TileType}, two tiles to a byte with the first tile in the high nibble. Level entries are in file order.
+ * <p>
+ * A pack records the length and modification time of the JSON file it was compiled from. When either differs, the pack is stale and
+ * {@link #open(File, byte)} returns null, so the readers fall back to the JSON file.
+ *
+ * @author feljo718
+ * @see ContentPackCompiler
+ * @see MapReader
+ * @see LevelReader
+ */
+public final class ContentPack
+{
+    /** Set to {@code false} to always read the JSON files. */
+    public static final String ENABLED_PROPERTY = "towerdefence.contentPack";
+    static final String FILE_EXTENSION = ".pack";
+    static final byte MAPS = 1;
+    static final byte LEVELS = 2;
+
+    static final int MAGIC = 0x54444350;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int KIND_OFFSET = 6;
+    static final int SOURCE_LENGTH_OFFSET = 8;
+    static final int SOURCE_MODIFIED_OFFSET = 16;
+    static final int ENTRY_COUNT_OFFSET = 24;
+    static final int FIRST_MAP_OFFSET = 28;
+    static final int MAP_ENTRY_SIZE = 16;
+    static final int LEVEL_ENTRY_SIZE = 12;
+    static final int WAVE_SIZE = 9;
+
+    private static final TileType[] TILE_TYPES = TileType.values();
+    private static final EnemyType[] ENEMY_TYPES = EnemyType.values();
+
+    private final ByteBuffer buffer;
+    private final int entryCount;
+
+    private ContentPack(ByteBuffer buffer) {
+	this.buffer = buffer;
+	this.entryCount = buffer.getInt(ENTRY_COUNT_OFFSET);
+    }
+
+    /**
+     * Returns whether the readers use packs at all.
+     *
+     * @return false if packs were turned off with {@value #ENABLED_PROPERTY}
+     */
+    public static boolean isEnabled() {
+	return Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"));
+    }
+
+    /**
+     * Returns the pack file belonging to a JSON file.
+     *
+     * @param source The JSON file
+     *
+     * @return The pack file next to it
+     */
+    public static File packFileFor(File source) {
+	return new File(source.getPath() + FILE_EXTENSION);
+    }
+
+    /**
+     * Opens the pack of the given JSON file, if there is an up-to-date one.
+     *
+     * @param source The JSON file
+     * @param kind   {@link #MAPS} or {@link #LEVELS}
+     *
+     * @return The pack, or null if there is no pack, it is stale or it cannot be read
+     */
+    static ContentPack open(File source, byte kind) {
+	File packFile = packFileFor(source);
+	if (!isEnabled() || !source.isFile() || !packFile.isFile()) {
+	    return null;
+	}
+
+	try (RandomAccessFile file = new RandomAccessFile(packFile, "r")) {
+	    if (file.length() < HEADER_SIZE) {
+		return null;
+	    }
+	    // The mapping stays valid after the file is closed
+	    ByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+	    boolean current = buffer.getInt(0) == MAGIC && buffer.getShort(4) == VERSION && buffer.get(KIND_OFFSET) == kind &&
+			      buffer.getLong(SOURCE_LENGTH_OFFSET) == source.length() &&
+			      buffer.getLong(SOURCE_MODIFIED_OFFSET) == source.lastModified();
+	    if (!current) {
+		LogHandler.info(ContentPack.class, "Content pack " + packFile + " is stale, reading " + source);
+		return null;
+	    }
+	    return new ContentPack(buffer);
+	} catch (IOException e) {
+	    LogHandler.logWarning(ContentPack.class, "Could not read content pack " + packFile + ": " + e.getMessage());
+	    return null;
+	}
+    }
+
+    public int getEntryCount() {
+	return entryCount;
+    }
+
+    /**
+     * Decodes the named map into the grid, with the same rules as {@link MapAdapter}: tiles outside the grid are ignored and missing tiles
+     * are grass.
+     *
+     * @param name The map name
+     * @param grid The grid to fill
+     *
+     * @return true if the pack has a map with that name
+     */
+    public boolean readMap(String name, TileType[][] grid) {
+	int entry = findMap(name.getBytes(StandardCharsets.UTF_8));
+	if (entry < 0) {
+	    return false;
+	}
+	decodeMap(entry, grid);
+	return true;
+    }
+
+    /**
+     * Decodes the map that came first in the JSON file into the grid.
+     *
+     * @param grid The grid to fill
+     *
+     * @return false if the pack has no maps
+     */
+    public boolean readFirstMap(TileType[][] grid) {
+	int entry = buffer.getInt(FIRST_MAP_OFFSET);
+	if (entry < 0 || entry >= entryCount) {
+	    return false;
+	}
+	decodeMap(entry, grid);
+	return true;
+    }
+
+    /**
+     * Decodes all levels of a level pack.
+     *
+     * @return The level definitions in file order
+     */
+    public List<LevelDefinition> readLevels() {
+	List<LevelDefinition> levels = new ArrayList<>(entryCount);
+	for (int entry = 0; entry < entryCount; entry++) {
+	    int position = HEADER_SIZE + entry * LEVEL_ENTRY_SIZE;
+	    int waveCooldown = buffer.getInt(position);
+	    int waveCount = buffer.getInt(position + 4);
+	    int wavesOffset = buffer.getInt(position + 8);
+
+	    List<Wave> waves = new ArrayList<>(waveCount);
+	    for (int wave = 0; wave < waveCount; wave++) {
+		int wavePosition = wavesOffset + wave * WAVE_SIZE;
+		EnemyType type = ENEMY_TYPES[buffer.get(wavePosition)];
+		waves.add(new Wave(type, buffer.getInt(wavePosition + 1), buffer.getInt(wavePosition + 5)));
+	    }
+	    levels.add(new LevelDefinition(waveCooldown, waves));
+	}
+	return levels;
+    }
+
+    private int findMap(byte[] name) {
+	int low = 0;
+	int high = entryCount - 1;
+	while (low <= high) {
+	    int middle = (low + high) >>> 1;
+	    int comparison = compareName(middle, name);
+	    if (comparison < 0) {
+		low = middle + 1;
+	    } else if (comparison > 0) {
+		high = middle - 1;
+	    } else {
+		return middle;
+	    }
+	}
+	return -1;
+    }
+
+    /**
+     * Compares the name of an entry with the given name, byte by byte as unsigned values like {@link Arrays#compareUnsigned}.
+     */
+    private int compareName(int entry, byte[] name) {
+	int position = HEADER_SIZE + entry * MAP_ENTRY_SIZE;
+	int offset = buffer.getInt(position);
+	int length = buffer.getShort(position + 4) & 0xFFFF;
+	int common = Math.min(length, name.length);
+	for (int i = 0; i < common; i++) {
+	    int difference = Byte.toUnsignedInt(buffer.get(offset + i)) - Byte.toUnsignedInt(name[i]);
+	    if (difference != 0) {
+		return difference;
+	    }
+	}
+	return length - name.length;
+    }
+
+    private void decodeMap(int entry, TileType[][] grid) {
+	int position = HEADER_SIZE + entry * MAP_ENTRY_SIZE;
+	int width = buffer.getShort(position + 6);
+	int height = buffer.getShort(position + 8);
+	int tilesOffset = buffer.getInt(position + 12);
+
+	for (int row = 0; row < grid.length; row++) {
+	    TileType[] gridRow = grid[row];
+	    Arrays.fill(gridRow, TileType.GRASS);
+	    if (row >= height) {
+		continue;
+	    }
+	    int columns = Math.min(width, gridRow.length);
+	    int first = row * width;
+	    for (int col = 0; col < columns; col++) {
+		int index = first + col;
+		int packed = buffer.get(tilesOffset + (index >> 1));
+		int ordinal = (index & 1) == 0 ? (packed >> 4) & 0xF : packed & 0xF;
+		gridRow[col] = TILE_TYPES[ordinal];
+	    }
+	}
+    }
+}
@@ -0,0 +1,288 @@
+package se.liu.feljo718.towerdefence.handler;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import se.liu.feljo718.towerdefence.board.LevelDefinition;
+import se.liu.feljo718.towerdefence.enemy.Wave;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static se.liu.feljo718.towerdefence.handler.ContentPack.*;
+
+/**
+ * Compiles map and level files into {@link ContentPack}s.
+ * <p>
+ * Packs can be built ahead of time from the command line:
+ * <pre>
+ * java ... ContentPackCompiler --maps resources/maps.json --levels resources/levels.json
+ * </pre>
+ * When a reader finds no up-to-date pack it reads the JSON file as before and asks for the pack to be compiled on a background thread,
+ * so the second start of the game, and every start after that, reads the pack.
+ *
+ * @author feljo718
+ * @see ContentPack
+ */
+public final class ContentPackCompiler
+{
+    private static final Set<File> PENDING = ConcurrentHashMap.newKeySet();
+    private static final ExecutorService BACKGROUND = Executors.newSingleThreadExecutor(runnable -> {
+	Thread thread = new Thread(runnable, "content-pack-compiler");
+	thread.setDaemon(true);
+	thread.setPriority(Thread.MIN_PRIORITY);
+	return thread;
+    });
+
+    private ContentPackCompiler() {
+    }
+
+    /**
+     * Compiles the pack of a JSON file on a background thread, unless packs are turned off or the file is already being compiled.
+     *
+     * @param source The JSON file
+     * @param kind   {@link ContentPack#MAPS} or {@link ContentPack#LEVELS}
+     */
+    static void compileLater(File source, byte kind) {
+	if (!ContentPack.isEnabled() || !source.isFile() || !PENDING.add(source)) {
+	    return;
+	}
+	BACKGROUND.execute(() -> {
+	    try {
+		compile(source, kind);
+	    } catch (IOException | JsonSyntaxException e) {
+		LogHandler.logWarning(ContentPackCompiler.class, "Could not compile content pack for " + source + ": " + e.getMessage());
+	    } finally {
+		PENDING.remove(source);
+	    }
+	});
+    }
+
+    /**
+     * Compiles the pack of a JSON file and writes it next to the file.
+     *
+     * @param source The JSON file
+     * @param kind   {@link ContentPack#MAPS} or {@link ContentPack#LEVELS}
+     *
+     * @return The pack file
+     * @throws IOException         If the JSON file cannot be read or the pack cannot be written
+     * @throws JsonSyntaxException If the JSON file is malformed
+     */
+    public static File compile(File source, byte kind) throws IOException {
+	// Taken before reading, so that a change made while compiling makes the pack stale instead of wrong
+	long sourceLength = source.length();
+	long sourceModified = source.lastModified();
+
+	ByteBuffer pack;
+	try (JsonReader in = new JsonReader(new FileReader(source, StandardCharsets.UTF_8))) {
+	    in.setLenient(true);
+	    pack = kind == MAPS ? compileMaps(in) : compileLevels(in);
+	} catch (MalformedJsonException | IllegalStateException | NumberFormatException e) {
+	    throw new JsonSyntaxException(e);
+	}
+	pack.putInt(0, MAGIC);
+	pack.putShort(4, VERSION);
+	pack.put(KIND_OFFSET, kind);
+	pack.putLong(SOURCE_LENGTH_OFFSET, sourceLength);
+	pack.putLong(SOURCE_MODIFIED_OFFSET, sourceModified);
+
+	File packFile = ContentPack.packFileFor(source);
+	File tempFile = new File(packFile.getPath() + ".tmp");
+	Files.write(tempFile.toPath(), pack.array());
+	Files.move(tempFile.toPath(), packFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	LogHandler.info(ContentPackCompiler.class, "Compiled " + source + " into " + packFile + " (" + pack.capacity() + " bytes)");
+	return packFile;
+    }
+
+    private static ByteBuffer compileMaps(JsonReader in) throws IOException {
+	List<PackedMap> maps = new ArrayList<>();
+	Set<String> names = new HashSet<>();
+	in.beginArray();
+	while (in.hasNext()) {
+	    if (in.peek() == JsonToken.NULL) {
+		in.nextNull();
+		continue;
+	    }
+	    PackedMap map = readMap(in, maps.size());
+	    // Like MapAdapter, only the first map with a name counts
+	    if (map != null && names.add(map.name)) {
+		maps.add(map);
+	    }
+	}
+	in.endArray();
+
+	PackedMap[] sorted = maps.toArray(new PackedMap[0]);
+	Arrays.sort(sorted, (first, second) -> Arrays.compareUnsigned(first.nameBytes, second.nameBytes));
+
+	int size = HEADER_SIZE + sorted.length * MAP_ENTRY_SIZE;
+	for (PackedMap map : sorted) {
+	    size += map.nameBytes.length + map.tiles.length;
+	}
+	ByteBuffer pack = ByteBuffer.allocate(size);
+	pack.putInt(ENTRY_COUNT_OFFSET, sorted.length);
+	pack.putInt(FIRST_MAP_OFFSET, -1);
+
+	int dataOffset = HEADER_SIZE + sorted.length * MAP_ENTRY_SIZE;
+	for (int entry = 0; entry < sorted.length; entry++) {
+	    PackedMap map = sorted[entry];
+	    if (map.fileOrder == 0) {
+		pack.putInt(FIRST_MAP_OFFSET, entry);
+	    }
+	    int position = HEADER_SIZE + entry * MAP_ENTRY_SIZE;
+	    pack.putInt(position, dataOffset);
+	    pack.putShort(position + 4, (short) map.nameBytes.length);
+	    pack.putShort(position + 6, (short) map.width);
+	    pack.putShort(position + 8, (short) map.height);
+	    pack.put(dataOffset, map.nameBytes);
+	    dataOffset += map.nameBytes.length;
+	    pack.putInt(position + 12, dataOffset);
+	    pack.put(dataOffset, map.tiles);
+	    dataOffset += map.tiles.length;
+	}
+	return pack;
+    }
+
+    private static PackedMap readMap(JsonReader in, int fileOrder) throws IOException {
+	String name = null;
+	List<String> rows = null;
+	in.beginObject();
+	while (in.hasNext()) {
+	    switch (in.nextName()) {
+		case "name" -> name = in.nextString();
+		case "tiles" -> {
+		    rows = new ArrayList<>();
+		    in.beginArray();
+		    while (in.hasNext()) {
+			if (in.peek() == JsonToken.NULL) {
+			    in.nextNull();
+			} else {
+			    rows.add(in.nextString());
+			}
+		    }
+		    in.endArray();
+		}
+		default -> in.skipValue();
+	    }
+	}
+	in.endObject();
+	if (name == null || rows == null) {
+	    return null;
+	}
+
+	int width = 0;
+	for (String row : rows) {
+	    width = Math.max(width, row.length());
+	}
+	int height = rows.size();
+	if (width > Short.MAX_VALUE || height > Short.MAX_VALUE) {
+	    throw new IOException("Map '" + name + "' is too large for a content pack");
+	}
+
+	// Tiles beyond the end of a short row are grass, like in MapAdapter
+	byte[] tiles = new byte[(width * height + 1) / 2];
+	for (int row = 0; row < height; row++) {
+	    String rowString = rows.get(row);
+	    for (int col = 0; col < width; col++) {
+		char key = col < rowString.length() ? rowString.charAt(col) : ' ';
+		int ordinal = MapAdapter.toTileType(key).ordinal();
+		int index = row * width + col;
+		tiles[index >> 1] |= (byte) ((index & 1) == 0 ? ordinal << 4 : ordinal);
+	    }
+	}
+	return new PackedMap(name, name.getBytes(StandardCharsets.UTF_8), width, height, tiles, fileOrder);
+    }
+
+    private static ByteBuffer compileLevels(JsonReader in) throws IOException {
+	List<LevelDefinition> levels = new JsonArrayAdapter<>(new LevelAdapter()).read(in);
+
+	int waveCount = 0;
+	for (LevelDefinition level : levels) {
+	    waveCount += level.getWaves().size();
+	}
+	ByteBuffer pack = ByteBuffer.allocate(HEADER_SIZE + levels.size() * LEVEL_ENTRY_SIZE + waveCount * WAVE_SIZE);
+	pack.putInt(ENTRY_COUNT_OFFSET, levels.size());
+
+	int wavesOffset = HEADER_SIZE + levels.size() * LEVEL_ENTRY_SIZE;
+	for (int entry = 0; entry < levels.size(); entry++) {
+	    LevelDefinition level = levels.get(entry);
+	    int position = HEADER_SIZE + entry * LEVEL_ENTRY_SIZE;
+	    pack.putInt(position, level.getWaveCooldown());
+	    pack.putInt(position + 4, level.getWaves().size());
+	    pack.putInt(position + 8, wavesOffset);
+	    for (Wave wave : level.getWaves()) {
+		pack.put(wavesOffset, (byte) wave.getEnemyType().ordinal());
+		pack.putInt(wavesOffset + 1, wave.getCount());
+		pack.putInt(wavesOffset + 5, wave.getSpawnDelay());
+		wavesOffset += WAVE_SIZE;
+	    }
+	}
+	return pack;
+    }
+
+    /**
+     * Command line entry point, compiles the given map and level files.
+     *
+     * @param args {@code --maps} and {@code --levels} options, each naming a JSON file, the bundled files if neither is given
+     */
+    public static void main(String[] args) {
+	Options options = new Options();
+	options.addOption(Option.builder("m").longOpt("maps").hasArgs().desc("map files to compile").build());
+	options.addOption(Option.builder("l").longOpt("levels").hasArgs().desc("level files to compile").build());
+	options.addOption(Option.builder("h").longOpt("help").desc("show this help").build());
+
+	try {
+	    CommandLine line = new DefaultParser().parse(options, args);
+	    if (line.hasOption("help")) {
+		new HelpFormatter().printHelp("ContentPackCompiler", options);
+		return;
+	    }
+
+	    String[] mapFiles = line.getOptionValues("maps");
+	    String[] levelFiles = line.getOptionValues("levels");
+	    if (mapFiles == null && levelFiles == null) {
+		mapFiles = new String[] { "resources/maps.json" };
+		levelFiles = new String[] { "resources/levels.json" };
+	    }
+	    for (String file : mapFiles != null ? mapFiles : new String[0]) {
+		System.out.println("Wrote " + compile(new File(file), MAPS));
+	    }
+	    for (String file : levelFiles != null ? levelFiles : new String[0]) {
+		System.out.println("Wrote " + compile(new File(file), LEVELS));
+	    }
+	} catch (ParseException e) {
+	    System.err.println(e.getMessage());
+	    new HelpFormatter().printHelp("ContentPackCompiler", options);
+	    System.exit(1);
+	} catch (IOException | JsonSyntaxException e) {
+	    System.err.println("Could not compile content pack: " + e.getMessage());
+	    System.exit(1);
+	}
+    }
+
+    /**
+     * A map ready to be written, with its tiles already packed into nibbles.
+     */
+    private record PackedMap(String name, byte[] nameBytes, int width, int height, byte[] tiles, int fileOrder)
+    {
+    }
+}
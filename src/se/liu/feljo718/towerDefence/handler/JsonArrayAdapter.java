@@ -0,0 +1,61 @@
+package se.liu.feljo718.towerdefence.handler;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes a JSON array element by element with another adapter.
+ * <p>
+ * A JSON {@code null} in place of the array is read as an empty list, like the reflective Gson deserialisation this replaces did.
+ * Elements that the element adapter reads as {@code null} are left out.
+ *
+ * @param <E> The element type
+ *
+ * @author feljo718
+ * @see LevelAdapter
+ */
+public class JsonArrayAdapter<E> extends TypeAdapter<List<E>>
+{
+    private final TypeAdapter<E> elementAdapter;
+
+    /**
+     * Creates an adapter for arrays of the elements handled by the given adapter.
+     *
+     * @param elementAdapter Reads and writes the single elements
+     */
+    public JsonArrayAdapter(TypeAdapter<E> elementAdapter) {
+	this.elementAdapter = elementAdapter;
+    }
+
+    @Override public List<E> read(JsonReader in) throws IOException {
+	List<E> elements = new ArrayList<>();
+	if (in.peek() == JsonToken.NULL) {
+	    in.nextNull();
+	    return elements;
+	}
+
+	in.beginArray();
+	while (in.hasNext()) {
+	    E element = elementAdapter.read(in);
+	    if (element != null) {
+		elements.add(element);
+	    }
+	}
+	in.endArray();
+	return elements;
+    }
+
+    @Override public void write(JsonWriter out, List<E> elements) throws IOException {
+	out.beginArray();
+	for (E element : elements) {
+	    elementAdapter.write(out, element);
+	}
+	out.endArray();
+    }
+}
@@ -2,17 +2,25 @@ package se.liu.feljo718.towerdefence.handler;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import se.liu.feljo718.towerdefence.metrics.JsonLoadEvent;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
+import java.io.FilterReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Base class providing JSON file handling capabilities for game data.
@@ -22,7 +30,11 @@ import java.nio.file.StandardCopyOption;
  * locations (filesystem or classpath).
  * <p>
  * The class uses Google's Gson library for JSON serialization and deserialization, and includes safety features like atomic file writes to
- * prevent data corruption.
+ * prevent data corruption. The game's own files are read and written with hand-written {@link TypeAdapter}s on Gson's streaming API,
+ * see {@link #readJson(JsonStreamReader)}, which neither builds a tree of the whole file nor uses reflection.
+ * <p>
+ * Saving is done on the {@link PersistenceExecutor}'s background thread with {@link #saveToJsonLater}, so that no file is written on the
+ * event dispatch thread, which also runs the game.
  *
  * @author feljo718
  * @see MapReader
@@ -32,6 +44,14 @@ public abstract class JsonFileHandler
 {
     protected final String filename;
     protected final Gson gson;
+    /** The newest save handed to {@link #saveToJsonLater}, taken by {@link #saveLatest} when it runs. */
+    private final AtomicReference<PersistenceTask> latestSave = new AtomicReference<>();
+    private final PersistenceTask saveLatest = file -> {
+	PersistenceTask save = latestSave.getAndSet(null);
+	if (save != null) {
+	    save.write(file);
+	}
+    };
 
     /**
      * Creates a new JSON file handler for the specified file.
@@ -54,6 +74,9 @@ public abstract class JsonFileHandler
      *   <li>Then attempts to load from the classpath resources</li>
      * </ol>
      * If the file cannot be found in either location, null is returned.
+     * <p>
+     * The returned reader reports the load to Flight Recorder as a {@link JsonLoadEvent} spanning from this call until the reader is
+     * closed, so the event covers both reading and parsing.
      *
      * @return A Reader for the JSON file, or null if not found
      * @throws IOException If an I/O error occurs while accessing the file
@@ -63,7 +86,7 @@ public abstract class JsonFileHandler
 	if (file.exists()) {
 	    LogHandler.info(JsonFileHandler.class, "Loading from file: " + file.getAbsolutePath());
 	    try {
-		return new FileReader(file);
+		return new LoadEventReader(new FileReader(file), filename, "file");
 	    } catch (FileNotFoundException e) {
 		LogHandler.severe(JsonFileHandler.class, "File exists but couldn't be opened: " + file.getAbsolutePath(), e);
 		throw new IOException("File exists but couldn't be opened", e);
@@ -76,13 +99,36 @@ public abstract class JsonFileHandler
 	if (inputStream != null) {
 	    LogHandler.info(JsonFileHandler.class, "Loading from classpath: " + filename);
 	    // The caller is responsible for closing this reader which will also close the underlying InputStream
-	    return new InputStreamReader(inputStream);
+	    return new LoadEventReader(new InputStreamReader(inputStream), filename, "classpath");
 	}
 
 	throw new FileNotFoundException("Could not find file or classpath resource: " + filename);
     }
 
 
+    /**
+     * Reads the JSON file with the given adapter, one token at a time.
+     * <p>
+     * The reader is lenient like {@link Gson#fromJson(Reader, Class)}, so files that loaded before, for example with a trailing comma,
+     * still load. Malformed JSON and JSON of the wrong shape are reported as a {@link JsonSyntaxException}, again like Gson.
+     *
+     * @param reader Reads the value from the token stream, for example {@code adapter::read}
+     * @param <T>    The type of value read
+     *
+     * @return The value read by the reader
+     * @throws FileNotFoundException If the file cannot be found
+     * @throws IOException           If an I/O error occurs while reading the file
+     * @throws JsonSyntaxException   If the file is not valid JSON or does not have the shape the reader expects
+     */
+    protected <T> T readJson(JsonStreamReader<T> reader) throws FileNotFoundException, IOException, JsonSyntaxException {
+	try (JsonReader in = new JsonReader(getJsonReader())) {
+	    in.setLenient(true);
+	    return reader.read(in);
+	} catch (MalformedJsonException | IllegalStateException | NumberFormatException e) {
+	    throw new JsonSyntaxException(e);
+	}
+    }
+
     /**
      * Saves data to the JSON file.
      * <p>
@@ -93,12 +139,18 @@ public abstract class JsonFileHandler
      *   <li>Only after successful write, replaces the target file</li>
      * </ol>
      * This ensures that the target file is never left in a partially-written state.
+     * <p>
+     * The file is written on the calling thread, which must not be the event dispatch thread. Code running there uses {@link
+     * #saveToJsonLater} instead.
      *
-     * @param data The data object to serialize and save
+     * @param data   The data object to serialize and save
+     * @param writer Writes the data as JSON, for example {@code adapter::write}
+     * @param <T>    The type of data saved
      *
      * @throws IOException If an I/O error occurs during file creation or writing
      */
-    protected void saveToJson(Object data) throws IOException {
+    protected <T> void saveToJson(T data, JsonStreamWriter<T> writer) throws IOException {
+	PersistenceExecutor.warnIfOnEventDispatchThread(getClass(), "Saving " + filename);
 	File resourcesDir = new File(filename).getParentFile();
 	if (!resourcesDir.exists()) {
 	    boolean dirCreated = resourcesDir.mkdirs();
@@ -111,12 +163,75 @@ public abstract class JsonFileHandler
 
 	File tempFile = new File(filename + ".tmp");
 
-	try (FileWriter writer = new FileWriter(tempFile)) {
-	    gson.toJson(data, writer);
+	try (JsonWriter out = new JsonWriter(new FileWriter(tempFile))) {
+	    // Same layout as Gson's pretty printing, so the files stay readable and diffs stay small
+	    out.setIndent("  ");
+	    writer.write(out, data);
 	}
 
 	File targetFile = new File(filename);
 	LogHandler.info(JsonFileHandler.class, "Saving to: " + targetFile.getAbsolutePath());
 	Files.move(tempFile.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
     }
-}
\ No newline at end of file
+
+    /**
+     * Saves data to the JSON file on the persistence thread, with the same atomic write as {@link #saveToJson}.
+     * <p>
+     * The data is serialised when the write runs, so the caller must hand over a snapshot that is not changed afterwards, for example a
+     * copy of a list. Saves of the same file that are still waiting are replaced by this one.
+     *
+     * @param data     A snapshot of the data to save
+     * @param writer   Writes the data as JSON, for example {@code adapter::write}
+     * @param callback Told whether the file was saved, on the persistence thread, or null
+     * @param <T>      The type of data saved
+     */
+    protected <T> void saveToJsonLater(T data, JsonStreamWriter<T> writer, PersistenceCallback callback) {
+	latestSave.set(file -> saveToJson(data, writer));
+	PersistenceExecutor.submit(new File(filename), saveLatest, callback);
+    }
+
+    /**
+     * Reader wrapper that counts the characters read and commits a {@link JsonLoadEvent} when closed.
+     */
+    private static class LoadEventReader extends FilterReader
+    {
+	private final JsonLoadEvent event = new JsonLoadEvent();
+	private long charactersRead = 0;
+	private boolean committed = false;
+
+	private LoadEventReader(Reader in, String file, String source) {
+	    super(in);
+	    event.file = file;
+	    event.source = source;
+	    event.begin();
+	}
+
+	@Override public int read() throws IOException {
+	    int c = super.read();
+	    if (c >= 0) {
+		charactersRead++;
+	    }
+	    return c;
+	}
+
+	@Override public int read(char[] buffer, int offset, int length) throws IOException {
+	    int count = super.read(buffer, offset, length);
+	    if (count > 0) {
+		charactersRead += count;
+	    }
+	    return count;
+	}
+
+	@Override public void close() throws IOException {
+	    try {
+		super.close();
+	    } finally {
+		if (!committed) {
+		    committed = true;
+		    event.charactersRead = charactersRead;
+		    event.commit();
+		}
+	    }
+	}
+    }
+}
@@ -0,0 +1,30 @@
+package se.liu.feljo718.towerdefence.handler;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+
+/**
+ * Reads a value from a JSON token stream, for {@link JsonFileHandler#readJson(JsonStreamReader)}.
+ * <p>
+ * A {@link com.google.gson.TypeAdapter} is passed as {@code adapter::read}. Code that only reads a file, such as one that indexes the
+ * values while they are streamed, implements this on its own instead of a whole adapter.
+ *
+ * @param <T> The type of value read
+ *
+ * @author feljo718
+ * @see JsonStreamWriter
+ */
+@FunctionalInterface
+public interface JsonStreamReader<T>
+{
+    /**
+     * Reads the value.
+     *
+     * @param in The token stream, positioned at the start of the value
+     *
+     * @return The value read
+     * @throws IOException If the stream cannot be read or does not hold a value of the expected shape
+     */
+    T read(JsonReader in) throws IOException;
+}
@@ -0,0 +1,30 @@
+package se.liu.feljo718.towerdefence.handler;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes a value to a JSON token stream, for {@link JsonFileHandler#saveToJson(Object, JsonStreamWriter)}.
+ * <p>
+ * A {@link com.google.gson.TypeAdapter} is passed as {@code adapter::write}. Code that only writes a file, such as one that streams it
+ * from other files, implements this on its own instead of a whole adapter.
+ *
+ * @param <T> The type of value written
+ *
+ * @author feljo718
+ * @see JsonStreamReader
+ */
+@FunctionalInterface
+public interface JsonStreamWriter<T>
+{
+    /**
+     * Writes the value.
+     *
+     * @param out   The token stream to write to
+     * @param value The value to write
+     *
+     * @throws IOException If the stream cannot be written
+     */
+    void write(JsonWriter out, T value) throws IOException;
+}
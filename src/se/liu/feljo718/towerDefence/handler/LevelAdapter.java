@@ -0,0 +1,96 @@
+package se.liu.feljo718.towerdefence.handler;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import se.liu.feljo718.towerdefence.board.LevelDefinition;
+import se.liu.feljo718.towerdefence.enemy.EnemyType;
+import se.liu.feljo718.towerdefence.enemy.Wave;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a level from its JSON form straight into a {@link LevelDefinition}, one token at a time.
+ * <p>
+ * A level is an object with a {@code waveCooldown} and a list of {@code waves}, each with an {@code enemyType}, a {@code count} and a
+ * {@code spawnDelay}. Other properties, such as the level's {@code name}, are skipped without being parsed. Unknown enemy types fall
+ * back to {@link EnemyType#BASIC} with a warning.
+ *
+ * @author feljo718
+ * @see LevelReader
+ */
+public class LevelAdapter extends TypeAdapter<LevelDefinition>
+{
+    @Override public LevelDefinition read(JsonReader in) throws IOException {
+	if (in.peek() == JsonToken.NULL) {
+	    in.nextNull();
+	    return null;
+	}
+
+	int waveCooldown = 0;
+	List<Wave> waves = new ArrayList<>();
+	in.beginObject();
+	while (in.hasNext()) {
+	    switch (in.nextName()) {
+		case "waveCooldown" -> waveCooldown = in.nextInt();
+		case "waves" -> {
+		    in.beginArray();
+		    while (in.hasNext()) {
+			waves.add(readWave(in));
+		    }
+		    in.endArray();
+		}
+		default -> in.skipValue();
+	    }
+	}
+	in.endObject();
+
+	// The cooldown may come after the waves, so the level can only be built once the whole object is read
+	return new LevelDefinition(waveCooldown, waves);
+    }
+
+    private Wave readWave(JsonReader in) throws IOException {
+	String enemyType = "";
+	int count = 0;
+	int spawnDelay = 0;
+	in.beginObject();
+	while (in.hasNext()) {
+	    switch (in.nextName()) {
+		case "enemyType" -> enemyType = in.nextString();
+		case "count" -> count = in.nextInt();
+		case "spawnDelay" -> spawnDelay = in.nextInt();
+		default -> in.skipValue();
+	    }
+	}
+	in.endObject();
+	return new Wave(toEnemyType(enemyType), count, spawnDelay);
+    }
+
+    private static EnemyType toEnemyType(String typeString) {
+	for (EnemyType type : EnemyType.values()) {
+	    if (type.name().equals(typeString)) {
+		return type;
+	    }
+	}
+	LogHandler.logWarning(LevelAdapter.class, "Invalid enemy type: " + typeString);
+	return EnemyType.BASIC;
+    }
+
+    @Override public void write(JsonWriter out, LevelDefinition level) throws IOException {
+	out.beginObject();
+	out.name("waveCooldown").value(level.getWaveCooldown());
+	out.name("waves").beginArray();
+	for (Wave wave : level.getWaves()) {
+	    out.beginObject();
+	    out.name("enemyType").value(wave.getEnemyType().name());
+	    out.name("count").value(wave.getCount());
+	    out.name("spawnDelay").value(wave.getSpawnDelay());
+	    out.endObject();
+	}
+	out.endArray();
+	out.endObject();
+    }
+}
@@ -1,35 +1,33 @@
 package se.liu.feljo718.towerdefence.handler;
 
 import com.google.gson.JsonSyntaxException;
-import com.google.gson.reflect.TypeToken;
-import se.liu.feljo718.towerdefence.board.Level;
+import se.liu.feljo718.towerdefence.board.LevelDefinition;
 import se.liu.feljo718.towerdefence.enemy.EnemyType;
 import se.liu.feljo718.towerdefence.enemy.Wave;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.Reader;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /**
  * Reads and parses level data from JSON files for the Tower Defense game.
  * <p>
- * This class is responsible for loading level configurations from JSON files, converting the data into Level objects that can be used by
- * the game. It handles file reading, JSON parsing, and provides fallback default levels in case the loading process fails.
+ * This class is responsible for loading level configurations from JSON files, converting the data into LevelDefinition objects that can be
+ * used by the game. It handles file reading, JSON parsing, and provides fallback default levels in case the loading process fails.
  * <p>
  * Each level consists of multiple waves of enemies with different types, counts, and spawn timings, which are all managed by this reader.
  *
  * @author feljo718
- * @see Level
+ * @see LevelDefinition
  * @see JsonFileHandler
  * @see Wave
  */
 public class LevelReader extends JsonFileHandler
 {
     private static final String DEFAULT_LEVEL_FILE = "levels.json";
+    private static final JsonArrayAdapter<LevelDefinition> LEVELS_ADAPTER = new JsonArrayAdapter<>(new LevelAdapter());
     private final String fileName;
 
     /**
@@ -62,7 +60,7 @@ public class LevelReader extends JsonFileHandler
      *
      * @return A list of configured levels for the game
      */
-    public List<Level> getLevels() {
+    public List<LevelDefinition> getLevels() {
 	try {
 	    return loadFromJson();
 	} catch (IOException e) {
@@ -73,24 +71,25 @@ public class LevelReader extends JsonFileHandler
 
     /**
      * Loads and parses level data from JSON file.
+     * <p>
+     * The file is streamed through a {@link LevelAdapter}, which builds each level directly without intermediate objects. When the file
+     * has an up-to-date {@link ContentPack} the levels are decoded from the pack instead, and otherwise the pack is compiled in the
+     * background.
      *
-     * @return A list of Level objects based on the JSON data
+     * @return A list of LevelDefinition objects based on the JSON data
      * @throws FileNotFoundException If the levels file cannot be found
      * @throws JsonSyntaxException   If the JSON is malformed
      */
-    public List<Level> loadFromJson() throws FileNotFoundException, JsonSyntaxException {
-	try (Reader reader = getJsonReader()) {
-	    if (reader == null) {
-		return createDefaultLevels();
-	    }
-
-	    // Parse and convert the levels
-	    List<LevelData> levelData = parseJsonData(reader);
-	    List<Level> levels = new ArrayList<>();
-
-	    // Convert each LevelData to a Level
-	    for (LevelData data : levelData) {
-		levels.add(createLevelFromData(data));
+    public List<LevelDefinition> loadFromJson() throws FileNotFoundException, JsonSyntaxException {
+	File source = new File(filename);
+	ContentPack pack = ContentPack.open(source, ContentPack.LEVELS);
+	try {
+	    List<LevelDefinition> levels;
+	    if (pack != null) {
+		levels = pack.readLevels();
+	    } else {
+		levels = readJson(LEVELS_ADAPTER::read);
+		ContentPackCompiler.compileLater(source, ContentPack.LEVELS);
 	    }
 
 	    // Use defaults if no levels were loaded
@@ -110,95 +109,18 @@ public class LevelReader extends JsonFileHandler
 	}
     }
 
-    /**
-     * Parses the JSON data from the reader into LevelData objects.
-     * <p>
-     * Uses Gson to convert the JSON into a list of transfer objects that represent the raw level configuration data.
-     *
-     * @param reader The reader providing the JSON content
-     *
-     * @return A list of parsed LevelData objects
-     */
-    private List<LevelData> parseJsonData(Reader reader) {
-	Type levelType = new TypeToken<List<LevelData>>()
-	{
-	}.getType();
-	List<LevelData> levelData = gson.fromJson(reader, levelType);
-	return levelData != null ? levelData : new ArrayList<>();
-    }
-
-
     /**
      * Creates a set of default levels as a fallback when configuration is unavailable.
      * <p>
      * Generates a predefined set of levels with varying difficulty to ensure the game can still function even when level data cannot be
      * loaded.
      *
-     * @return A list of default Level objects
+     * @return A list of default LevelDefinition objects
      */
-    private Level createLevelFromData(LevelData data) {
-	Level level = new Level(data.waveCooldown);
-
-	for (WaveData waveData : data.waves) {
-	    EnemyType enemyType = getValidEnemyType(waveData.enemyType);
-	    level.addWave(new Wave(enemyType, waveData.count, waveData.spawnDelay));
-	}
-
-	return level;
-    }
-
-    private List<Level> createDefaultLevels() {
+    private List<LevelDefinition> createDefaultLevels() {
 	LogHandler.info(LevelReader.class, "Creating default levels as fallback");
-	List<Level> levels = new ArrayList<>();
-
-	Level level = new Level(1500);
-	level.addWave(new Wave(EnemyType.BASIC, 10, 200));
-	level.addWave(new Wave(EnemyType.FAST, 5, 300));
-	levels.add(level);
-
+	List<LevelDefinition> levels = new ArrayList<>();
+	levels.add(new LevelDefinition(1500, List.of(new Wave(EnemyType.BASIC, 10, 200), new Wave(EnemyType.FAST, 5, 300))));
 	return levels;
     }
-
-    /**
-     * Validates an enemy type string and returns the corresponding enum value or a default.
-     *
-     * @param typeString The enemy type string to validate
-     *
-     * @return The matching EnemyType or BASIC as fallback
-     */
-    private EnemyType getValidEnemyType(String typeString) {
-	if (typeString == null || typeString.isEmpty() || !isValidEnemyType(typeString)) {
-	    LogHandler.logWarning(LevelReader.class, "Invalid enemy type: " + typeString);
-	    return EnemyType.BASIC;
-	}
-	return EnemyType.valueOf(typeString);
-    }
-
-    private boolean isValidEnemyType(String typeString) {
-	for (EnemyType type : EnemyType.values()) {
-	    if (type.name().equals(typeString)) {
-		return true;
-	    }
-	}
-	return false;
-    }
-
-    /**
-     * Level data transfer object from JSON.
-     */
-    private static class LevelData
-    {
-	private int waveCooldown = 0;
-	private List<WaveData> waves = Collections.emptyList();
-    }
-
-    /**
-     * Data transfer object representing a wave configuration from JSON. Instantiated by GSON during deserialization.
-     */
-    private static class WaveData
-    {
-	private String enemyType = "";
-	private int count = 0;
-	private int spawnDelay = 0;
-    }
 }
\ No newline at end of file
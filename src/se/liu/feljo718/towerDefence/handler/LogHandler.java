@@ -1,13 +1,19 @@
 package se.liu.feljo718.towerdefence.handler;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.FileHandler;
 import java.util.logging.Handler;
 import java.util.logging.Level;
+import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 import java.util.logging.SimpleFormatter;
 import java.io.File;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Centralized logging utility for the Tower Defense game.
@@ -18,8 +24,24 @@ import java.io.File;
  * <p>
  * The logger maintains a hierarchical structure based on class names and
  * supports different logging levels (SEVERE, WARNING, INFO, FINE, etc.)
+ * <p>
+ * Console and file output are written by an {@link AsyncLogHandler} on a
+ * background thread, so logging from the game loop only costs the creation
+ * of a log record. Messages that are expensive to build should use the
+ * {@link Supplier} or parameterised overloads, for example
+ * {@code LogHandler.fine(Tower.class, "Hit {0} enemies", count)}: the message
+ * is then only built if the level is enabled, and the parameters are
+ * formatted on the writer thread. The handler is configured with these system
+ * properties:
+ * <ul>
+ *   <li>{@value #ASYNC_PROPERTY} - set to {@code false} to write synchronously</li>
+ *   <li>{@value #BUFFER_SIZE_PROPERTY} - number of records the buffer holds</li>
+ *   <li>{@value #OVERFLOW_PROPERTY} - {@code drop} (default) or {@code block}
+ *   when the buffer is full</li>
+ * </ul>
  *
  * @author feljo718
+ * @see AsyncLogHandler
  */
 public class LogHandler
 {
@@ -28,6 +50,20 @@ public class LogHandler
     /** The maximum size of a log file before rotation */
     private static final int LOG_FILE_SIZE_LIMIT = 1000000;
     private static final int LOG_FILE_COUNT = 3;
+    /** Number of log records that passed the level filter, counted without locking so logging threads never contend. */
+    private static final LongAdder PUBLISHED_RECORDS = new LongAdder();
+    private static final String ASYNC_PROPERTY = "towerdefence.log.async";
+    private static final String BUFFER_SIZE_PROPERTY = "towerdefence.log.bufferSize";
+    private static final String OVERFLOW_PROPERTY = "towerdefence.log.overflow";
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    /** Loggers are looked up once per class, since {@link Logger#getLogger(String)} takes a lock. */
+    private static final ClassValue<Logger> LOGGERS = new ClassValue<>()
+    {
+	@Override protected Logger computeValue(Class<?> type) {
+	    return Logger.getLogger(type.getName());
+	}
+    };
+    private static AsyncLogHandler asyncHandler = null;
 
     // Static initializer block runs once when the class is loaded
     static {
@@ -63,17 +99,31 @@ public class LogHandler
 	    // Set global logging level
 	    rootLogger.setLevel(Level.INFO);
 
+	    // Count published records for monitoring
+	    rootLogger.addHandler(new CountingHandler());
+
+	    List<Handler> outputs = new ArrayList<>();
+
 	    // Console handler
 	    ConsoleHandler consoleHandler = new ConsoleHandler();
 	    consoleHandler.setLevel(Level.INFO);
-	    rootLogger.addHandler(consoleHandler);
+	    outputs.add(consoleHandler);
 
 	    // File handler with rotation
 	    FileHandler fileHandler = new FileHandler(LOG_FOLDER + File.separator + LOG_FILE,
 						      LOG_FILE_SIZE_LIMIT, LOG_FILE_COUNT, true);
 	    fileHandler.setFormatter(new SimpleFormatter());
 	    fileHandler.setLevel(Level.ALL);
-	    rootLogger.addHandler(fileHandler);
+	    outputs.add(fileHandler);
+
+	    if (Boolean.parseBoolean(System.getProperty(ASYNC_PROPERTY, "true"))) {
+		asyncHandler = new AsyncLogHandler(outputs, readBufferSize(), readOverflowPolicy());
+		rootLogger.addHandler(asyncHandler);
+	    } else {
+		for (Handler output : outputs) {
+		    rootLogger.addHandler(output);
+		}
+	    }
 	} catch (IOException e) {
 	    /** Logging has failed so cant log the error so just a print since I dont want to crash the program*/
 	    System.err.println("Failed to initialize logging: " + e.getMessage());
@@ -82,6 +132,29 @@ public class LogHandler
 	}
     }
 
+    private static int readBufferSize() {
+	String value = System.getProperty(BUFFER_SIZE_PROPERTY);
+	if (value == null) {
+	    return DEFAULT_BUFFER_SIZE;
+	}
+	try {
+	    return Math.max(2, Integer.parseInt(value.trim()));
+	} catch (NumberFormatException e) {
+	    System.err.println("Ignoring invalid log buffer size: " + value);
+	    return DEFAULT_BUFFER_SIZE;
+	}
+    }
+
+    private static AsyncLogHandler.OverflowPolicy readOverflowPolicy() {
+	String value = System.getProperty(OVERFLOW_PROPERTY, "drop");
+	try {
+	    return AsyncLogHandler.OverflowPolicy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+	} catch (IllegalArgumentException e) {
+	    System.err.println("Ignoring invalid log overflow policy: " + value);
+	    return AsyncLogHandler.OverflowPolicy.DROP;
+	}
+    }
+
     /**
      * Gets a logger for the specified class.
      *
@@ -89,7 +162,7 @@ public class LogHandler
      * @return A configured Logger instance
      */
     public static Logger getLogger(Class<?> clazz) {
-	return Logger.getLogger(clazz.getName());
+	return LOGGERS.get(clazz);
     }
 
     /**
@@ -99,7 +172,19 @@ public class LogHandler
      * @param message The message to log
      */
     public static void info(Class<?> clazz, String message) {
-	getLogger(clazz).info(message);
+	getLogger(clazz).logp(Level.INFO, clazz.getName(), null, message);
+    }
+
+    /**
+     * Log an INFO level message with parameters. The parameters replace {@code {0}}, {@code {1}} and so on in the pattern and are
+     * formatted by the log writer, so they should not be changed after the call.
+     *
+     * @param clazz The class generating the log message
+     * @param pattern The message pattern
+     * @param params The values to insert into the pattern
+     */
+    public static void info(Class<?> clazz, String pattern, Object... params) {
+	getLogger(clazz).logp(Level.INFO, clazz.getName(), null, pattern, params);
     }
 
     /**
@@ -109,7 +194,7 @@ public class LogHandler
      * @param message The message to log
      */
     public static void logWarning(Class<?> clazz, String message) {
-	getLogger(clazz).warning(message);
+	getLogger(clazz).logp(Level.WARNING, clazz.getName(), null, message);
     }
 
     /**
@@ -119,7 +204,7 @@ public class LogHandler
      * @param message The message to log
      */
     public static void severe(Class<?> clazz, String message) {
-	getLogger(clazz).severe(message);
+	getLogger(clazz).logp(Level.SEVERE, clazz.getName(), null, message);
     }
 
     /**
@@ -130,7 +215,7 @@ public class LogHandler
      * @param throwable The exception to include in the log
      */
     public static void severe(Class<?> clazz, String message, Throwable throwable) {
-	getLogger(clazz).log(Level.SEVERE, message, throwable);
+	getLogger(clazz).logp(Level.SEVERE, clazz.getName(), null, message, throwable);
     }
 
     /**
@@ -142,7 +227,49 @@ public class LogHandler
     public static void fine(Class<?> clazz, String message) {
 	Logger logger = getLogger(clazz);
 	if (logger.isLoggable(Level.FINE)) {
-	    logger.fine(message);
+	    logger.logp(Level.FINE, clazz.getName(), null, message);
+	}
+    }
+
+    /**
+     * Log a FINE level message that is only built if FINE is enabled.
+     *
+     * @param clazz The class generating the log message
+     * @param message Supplies the message to log
+     */
+    public static void fine(Class<?> clazz, Supplier<String> message) {
+	Logger logger = getLogger(clazz);
+	if (logger.isLoggable(Level.FINE)) {
+	    logger.logp(Level.FINE, clazz.getName(), null, message);
+	}
+    }
+
+    /**
+     * Log a FINE level message with one parameter, see {@link #info(Class, String, Object...)}.
+     *
+     * @param clazz The class generating the log message
+     * @param pattern The message pattern
+     * @param param The value to insert as {@code {0}}
+     */
+    public static void fine(Class<?> clazz, String pattern, Object param) {
+	Logger logger = getLogger(clazz);
+	if (logger.isLoggable(Level.FINE)) {
+	    logger.logp(Level.FINE, clazz.getName(), null, pattern, param);
+	}
+    }
+
+    /**
+     * Log a FINE level message with two parameters, see {@link #info(Class, String, Object...)}.
+     *
+     * @param clazz The class generating the log message
+     * @param pattern The message pattern
+     * @param first The value to insert as {@code {0}}
+     * @param second The value to insert as {@code {1}}
+     */
+    public static void fine(Class<?> clazz, String pattern, Object first, Object second) {
+	Logger logger = getLogger(clazz);
+	if (logger.isLoggable(Level.FINE)) {
+	    logger.logp(Level.FINE, clazz.getName(), null, pattern, new Object[] { first, second });
 	}
     }
 
@@ -155,7 +282,7 @@ public class LogHandler
      * @param throwable The exception to include in the log
      */
     public static void log(Class<?> clazz, Level level, String message, Throwable throwable) {
-	getLogger(clazz).log(level, message, throwable);
+	getLogger(clazz).logp(level, clazz.getName(), null, message, throwable);
     }
 
     /**
@@ -168,4 +295,38 @@ public class LogHandler
     public static boolean isLoggable(Class<?> clazz, Level level) {
 	return getLogger(clazz).isLoggable(level);
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the total number of log records published since startup.
+     *
+     * @return The record count
+     */
+    public static long getPublishedRecordCount() {
+	return PUBLISHED_RECORDS.sum();
+    }
+
+    /**
+     * Returns the number of log records thrown away because the log buffer was full.
+     *
+     * @return The dropped record count, always 0 when logging is synchronous
+     */
+    public static long getDroppedRecordCount() {
+	return asyncHandler != null ? asyncHandler.getDroppedRecordCount() : 0;
+    }
+
+    /**
+     * Handler that only counts the records it receives.
+     */
+    private static class CountingHandler extends Handler
+    {
+	@Override public void publish(LogRecord record) {
+	    PUBLISHED_RECORDS.increment();
+	}
+
+	@Override public void flush() {
+	}
+
+	@Override public void close() {
+	}
+    }
+}
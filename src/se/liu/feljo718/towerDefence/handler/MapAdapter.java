@@ -0,0 +1,189 @@
+package se.liu.feljo718.towerdefence.handler;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import se.liu.feljo718.towerdefence.board.TileType;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Picks one map out of a JSON array of maps while streaming through it.
+ * <p>
+ * Every map is an object with a {@code name} and a list of {@code tiles} rows, where each character is one tile. The adapter reads the
+ * array one token at a time and writes the tiles of the wanted map straight into a grid of the board's size: maps with another name are
+ * skipped token by token without building any objects, and reading stops as soon as the wanted map is complete. Tiles outside the grid
+ * are ignored and missing tiles are left as grass.
+ * <p>
+ * Reading returns {@code null} when the array holds no map with the wanted name. An adapter created without a name takes the first map.
+ *
+ * @author feljo718
+ * @see MapReader
+ */
+public class MapAdapter extends TypeAdapter<TileType[][]>
+{
+    private static final char GRASS_KEY = 'G';
+    private static final char PATH_KEY = 'P';
+    private static final char WATER_KEY = 'W';
+    private static final char START_KEY = 'B';
+    private static final char END_KEY = 'E';
+    private static final char SAND_KEY = 'S';
+
+    private final String mapName;
+    private final TileType[][] grid;
+
+    /**
+     * Creates an adapter that reads the named map into the given grid.
+     *
+     * @param mapName The name of the map to read, or null to read the first map
+     * @param grid    The grid to fill, which decides how much of the map is read
+     */
+    public MapAdapter(String mapName, TileType[][] grid) {
+	this.mapName = mapName;
+	this.grid = grid;
+    }
+
+    @Override public TileType[][] read(JsonReader in) throws IOException {
+	in.beginArray();
+	while (in.hasNext()) {
+	    if (in.peek() == JsonToken.NULL) {
+		in.nextNull();
+		continue;
+	    }
+	    if (readMap(in)) {
+		// The rest of the array is never looked at
+		return grid;
+	    }
+	}
+	in.endArray();
+	return null;
+    }
+
+    /**
+     * Reads one map object, filling the grid only if it might be the wanted map.
+     *
+     * @return true if the object was the wanted map
+     */
+    private boolean readMap(JsonReader in) throws IOException {
+	String name = null;
+	boolean tilesRead = false;
+	in.beginObject();
+	while (in.hasNext()) {
+	    switch (in.nextName()) {
+		case "name" -> name = in.nextString();
+		// Tiles before the name have to be read, the name may still turn out to match
+		case "tiles" -> {
+		    if (name == null || isWanted(name)) {
+			readTiles(in);
+			tilesRead = true;
+		    } else {
+			in.skipValue();
+		    }
+		}
+		default -> in.skipValue();
+	    }
+	    if (name != null && !isWanted(name) && !tilesRead) {
+		skipRest(in);
+		return false;
+	    }
+	}
+	in.endObject();
+	return name != null && isWanted(name) && tilesRead;
+    }
+
+    private boolean isWanted(String name) {
+	return mapName == null || mapName.equals(name);
+    }
+
+    private void skipRest(JsonReader in) throws IOException {
+	while (in.hasNext()) {
+	    in.skipValue();
+	}
+	in.endObject();
+    }
+
+    private void readTiles(JsonReader in) throws IOException {
+	for (TileType[] row : grid) {
+	    Arrays.fill(row, TileType.GRASS);
+	}
+
+	int rowIndex = 0;
+	in.beginArray();
+	while (in.hasNext()) {
+	    // A trailing comma in a lenient file reads as null
+	    if (in.peek() == JsonToken.NULL) {
+		in.nextNull();
+		continue;
+	    }
+	    String rowString = in.nextString();
+	    if (rowIndex < grid.length) {
+		TileType[] row = grid[rowIndex];
+		int columns = Math.min(rowString.length(), row.length);
+		for (int col = 0; col < columns; col++) {
+		    row[col] = toTileType(rowString.charAt(col));
+		}
+	    }
+	    rowIndex++;
+	}
+	in.endArray();
+    }
+
+    /**
+     * Returns the tile type written as the given character, grass for unknown characters.
+     *
+     * @param key The character from a tiles row
+     *
+     * @return The tile type
+     */
+    public static TileType toTileType(char key) {
+	return switch (key) {
+	    case PATH_KEY -> TileType.PATH;
+	    case WATER_KEY -> TileType.WATER;
+	    case START_KEY -> TileType.START;
+	    case END_KEY -> TileType.END;
+	    case SAND_KEY -> TileType.SAND;
+	    default -> TileType.GRASS;
+	};
+    }
+
+    /**
+     * Returns the character a tile type is written as.
+     *
+     * @param type The tile type
+     *
+     * @return The character used in the tiles rows
+     */
+    public static char toKey(TileType type) {
+	return switch (type) {
+	    case PATH -> PATH_KEY;
+	    case WATER -> WATER_KEY;
+	    case START -> START_KEY;
+	    case END -> END_KEY;
+	    case SAND -> SAND_KEY;
+	    default -> GRASS_KEY;
+	};
+    }
+
+    /**
+     * Writes the grid as an array holding a single map with this adapter's name.
+     */
+    @Override public void write(JsonWriter out, TileType[][] tiles) throws IOException {
+	out.beginArray();
+	out.beginObject();
+	out.name("name").value(mapName);
+	out.name("tiles").beginArray();
+	StringBuilder rowString = new StringBuilder();
+	for (TileType[] row : tiles) {
+	    rowString.setLength(0);
+	    for (TileType tile : row) {
+		rowString.append(toKey(tile));
+	    }
+	    out.value(rowString.toString());
+	}
+	out.endArray();
+	out.endObject();
+	out.endArray();
+    }
+}
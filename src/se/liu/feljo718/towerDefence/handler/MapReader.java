@@ -1,22 +1,18 @@
 package se.liu.feljo718.towerdefence.handler;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
 import com.google.gson.JsonSyntaxException;
 import se.liu.feljo718.towerdefence.board.TileType;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.Reader;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.logging.Level;
 
 /**
  * Loads and parses map layouts from JSON files for the Tower Defense game.
  * <p>
  * This class is responsible for reading map data from a JSON configuration file and converting it into a grid of tile types that can be
- * used by the game board. It handles file reading, JSON parsing, and mapping string representations to actual tile type enumerations.
+ * used by the game board. It handles file reading and falling back to other maps, while the parsing itself is done by {@link MapAdapter}.
  * <p>
  * If the specified map file cannot be found or read, a default map layout will be generated automatically as a fallback.
  *
@@ -26,14 +22,6 @@ import java.util.logging.Level;
  */
 public class MapReader extends JsonFileHandler
 {
-    private static final String GRASS_KEY = "G";
-    private static final String PATH_KEY = "P";
-    private static final String WATER_KEY = "W";
-    private static final String START_KEY = "B";
-    private static final String END_KEY = "E";
-    private static final String SAND_KEY = "S";
-
-
     private final TileType[][] map;
     private final int width;
     private final int height;
@@ -80,106 +68,60 @@ public class MapReader extends JsonFileHandler
     /**
      * Loads map data from the JSON file.
      * <p>
-     * Reads and parses the JSON map file, converting its contents into a grid of tile types. If the operation fails, a default map is
+     * Streams through the JSON map file with a {@link MapAdapter}, which fills the grid with the tiles of the map with this reader's
+     * name and skips all other maps. If no map has that name the first map is used, and if the file cannot be read a default map is
      * generated.
+     * <p>
+     * When the file has an up-to-date {@link ContentPack}, the map is decoded from the pack instead and the JSON file is not read at all.
+     * Otherwise the pack is compiled in the background after the JSON file has been read.
      *
      * @return The loaded tile grid
      * @throws FileNotFoundException If the map file cannot be found
      * @throws JsonSyntaxException   If the JSON is malformed
      */
     public TileType[][] loadFromJson() throws FileNotFoundException, JsonSyntaxException {
-	Reader reader;
-	try {
-	    reader = getJsonReader();
-	} catch (FileNotFoundException e) {
-	    LogHandler.severe(MapReader.class, "Map file not found: " + e.getMessage(), e);
-	    throw e; // Rethrow to match your signature
-	} catch (IOException e) {
-	    LogHandler.logWarning(MapReader.class, "Could not read map file: " + e.getMessage());
-	    generateDefaultMap();
-	    return map;
-	}
-
-	if (reader == null) {
-	    LogHandler.logWarning(MapReader.class, "Could not find map file, generating default map");
-	    generateDefaultMap();
-	    return map;
+	File source = new File(filename);
+	ContentPack pack = ContentPack.open(source, ContentPack.MAPS);
+	if (pack != null) {
+	    return loadFromPack(pack);
 	}
 
-	try (Reader r = reader) {
-	    // Rest of the method remains unchanged
-	    JsonArray maps = gson.fromJson(r, JsonArray.class);
-	    boolean mapFound = false;
-
-	    // Search for the requested map by name
-	    for (int i = 0; i < maps.size(); i++) {
-		JsonObject mapData = maps.get(i).getAsJsonObject();
-		String currentMapName = mapData.get("name").getAsString();
-
-		if (currentMapName.equals(mapName)) {
-		    parseMapData(mapData);
-		    mapFound = true;
-		    LogHandler.info(MapReader.class, "Loaded map: " + mapName);
-		    break;
-		}
+	try {
+	    if (readJson(new MapAdapter(mapName, map)::read) != null) {
+		LogHandler.info(MapReader.class, "Loaded map: " + mapName);
+		ContentPackCompiler.compileLater(source, ContentPack.MAPS);
+		return map;
 	    }
 
-	    if (!mapFound) {
-		LogHandler.logWarning(MapReader.class, "Map '" + mapName + "' not found, loading default map");
-		// Try to load the first map in the array
-		if (!maps.isEmpty()) {
-		    parseMapData(maps.get(0).getAsJsonObject());
-		} else {
-		    generateDefaultMap();
-		}
+	    LogHandler.logWarning(MapReader.class, "Map '" + mapName + "' not found, loading default map");
+	    // Try to load the first map in the file, which takes a second pass but keeps the search from holding on to maps it skips
+	    if (readJson(new MapAdapter(null, map)::read) == null) {
+		generateDefaultMap();
 	    }
+	    ContentPackCompiler.compileLater(source, ContentPack.MAPS);
+	} catch (FileNotFoundException e) {
+	    LogHandler.severe(MapReader.class, "Map file not found: " + e.getMessage(), e);
+	    throw e;
 	} catch (IOException e) {
 	    LogHandler.log(MapReader.class, Level.WARNING, "Error reading map file: " + e.getMessage(), e);
 	    generateDefaultMap();
-	    return map;
 	}
 	return map;
     }
 
     /**
-     * Parses the JSON map data into the tile grid.
-     * <p>
-     * Converts string representations in the JSON into actual TileType values and populates the map grid.
-     *
-     * @param mapJson The parsed JSON object containing the map data
+     * Decodes the map from the file's content pack, with the same fallbacks as the JSON file.
      */
-    private void parseMapData(JsonObject mapData) {
-	Map<String, TileType> tileMap = createTileTypeMap();
-	JsonArray rows = mapData.getAsJsonArray("tiles");
-
-	// Initialize map with grass (default)
-	fillMapWithTile(TileType.GRASS);
-
-	// Parse tile data from JSON
-	int rowIndex = 0;
-	for (int i = 0; i < rows.size() && rowIndex < height; i++) {
-	    String rowStr = rows.get(i).getAsString();
-	    for (int col = 0; col < Math.min(rowStr.length(), width); col++) {
-		String tileKey = String.valueOf(rowStr.charAt(col));
-		TileType tileType = tileMap.getOrDefault(tileKey, TileType.GRASS);
-		map[rowIndex][col] = tileType;
+    private TileType[][] loadFromPack(ContentPack pack) {
+	if (pack.readMap(mapName, map)) {
+	    LogHandler.info(MapReader.class, "Loaded map from content pack: " + mapName);
+	} else {
+	    LogHandler.logWarning(MapReader.class, "Map '" + mapName + "' not found, loading default map");
+	    if (!pack.readFirstMap(map)) {
+		generateDefaultMap();
 	    }
-	    rowIndex++;
 	}
-    }
-
-    /**
-     * Creates the mapping between string keys and tile types.
-     */
-    private Map<String, TileType> createTileTypeMap() {
-	Map<String, TileType> tileMap = new HashMap<>();
-	tileMap.put(GRASS_KEY, TileType.GRASS);
-	tileMap.put(PATH_KEY, TileType.PATH);
-	tileMap.put(WATER_KEY, TileType.WATER);
-	tileMap.put(START_KEY, TileType.START);
-	tileMap.put(END_KEY, TileType.END);
-	tileMap.put(SAND_KEY, TileType.SAND);
-	return tileMap;
+	return map;
     }
 
     /**
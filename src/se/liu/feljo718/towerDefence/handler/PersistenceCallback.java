@@ -0,0 +1,31 @@
+package se.liu.feljo718.towerdefence.handler;
+
+import java.io.File;
+
+/**
+ * Receives the outcome of a write handed to the {@link PersistenceExecutor}.
+ * <p>
+ * Both methods are called on the persistence thread. Implementations that touch Swing components must hand the work to the event dispatch
+ * thread, for example with {@code SwingUtilities.invokeLater}.
+ *
+ * @author feljo718
+ * @see PersistenceExecutor
+ */
+public interface PersistenceCallback
+{
+    /**
+     * Called when the file has been written. When several writes of the file were coalesced, this is called for each of them once the
+     * last one has been written.
+     *
+     * @param file The file that was written
+     */
+    void saved(File file);
+
+    /**
+     * Called when writing the file failed. The failure has already been logged.
+     *
+     * @param file  The file that could not be written
+     * @param cause The exception thrown by the write
+     */
+    void failed(File file, Exception cause);
+}
@@ -0,0 +1,200 @@
+package se.liu.feljo718.towerdefence.handler;
+
+import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Writes files on a single background thread, so that saving never blocks the event dispatch thread, which also runs the game ticks.
+ * <p>
+ * Callers hand in a {@link PersistenceTask} that writes a snapshot of their data, see for example {@link JsonFileHandler#saveToJsonLater}.
+ * Writes run one at a time in the order they were submitted. When the same task is submitted for a file again while it is the last one
+ * waiting, the requests are merged and the task runs once, so a burst of saves writes the file once. A different task runs after the
+ * waiting ones, so for example closing a file is never lost to a write submitted after it. The outcome is reported to the {@link
+ * PersistenceCallback}s of all merged requests once all their tasks have run.
+ * <p>
+ * Pending writes are finished when the application shuts down, waiting at most {@value #SHUTDOWN_TIMEOUT_SECONDS} seconds.
+ *
+ * @author feljo718
+ * @see JsonFileHandler
+ */
+public final class PersistenceExecutor
+{
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+    private static final Map<File, PendingWrite> PENDING = new HashMap<>();
+    private static final AtomicLong WRITES = new AtomicLong();
+    private static final AtomicLong COALESCED = new AtomicLong();
+    private static volatile Thread writerThread = null;
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+	Thread thread = new Thread(runnable, "persistence-writer");
+	thread.setDaemon(true);
+	writerThread = thread;
+	return thread;
+    });
+
+    static {
+	Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS), "persistence-shutdown"));
+    }
+
+    private PersistenceExecutor() {
+    }
+
+    /**
+     * Writes a file on the persistence thread.
+     *
+     * @param file     The file written by the task, also used to recognise repeated writes of the same file
+     * @param task     Writes the file. Submitting an equal task while it is the last one waiting merges the two requests
+     * @param callback Told whether the write succeeded, or null if the caller does not need to know
+     */
+    public static void submit(File file, PersistenceTask task, PersistenceCallback callback) {
+	File key = file.getAbsoluteFile();
+	synchronized (PENDING) {
+	    PendingWrite pending = PENDING.get(key);
+	    if (pending != null) {
+		if (pending.tasks.getLast().equals(task)) {
+		    COALESCED.incrementAndGet();
+		} else {
+		    pending.tasks.add(task);
+		}
+		pending.addCallback(callback);
+		return;
+	    }
+	    pending = new PendingWrite(task);
+	    pending.addCallback(callback);
+	    PENDING.put(key, pending);
+	}
+	WRITER.execute(() -> write(key));
+    }
+
+    /**
+     * Waits until every write submitted before this call has finished.
+     *
+     * @param timeout How long to wait at most
+     * @param unit    The unit of the timeout
+     *
+     * @return true if the writes finished in time, false if the wait timed out or was interrupted
+     */
+    public static boolean flush(long timeout, TimeUnit unit) {
+	if (isPersistenceThread()) {
+	    // A write waiting for the writes queued behind it would wait forever
+	    return false;
+	}
+	Future<?> marker = WRITER.submit(() -> {
+	});
+	try {
+	    marker.get(timeout, unit);
+	    return true;
+	} catch (TimeoutException e) {
+	    LogHandler.logWarning(PersistenceExecutor.class, "Pending writes did not finish within " + timeout + " " + unit);
+	    return false;
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    return false;
+	} catch (ExecutionException e) {
+	    return false;
+	}
+    }
+
+    /**
+     * Logs a warning when file I/O is about to happen on the event dispatch thread, which would stall both the user interface and the
+     * game. Methods that write synchronously call this, so a stray call from the wrong thread shows up in the log.
+     *
+     * @param clazz     The class doing the I/O
+     * @param operation What is being done, for the log message
+     */
+    public static void warnIfOnEventDispatchThread(Class<?> clazz, String operation) {
+	if (SwingUtilities.isEventDispatchThread()) {
+	    LogHandler.log(clazz, Level.WARNING, operation + " on the event dispatch thread, use the PersistenceExecutor instead",
+			   new IllegalStateException("Called from " + Thread.currentThread().getName()));
+	}
+    }
+
+    public static boolean isPersistenceThread() {
+	return Thread.currentThread() == writerThread;
+    }
+
+    /**
+     * Returns the number of writes that have run.
+     *
+     * @return The number of completed or failed writes
+     */
+    public static long getWriteCount() {
+	return WRITES.get();
+    }
+
+    /**
+     * Returns the number of write requests that were merged into an earlier request of the same task for the same file.
+     *
+     * @return The number of coalesced requests
+     */
+    public static long getCoalescedCount() {
+	return COALESCED.get();
+    }
+
+    private static void write(File file) {
+	PendingWrite pending;
+	synchronized (PENDING) {
+	    // Removed before writing, so a request arriving during the write is written again afterwards
+	    pending = PENDING.remove(file);
+	}
+
+	Exception failure = null;
+	for (PersistenceTask task : pending.tasks) {
+	    // A failed task does not stop the next one, which may be what releases the file
+	    try {
+		task.write(file);
+	    } catch (IOException | RuntimeException e) {
+		if (failure == null) {
+		    failure = e;
+		}
+		LogHandler.log(PersistenceExecutor.class, Level.WARNING, "Failed to write " + file, e);
+	    }
+	    WRITES.incrementAndGet();
+	}
+
+	for (PersistenceCallback callback : pending.callbacks) {
+	    try {
+		if (failure == null) {
+		    callback.saved(file);
+		} else {
+		    callback.failed(file, failure);
+		}
+	    } catch (RuntimeException e) {
+		// A broken callback must not stop the writes of other files
+		LogHandler.log(PersistenceExecutor.class, Level.WARNING, "Persistence callback failed for " + file, e);
+	    }
+	}
+    }
+
+    /**
+     * The different tasks waiting for a file, in the order they were submitted, together with the callbacks of every request they stand
+     * in for.
+     */
+    private static class PendingWrite
+    {
+	private final List<PersistenceTask> tasks = new ArrayList<>(1);
+	private final List<PersistenceCallback> callbacks = new ArrayList<>(1);
+
+	private PendingWrite(PersistenceTask task) {
+	    tasks.add(task);
+	}
+
+	private void addCallback(PersistenceCallback callback) {
+	    if (callback != null) {
+		callbacks.add(callback);
+	    }
+	}
+    }
+}
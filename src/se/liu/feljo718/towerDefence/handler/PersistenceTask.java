@@ -0,0 +1,27 @@
+package se.liu.feljo718.towerdefence.handler;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A write of one file, run by the {@link PersistenceExecutor} on its background thread.
+ * <p>
+ * Submitting a task again while it is the last one waiting for the same file runs it only once. Such a task must therefore write everything
+ * that is to be saved at the time it runs, not only what changed since it was submitted. Callers that want their writes merged keep one
+ * task in a field and submit that, as lambdas created anew are different tasks.
+ *
+ * @author feljo718
+ * @see PersistenceExecutor#submit(File, PersistenceTask, PersistenceCallback)
+ */
+@FunctionalInterface
+public interface PersistenceTask
+{
+    /**
+     * Writes the file.
+     *
+     * @param file The file to write
+     *
+     * @throws IOException If the file cannot be written
+     */
+    void write(File file) throws IOException;
+}
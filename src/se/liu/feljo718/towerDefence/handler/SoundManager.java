@@ -1,13 +1,21 @@
 package se.liu.feljo718.towerdefence.handler;
 
+import se.liu.feljo718.towerdefence.metrics.SoundPlaybackEvent;
+
+import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.Clip;
 import javax.sound.sampled.FloatControl;
+import javax.sound.sampled.LineEvent;
 import javax.sound.sampled.LineUnavailableException;
 import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Utility class for playing game sound effects.
@@ -15,57 +23,172 @@ import java.io.InputStream;
  * This class provides static methods to load and play sound files from the game's resources. It handles audio loading, playback, volume
  * control, and resource cleanup.
  * <p>
- * Two playback methods are available:
- * <ul>
- *   <li>Standard playback - loads and plays a sound once</li>
- *   <li>Cached playback - loads sounds once and reuses them for better performance</li>
- * </ul>
+ * Every sound file is decoded once and kept in memory, so playing a sound during a game tick does not read the file again. Opening the
+ * first clip also initialises the audio system, which can take a long time; {@link #warmUp(String)} does both on a background thread at
+ * startup, before the first shot is fired.
  *
  * @author feljo718
  */
 public class SoundManager
 {
+    /** Number of clips that have been started and not yet closed. */
+    private static final AtomicInteger ACTIVE_VOICES = new AtomicInteger();
+    /** Setting this system property to {@code false} starts the game muted, which is useful for benchmarks and headless runs. */
+    private static final String AUDIO_PROPERTY = "towerdefence.audio";
+    private static volatile boolean enabled = !"false".equalsIgnoreCase(System.getProperty(AUDIO_PROPERTY));
+    private static final Map<String, Sample> SAMPLES = new ConcurrentHashMap<>();
+
     /**
      * Plays a sound file from the specified resource path with adjusted volume.
      * <p>
-     * This method loads the sound file each time it's called and automatically releases resources when playback completes.
+     * The sound file is decoded on the first call and reused afterwards. The clip is released automatically when playback completes.
      *
      * @param resourcePath    Path to the sound resource (e.g., "/audio/shot.wav")
      * @param volumeReduction Amount to reduce volume in decibels (negative values, e.g., -10.0f)
      */
     public static void playSound(String resourcePath, float volumeReduction) {
-	try (InputStream in = SoundManager.class.getResourceAsStream(resourcePath)) {
-	    if (in == null) {
+	if (!enabled) {
+	    return;
+	}
+	SoundPlaybackEvent event = new SoundPlaybackEvent();
+	event.begin();
+	try {
+	    event.started = startClip(resourcePath, volumeReduction);
+	} finally {
+	    event.end();
+	    if (event.shouldCommit()) {
+		event.resource = resourcePath;
+		event.commit();
+	    }
+	}
+    }
+
+    /**
+     * Loads a clip and starts playing it.
+     *
+     * @return {@code true} if playback was started
+     */
+    private static boolean startClip(String resourcePath, float volumeReduction) {
+	try {
+	    Sample sample = getSample(resourcePath);
+	    if (sample == null) {
 		System.err.println("Warning: Could not find sound resource: " + resourcePath);
-		return;
+		return false;
 	    }
 
-	    try (AudioInputStream audioIn = AudioSystem.getAudioInputStream(in)) {
-		Clip clip = AudioSystem.getClip();
-		clip.open(audioIn);
+	    Clip clip = AudioSystem.getClip();
+	    clip.open(sample.format(), sample.data(), 0, sample.data().length);
 
-		FloatControl volumeControl = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
-		volumeControl.setValue(volumeReduction);
+	    FloatControl volumeControl = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
+	    volumeControl.setValue(volumeReduction);
 
-		clip.start();
+	    clip.addLineListener(event -> {
+		if (event.getType() == LineEvent.Type.CLOSE) {
+		    ACTIVE_VOICES.decrementAndGet();
+		    return;
+		}
+		if (clip.isRunning()) {
+		    return;
+		}
+		clip.close();
+	    });
 
-		clip.addLineListener(event -> {
-		    if (clip.isRunning()) {
-			return;
-		    }
-		    clip.close();
-		});
-	    }
+	    ACTIVE_VOICES.incrementAndGet();
+	    clip.start();
+	    return true;
 	    /**No need to crash the game if audio doesn't work so just return*/
 	} catch (UnsupportedAudioFileException e) {
 	    LogHandler.severe(SoundManager.class, "Unsupported audio format: " + resourcePath, e);
-	    return;
+	    return false;
 	} catch (IOException e) {
 	    LogHandler.severe(SoundManager.class, "Error reading sound file: " + resourcePath, e);
-	    return;
+	    return false;
 	} catch (LineUnavailableException e) {
 	    LogHandler.severe(SoundManager.class, "Audio line unavailable: " + e.getMessage(), e);
+	    return false;
+	} catch (IllegalArgumentException e) {
+	    // Thrown by AudioSystem.getClip() when the machine has no mixer that can play the clip
+	    LogHandler.severe(SoundManager.class, "No audio line supports the clip: " + e.getMessage());
+	    return false;
+	}
+    }
+
+    /**
+     * Decodes a sound file and opens and closes a clip with it, so that the first {@link #playSound(String, float)} neither reads the
+     * file nor waits for the audio system to start. Does nothing when sound is turned off.
+     *
+     * @param resourcePath Path to the sound resource
+     */
+    public static void warmUp(String resourcePath) {
+	if (!enabled) {
 	    return;
 	}
+	try {
+	    Sample sample = getSample(resourcePath);
+	    if (sample == null) {
+		LogHandler.logWarning(SoundManager.class, "Could not find sound resource: " + resourcePath);
+		return;
+	    }
+	    Clip clip = AudioSystem.getClip();
+	    clip.open(sample.format(), sample.data(), 0, sample.data().length);
+	    clip.close();
+	} catch (UnsupportedAudioFileException | IOException | LineUnavailableException | IllegalArgumentException e) {
+	    // The first shot reports the problem again, the warm-up only needs to not get in the way
+	    LogHandler.logWarning(SoundManager.class, "Audio warm-up failed for " + resourcePath + ": " + e.getMessage());
+	}
+    }
+
+    /**
+     * Returns the decoded sound, decoding it on first use.
+     *
+     * @return The sound, or null if the resource does not exist
+     */
+    private static Sample getSample(String resourcePath) throws UnsupportedAudioFileException, IOException {
+	Sample sample = SAMPLES.get(resourcePath);
+	if (sample != null) {
+	    return sample;
+	}
+
+	try (InputStream in = SoundManager.class.getResourceAsStream(resourcePath)) {
+	    if (in == null) {
+		return null;
+	    }
+	    // Read fully first, the audio parser needs mark and reset which not every resource stream supports
+	    try (AudioInputStream audioIn = AudioSystem.getAudioInputStream(new ByteArrayInputStream(in.readAllBytes()))) {
+		sample = new Sample(audioIn.getFormat(), audioIn.readAllBytes());
+	    }
+	}
+	// Two threads decoding the same file at once keep the same result, so whichever is stored first is fine
+	SAMPLES.putIfAbsent(resourcePath, sample);
+	return sample;
+    }
+
+    /**
+     * Returns the number of sound clips that are currently playing or waiting to be closed.
+     *
+     * @return The number of active voices
+     */
+    public static int getActiveVoices() {
+	return ACTIVE_VOICES.get();
+    }
+
+    public static boolean isEnabled() {
+	return enabled;
+    }
+
+    /**
+     * Turns all sound effects on or off. Clips that are already playing are not stopped.
+     *
+     * @param enabled {@code false} to make {@link #playSound(String, float)} do nothing
+     */
+    public static void setEnabled(boolean enabled) {
+	SoundManager.enabled = enabled;
+    }
+
+    /**
+     * A decoded sound file.
+     */
+    private record Sample(AudioFormat format, byte[] data)
+    {
     }
-}
\ No newline at end of file
+}
@@ -3,8 +3,8 @@ package se.liu.feljo718.towerdefence.highscore;
 /**
  * Represents a single highscore entry in the Tower Defense game.
  * <p>
- * This class stores information about a player's achievement, including their name and score value. Highscore objects are immutable once
- * created and are used by the HighscoreList class to track and display player performances.
+ * This class stores information about a player's achievement, including their name, score value and the map it was reached on. Highscore
+ * objects are immutable once created and are used by the HighscoreList class to track and display player performances.
  *
  * @author feljo718
  * @see HighscoreList
@@ -13,10 +13,23 @@ public class Highscore
 {
     private final String name;
     private final int score;
+    private final String mapName;
 
     public Highscore(String name, int score) {
+	this(name, score, null);
+    }
+
+    /**
+     * Creates a highscore reached on the given map.
+     *
+     * @param name    The player's name
+     * @param score   The score reached
+     * @param mapName The map the score was reached on, or null if unknown, as for scores saved by older versions
+     */
+    public Highscore(String name, int score, String mapName) {
 	this.name = name;
 	this.score = score;
+	this.mapName = mapName;
     }
 
     public String getName() {
@@ -27,6 +40,10 @@ public class Highscore
 	return score;
     }
 
+    public String getMapName() {
+	return mapName;
+    }
+
     public String toString() {
 	return String.format("%s - %d", name, score);
     }
@@ -0,0 +1,57 @@
+package se.liu.feljo718.towerdefence.highscore;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes a {@link Highscore} as a JSON object with a {@code name}, a {@code score} and an optional {@code map},
+ * without reflection.
+ * <p>
+ * Unknown properties are skipped, so files written by newer versions of the game can still be read.
+ *
+ * @author feljo718
+ * @see HighscoreList
+ */
+public class HighscoreAdapter extends TypeAdapter<Highscore>
+{
+    @Override public Highscore read(JsonReader in) throws IOException {
+	if (in.peek() == JsonToken.NULL) {
+	    in.nextNull();
+	    return null;
+	}
+
+	String name = null;
+	int score = 0;
+	String mapName = null;
+	in.beginObject();
+	while (in.hasNext()) {
+	    switch (in.nextName()) {
+		case "name" -> name = in.peek() == JsonToken.NULL ? nextNull(in) : in.nextString();
+		case "score" -> score = in.nextInt();
+		case "map" -> mapName = in.peek() == JsonToken.NULL ? nextNull(in) : in.nextString();
+		default -> in.skipValue();
+	    }
+	}
+	in.endObject();
+	return new Highscore(name, score, mapName);
+    }
+
+    static String nextNull(JsonReader in) throws IOException {
+	in.nextNull();
+	return null;
+    }
+
+    @Override public void write(JsonWriter out, Highscore highscore) throws IOException {
+	out.beginObject();
+	out.name("name").value(highscore.getName());
+	out.name("score").value(highscore.getScore());
+	if (highscore.getMapName() != null) {
+	    out.name("map").value(highscore.getMapName());
+	}
+	out.endObject();
+    }
+}
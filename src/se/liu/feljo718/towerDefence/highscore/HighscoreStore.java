@@ -0,0 +1,540 @@
+package se.liu.feljo718.towerdefence.highscore;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import se.liu.feljo718.towerdefence.handler.JsonFileHandler;
+import se.liu.feljo718.towerdefence.handler.LogHandler;
+import se.liu.feljo718.towerdefence.handler.PersistenceCallback;
+import se.liu.feljo718.towerdefence.handler.PersistenceExecutor;
+import se.liu.feljo718.towerdefence.handler.PersistenceTask;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+
+/**
+ * Stores all highscores in an append-only log and answers leaderboard queries from indexes kept in memory.
+ * <p>
+ * Adding a score updates the indexes at once and appends one line to {@code highscore.log} on the {@link PersistenceExecutor}'s thread,
+ * so it costs the same however many scores have been saved and never waits for the disk. Scores added while a write is waiting are
+ * appended together. Once the log has grown by {@value #DEFAULT_COMPACTION_THRESHOLD} scores, or the number given by the {@code
+ * towerdefence.highscore.compactAfter} property, it is folded into the snapshot {@code highscore.json}, also on the persistence thread.
+ * Compaction streams the old snapshot and the log into a new snapshot that replaces the old one atomically, so the scores are never held
+ * in memory as a whole.
+ * <p>
+ * Every score carries a sequence number. Loading reads the snapshot and then only the logged scores that are newer than the snapshot, so a
+ * crash at any point of a compaction neither loses nor duplicates scores. The snapshot has the format of the old highscore list, and a
+ * list written by an older version is taken over as the first snapshot.
+ * <p>
+ * The game shares one store, see {@link #getShared()}, which reads the files once. It indexes the best {@value #TOP_K} scores overall and
+ * per map and the best {@value #PLAYER_TOP_K} scores of every player name, and keeps a {@link PlayerRecord} for every player name. All
+ * methods are thread-safe.
+ *
+ * @author feljo718
+ * @see HighscoreList
+ * @see TopScores
+ */
+public final class HighscoreStore extends JsonFileHandler implements Closeable
+{
+    /**
+     * The number of scores kept in each leaderboard index.
+     */
+    public static final int TOP_K = 100;
+    /**
+     * The number of scores kept in the index of each player.
+     */
+    public static final int PLAYER_TOP_K = 20;
+    private static final String COMPACTION_THRESHOLD_PROPERTY = "towerdefence.highscore.compactAfter";
+    private static final int DEFAULT_COMPACTION_THRESHOLD = 10000;
+    private static final String SNAPSHOT_FILE = "highscore.json";
+    private static final String JSON_EXTENSION = ".json";
+    private static final long CLOSE_TIMEOUT_SECONDS = 5;
+    private static final long FIRST_RETRY_SECONDS = 1;
+    private static final long MAX_RETRY_SECONDS = 60;
+    private static HighscoreStore shared = null;
+
+    private final ScoreEntryAdapter entryAdapter = new ScoreEntryAdapter();
+    private final File snapshotFile;
+    private final File logFile;
+    private final File compactingFile;
+    private final int compactionThreshold;
+    private final TopScores topScores = new TopScores(TOP_K);
+    private final Map<String, TopScores> topScoresByMap = new HashMap<>();
+    private final Map<String, TopScores> topScoresByPlayer = new HashMap<>();
+    private final Map<String, PlayerRecord> players = new HashMap<>();
+    private long lastSequence = 0;
+    private long scoreCount = 0;
+    private int loggedSinceCompaction = 0;
+    private boolean snapshotReadable = true;
+    /** Submitted for every score added, so that scores added while a write is waiting are appended together. */
+    private final PersistenceTask appendTask = file -> writeUnwrittenEntries();
+    private final PersistenceTask compactTask = file -> compact();
+    private List<ScoreEntry> unwrittenEntries = new ArrayList<>();
+    private long retrySeconds = FIRST_RETRY_SECONDS;
+    private boolean retryScheduled = false;
+    /** Only used on the persistence thread. */
+    private Writer log = null;
+
+    /**
+     * Creates a store for the given snapshot file and loads its scores. The log is kept next to the snapshot, with the extension {@code
+     * .log} instead of {@code .json}.
+     * <p>
+     * A snapshot that cannot be parsed is logged and left alone: the store starts with the scores read so far and does not compact until
+     * the file has been fixed, so that the file is not overwritten.
+     *
+     * @param snapshotFile The snapshot file, relative to the resources folder
+     */
+    public HighscoreStore(String snapshotFile) {
+	super(snapshotFile);
+	String base = filename.endsWith(JSON_EXTENSION) ? filename.substring(0, filename.length() - JSON_EXTENSION.length()) : filename;
+	this.snapshotFile = new File(filename);
+	this.logFile = new File(base + ".log");
+	this.compactingFile = new File(base + ".log.compacting");
+	this.compactionThreshold = Math.max(1, Integer.getInteger(COMPACTION_THRESHOLD_PROPERTY, DEFAULT_COMPACTION_THRESHOLD));
+
+	long start = System.nanoTime();
+	loadSnapshot();
+	// A log left over from an interrupted compaction holds older scores than the current log
+	loggedSinceCompaction = replayLog(compactingFile) + replayLog(logFile);
+	LogHandler.info(HighscoreStore.class, "Loaded " + scoreCount + " highscores in " +
+					      TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+
+	if (compactingFile.exists() || loggedSinceCompaction >= compactionThreshold) {
+	    compactLater();
+	}
+    }
+
+    /**
+     * Returns the store the game shares, loading it on first use. Scores still waiting to be written when the application shuts down are
+     * written by the {@link PersistenceExecutor}.
+     *
+     * @return The shared store for {@code highscore.json}
+     */
+    public static synchronized HighscoreStore getShared() {
+	if (shared == null) {
+	    shared = new HighscoreStore(SNAPSHOT_FILE);
+	}
+	return shared;
+    }
+
+    /**
+     * Adds a score without being told whether it was written.
+     *
+     * @param score The score to add
+     *
+     * @see #add(Highscore, PersistenceCallback)
+     */
+    public void add(Highscore score) {
+	add(score, null);
+    }
+
+    /**
+     * Adds a score to the indexes and appends it to the log on the persistence thread.
+     * <p>
+     * The score is part of the leaderboard as soon as this method returns. If it cannot be written, the failure is reported to the callback
+     * and the write is tried again after a while, waiting longer after every failure, or together with the next score added.
+     *
+     * @param score    The score to add
+     * @param callback Told whether the score was written, on the persistence thread, or null
+     */
+    public synchronized void add(Highscore score, PersistenceCallback callback) {
+	ScoreEntry entry = new ScoreEntry(lastSequence + 1, score);
+	index(entry);
+	unwrittenEntries.add(entry);
+	PersistenceExecutor.submit(logFile, appendTask, callback);
+
+	loggedSinceCompaction++;
+	if (loggedSinceCompaction >= compactionThreshold) {
+	    compactLater();
+	}
+    }
+
+    /**
+     * Returns the best scores overall, highest first. Scores with the same value are ordered by when they were added.
+     *
+     * @param count The number of scores wanted, at most {@value #TOP_K} are returned
+     *
+     * @return A new list with the best scores
+     */
+    public synchronized List<Highscore> getTopScores(int count) {
+	return topScores.best(count);
+    }
+
+    /**
+     * Returns the best scores reached on a map, highest first. Scores saved without a map only appear in {@link #getTopScores(int)}.
+     *
+     * @param mapName The name of the map
+     * @param count   The number of scores wanted, at most {@value #TOP_K} are returned
+     *
+     * @return A new list with the best scores on the map, empty if nobody has saved a score on it
+     */
+    public synchronized List<Highscore> getTopScores(String mapName, int count) {
+	TopScores mapScores = topScoresByMap.get(mapName);
+	return mapScores != null ? mapScores.best(count) : new ArrayList<>();
+    }
+
+    /**
+     * Returns the best scores saved under a player name, highest first.
+     *
+     * @param name  The player's name
+     * @param count The number of scores wanted, at most {@value #PLAYER_TOP_K} are returned
+     *
+     * @return A new list with the player's best scores, empty if the player has not saved a score
+     */
+    public synchronized List<Highscore> getPlayerTopScores(String name, int count) {
+	TopScores playerScores = topScoresByPlayer.get(name);
+	return playerScores != null ? playerScores.best(count) : new ArrayList<>();
+    }
+
+    /**
+     * Returns the summary of all scores saved under a player name.
+     *
+     * @param name The player's name
+     *
+     * @return The player's record, or null if the player has not saved a score
+     */
+    public synchronized PlayerRecord getPlayer(String name) {
+	return players.get(name);
+    }
+
+    public synchronized long getScoreCount() {
+	return scoreCount;
+    }
+
+    /**
+     * Writes the scores that are still waiting, closes the log and waits for both. A later {@link #add(Highscore)} opens the log again.
+     *
+     * @throws IOException If the scores could not be written, or the writes did not finish within {@value #CLOSE_TIMEOUT_SECONDS} seconds
+     */
+    @Override public void close() throws IOException {
+	AtomicReference<Exception> failure = new AtomicReference<>();
+	PersistenceExecutor.submit(logFile, file -> {
+	    writeUnwrittenEntries();
+	    closeLog();
+	}, new PersistenceCallback()
+	{
+	    @Override public void saved(File file) {
+	    }
+
+	    @Override public void failed(File file, Exception cause) {
+		failure.set(cause);
+	    }
+	});
+	if (!PersistenceExecutor.flush(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+	    throw new IOException("Highscore log was not closed within " + CLOSE_TIMEOUT_SECONDS + " seconds");
+	}
+	if (failure.get() != null) {
+	    throw new IOException("Highscore log could not be written", failure.get());
+	}
+    }
+
+    private void closeLog() throws IOException {
+	if (log != null) {
+	    Writer closed = log;
+	    log = null;
+	    closed.close();
+	}
+    }
+
+    private void closeLogQuietly() {
+	try {
+	    closeLog();
+	} catch (IOException ignored) {
+	    // The log is reopened on a new line, so whatever was lost cannot damage the next score
+	}
+    }
+
+    private void loadSnapshot() {
+	try {
+	    readJson(this::indexSnapshot);
+	} catch (FileNotFoundException e) {
+	    LogHandler.info(HighscoreStore.class, "No highscore snapshot found, starting from the log");
+	} catch (IOException | JsonSyntaxException e) {
+	    snapshotReadable = false;
+	    LogHandler.log(HighscoreStore.class, Level.WARNING, "Error reading highscores, compaction is turned off", e);
+	}
+    }
+
+    /**
+     * Indexes the logged scores that are newer than those already loaded.
+     *
+     * @return The number of scores indexed
+     */
+    private int replayLog(File file) {
+	if (!file.exists()) {
+	    return 0;
+	}
+
+	int replayed = 0;
+	try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+	    String line;
+	    while ((line = reader.readLine()) != null) {
+		ScoreEntry entry = parseLogLine(line);
+		if (entry != null && entry.sequence() > lastSequence) {
+		    index(entry);
+		    replayed++;
+		}
+	    }
+	} catch (IOException e) {
+	    LogHandler.log(HighscoreStore.class, Level.WARNING, "Error reading highscore log " + file, e);
+	}
+	return replayed;
+    }
+
+    /**
+     * Parses one line of the log. A damaged line, as left behind by a crash while writing, is skipped.
+     */
+    private ScoreEntry parseLogLine(String line) {
+	if (line.isBlank()) {
+	    return null;
+	}
+	try {
+	    JsonReader in = new JsonReader(new StringReader(line));
+	    in.setLenient(true);
+	    return entryAdapter.read(in);
+	} catch (IOException | IllegalStateException | NumberFormatException e) {
+	    LogHandler.logWarning(HighscoreStore.class, "Skipping damaged highscore log line: " + e.getMessage());
+	    return null;
+	}
+    }
+
+    private void index(ScoreEntry entry) {
+	lastSequence = Math.max(lastSequence, entry.sequence());
+	scoreCount++;
+
+	Highscore score = entry.score();
+	topScores.offer(entry);
+	if (score.getMapName() != null) {
+	    topScoresByMap.computeIfAbsent(score.getMapName(), mapName -> new TopScores(TOP_K)).offer(entry);
+	}
+	topScoresByPlayer.computeIfAbsent(score.getName(), name -> new TopScores(PLAYER_TOP_K)).offer(entry);
+	PlayerRecord player = players.get(score.getName());
+	players.put(score.getName(), player != null ? player.with(score)
+						    : new PlayerRecord(score.getName(), score.getScore(), score.getMapName(), 1));
+    }
+
+    /**
+     * Appends the scores added since the last write to the log. Runs on the persistence thread.
+     * <p>
+     * If the write fails the scores are kept and written with the next one. Scores that made it into the log before the failure are then
+     * written twice, and the second copy is skipped on loading because its sequence number has already been seen.
+     */
+    private void writeUnwrittenEntries() throws IOException {
+	List<ScoreEntry> entries;
+	synchronized (this) {
+	    if (unwrittenEntries.isEmpty()) {
+		return;
+	    }
+	    entries = unwrittenEntries;
+	    unwrittenEntries = new ArrayList<>();
+	}
+
+	try {
+	    if (log == null) {
+		log = openLog();
+	    }
+	    // The JSON writer is not closed, that would close the log. Lenient, because every line is a top-level value of its own
+	    JsonWriter out = new JsonWriter(log);
+	    out.setLenient(true);
+	    for (ScoreEntry entry : entries) {
+		entryAdapter.write(out, entry);
+		log.write('\n');
+	    }
+	    log.flush();
+	} catch (IOException e) {
+	    // Reopening starts a new line, so a partly written score cannot swallow the next one
+	    closeLogQuietly();
+	    synchronized (this) {
+		entries.addAll(unwrittenEntries);
+		unwrittenEntries = entries;
+		retryLater();
+	    }
+	    throw e;
+	}
+	synchronized (this) {
+	    retrySeconds = FIRST_RETRY_SECONDS;
+	}
+    }
+
+    /**
+     * Submits the append again after a delay that doubles with every failure, so the scores are written once the disk is back even if no
+     * other score is added. Only one retry is waiting at a time.
+     */
+    private synchronized void retryLater() {
+	if (retryScheduled) {
+	    return;
+	}
+	retryScheduled = true;
+	long delay = retrySeconds;
+	retrySeconds = Math.min(retrySeconds * 2, MAX_RETRY_SECONDS);
+	Executor delayed = CompletableFuture.delayedExecutor(delay, TimeUnit.SECONDS);
+	delayed.execute(() -> {
+	    synchronized (this) {
+		retryScheduled = false;
+	    }
+	    PersistenceExecutor.submit(logFile, appendTask, null);
+	});
+    }
+
+    private Writer openLog() throws IOException {
+	File directory = logFile.getAbsoluteFile().getParentFile();
+	if (!directory.exists() && !directory.mkdirs()) {
+	    throw new IOException("Failed to create directory: " + directory);
+	}
+
+	boolean torn = logFile.length() > 0 && !endsWithNewline(logFile);
+	Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(logFile, true), StandardCharsets.UTF_8));
+	if (torn) {
+	    writer.write('\n');
+	}
+	return writer;
+    }
+
+    private static boolean endsWithNewline(File file) throws IOException {
+	try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+	    in.seek(in.length() - 1);
+	    return in.read() == '\n';
+	}
+    }
+
+    private synchronized void compactLater() {
+	if (snapshotReadable) {
+	    PersistenceExecutor.submit(snapshotFile, compactTask, null);
+	}
+    }
+
+    /**
+     * Folds the log into the snapshot. Runs on the persistence thread, so no score is appended while the log is switched.
+     * <p>
+     * The old log is renamed instead of copied and only deleted once the new snapshot is in place. Scores can be added to the indexes while
+     * the snapshot is written, they are appended to the new log afterwards. If a compaction was interrupted, its log is finished first and
+     * the current log is left for the next compaction.
+     */
+    private void compact() throws IOException {
+	if (!compactingFile.exists() && logFile.exists()) {
+	    closeLog();
+	    Files.move(logFile.toPath(), compactingFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+	}
+	synchronized (this) {
+	    loggedSinceCompaction = unwrittenEntries.size();
+	}
+
+	if (compactingFile.exists()) {
+	    long start = System.nanoTime();
+	    saveToJson(compactingFile, this::writeSnapshot);
+	    Files.delete(compactingFile.toPath());
+	    LogHandler.info(HighscoreStore.class,
+			    "Compacted highscore log in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+	}
+    }
+
+    /**
+     * Gives scores from an older snapshot, which have no sequence number, the number following the previous score.
+     */
+    private static long sequenceOf(ScoreEntry entry, long previous) {
+	return entry.sequence() != 0 ? entry.sequence() : previous + 1;
+    }
+
+    /**
+     * Recognises a second copy of a score in a snapshot compacted from a log in which a retried write had left the score twice.
+     */
+    private static boolean isRepeated(ScoreEntry entry, long previous) {
+	return entry.sequence() != 0 && entry.sequence() <= previous;
+    }
+
+    /**
+     * Indexes the scores of the snapshot while it is streamed, without building a list of them.
+     *
+     * @return The number of scores indexed
+     */
+    private int indexSnapshot(JsonReader in) throws IOException {
+	if (in.peek() == JsonToken.NULL) {
+	    in.nextNull();
+	    return 0;
+	}
+	int indexed = 0;
+	in.beginArray();
+	while (in.hasNext()) {
+	    ScoreEntry entry = entryAdapter.read(in);
+	    if (entry != null && !isRepeated(entry, lastSequence)) {
+		index(new ScoreEntry(sequenceOf(entry, lastSequence), entry.score()));
+		indexed++;
+	    }
+	}
+	in.endArray();
+	return indexed;
+    }
+
+    /**
+     * Writes a new snapshot by streaming the scores of the current snapshot followed by the newer scores of the given log. A score logged
+     * twice, by a write that was retried, is written once.
+     */
+    private void writeSnapshot(JsonWriter out, File compactedLog) throws IOException {
+	out.beginArray();
+	long lastWritten = copySnapshot(out);
+	try (BufferedReader reader = new BufferedReader(new FileReader(compactedLog, StandardCharsets.UTF_8))) {
+	    String line;
+	    while ((line = reader.readLine()) != null) {
+		ScoreEntry entry = parseLogLine(line);
+		if (entry != null && entry.sequence() > lastWritten) {
+		    entryAdapter.write(out, entry);
+		    lastWritten = entry.sequence();
+		}
+	    }
+	}
+	out.endArray();
+    }
+
+    /**
+     * Copies the current snapshot.
+     *
+     * @return The sequence number of the last score copied
+     */
+    private long copySnapshot(JsonWriter out) throws IOException {
+	long sequence = 0;
+	try (JsonReader in = new JsonReader(getJsonReader())) {
+	    in.setLenient(true);
+	    if (in.peek() == JsonToken.NULL) {
+		return sequence;
+	    }
+	    in.beginArray();
+	    while (in.hasNext()) {
+		ScoreEntry entry = entryAdapter.read(in);
+		if (entry != null && !isRepeated(entry, sequence)) {
+		    sequence = sequenceOf(entry, sequence);
+		    entryAdapter.write(out, new ScoreEntry(sequence, entry.score()));
+		}
+	    }
+	    in.endArray();
+	} catch (FileNotFoundException e) {
+	    // The first compaction, there are only logged scores
+	} catch (MalformedJsonException | IllegalStateException | NumberFormatException e) {
+	    throw new JsonSyntaxException(e);
+	}
+	return sequence;
+    }
+}
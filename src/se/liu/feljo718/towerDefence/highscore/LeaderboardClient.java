@@ -0,0 +1,99 @@
+package se.liu.feljo718.towerdefence.highscore;
+
+import com.google.gson.stream.JsonWriter;
+import se.liu.feljo718.towerdefence.handler.LogHandler;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends the scores of this workstation to the shared leaderboard of a {@link LeaderboardServer}.
+ * <p>
+ * Scores are sent in the background and the caller is handed a future, so a slow or unreachable server never holds up the game. The score
+ * is always kept in the local {@link HighscoreStore} as well, so nothing is lost when the server cannot be reached. The workstation that
+ * serves the leaderboard adds its scores to it already and should not send them as well.
+ * <p>
+ * The game sends its scores to the server given by the system property {@value #URL_PROPERTY}, for example {@code http://host:8080}, see
+ * {@link #getShared()}.
+ *
+ * @author feljo718
+ * @see LeaderboardServer
+ */
+public final class LeaderboardClient
+{
+    /** The system property with the address of the leaderboard server to send scores to. */
+    public static final String URL_PROPERTY = "towerdefence.leaderboard.url";
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    private static final int CREATED = 201;
+    private static LeaderboardClient shared = null;
+    private static boolean sharedCreated = false;
+
+    private final URI scoresUri;
+    private final HttpClient client;
+
+    /**
+     * Creates a client for the server at the given address.
+     *
+     * @param server The address of the server, such as {@code http://host:8080}
+     */
+    public LeaderboardClient(URI server) {
+	this.scoresUri = server.resolve("/scores");
+	this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(TIMEOUT).build();
+    }
+
+    /**
+     * Returns the client for the server given by {@value #URL_PROPERTY}, created on first use.
+     *
+     * @return The client, or null if no server is given or the address is not valid, which is logged
+     */
+    public static synchronized LeaderboardClient getShared() {
+	if (!sharedCreated) {
+	    sharedCreated = true;
+	    String url = System.getProperty(URL_PROPERTY);
+	    if (url != null && !url.isBlank()) {
+		try {
+		    shared = new LeaderboardClient(URI.create(url.trim()));
+		} catch (IllegalArgumentException e) {
+		    LogHandler.logWarning(LeaderboardClient.class, "Not a leaderboard address: " + url);
+		}
+	    }
+	}
+	return shared;
+    }
+
+    /**
+     * Sends a score to the leaderboard.
+     *
+     * @param score The score to add
+     *
+     * @return A future completed once the server has added the score, or failed if it could not be reached or did not add it
+     */
+    public CompletableFuture<Void> submit(Highscore score) {
+	StringWriter body = new StringWriter();
+	try {
+	    new HighscoreAdapter().write(new JsonWriter(body), score);
+	} catch (IOException e) {
+	    // A StringWriter does not fail
+	    throw new UncheckedIOException(e);
+	}
+	HttpRequest request = HttpRequest.newBuilder(scoresUri)
+					 .timeout(TIMEOUT)
+					 .header("Content-Type", "application/json; charset=utf-8")
+					 .POST(HttpRequest.BodyPublishers.ofString(body.toString(), StandardCharsets.UTF_8))
+					 .build();
+	return client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenAccept(response -> {
+	    if (response.statusCode() != CREATED) {
+		String answer = "The leaderboard answered " + response.statusCode() + ": " + response.body();
+		throw new UncheckedIOException(new IOException(answer));
+	    }
+	});
+    }
+}
@@ -0,0 +1,359 @@
+package se.liu.feljo718.towerdefence.highscore;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import se.liu.feljo718.towerdefence.handler.LogHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serial;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves the leaderboard of a {@link HighscoreStore} over HTTP, so that the workstations of a shop can share one leaderboard without any
+ * other software.
+ * <p>
+ * The server understands these requests, all answered with JSON:
+ * <ul>
+ *   <li>{@code POST /scores} with a highscore object such as {@code {"name":"Ada","score":12,"map":"Default Map"}} adds the score and
+ *   answers {@code 201 Created} with the score</li>
+ *   <li>{@code GET /scores?count=N} answers the best N scores overall, {@code &map=M} the best on map M and {@code &player=P} the best of
+ *   player P, highest first</li>
+ *   <li>{@code GET /players/P} answers the {@link PlayerRecord} of player P, or {@code 404 Not Found}</li>
+ * </ul>
+ * A request the server cannot answer gets a 4xx status and an object with an {@code error} message.
+ * <p>
+ * Every request is handled on a virtual thread of its own. Queries are answered from the store's indexes in memory, and added scores are
+ * part of them at once; writing them to disk is left to the store, which appends the scores added while a write is waiting in one go.
+ * <p>
+ * The server runs on daemon threads, so a game that serves its leaderboard still exits when its windows are closed. Setting the system
+ * property {@value #PORT_PROPERTY} to a port number makes the game serve the shared store on that port, and {@link #main(String[])} runs a
+ * server on its own.
+ *
+ * @author feljo718
+ * @see LeaderboardClient
+ * @see HighscoreStore
+ */
+public final class LeaderboardServer implements AutoCloseable
+{
+    /** The system property with the port to serve the leaderboard on. */
+    public static final String PORT_PROPERTY = "towerdefence.leaderboard.port";
+    private static final int DEFAULT_COUNT = 10;
+    private static final int MAX_NAME_LENGTH = 64;
+    private static final int MAX_BODY_BYTES = 4096;
+    /** Room for the connections of a burst of clients while the dispatcher thread accepts them. */
+    private static final int BACKLOG = 1024;
+    private static final String JSON_TYPE = "application/json; charset=utf-8";
+    /**
+     * The JDK's server leaves Nagle's algorithm on by default. It then holds the body of a response back until the client acknowledges the
+     * headers, which clients delay, so a connection answers a few dozen requests a second at most.
+     */
+    private static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final HighscoreStore store;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong requestCount = new AtomicLong();
+
+    private LeaderboardServer(HighscoreStore store, HttpServer server) {
+	this.store = store;
+	this.server = server;
+	server.createContext("/scores", this::handleScores);
+	server.createContext("/players/", this::handlePlayer);
+	server.setExecutor(executor);
+    }
+
+    /**
+     * Starts serving a store on a port of every network interface.
+     *
+     * @param store The store to serve and to add submitted scores to
+     * @param port  The port to listen on, or 0 for any free port
+     *
+     * @return The running server
+     * @throws IOException If the port cannot be listened on
+     */
+    public static LeaderboardServer start(HighscoreStore store, int port) throws IOException {
+	if (System.getProperty(NO_DELAY_PROPERTY) == null) {
+	    // Read when the first server is created
+	    System.setProperty(NO_DELAY_PROPERTY, "true");
+	}
+	LeaderboardServer leaderboard = new LeaderboardServer(store, HttpServer.create(new InetSocketAddress(port), BACKLOG));
+	// The dispatcher thread takes over whether the thread starting it is a daemon
+	Thread starter = new Thread(leaderboard.server::start, "leaderboard-start");
+	starter.setDaemon(true);
+	starter.start();
+	try {
+	    starter.join();
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	}
+	LogHandler.info(LeaderboardServer.class, "Serving the leaderboard on port {0,number,#}", leaderboard.getPort());
+	return leaderboard;
+    }
+
+    /**
+     * Starts serving the shared store if the system property {@value #PORT_PROPERTY} is set.
+     *
+     * @return The running server, or null if it is not enabled or cannot be started, which is logged
+     */
+    public static LeaderboardServer startIfEnabled() {
+	String port = System.getProperty(PORT_PROPERTY);
+	if (port == null) {
+	    return null;
+	}
+	try {
+	    return start(HighscoreStore.getShared(), Integer.parseInt(port.trim()));
+	} catch (NumberFormatException e) {
+	    LogHandler.logWarning(LeaderboardServer.class, "Not a port number: " + port);
+	} catch (IOException e) {
+	    LogHandler.logWarning(LeaderboardServer.class, "The leaderboard cannot be served on port " + port + ": " + e.getMessage());
+	}
+	return null;
+    }
+
+    private void handleScores(HttpExchange exchange) throws IOException {
+	try (exchange) {
+	    requestCount.incrementAndGet();
+	    try {
+		if (!exchange.getRequestURI().getPath().equals("/scores")) {
+		    sendError(exchange, 404, "No such resource");
+		} else if (exchange.getRequestMethod().equals("GET")) {
+		    getScores(exchange);
+		} else if (exchange.getRequestMethod().equals("POST")) {
+		    postScore(exchange);
+		} else {
+		    exchange.getResponseHeaders().set("Allow", "GET, POST");
+		    sendError(exchange, 405, "Use GET or POST");
+		}
+	    } catch (BadRequestException e) {
+		sendError(exchange, 400, e.getMessage());
+	    }
+	}
+    }
+
+    private void getScores(HttpExchange exchange) throws IOException, BadRequestException {
+	Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+	int count = parseCount(query.get("count"));
+	String mapName = query.get("map");
+	String player = query.get("player");
+	List<Highscore> scores;
+	if (mapName != null && player != null) {
+	    throw new BadRequestException("Ask for the scores of a map or of a player, not both");
+	} else if (mapName != null) {
+	    scores = store.getTopScores(mapName, count);
+	} else if (player != null) {
+	    scores = store.getPlayerTopScores(player, count);
+	} else {
+	    scores = store.getTopScores(count);
+	}
+
+	StringWriter body = new StringWriter();
+	JsonWriter out = new JsonWriter(body);
+	HighscoreAdapter adapter = new HighscoreAdapter();
+	out.beginArray();
+	for (Highscore score : scores) {
+	    adapter.write(out, score);
+	}
+	out.endArray();
+	send(exchange, 200, body.toString());
+    }
+
+    private void postScore(HttpExchange exchange) throws IOException, BadRequestException {
+	byte[] bytes;
+	try (InputStream in = exchange.getRequestBody()) {
+	    bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+	}
+	if (bytes.length > MAX_BODY_BYTES) {
+	    throw new BadRequestException("A score takes at most " + MAX_BODY_BYTES + " bytes");
+	}
+	Highscore score;
+	try {
+	    JsonReader reader = new JsonReader(new StringReader(new String(bytes, StandardCharsets.UTF_8)));
+	    score = new HighscoreAdapter().read(reader);
+	    if (reader.peek() != JsonToken.END_DOCUMENT) {
+		throw new BadRequestException("Not a highscore: more follows the score");
+	    }
+	} catch (IOException | IllegalStateException | NumberFormatException e) {
+	    // Reading from memory only fails on what was sent
+	    throw new BadRequestException("Not a highscore: " + e.getMessage());
+	}
+	if (score == null || score.getName() == null || score.getName().isBlank()) {
+	    throw new BadRequestException("A score needs a player name");
+	}
+	if (score.getName().length() > MAX_NAME_LENGTH) {
+	    throw new BadRequestException("A player name has at most " + MAX_NAME_LENGTH + " characters");
+	}
+	if (score.getScore() < 0) {
+	    throw new BadRequestException("A score cannot be negative");
+	}
+
+	store.add(score);
+	StringWriter body = new StringWriter();
+	new HighscoreAdapter().write(new JsonWriter(body), score);
+	send(exchange, 201, body.toString());
+    }
+
+    private void handlePlayer(HttpExchange exchange) throws IOException {
+	try (exchange) {
+	    requestCount.incrementAndGet();
+	    if (!exchange.getRequestMethod().equals("GET")) {
+		exchange.getResponseHeaders().set("Allow", "GET");
+		sendError(exchange, 405, "Use GET");
+		return;
+	    }
+	    String name = exchange.getRequestURI().getPath().substring("/players/".length());
+	    PlayerRecord player = store.getPlayer(name);
+	    if (player == null) {
+		sendError(exchange, 404, "No scores saved by " + name);
+		return;
+	    }
+
+	    StringWriter body = new StringWriter();
+	    JsonWriter out = new JsonWriter(body);
+	    out.beginObject();
+	    out.name("name").value(player.name());
+	    out.name("bestScore").value(player.bestScore());
+	    if (player.bestMap() != null) {
+		out.name("bestMap").value(player.bestMap());
+	    }
+	    out.name("games").value(player.games());
+	    out.endObject();
+	    send(exchange, 200, body.toString());
+	}
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws BadRequestException {
+	Map<String, String> query = new HashMap<>();
+	if (rawQuery == null || rawQuery.isEmpty()) {
+	    return query;
+	}
+	try {
+	    for (String pair : rawQuery.split("&")) {
+		int equals = pair.indexOf('=');
+		String key = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+		String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+		query.put(key, value);
+	    }
+	} catch (IllegalArgumentException e) {
+	    throw new BadRequestException("Malformed query: " + e.getMessage());
+	}
+	return query;
+    }
+
+    private static int parseCount(String value) throws BadRequestException {
+	if (value == null) {
+	    return DEFAULT_COUNT;
+	}
+	try {
+	    int count = Integer.parseInt(value);
+	    if (count >= 1 && count <= HighscoreStore.TOP_K) {
+		return count;
+	    }
+	} catch (NumberFormatException ignored) {
+	    // Answered below, like a number out of range
+	}
+	throw new BadRequestException("The count must be a number from 1 to " + HighscoreStore.TOP_K);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+	StringWriter body = new StringWriter();
+	new JsonWriter(body).beginObject().name("error").value(message).endObject();
+	send(exchange, status, body.toString());
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+	byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+	exchange.getResponseHeaders().set("Content-Type", JSON_TYPE);
+	exchange.sendResponseHeaders(status, bytes.length);
+	try (OutputStream out = exchange.getResponseBody()) {
+	    out.write(bytes);
+	}
+    }
+
+    public int getPort() {
+	return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the number of requests received so far.
+     */
+    public long getRequestCount() {
+	return requestCount.get();
+    }
+
+    /**
+     * Stops serving. Requests that are being answered are finished first.
+     */
+    @Override public void close() {
+	server.stop(0);
+	executor.close();
+	LogHandler.info(LeaderboardServer.class, "Stopped serving the leaderboard after {0,number,#} requests", requestCount.get());
+    }
+
+    /**
+     * Serves the shared leaderboard from command line arguments until the process is stopped. Run with {@code --help} to list the options.
+     *
+     * @param args The command line arguments
+     */
+    public static void main(String[] args) {
+	Options options = new Options();
+	options.addOption(Option.builder("p").longOpt("port").hasArg().desc("port to serve the leaderboard on").build());
+	options.addOption(Option.builder("h").longOpt("help").desc("show this help").build());
+
+	try {
+	    CommandLine line = new DefaultParser().parse(options, args);
+	    if (line.hasOption("help")) {
+		new HelpFormatter().printHelp("LeaderboardServer", options);
+		return;
+	    }
+	    if (!line.hasOption("port")) {
+		throw new ParseException("Missing the port to serve on");
+	    }
+	    LeaderboardServer server = start(HighscoreStore.getShared(), Integer.parseInt(line.getOptionValue("port")));
+	    Runtime.getRuntime().addShutdownHook(new Thread(server::close, "leaderboard-shutdown"));
+	    // The server runs on daemon threads, so the main thread keeps the process alive
+	    Thread.currentThread().join();
+	} catch (ParseException | IllegalArgumentException e) {
+	    System.err.println(e.getMessage());
+	    new HelpFormatter().printHelp("LeaderboardServer", options);
+	    System.exit(1);
+	} catch (IOException e) {
+	    LogHandler.severe(LeaderboardServer.class, "Could not serve the leaderboard: " + e.getMessage(), e);
+	    System.exit(1);
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	}
+    }
+
+    /**
+     * A request that cannot be answered, with a message saying why.
+     */
+    private static class BadRequestException extends Exception
+    {
+	@Serial private static final long serialVersionUID = 1L;
+
+	private BadRequestException(String message) {
+	    super(message);
+	}
+    }
+}
@@ -0,0 +1,22 @@
+package se.liu.feljo718.towerdefence.highscore;
+
+/**
+ * Summary of all scores saved under one player name.
+ *
+ * @param name      The player's name
+ * @param bestScore The player's best score
+ * @param bestMap   The map the best score was reached on, or null if unknown
+ * @param games     The number of scores saved by the player
+ *
+ * @author feljo718
+ * @see HighscoreStore#getPlayer(String)
+ */
+public record PlayerRecord(String name, int bestScore, String bestMap, int games)
+{
+    PlayerRecord with(Highscore score) {
+	if (score.getScore() > bestScore) {
+	    return new PlayerRecord(name, score.getScore(), score.getMapName(), games + 1);
+	}
+	return new PlayerRecord(name, bestScore, bestMap, games + 1);
+    }
+}
@@ -0,0 +1,17 @@
+package se.liu.feljo718.towerdefence.highscore;
+
+/**
+ * A highscore together with its position in the score log.
+ * <p>
+ * Sequence numbers are handed out in the order scores are added and are never reused. They order scores with the same value, the earlier
+ * score ranking higher, and tell which logged scores are already part of the snapshot.
+ *
+ * @param sequence The position of the score in the log, starting at one
+ * @param score    The highscore
+ *
+ * @author feljo718
+ * @see HighscoreStore
+ */
+record ScoreEntry(long sequence, Highscore score)
+{
+}
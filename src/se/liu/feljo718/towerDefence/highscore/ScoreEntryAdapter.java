@@ -0,0 +1,57 @@
+package se.liu.feljo718.towerdefence.highscore;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes a {@link ScoreEntry} as a highscore object with an additional {@code seq} property.
+ * <p>
+ * The object has the same properties as the ones written by {@link HighscoreAdapter}, so a compacted snapshot can still be read as a
+ * plain list of highscores. Scores written before sequence numbers existed are read with sequence number 0, and the store numbers them in
+ * file order.
+ *
+ * @author feljo718
+ * @see HighscoreStore
+ */
+class ScoreEntryAdapter extends TypeAdapter<ScoreEntry>
+{
+    @Override public ScoreEntry read(JsonReader in) throws IOException {
+	if (in.peek() == JsonToken.NULL) {
+	    in.nextNull();
+	    return null;
+	}
+
+	String name = null;
+	int score = 0;
+	String mapName = null;
+	long sequence = 0;
+	in.beginObject();
+	while (in.hasNext()) {
+	    switch (in.nextName()) {
+		case "name" -> name = in.peek() == JsonToken.NULL ? HighscoreAdapter.nextNull(in) : in.nextString();
+		case "score" -> score = in.nextInt();
+		case "map" -> mapName = in.peek() == JsonToken.NULL ? HighscoreAdapter.nextNull(in) : in.nextString();
+		case "seq" -> sequence = in.nextLong();
+		default -> in.skipValue();
+	    }
+	}
+	in.endObject();
+	return new ScoreEntry(sequence, new Highscore(name, score, mapName));
+    }
+
+    @Override public void write(JsonWriter out, ScoreEntry entry) throws IOException {
+	Highscore highscore = entry.score();
+	out.beginObject();
+	out.name("name").value(highscore.getName());
+	out.name("score").value(highscore.getScore());
+	if (highscore.getMapName() != null) {
+	    out.name("map").value(highscore.getMapName());
+	}
+	out.name("seq").value(entry.sequence());
+	out.endObject();
+    }
+}
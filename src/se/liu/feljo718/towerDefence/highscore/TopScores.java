@@ -0,0 +1,58 @@
+package se.liu.feljo718.towerdefence.highscore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The best scores seen so far, kept in ranking order in an array of fixed capacity.
+ * <p>
+ * A score below the lowest kept score is rejected with a single comparison once the array is full, which is the common case for a
+ * leaderboard with many entries. Otherwise its place is found by binary search and the lower scores are shifted down one step. Asking for
+ * the best scores copies them out in order, so it costs O(K) however many scores have been offered.
+ * <p>
+ * Scores must be offered in sequence order, so that a score ranks below earlier scores with the same value.
+ *
+ * @author feljo718
+ * @see HighscoreStore
+ */
+class TopScores
+{
+    private final ScoreEntry[] entries;
+    private int size = 0;
+
+    TopScores(int capacity) {
+	entries = new ScoreEntry[capacity];
+    }
+
+    void offer(ScoreEntry entry) {
+	int score = entry.score().getScore();
+	if (size == entries.length && score <= entries[size - 1].score().getScore()) {
+	    return;
+	}
+
+	int low = 0;
+	int high = size;
+	while (low < high) {
+	    int middle = (low + high) >>> 1;
+	    if (entries[middle].score().getScore() >= score) {
+		low = middle + 1;
+	    } else {
+		high = middle;
+	    }
+	}
+
+	int kept = Math.min(size, entries.length - 1);
+	System.arraycopy(entries, low, entries, low + 1, kept - low);
+	entries[low] = entry;
+	size = kept + 1;
+    }
+
+    List<Highscore> best(int count) {
+	int shown = Math.min(count, size);
+	List<Highscore> best = new ArrayList<>(shown);
+	for (int i = 0; i < shown; i++) {
+	    best.add(entries[i].score());
+	}
+	return best;
+    }
+}
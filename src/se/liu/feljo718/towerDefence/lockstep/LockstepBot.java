@@ -0,0 +1,204 @@
+package se.liu.feljo718.towerdefence.lockstep;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.board.BoardListener;
+import se.liu.feljo718.towerdefence.command.ApplyPowerupCommand;
+import se.liu.feljo718.towerdefence.command.Command;
+import se.liu.feljo718.towerdefence.command.PlaceTowerCommand;
+import se.liu.feljo718.towerdefence.command.RemoveTowerCommand;
+import se.liu.feljo718.towerdefence.command.StartRoundCommand;
+import se.liu.feljo718.towerdefence.command.UpgradeTowerCommand;
+import se.liu.feljo718.towerdefence.handler.LogHandler;
+import se.liu.feljo718.towerdefence.handler.SoundManager;
+import se.liu.feljo718.towerdefence.powerup.PowerupType;
+import se.liu.feljo718.towerdefence.tower.Tower;
+import se.liu.feljo718.towerdefence.tower.TowerType;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Plays one side of a shared game without a window, for checking {@link LockstepSession} with two processes on one machine.
+ * <p>
+ * One process hosts and the other joins. Both run the game loop at 60 frames a second and submit random commands made from a seed, and
+ * both stop submitting a second before the end so that the last commands are run on both sides. When both have run the given number of
+ * ticks, each prints the checksum of its board at that tick, which is the same on both sides unless the boards have drifted apart, along
+ * with what the session measured. A difference can be provoked by giving one side coins the other does not get, to see that it is found.
+ * <p>
+ * The bot is started from the command line, see {@link #main(String[])}.
+ *
+ * @author feljo718
+ * @see LockstepSession
+ */
+public final class LockstepBot
+{
+    private static final long FRAME_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+    private static final int DEFAULT_TICKS = 1800;
+    private static final int QUIET_TICKS = 60;
+    private static final long WARM_UP_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /** On average one command every this many frames. */
+    private static final int COMMAND_INTERVAL = 20;
+    private static final long POWERUP_MILLIS = 5000;
+    private static final int PLACEMENT_ATTEMPTS = 50;
+    private static final TowerType[] TOWER_TYPES = TowerType.values();
+    private static final PowerupType[] POWERUP_TYPES = PowerupType.values();
+    /** Held so that the quieter log level set by {@link #main(String[])} is not lost when the logger is garbage collected. */
+    private static final Logger GAME_LOGGER = Logger.getLogger("se.liu.feljo718.towerdefence");
+
+    private final LockstepSession session;
+    private final Board board;
+    private final Random random;
+    private final long ticks;
+    private long desyncAt;
+    private int commandsSubmitted = 0;
+    private int finalChecksum = 0;
+
+    private LockstepBot(LockstepSession session, long seed, long ticks, long desyncAt) {
+	this.session = session;
+	this.board = session.getBoard();
+	this.random = new Random(seed * 2 + session.getPlayer());
+	this.ticks = ticks;
+	this.desyncAt = desyncAt;
+    }
+
+    private void play() {
+	board.addBoardListener(new BoardListener()
+	{
+	    @Override public void boardChanged() {
+		if (board.getTickCount() == ticks) {
+		    finalChecksum = StateChecksum.compute(board);
+		}
+	    }
+
+	    @Override public void gameOver() {
+	    }
+
+	    @Override public void gameCompleted() {
+	    }
+	});
+
+	long start = System.nanoTime();
+	long nextFrame = start;
+	long warmUpStalls = -1;
+	while (board.getTickCount() < ticks) {
+	    if (warmUpStalls < 0 && System.nanoTime() - start >= WARM_UP_NANOS) {
+		// The first ticks load and compile the game's classes, which holds up either side for a moment
+		warmUpStalls = session.getStalledFrames();
+	    }
+	    if (board.getTickCount() < ticks - QUIET_TICKS && random.nextInt(COMMAND_INTERVAL) == 0) {
+		board.submit(randomCommand());
+		commandsSubmitted++;
+	    }
+	    session.advance();
+	    if (board.getTickCount() >= desyncAt && desyncAt >= 0) {
+		board.gainCoins(1);
+		LogHandler.info(LockstepBot.class, "Gave this side one coin at tick {0,number,#}", board.getTickCount());
+		desyncAt = -1;
+	    }
+	    nextFrame += FRAME_NANOS;
+	    LockSupport.parkNanos(nextFrame - System.nanoTime());
+	}
+	double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+
+	System.out.printf(Locale.ROOT, "player      %s%n", session.getPlayer() == LockstepSession.HOST ? "host" : "guest");
+	System.out.printf(Locale.ROOT, "checksum    %08x at tick %d%n", finalChecksum, ticks);
+	System.out.printf(Locale.ROOT, "desynced    %s%n", session.isDesynced());
+	System.out.printf(Locale.ROOT, "commands    %d submitted, %d towers, round %d%n", commandsSubmitted,
+			  board.getTowerFactory().getTowers().size(), board.getRound());
+	System.out.printf(Locale.ROOT, "sent        %d bytes, %.1f bytes/s%n", session.getBytesSent(), session.getBytesSent() / seconds);
+	System.out.printf(Locale.ROOT, "delay       %d ticks, round trip %.3f ms%n", session.getInputDelay(),
+			  session.getRoundTripMillis());
+	System.out.printf(Locale.ROOT, "stalled     %d of %d frames, %d of them in the first second%n", session.getStalledFrames(),
+			  Math.round(seconds * 60), warmUpStalls);
+	session.close();
+    }
+
+    /**
+     * Returns a command a player might give now: to start the next round if the board is empty, and otherwise mostly to build on a free
+     * tile or to upgrade, sell or power up a tower. The command may still be rejected, for example for lack of coins.
+     */
+    private Command<?> randomCommand() {
+	List<Tower> towers = board.getTowerFactory().getTowers();
+	int choice = random.nextInt(10);
+	if (board.isRoundCleared() || choice == 9) {
+	    return new StartRoundCommand();
+	}
+	if (choice < 5 || towers.isEmpty()) {
+	    int row = 1;
+	    int col = 0;
+	    for (int attempt = 0; attempt < PLACEMENT_ATTEMPTS && !board.getTileGrid().isBuildable(row, col); attempt++) {
+		row = 1 + random.nextInt(board.getHeight() - 1);
+		col = random.nextInt(board.getWidth());
+	    }
+	    return new PlaceTowerCommand(TOWER_TYPES[random.nextInt(TOWER_TYPES.length)], row, col);
+	}
+	int towerId = towers.get(random.nextInt(towers.size())).getId();
+	return switch (choice) {
+	    case 5, 6 -> new UpgradeTowerCommand(towerId);
+	    case 7 -> new RemoveTowerCommand(towerId);
+	    default -> new ApplyPowerupCommand(towerId, POWERUP_TYPES[random.nextInt(POWERUP_TYPES.length)], POWERUP_MILLIS);
+	};
+    }
+
+    /**
+     * Plays one side of a shared game from command line arguments. Run with {@code --help} to list the options.
+     *
+     * @param args The command line arguments
+     */
+    public static void main(String[] args) {
+	Options options = new Options();
+	options.addOption(Option.builder().longOpt("host").hasArg().argName("port").desc("host a game on the port").build());
+	options.addOption(Option.builder().longOpt("join").hasArg().argName("host:port").desc("join the game hosted there").build());
+	options.addOption(Option.builder("t").longOpt("ticks").hasArg().desc("ticks to play (default " + DEFAULT_TICKS + ")").build());
+	options.addOption(Option.builder("s").longOpt("seed").hasArg().desc("seed of the random commands (default 1)").build());
+	options.addOption(Option.builder().longOpt("desync-at").hasArg().argName("tick").desc("give this side a coin at the tick").build());
+	options.addOption(Option.builder("h").longOpt("help").desc("show this help").build());
+
+	try {
+	    CommandLine line = new DefaultParser().parse(options, args);
+	    if (line.hasOption("help")) {
+		new HelpFormatter().printHelp("LockstepBot", options);
+		return;
+	    }
+	    if (line.hasOption("host") == line.hasOption("join")) {
+		throw new ParseException("Give either --host or --join");
+	    }
+	    long ticks = Long.parseLong(line.getOptionValue("ticks", String.valueOf(DEFAULT_TICKS)));
+	    long seed = Long.parseLong(line.getOptionValue("seed", "1"));
+	    long desyncAt = Long.parseLong(line.getOptionValue("desync-at", "-1"));
+
+	    GAME_LOGGER.setLevel(Level.WARNING);
+	    LogHandler.getLogger(LockstepSession.class).setLevel(Level.INFO);
+	    LogHandler.getLogger(LockstepBot.class).setLevel(Level.INFO);
+	    SoundManager.setEnabled(false);
+
+	    LockstepSession session;
+	    if (line.hasOption("host")) {
+		int port = Integer.parseInt(line.getOptionValue("host"));
+		session = LockstepSession.host(new Board(Board.DEFAULT_WIDTH, Board.DEFAULT_HEIGHT), port);
+	    } else {
+		session = LockstepSession.join(line.getOptionValue("join"));
+	    }
+	    new LockstepBot(session, seed, ticks, desyncAt).play();
+	} catch (ParseException | IllegalArgumentException e) {
+	    System.err.println(e.getMessage());
+	    new HelpFormatter().printHelp("LockstepBot", options);
+	    System.exit(1);
+	} catch (IOException e) {
+	    LogHandler.severe(LockstepBot.class, "Could not play the shared game: " + e.getMessage(), e);
+	    System.exit(1);
+	}
+    }
+}
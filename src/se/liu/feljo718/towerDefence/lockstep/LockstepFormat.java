@@ -0,0 +1,186 @@
+package se.liu.feljo718.towerdefence.lockstep;
+
+import se.liu.feljo718.towerdefence.command.ApplyPowerupCommand;
+import se.liu.feljo718.towerdefence.command.Command;
+import se.liu.feljo718.towerdefence.command.PlaceTowerCommand;
+import se.liu.feljo718.towerdefence.command.RemoveTowerCommand;
+import se.liu.feljo718.towerdefence.command.StartRoundCommand;
+import se.liu.feljo718.towerdefence.command.UpgradeTowerCommand;
+import se.liu.feljo718.towerdefence.powerup.PowerupType;
+import se.liu.feljo718.towerdefence.tower.TowerType;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Layout of the messages two {@link LockstepSession}s exchange.
+ * <p>
+ * A connection starts with the host's hello and the guest's ready, after which both sides send the same messages. Each message is a type
+ * byte followed by its fields. Numbers are unsigned LEB128 varints, seven bits to a byte, except for checksums, which are written as four
+ * bytes.
+ * <pre>
+ * Hello, host to guest                     Ready, guest to host
+ *  byte   type 1                            byte   type 2
+ *  varint protocol version                  varint protocol version
+ *  varint map width, height in tiles        int    checksum of the guest's new board
+ *  string map file, level file, map name
+ *  byte   1 if maze mode
+ *  int    checksum of the host's new board
+ *
+ * Idle                                     Input
+ *  byte   type 3                            byte   type 4
+ *  varint number of ticks without input     varint number of commands
+ *                                           commands, each a tag byte and its fields
+ * Checksum                                 Ping
+ *  byte   type 5                            byte   type 6
+ *  varint last tick of the window           varint sender's clock in nanoseconds
+ *  int    digest of the window's checksums  varint frames stalled since the last ping
+ *
+ *                                          Pong
+ *                                           byte   type 7
+ *                                           varint clock stamp of the ping
+ * </pre>
+ * Idle and input messages do not name their tick. Each covers the sender's next tick or ticks, so the ticks of one side follow each
+ * other without gaps and the receiver counts them. A string is a varint byte count followed by the UTF-8 bytes.
+ * <p>
+ * A command is written as its tag followed by its fields: a tower type or powerup type as its ordinal, ids, rows and columns as varints.
+ *
+ * @author feljo718
+ * @see LockstepSession
+ */
+final class LockstepFormat
+{
+    static final int VERSION = 2;
+    static final byte HELLO = 1;
+    static final byte READY = 2;
+    static final byte IDLE = 3;
+    static final byte INPUT = 4;
+    static final byte CHECKSUM = 5;
+    static final byte PING = 6;
+    static final byte PONG = 7;
+
+    static final byte PLACE = 1;
+    static final byte UPGRADE = 2;
+    static final byte SELL = 3;
+    static final byte POWERUP = 4;
+    static final byte NEXT_ROUND = 5;
+
+    /** No tick carries more commands than this; more means the stream is not a lockstep stream. */
+    static final int MAX_COMMANDS = 1024;
+    private static final int MAX_STRING_BYTES = 4096;
+    private static final TowerType[] TOWER_TYPES = TowerType.values();
+    private static final PowerupType[] POWERUP_TYPES = PowerupType.values();
+
+    private LockstepFormat() {
+    }
+
+    /**
+     * Returns true if the command can be sent to the other player.
+     */
+    static boolean isShared(Command<?> command) {
+	return command instanceof PlaceTowerCommand || command instanceof UpgradeTowerCommand || command instanceof RemoveTowerCommand ||
+	       command instanceof ApplyPowerupCommand || command instanceof StartRoundCommand;
+    }
+
+    /**
+     * Writes a command.
+     *
+     * @throws IllegalArgumentException If the command is not {@link #isShared shared}
+     */
+    static void writeCommand(DataOutput out, Command<?> command) throws IOException {
+	if (command instanceof PlaceTowerCommand place) {
+	    out.writeByte(PLACE);
+	    out.writeByte(place.type().ordinal());
+	    writeVarLong(out, place.row());
+	    writeVarLong(out, place.col());
+	} else if (command instanceof UpgradeTowerCommand upgrade) {
+	    out.writeByte(UPGRADE);
+	    writeVarLong(out, upgrade.towerId());
+	} else if (command instanceof RemoveTowerCommand sell) {
+	    out.writeByte(SELL);
+	    writeVarLong(out, sell.towerId());
+	} else if (command instanceof ApplyPowerupCommand powerup) {
+	    out.writeByte(POWERUP);
+	    writeVarLong(out, powerup.towerId());
+	    out.writeByte(powerup.type().ordinal());
+	    writeVarLong(out, powerup.duration());
+	} else if (command instanceof StartRoundCommand) {
+	    out.writeByte(NEXT_ROUND);
+	} else {
+	    throw new IllegalArgumentException("Command cannot be shared: " + command);
+	}
+    }
+
+    static Command<?> readCommand(DataInput in) throws IOException {
+	byte tag = in.readByte();
+	switch (tag) {
+	    case PLACE:
+		return new PlaceTowerCommand(readEnum(in, TOWER_TYPES), readVarInt(in), readVarInt(in));
+	    case UPGRADE:
+		return new UpgradeTowerCommand(readVarInt(in));
+	    case SELL:
+		return new RemoveTowerCommand(readVarInt(in));
+	    case POWERUP:
+		return new ApplyPowerupCommand(readVarInt(in), readEnum(in, POWERUP_TYPES), readVarLong(in));
+	    case NEXT_ROUND:
+		return new StartRoundCommand();
+	    default:
+		throw new IOException("Unknown command tag " + tag);
+	}
+    }
+
+    private static <E> E readEnum(DataInput in, E[] values) throws IOException {
+	int ordinal = in.readUnsignedByte();
+	if (ordinal >= values.length) {
+	    throw new IOException("Unknown " + values.getClass().getComponentType().getSimpleName() + " " + ordinal);
+	}
+	return values[ordinal];
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+	long rest = value;
+	while ((rest & ~0x7FL) != 0) {
+	    out.writeByte((int) (rest & 0x7F) | 0x80);
+	    rest >>>= 7;
+	}
+	out.writeByte((int) rest);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+	long value = 0;
+	for (int shift = 0; shift < Long.SIZE; shift += 7) {
+	    int b = in.readUnsignedByte();
+	    value |= (long) (b & 0x7F) << shift;
+	    if ((b & 0x80) == 0) {
+		return value;
+	    }
+	}
+	throw new IOException("Varint longer than 64 bits");
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+	long value = readVarLong(in);
+	if (value > Integer.MAX_VALUE) {
+	    throw new IOException("Number out of range: " + value);
+	}
+	return (int) value;
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+	byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+	writeVarLong(out, bytes.length);
+	out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+	int length = readVarInt(in);
+	if (length > MAX_STRING_BYTES) {
+	    throw new IOException("String too long: " + length + " bytes");
+	}
+	byte[] bytes = new byte[length];
+	in.readFully(bytes);
+	return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
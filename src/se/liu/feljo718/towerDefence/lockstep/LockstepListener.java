@@ -0,0 +1,27 @@
+package se.liu.feljo718.towerdefence.lockstep;
+
+/**
+ * Is told when something goes wrong in a {@link LockstepSession}. Both methods are called on the thread that ticks the board.
+ *
+ * @author feljo718
+ * @see LockstepSession#addListener(LockstepListener)
+ */
+public interface LockstepListener
+{
+    /**
+     * The boards of the two players are no longer the same. Only called for the first difference found.
+     *
+     * @param fromTick The first tick the boards may have differed after
+     * @param toTick   The tick the difference was seen on
+     */
+    default void desynced(long fromTick, long toTick) {
+    }
+
+    /**
+     * The connection to the other player is gone, and the game goes on for this player alone.
+     *
+     * @param reason Why the connection ended, fit to show the player
+     */
+    default void peerLeft(String reason) {
+    }
+}
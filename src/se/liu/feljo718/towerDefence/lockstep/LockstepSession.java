@@ -0,0 +1,738 @@
+package se.liu.feljo718.towerdefence.lockstep;
+
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.command.Command;
+import se.liu.feljo718.towerdefence.command.CommandResult;
+import se.liu.feljo718.towerdefence.command.CommandSink;
+import se.liu.feljo718.towerdefence.handler.LogHandler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets two players defend the same board from two processes, each running the full simulation, by exchanging only what the players do.
+ * <p>
+ * The simulation is deterministic, so two boards that start from the same map and get the same commands on the same ticks stay the same.
+ * A session makes sure they do. While a board is shared, the commands submitted to it go to the session instead of to the next tick. Each
+ * frame the session gives them a tick a few ticks ahead, the input delay, and sends them to the other player, so that both players know
+ * all commands for a tick before either runs it. A tick is run once the other player's input for it has arrived; commands of the host are
+ * applied before those of the guest. Input that arrives early is kept until its tick comes, so a faster connection never holds the game
+ * up. A frame in which the other player's input is late runs no tick and is counted as stalled; a session that has fallen behind runs two
+ * ticks in a frame until it has caught up.
+ * <p>
+ * Only commands cross the connection. A tick without any is sent as part of a count of idle ticks, so a game in which nobody does anything
+ * costs a couple of bytes a frame. The input delay follows the measured round trip time: it is the number of ticks a command needs to
+ * reach the other player, with four deviations of margin, plus one, plus a frame for the two game loops not running in step. The round
+ * trip is measured with a ping every {@value #PING_INTERVAL} frames. Each ping also tells the other player how many frames stalled since
+ * the previous one; those stalls mean this side's input came late, so every ping reporting any adds a tick of margin, which is taken back
+ * after {@value #QUIET_PINGS} pings without any. The delay moves by at most one tick per ping, between {@value #MIN_DELAY} and {@value
+ * #MAX_DELAY}. Each side picks its own delay, since the other side only needs to know which tick a command is for.
+ * <p>
+ * The game thread, which on a workstation is the event dispatch thread, never writes to the connection. Messages are collected in memory
+ * and sent by a writer thread of their own, and a session whose other player has stopped taking more than {@value #MAX_BACKLOG_BYTES}
+ * bytes, minutes of play, is treated as left, so a stuck connection cannot freeze the window.
+ * <p>
+ * After every tick a {@link StateChecksum} of the board is taken. The checksums of every {@value #CHECKSUM_INTERVAL} ticks are folded into
+ * a digest which is sent to the other player and compared with its own, and the {@link LockstepListener}s are told if they differ. If the
+ * other player leaves, the game goes on as a game of one.
+ * <p>
+ * The game speed and pausing are not shared, so a shared board is always run at normal speed and cannot be paused.
+ * <p>
+ * A session is set up with {@link #host(Board, int)} by one player and {@link #join(String, int)} by the other. Setting the system
+ * property {@value #HOST_PROPERTY} to a port, or {@value #JOIN_PROPERTY} to a host and port, makes the next game from the main menu a
+ * shared one.
+ *
+ * @author feljo718
+ * @see LockstepFormat
+ * @see LockstepBot
+ */
+public final class LockstepSession implements CommandSink, AutoCloseable
+{
+    /** The system property with the port to host a shared game on. */
+    public static final String HOST_PROPERTY = "towerdefence.coop.host";
+    /** The system property with the host and port of a shared game to join, as {@code host:port}. */
+    public static final String JOIN_PROPERTY = "towerdefence.coop.join";
+    /** The host, whose commands are applied first. */
+    public static final int HOST = 0;
+    /** The player that joined the host. */
+    public static final int GUEST = 1;
+
+    /** The game loop runs at 60 frames a second with one tick per frame. */
+    private static final long TICK_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+    private static final int INITIAL_DELAY = 4;
+    private static final int MIN_DELAY = 3;
+    private static final int MAX_DELAY = 20;
+    /** Ticks added to the delay because the two game loops' frames do not line up, and either can be a frame late. */
+    private static final int FRAME_MARGIN = 1;
+    private static final int MAX_STALL_MARGIN = 8;
+    private static final int QUIET_PINGS = 20;
+    private static final int PING_INTERVAL = 30;
+    private static final int MAX_BACKLOG_BYTES = 64 * 1024;
+    private static final int CHECKSUM_INTERVAL = 30;
+    private static final int MAX_TICKS_PER_FRAME = 2;
+    private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 10000;
+    private static final long SHUTDOWN_MILLIS = 2000;
+    private static final int PRIME = 31;
+
+    private final Board board;
+    private final int player;
+    private final Socket socket;
+    private final DataInputStream in;
+    /** The socket's stream, only written to by the writer thread once the session has started. */
+    private final DataOutputStream socketOut;
+    private final ByteArrayOutputStream outgoing = new ByteArrayOutputStream();
+    /** Collects messages in memory, written to by the game thread and, for pongs, by the reader thread, always while holding its lock. */
+    private final DataOutputStream out = new DataOutputStream(outgoing);
+    private final BlockingQueue<byte[]> sendQueue = new LinkedBlockingQueue<>();
+    /** The number of bytes handed to the writer thread that it has not written yet. */
+    private final AtomicLong backlog = new AtomicLong();
+    private final Thread reader;
+    private final Thread writer;
+    private final long handshakeBytes;
+    private final List<LockstepListener> listeners = new CopyOnWriteArrayList<>();
+    /** Commands submitted since the last frame. */
+    private final ConcurrentLinkedQueue<Pending<?>> submitted = new ConcurrentLinkedQueue<>();
+    /** The other player's ticks with commands, in tick order. Added to by the reader thread. */
+    private final ConcurrentLinkedQueue<TickInput> remoteInputs = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Digest> remoteDigests = new ConcurrentLinkedQueue<>();
+    /** This player's ticks with commands that have been sent but not run, in tick order. Only used on the game thread. */
+    private final ArrayDeque<LocalInput> localInputs = new ArrayDeque<>();
+    private final ArrayDeque<Digest> localDigests = new ArrayDeque<>();
+
+    /** The last tick the other player has sent its input for. Only written by the reader thread. */
+    private volatile long remoteCommitted = 0;
+    private volatile String disconnectReason = null;
+    private volatile boolean closed = false;
+    private volatile int delay = INITIAL_DELAY;
+    /** The smoothed round trip time and its mean deviation in nanoseconds, or -1 before the first sample. Only written by the reader. */
+    private volatile long smoothedRtt = -1;
+    private volatile long rttDeviation = 0;
+    private volatile long ticksRun = 0;
+    private volatile long stalledFrames = 0;
+    /** The number of stalled frames the other player has reported. Only written by the reader thread. */
+    private volatile long remoteStalls = 0;
+    private volatile boolean desynced = false;
+
+    /** The following are only used on the game thread. */
+    private long localCommitted = 0;
+    private long frames = 0;
+    private int windowDigest = 0;
+    private boolean solo = false;
+    private int stallsSincePing = 0;
+    private long remoteStallsSeen = 0;
+    private int stallMargin = 0;
+    private int quietPings = 0;
+
+    private LockstepSession(Board board, int player, Socket socket, DataInputStream in, DataOutputStream socketOut) {
+	this.board = board;
+	this.player = player;
+	this.socket = socket;
+	this.in = in;
+	this.socketOut = socketOut;
+	this.handshakeBytes = socketOut.size();
+	this.reader = new Thread(this::read, "lockstep-reader");
+	this.reader.setDaemon(true);
+	this.writer = new Thread(this::write, "lockstep-writer");
+	this.writer.setDaemon(true);
+    }
+
+    /**
+     * Waits for another player to {@link #join(String, int) join} and shares a new board with them. Blocks until a player has joined.
+     *
+     * @param board A board that has not been ticked yet; the other player gets a board with the same map and mode
+     * @param port  The port to wait on
+     *
+     * @return The session, which from now on gets the commands submitted to the board
+     * @throws IOException If the port cannot be listened on or the other player cannot play this board
+     */
+    public static LockstepSession host(Board board, int port) throws IOException {
+	Socket socket;
+	try (ServerSocket server = new ServerSocket()) {
+	    server.bind(new InetSocketAddress(port));
+	    LogHandler.info(LockstepSession.class, "Waiting for the second player on port {0,number,#}", server.getLocalPort());
+	    socket = server.accept();
+	}
+	try {
+	    DataOutputStream out = openOutput(socket);
+	    DataInputStream in = openInput(socket);
+	    int checksum = StateChecksum.compute(board);
+	    out.writeByte(LockstepFormat.HELLO);
+	    LockstepFormat.writeVarLong(out, LockstepFormat.VERSION);
+	    LockstepFormat.writeVarLong(out, board.getWidth());
+	    LockstepFormat.writeVarLong(out, board.getHeight() - 1); // Without the interface row
+	    LockstepFormat.writeString(out, board.getMapFile());
+	    LockstepFormat.writeString(out, board.getLevelFile());
+	    LockstepFormat.writeString(out, board.getMapName());
+	    out.writeByte(board.isMazeMode() ? 1 : 0);
+	    out.writeInt(checksum);
+	    out.flush();
+
+	    expect(in, LockstepFormat.READY);
+	    checkVersion(LockstepFormat.readVarInt(in));
+	    if (in.readInt() != checksum) {
+		throw new IOException("The other player's board is not the same as this one, check that both have the same map files");
+	    }
+	    LogHandler.info(LockstepSession.class, "Second player joined from " + socket.getRemoteSocketAddress());
+	    return start(board, HOST, socket, in, out);
+	} catch (IOException | RuntimeException e) {
+	    socket.close();
+	    throw e;
+	}
+    }
+
+    /**
+     * Joins a game {@link #host(Board, int) hosted} by another player.
+     *
+     * @param host The host the game is hosted on
+     * @param port The port the game is hosted on
+     *
+     * @return The session, whose {@link #getBoard() board} has the host's map and mode
+     * @throws IOException If the game cannot be reached or its board cannot be loaded here
+     */
+    public static LockstepSession join(String host, int port) throws IOException {
+	Socket socket = new Socket();
+	try {
+	    socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+	    DataOutputStream out = openOutput(socket);
+	    DataInputStream in = openInput(socket);
+	    expect(in, LockstepFormat.HELLO);
+	    checkVersion(LockstepFormat.readVarInt(in));
+	    int width = LockstepFormat.readVarInt(in);
+	    int height = LockstepFormat.readVarInt(in);
+	    String mapFile = LockstepFormat.readString(in);
+	    String levelFile = LockstepFormat.readString(in);
+	    String mapName = LockstepFormat.readString(in);
+	    boolean mazeMode = in.readByte() != 0;
+	    int hostChecksum = in.readInt();
+	    LogHandler.info(LockstepSession.class, "Joining {0} ({1,number,#}x{2,number,#}) on {3}", mapName, width, height, host);
+
+	    Board board = new Board(width, height, mapFile, levelFile, mapName);
+	    board.setMazeMode(mazeMode);
+	    int checksum = StateChecksum.compute(board);
+	    out.writeByte(LockstepFormat.READY);
+	    LockstepFormat.writeVarLong(out, LockstepFormat.VERSION);
+	    out.writeInt(checksum);
+	    out.flush();
+	    if (checksum != hostChecksum) {
+		throw new IOException("This board is not the same as the host's, check that both have the same map files");
+	    }
+	    return start(board, GUEST, socket, in, out);
+	} catch (IOException | RuntimeException e) {
+	    socket.close();
+	    throw e;
+	}
+    }
+
+    /**
+     * Joins a game {@link #host(Board, int) hosted} by another player, given as in {@value #JOIN_PROPERTY}.
+     *
+     * @param address The host and port the game is hosted on, as {@code host:port}
+     *
+     * @return The session, whose {@link #getBoard() board} has the host's map and mode
+     * @throws IOException              If the game cannot be reached or its board cannot be loaded here
+     * @throws IllegalArgumentException If the address is not a host and a port
+     */
+    public static LockstepSession join(String address) throws IOException {
+	int colon = address.lastIndexOf(':');
+	if (colon <= 0) {
+	    throw new IllegalArgumentException("Not a host and port: " + address);
+	}
+	return join(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+    }
+
+    private static LockstepSession start(Board board, int player, Socket socket, DataInputStream in, DataOutputStream out)
+	    throws IOException
+    {
+	socket.setSoTimeout(0);
+	LockstepSession session = new LockstepSession(board, player, socket, in, out);
+	board.setCommandSink(session);
+	session.reader.start();
+	session.writer.start();
+	return session;
+    }
+
+    private static DataOutputStream openOutput(Socket socket) throws IOException {
+	socket.setTcpNoDelay(true);
+	socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+	return new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    private static DataInputStream openInput(Socket socket) throws IOException {
+	return new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    }
+
+    private static void expect(DataInputStream in, byte type) throws IOException {
+	byte received = in.readByte();
+	if (received != type) {
+	    throw new IOException("Not a shared game: message type " + received);
+	}
+    }
+
+    private static void checkVersion(int version) throws IOException {
+	if (version != LockstepFormat.VERSION) {
+	    throw new IOException("The other player has version " + version + " of shared games, this game has version " +
+				  LockstepFormat.VERSION);
+	}
+    }
+
+    /**
+     * Takes a command to be sent to the other player and applied to both boards on the same tick. Safe to call from any thread.
+     *
+     * @param command A command to place, upgrade or sell a tower, buy a powerup or start the next round
+     *
+     * @return A future completed with the outcome on the thread that ticks the board, or failed if the command cannot be shared
+     */
+    @Override public <T> CompletableFuture<CommandResult<T>> submit(Command<T> command) {
+	if (!LockstepFormat.isShared(command)) {
+	    return CompletableFuture.failedFuture(new IllegalArgumentException("Command cannot be shared: " + command));
+	}
+	Pending<T> pending = new Pending<>(command, new CompletableFuture<>());
+	submitted.add(pending);
+	return pending.result();
+    }
+
+    /**
+     * Advances the shared game by one frame of the game loop, in place of {@link Board#tick()}. Must be called on the thread that ticks the
+     * board, once a frame.
+     * <p>
+     * Sends the commands submitted since the last frame and runs the ticks whose input from both players is known, usually one.
+     */
+    public void advance() {
+	if (!solo && disconnectReason != null) {
+	    leave(disconnectReason);
+	}
+	if (solo) {
+	    enqueueSubmitted();
+	    board.tick();
+	    return;
+	}
+
+	frames++;
+	int ran = 0;
+	try {
+	    commit();
+	    if (frames % PING_INTERVAL == 0) {
+		adjustDelay();
+		synchronized (out) {
+		    out.writeByte(LockstepFormat.PING);
+		    LockstepFormat.writeVarLong(out, System.nanoTime());
+		    LockstepFormat.writeVarLong(out, stallsSincePing);
+		}
+		stallsSincePing = 0;
+	    }
+	    // Run a second tick only while the other player is further ahead than the input delay, which means this side has fallen behind
+	    while (ran < MAX_TICKS_PER_FRAME && remoteCommitted > ticksRun && localCommitted > ticksRun &&
+		   (ran == 0 || remoteCommitted > ticksRun + delay)) {
+		runTick();
+		ran++;
+	    }
+	    send();
+	} catch (IOException e) {
+	    if (!closed) {
+		leave("Lost the connection to the other player: " + e.getMessage());
+	    }
+	}
+	if (ran == 0) {
+	    stalledFrames++;
+	    if (ticksRun > 0) {
+		// Waiting for the other player to start says nothing about the delay
+		stallsSincePing++;
+	    }
+	}
+    }
+
+    /**
+     * Hands the messages collected since the last call to the writer thread, without waiting for the connection.
+     *
+     * @throws IOException If the other player has left more than {@value #MAX_BACKLOG_BYTES} bytes unread, so it has stopped reading
+     */
+    private void send() throws IOException {
+	// The reader thread answers pings while the game thread sends its input, so the messages are queued under the same lock that
+	// wrote them, or they could reach the other player out of order
+	synchronized (out) {
+	    if (outgoing.size() == 0) {
+		return;
+	    }
+	    byte[] bytes = outgoing.toByteArray();
+	    outgoing.reset();
+	    if (backlog.addAndGet(bytes.length) > MAX_BACKLOG_BYTES) {
+		throw new IOException("The other player stopped reading");
+	    }
+	    sendQueue.add(bytes);
+	}
+    }
+
+    /**
+     * Sends the input of this player up to the tick that is the input delay ahead of the last tick run. The commands submitted since the
+     * last frame go on that tick and the ticks before it are sent as idle.
+     */
+    private void commit() throws IOException {
+	long target = ticksRun + delay;
+	if (target <= localCommitted) {
+	    // The delay has shrunk, the commands wait for a later frame
+	    return;
+	}
+	List<Pending<?>> commands = new ArrayList<>();
+	for (Pending<?> pending = submitted.poll(); pending != null; pending = submitted.poll()) {
+	    commands.add(pending);
+	}
+	long idle = commands.isEmpty() ? target - localCommitted : target - localCommitted - 1;
+	synchronized (out) {
+	    if (idle > 0) {
+		out.writeByte(LockstepFormat.IDLE);
+		LockstepFormat.writeVarLong(out, idle);
+	    }
+	    if (!commands.isEmpty()) {
+		out.writeByte(LockstepFormat.INPUT);
+		LockstepFormat.writeVarLong(out, commands.size());
+		for (Pending<?> pending : commands) {
+		    LockstepFormat.writeCommand(out, pending.command());
+		}
+		localInputs.add(new LocalInput(target, commands));
+	    }
+	}
+	localCommitted = target;
+    }
+
+    private void runTick() throws IOException {
+	long tick = ticksRun + 1;
+	TickInput remote = remoteInputs.peek();
+	List<Command<?>> remoteCommands = remote != null && remote.tick() == tick ? remoteInputs.poll().commands() : List.of();
+	LocalInput local = localInputs.peek();
+	List<Pending<?>> localCommands = local != null && local.tick() == tick ? localInputs.poll().commands() : List.of();
+
+	if (player == HOST) {
+	    localCommands.forEach(pending -> pending.enqueueOn(board));
+	}
+	remoteCommands.forEach(board::enqueue);
+	if (player == GUEST) {
+	    localCommands.forEach(pending -> pending.enqueueOn(board));
+	}
+
+	if (board.isPaused() || board.getGameSpeed() != 1) {
+	    board.setPaused(false);
+	    board.setGameSpeed(1);
+	}
+	board.tick();
+	ticksRun = tick;
+
+	windowDigest = PRIME * windowDigest + StateChecksum.compute(board);
+	if (tick % CHECKSUM_INTERVAL == 0) {
+	    synchronized (out) {
+		out.writeByte(LockstepFormat.CHECKSUM);
+		LockstepFormat.writeVarLong(out, tick);
+		out.writeInt(windowDigest);
+	    }
+	    localDigests.add(new Digest(tick, windowDigest));
+	    windowDigest = 0;
+	}
+	compareDigests();
+    }
+
+    private void compareDigests() {
+	while (!localDigests.isEmpty() && !remoteDigests.isEmpty()) {
+	    Digest local = localDigests.peek();
+	    Digest remote = remoteDigests.peek();
+	    if (local.tick() < remote.tick()) {
+		localDigests.poll();
+	    } else if (remote.tick() < local.tick()) {
+		remoteDigests.poll();
+	    } else {
+		localDigests.poll();
+		remoteDigests.poll();
+		if (local.value() != remote.value() && !desynced) {
+		    desynced = true;
+		    long from = local.tick() - CHECKSUM_INTERVAL;
+		    LogHandler.severe(LockstepSession.class,
+				      "The boards of the two players differ after tick " + from + ", by tick " + local.tick());
+		    listeners.forEach(listener -> listener.desynced(from, local.tick()));
+		}
+	    }
+	}
+    }
+
+    /**
+     * Goes on without the other player. Commands that were sent but not run yet are run on the next tick, and commands submitted from now
+     * on go straight to the board.
+     */
+    private void leave(String reason) {
+	solo = true;
+	board.setCommandSink(null);
+	for (LocalInput input : localInputs) {
+	    input.commands().forEach(pending -> pending.enqueueOn(board));
+	}
+	localInputs.clear();
+	enqueueSubmitted();
+	closeSocket();
+	writer.interrupt();
+	LogHandler.logWarning(LockstepSession.class, reason + ", playing on alone");
+	listeners.forEach(listener -> listener.peerLeft(reason));
+    }
+
+    private void enqueueSubmitted() {
+	for (Pending<?> pending = submitted.poll(); pending != null; pending = submitted.poll()) {
+	    pending.enqueueOn(board);
+	}
+    }
+
+    /**
+     * Reads the other player's messages until the connection ends. Runs on the reader thread.
+     */
+    private void read() {
+	try {
+	    while (true) {
+		byte type = in.readByte();
+		switch (type) {
+		    case LockstepFormat.IDLE:
+			long idle = LockstepFormat.readVarLong(in);
+			if (idle < 1 || idle > MAX_DELAY + 1) {
+			    throw new IOException("Not a shared game: " + idle + " idle ticks");
+			}
+			remoteCommitted += idle;
+			break;
+		    case LockstepFormat.INPUT:
+			readInput();
+			break;
+		    case LockstepFormat.CHECKSUM:
+			remoteDigests.add(new Digest(LockstepFormat.readVarLong(in), in.readInt()));
+			break;
+		    case LockstepFormat.PING:
+			long stamp = LockstepFormat.readVarLong(in);
+			long stalls = LockstepFormat.readVarLong(in);
+			if (stalls < 0 || stalls > PING_INTERVAL) {
+			    throw new IOException("Not a shared game: " + stalls + " stalls between pings");
+			}
+			remoteStalls += stalls;
+			synchronized (out) {
+			    out.writeByte(LockstepFormat.PONG);
+			    LockstepFormat.writeVarLong(out, stamp);
+			}
+			send();
+			break;
+		    case LockstepFormat.PONG:
+			sampleRoundTrip(System.nanoTime() - LockstepFormat.readVarLong(in));
+			break;
+		    default:
+			throw new IOException("Not a shared game: message type " + type);
+		}
+	    }
+	} catch (EOFException e) {
+	    disconnectReason = "The other player left the game";
+	} catch (IOException e) {
+	    if (!closed) {
+		disconnectReason = "Lost the connection to the other player: " + e.getMessage();
+	    }
+	}
+    }
+
+    private void readInput() throws IOException {
+	int count = LockstepFormat.readVarInt(in);
+	if (count < 1 || count > LockstepFormat.MAX_COMMANDS) {
+	    throw new IOException("Not a shared game: " + count + " commands in a tick");
+	}
+	List<Command<?>> commands = new ArrayList<>(count);
+	for (int i = 0; i < count; i++) {
+	    commands.add(LockstepFormat.readCommand(in));
+	}
+	long tick = remoteCommitted + 1;
+	remoteInputs.add(new TickInput(tick, commands));
+	// Published after the input, so the game thread never sees the tick as sent without seeing its commands
+	remoteCommitted = tick;
+    }
+
+    /**
+     * Sends the collected messages until the session ends. Runs on the writer thread.
+     */
+    private void write() {
+	try {
+	    while (true) {
+		byte[] bytes = sendQueue.take();
+		socketOut.write(bytes);
+		socketOut.flush();
+		backlog.addAndGet(-bytes.length);
+	    }
+	} catch (InterruptedException e) {
+	    // The session has ended
+	} catch (IOException e) {
+	    if (!closed) {
+		disconnectReason = "Lost the connection to the other player: " + e.getMessage();
+	    }
+	}
+    }
+
+    /**
+     * Updates the round trip estimate the way TCP does. Runs on the reader thread.
+     */
+    private void sampleRoundTrip(long rtt) {
+	if (smoothedRtt < 0) {
+	    smoothedRtt = rtt;
+	    rttDeviation = rtt / 2;
+	} else {
+	    rttDeviation = (3 * rttDeviation + Math.abs(smoothedRtt - rtt)) / 4;
+	    smoothedRtt = (7 * smoothedRtt + rtt) / 8;
+	}
+    }
+
+    /**
+     * Moves the input delay one tick towards what the round trip time and the other player's stalls call for. Runs on the game thread.
+     */
+    private void adjustDelay() {
+	long reported = remoteStalls;
+	if (reported > remoteStallsSeen) {
+	    stallMargin = Math.min(MAX_STALL_MARGIN, stallMargin + 1);
+	    quietPings = 0;
+	} else if (stallMargin > 0 && ++quietPings >= QUIET_PINGS) {
+	    stallMargin--;
+	    quietPings = 0;
+	}
+	remoteStallsSeen = reported;
+
+	long rtt = smoothedRtt;
+	if (rtt < 0) {
+	    return;
+	}
+	long oneWay = rtt / 2 + 4 * rttDeviation;
+	long wanted = (oneWay + TICK_NANOS - 1) / TICK_NANOS + 1 + FRAME_MARGIN + stallMargin;
+	delay += Integer.signum((int) Math.min(MAX_DELAY, Math.max(MIN_DELAY, wanted)) - delay);
+    }
+
+    public void addListener(LockstepListener listener) {
+	listeners.add(listener);
+    }
+
+    public Board getBoard() {
+	return board;
+    }
+
+    /**
+     * Returns {@link #HOST} or {@link #GUEST}.
+     */
+    public int getPlayer() {
+	return player;
+    }
+
+    /**
+     * Returns true until the other player has left or the session is closed.
+     */
+    public boolean isConnected() {
+	return !solo && !closed && disconnectReason == null;
+    }
+
+    public boolean isDesynced() {
+	return desynced;
+    }
+
+    /**
+     * Returns the number of ticks between the frame a command is submitted in and the tick it is applied on.
+     */
+    public int getInputDelay() {
+	return delay;
+    }
+
+    /**
+     * Returns the smoothed round trip time to the other player in milliseconds, or -1 before it has been measured.
+     */
+    public double getRoundTripMillis() {
+	long rtt = smoothedRtt;
+	return rtt < 0 ? -1 : rtt / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public long getTicksRun() {
+	return ticksRun;
+    }
+
+    /**
+     * Returns the number of frames in which no tick could be run, since the other player's input had not arrived.
+     */
+    public long getStalledFrames() {
+	return stalledFrames;
+    }
+
+    /**
+     * Returns the number of bytes sent to the other player, including the handshake.
+     */
+    public long getBytesSent() {
+	synchronized (out) {
+	    return handshakeBytes + out.size();
+	}
+    }
+
+    /**
+     * Ends the session. The other player is told by the connection closing and goes on alone. The board gets commands submitted to it
+     * straight away again.
+     */
+    @Override public void close() {
+	if (closed) {
+	    return;
+	}
+	closed = true;
+	board.setCommandSink(null);
+	closeSocket();
+	writer.interrupt();
+	try {
+	    reader.join(SHUTDOWN_MILLIS);
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	}
+	LogHandler.info(LockstepSession.class, "Shared game ended after {0,number,#} ticks, {1,number,#} stalls, {2,number,#} bytes sent",
+			ticksRun, stalledFrames, getBytesSent());
+    }
+
+    private void closeSocket() {
+	try {
+	    socket.close();
+	} catch (IOException e) {
+	    LogHandler.logWarning(LockstepSession.class, "Could not close the connection: " + e.getMessage());
+	}
+    }
+
+    /**
+     * A command of this player and the future to complete with its outcome once the board has applied it.
+     */
+    private record Pending<T>(Command<T> command, CompletableFuture<CommandResult<T>> result)
+    {
+	private void enqueueOn(Board board) {
+	    board.enqueue(command).whenComplete((outcome, error) -> {
+		if (error != null) {
+		    result.completeExceptionally(error);
+		} else {
+		    result.complete(outcome);
+		}
+	    });
+	}
+    }
+
+    private record LocalInput(long tick, List<Pending<?>> commands)
+    {
+    }
+
+    private record TickInput(long tick, List<Command<?>> commands)
+    {
+    }
+
+    /**
+     * The digest of the checksums of the {@value #CHECKSUM_INTERVAL} ticks up to and including a tick.
+     */
+    private record Digest(long tick, int value)
+    {
+    }
+}
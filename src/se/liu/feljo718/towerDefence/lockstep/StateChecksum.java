@@ -0,0 +1,54 @@
+package se.liu.feljo718.towerdefence.lockstep;
+
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.enemy.Enemy;
+import se.liu.feljo718.towerdefence.tower.Tower;
+
+/**
+ * Checksum of the part of a board's state that the simulation depends on, used to find out if two boards that should be identical are not.
+ * <p>
+ * The checksum covers the clock, the round, lives and coins, and every enemy and tower in the order the board keeps them. Enemy positions
+ * are hashed bit for bit, so the smallest difference in floating point results shows up on the tick it happens rather than once it has
+ * grown large enough to change a tile. What is only drawn, such as explosions, is left out.
+ *
+ * @author feljo718
+ * @see LockstepSession
+ */
+public final class StateChecksum
+{
+    private static final int PRIME = 31;
+
+    private StateChecksum() {
+    }
+
+    /**
+     * Computes the checksum of a board. Must be called on the thread that ticks the board.
+     *
+     * @param board The board
+     *
+     * @return The checksum, equal for boards in the same state
+     */
+    public static int compute(Board board) {
+	int hash = Long.hashCode(board.getTickCount());
+	hash = PRIME * hash + Long.hashCode(board.getGameTime());
+	hash = PRIME * hash + board.getRound();
+	hash = PRIME * hash + board.getLives();
+	hash = PRIME * hash + board.getCoins();
+	hash = PRIME * hash + Long.hashCode(board.getDamageDealt());
+
+	for (Enemy enemy : board.getEnemyFactory().getEnemies()) {
+	    hash = PRIME * hash + enemy.getId();
+	    hash = PRIME * hash + enemy.getHealth();
+	    hash = PRIME * hash + Double.hashCode(enemy.getX());
+	    hash = PRIME * hash + Double.hashCode(enemy.getY());
+	}
+	for (Tower tower : board.getTowerFactory().getTowers()) {
+	    hash = PRIME * hash + tower.getId();
+	    hash = PRIME * hash + tower.getType().ordinal();
+	    hash = PRIME * hash + tower.getLevel();
+	    hash = PRIME * hash + tower.getPosition().hashCode();
+	    hash = PRIME * hash + tower.getActivePowerups().size();
+	}
+	return hash;
+    }
+}
@@ -0,0 +1,310 @@
+package se.liu.feljo718.towerdefence.metrics;
+
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.enemy.Enemy;
+import se.liu.feljo718.towerdefence.handler.LogHandler;
+import se.liu.feljo718.towerdefence.handler.SoundManager;
+import se.liu.feljo718.towerdefence.tower.Tower;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.awt.*;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live metrics of a single game board, exposed as a JMX MXBean.
+ * <p>
+ * The game loop only ever writes to this class: it bumps {@link LongAdder} counters and copies a few integers into volatile fields at the
+ * end of every frame. JMX requests run on their own threads and compute rates from those values, so a monitoring client can never make
+ * the game loop wait. The only operation that needs the game loop's cooperation is {@link #dumpState()}, which hands a request to the
+ * loop and waits for it to be answered at the end of the next frame.
+ *
+ * @author feljo718
+ * @see BoardMetricsMXBean
+ */
+public class BoardMetrics implements BoardMetricsMXBean
+{
+    private static final String DOMAIN = "se.liu.feljo718.towerdefence";
+    private static final AtomicInteger BOARD_IDS = new AtomicInteger();
+    private static final long DUMP_TIMEOUT_MILLIS = 2000;
+    private static final double NANOS_PER_MILLI = 1.0e6;
+
+    private final Board board;
+    private final int boardId = BOARD_IDS.incrementAndGet();
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder framesRendered = new LongAdder();
+    private final LongAdder renderNanos = new LongAdder();
+    private final RateSampler tickRate = new RateSampler();
+    private final RateSampler logRate = new RateSampler();
+    private final RateSampler renderRate = new RateSampler();
+    private final AtomicReference<CompletableFuture<String>> pendingDump = new AtomicReference<>();
+    private volatile int round = 0;
+    private volatile int enemyCount = 0;
+    private volatile int towerCount = 0;
+    private volatile int coins = 0;
+    private volatile int lives = 0;
+    private volatile int explosionsAlive = 0;
+    private ObjectName objectName = null;
+
+    public BoardMetrics(Board board) {
+	this.board = board;
+    }
+
+    /**
+     * Registers this board with the platform MBean server. Failures are logged, since the game runs fine without monitoring.
+     */
+    public void register() {
+	try {
+	    objectName = new ObjectName(DOMAIN + ":type=Board,id=" + boardId + ",map=" + ObjectName.quote(board.getMapName()));
+	    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+	    server.registerMBean(this, objectName);
+	    LogHandler.info(BoardMetrics.class, "Registered MBean " + objectName);
+	} catch (MalformedObjectNameException | InstanceAlreadyExistsException | MBeanRegistrationException |
+		 NotCompliantMBeanException e) {
+	    LogHandler.logWarning(BoardMetrics.class, "Could not register board MBean: " + e.getMessage());
+	    objectName = null;
+	}
+    }
+
+    /**
+     * Removes this board from the platform MBean server, if it was registered.
+     */
+    public void unregister() {
+	if (objectName == null) {
+	    return;
+	}
+	try {
+	    ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+	} catch (InstanceNotFoundException | MBeanRegistrationException e) {
+	    LogHandler.logWarning(BoardMetrics.class, "Could not unregister board MBean: " + e.getMessage());
+	}
+	objectName = null;
+    }
+
+    /**
+     * Called by the board after every simulation step.
+     */
+    public void stepCompleted() {
+	ticks.increment();
+    }
+
+    /**
+     * Called by the board at the end of every frame. Publishes the current counts and answers a pending state dump request.
+     */
+    public void frameCompleted() {
+	round = board.getRound();
+	enemyCount = board.getEnemyFactory().getEnemies().size();
+	towerCount = board.getTowerFactory().getTowers().size();
+	coins = board.getCoins();
+	lives = board.getLives();
+	explosionsAlive = board.getExplosions().size();
+
+	CompletableFuture<String> dump = pendingDump.getAndSet(null);
+	if (dump != null) {
+	    dump.complete(describeBoard());
+	}
+    }
+
+    /**
+     * Records how long it took to paint one frame of the board.
+     *
+     * @param nanos The paint duration in nanoseconds
+     */
+    public void recordFrameRender(long nanos) {
+	framesRendered.increment();
+	renderNanos.add(nanos);
+    }
+
+    private String describeBoard() {
+	StringBuilder sb = new StringBuilder();
+	sb.append("Map: ").append(board.getMapName()).append('\n');
+	sb.append("Round: ").append(board.getRound()).append(", lives: ").append(board.getLives()).append(", coins: ")
+		.append(board.getCoins()).append('\n');
+	sb.append("Tick: ").append(board.getTickCount()).append(", game time: ").append(board.getGameTime()).append(" ms, speed: ")
+		.append(board.getGameSpeed()).append(board.isPaused() ? " (paused)" : "").append('\n');
+
+	sb.append("Towers (").append(board.getTowerFactory().getTowers().size()).append("):\n");
+	for (Tower tower : board.getTowerFactory().getTowers()) {
+	    Point pos = tower.getPosition();
+	    sb.append("  ").append(tower.getType()).append(" level ").append(tower.getLevel()).append(" at (").append(pos.x).append(',')
+		    .append(pos.y).append(")\n");
+	}
+
+	sb.append("Enemies (").append(board.getEnemyFactory().getEnemies().size()).append("):\n");
+	for (Enemy enemy : board.getEnemyFactory().getEnemies()) {
+	    Point pos = enemy.getPosition();
+	    sb.append("  ").append(enemy.getType()).append(" at (").append(pos.x).append(',').append(pos.y).append(")\n");
+	}
+	return sb.toString();
+    }
+
+    @Override public String getMapName() {
+	return board.getMapName();
+    }
+
+    @Override public int getRound() {
+	return round;
+    }
+
+    @Override public int getEnemyCount() {
+	return enemyCount;
+    }
+
+    @Override public int getTowerCount() {
+	return towerCount;
+    }
+
+    @Override public int getCoins() {
+	return coins;
+    }
+
+    @Override public int getLives() {
+	return lives;
+    }
+
+    @Override public int getExplosionsAlive() {
+	return explosionsAlive;
+    }
+
+    @Override public long getTickCount() {
+	return ticks.sum();
+    }
+
+    @Override public double getTicksPerSecond() {
+	return tickRate.ratePerSecond(ticks.sum());
+    }
+
+    @Override public double getTickP50Millis() {
+	return board.getTickProfiler().getP50(TickPhase.TOTAL) / NANOS_PER_MILLI;
+    }
+
+    @Override public double getTickP99Millis() {
+	return board.getTickProfiler().getP99(TickPhase.TOTAL) / NANOS_PER_MILLI;
+    }
+
+    @Override public double getTickMaxMillis() {
+	return board.getTickProfiler().getMax(TickPhase.TOTAL) / NANOS_PER_MILLI;
+    }
+
+    @Override public double getAverageFrameRenderMillis() {
+	return renderRate.averagePerEvent(framesRendered.sum(), renderNanos.sum()) / NANOS_PER_MILLI;
+    }
+
+    @Override public int getSoundVoicesActive() {
+	return SoundManager.getActiveVoices();
+    }
+
+    @Override public double getLogRecordsPerSecond() {
+	return logRate.ratePerSecond(LogHandler.getPublishedRecordCount());
+    }
+
+    @Override public long getLogRecordsTotal() {
+	return LogHandler.getPublishedRecordCount();
+    }
+
+    @Override public long getLogRecordsDropped() {
+	return LogHandler.getDroppedRecordCount();
+    }
+
+    @Override public boolean isProfilingEnabled() {
+	return board.getTickProfiler().isEnabled();
+    }
+
+    @Override public void setProfilingEnabled(boolean enabled) {
+	board.getTickProfiler().setEnabled(enabled);
+    }
+
+    @Override public boolean isPaused() {
+	return board.isPaused();
+    }
+
+    @Override public int getGameSpeed() {
+	return board.getGameSpeed();
+    }
+
+    @Override public void pause() {
+	board.setPaused(true);
+	LogHandler.info(BoardMetrics.class, "Board paused through JMX");
+    }
+
+    @Override public void resume() {
+	board.setPaused(false);
+	LogHandler.info(BoardMetrics.class, "Board resumed through JMX");
+    }
+
+    @Override public void changeGameSpeed(int stepsPerFrame) {
+	board.setGameSpeed(stepsPerFrame);
+	LogHandler.info(BoardMetrics.class, "Game speed set to " + stepsPerFrame + " through JMX");
+    }
+
+    /**
+     * Asks the game loop for a description of the board and waits for it to be produced at the end of the next frame.
+     *
+     * @return A multi-line description of the board state
+     */
+    @Override public String dumpState() {
+	CompletableFuture<String> request = new CompletableFuture<>();
+	CompletableFuture<String> existing = pendingDump.compareAndExchange(null, request);
+	if (existing != null) {
+	    request = existing;
+	}
+	try {
+	    return request.get(DUMP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+	} catch (TimeoutException e) {
+	    pendingDump.compareAndSet(request, null);
+	    return "The game loop is not running, last published values: round " + round + ", lives " + lives + ", coins " + coins +
+		   ", enemies " + enemyCount + ", towers " + towerCount;
+	} catch (ExecutionException e) {
+	    return "Could not describe board: " + e.getCause();
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    return "Interrupted while waiting for the game loop";
+	}
+    }
+
+    /**
+     * Turns a monotonically increasing counter into a rate by comparing it with the value seen at the previous call.
+     * <p>
+     * Only JMX threads use a sampler, so its lock is never taken by the game loop.
+     */
+    private static class RateSampler
+    {
+	private long lastSampleNanos = System.nanoTime();
+	private long lastCount = 0;
+	private long lastTotal = 0;
+	private double lastRate = 0;
+	private double lastAverage = 0;
+
+	private synchronized double ratePerSecond(long count) {
+	    long now = System.nanoTime();
+	    long elapsed = now - lastSampleNanos;
+	    if (elapsed > 0) {
+		lastRate = (count - lastCount) * 1.0e9 / elapsed;
+		lastSampleNanos = now;
+		lastCount = count;
+	    }
+	    return lastRate;
+	}
+
+	private synchronized double averagePerEvent(long count, long total) {
+	    if (count > lastCount) {
+		lastAverage = (double) (total - lastTotal) / (count - lastCount);
+		lastCount = count;
+		lastTotal = total;
+	    }
+	    return lastAverage;
+	}
+    }
+}
@@ -0,0 +1,63 @@
+package se.liu.feljo718.towerdefence.metrics;
+
+/**
+ * Management interface of a running game board, visible in jconsole, VisualVM and other JMX clients.
+ * <p>
+ * Attributes are read from values the game loop publishes at the end of every frame, so reading them never touches the live game objects.
+ * Tick latency percentiles come from the board's {@link TickProfiler} and are only updated while profiling is enabled.
+ *
+ * @author feljo718
+ * @see BoardMetrics
+ */
+public interface BoardMetricsMXBean
+{
+    String getMapName();
+
+    int getRound();
+
+    int getEnemyCount();
+
+    int getTowerCount();
+
+    int getCoins();
+
+    int getLives();
+
+    int getExplosionsAlive();
+
+    long getTickCount();
+
+    double getTicksPerSecond();
+
+    double getTickP50Millis();
+
+    double getTickP99Millis();
+
+    double getTickMaxMillis();
+
+    double getAverageFrameRenderMillis();
+
+    int getSoundVoicesActive();
+
+    double getLogRecordsPerSecond();
+
+    long getLogRecordsTotal();
+
+    long getLogRecordsDropped();
+
+    boolean isProfilingEnabled();
+
+    void setProfilingEnabled(boolean enabled);
+
+    boolean isPaused();
+
+    int getGameSpeed();
+
+    void pause();
+
+    void resume();
+
+    void changeGameSpeed(int stepsPerFrame);
+
+    String dumpState();
+}
@@ -0,0 +1,31 @@
+package se.liu.feljo718.towerdefence.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for an enemy leaving the board, either killed by towers or leaked through the end of the path.
+ *
+ * @author feljo718
+ */
+@Name("se.liu.feljo718.towerdefence.EnemyExit")
+@Label("Enemy Exit")
+@Category({ "Tower Defence", "Combat" })
+@Description("An enemy being removed from the board after dying or reaching the end")
+@StackTrace(false)
+public class EnemyExitEvent extends Event
+{
+    /** Outcome value for enemies killed by towers. */
+    public static final String KILLED = "KILLED";
+    /** Outcome value for enemies that reached the end tile. */
+    public static final String LEAKED = "LEAKED";
+
+    @Label("Enemy Type") public String enemyType;
+    @Label("Outcome") public String outcome;
+    @Label("X") public int x;
+    @Label("Y") public int y;
+}
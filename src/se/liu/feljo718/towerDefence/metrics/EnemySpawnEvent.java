@@ -0,0 +1,24 @@
+package se.liu.feljo718.towerdefence.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for an enemy entering the board.
+ *
+ * @author feljo718
+ */
+@Name("se.liu.feljo718.towerdefence.EnemySpawn")
+@Label("Enemy Spawn")
+@Category({ "Tower Defence", "Combat" })
+@Description("An enemy being created at the start of the path")
+@StackTrace(false)
+public class EnemySpawnEvent extends Event
+{
+    @Label("Enemy Type") public String enemyType;
+    @Label("Enemies Alive") public int enemiesAlive;
+}
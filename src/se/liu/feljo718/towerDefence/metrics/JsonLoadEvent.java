@@ -0,0 +1,28 @@
+package se.liu.feljo718.towerdefence.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning the read of a JSON data file, from opening it until the reader is closed.
+ * <p>
+ * Stack traces are kept for this event since loads are rare and it is useful to know which code path triggered a reload.
+ *
+ * @author feljo718
+ */
+@Name("se.liu.feljo718.towerdefence.JsonLoad")
+@Label("JSON Load")
+@Category({ "Tower Defence", "I/O" })
+@Description("Reading and parsing a JSON data file")
+@StackTrace(true)
+public class JsonLoadEvent extends Event
+{
+    @Label("File") public String file;
+    @Label("Source") public String source;
+    @Label("Characters Read") @DataAmount public long charactersRead;
+}
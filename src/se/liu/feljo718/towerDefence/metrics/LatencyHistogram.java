@@ -0,0 +1,115 @@
+package se.liu.feljo718.towerdefence.metrics;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-bucket latency histogram for nanosecond timings.
+ * <p>
+ * Values are sorted into log-linear buckets: every power of two is split into {@value #SUB_BUCKETS} equally wide sub-buckets, which keeps
+ * the relative error of a reported percentile below 12.5% over the whole range from one nanosecond up to several minutes. All buckets are
+ * allocated up front, so recording a value never allocates and only costs a few arithmetic operations and one array increment.
+ * <p>
+ * The histogram is meant to be written by a single thread (the game loop). Readers on other threads may observe a slightly stale view,
+ * which is acceptable for monitoring purposes.
+ *
+ * @author feljo718
+ * @see TickProfiler
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Highest power of two that gets its own buckets, 2^40 ns is roughly 18 minutes. */
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount = 0;
+    private long totalNanos = 0;
+    private long maxValue = 0;
+
+    /**
+     * Records a single timing.
+     *
+     * @param nanos The measured duration in nanoseconds, negative values are treated as zero
+     */
+    public void record(long nanos) {
+	long value = Math.max(0, nanos);
+	counts[bucketIndex(value)]++;
+	totalCount++;
+	totalNanos += value;
+	if (value > maxValue) {
+	    maxValue = value;
+	}
+    }
+
+    /**
+     * Returns the value at the given percentile.
+     * <p>
+     * The returned value is the upper bound of the bucket containing the percentile, capped at the largest recorded value.
+     *
+     * @param percentile The percentile to look up, between 0 and 100
+     *
+     * @return The value in nanoseconds, or 0 if nothing has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+	if (totalCount == 0) {
+	    return 0;
+	}
+	long rank = (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * totalCount);
+	rank = Math.max(1, rank);
+
+	long seen = 0;
+	for (int i = 0; i < BUCKET_COUNT; i++) {
+	    seen += counts[i];
+	    if (seen >= rank) {
+		return Math.min(bucketUpperBound(i), maxValue);
+	    }
+	}
+	return maxValue;
+    }
+
+    public long getMax() {
+	return maxValue;
+    }
+
+    public long getCount() {
+	return totalCount;
+    }
+
+    public double getMean() {
+	return totalCount == 0 ? 0.0 : (double) totalNanos / totalCount;
+    }
+
+    /**
+     * Clears all recorded values without releasing the bucket storage.
+     */
+    public void reset() {
+	Arrays.fill(counts, 0);
+	totalCount = 0;
+	totalNanos = 0;
+	maxValue = 0;
+    }
+
+    private static int bucketIndex(long value) {
+	if (value < SUB_BUCKETS) {
+	    return (int) value;
+	}
+	int exponent = 63 - Long.numberOfLeadingZeros(value);
+	if (exponent > MAX_EXPONENT) {
+	    return BUCKET_COUNT - 1;
+	}
+	int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+	return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long bucketUpperBound(int index) {
+	if (index < SUB_BUCKETS) {
+	    return index;
+	}
+	int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+	long subBucket = index % SUB_BUCKETS;
+	long width = 1L << (exponent - SUB_BUCKET_BITS);
+	return (1L << exponent) + (subBucket + 1) * width - 1;
+    }
+}
@@ -0,0 +1,24 @@
+package se.liu.feljo718.towerdefence.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning a whole level, from its first spawn until its last wave is done.
+ *
+ * @author feljo718
+ */
+@Name("se.liu.feljo718.towerdefence.Level")
+@Label("Level")
+@Category({ "Tower Defence", "Progress" })
+@Description("A level from its first spawn until all of its waves have been processed")
+@StackTrace(false)
+public class LevelEvent extends Event
+{
+    @Label("Round") public int round;
+    @Label("Waves") public int waves;
+}
@@ -0,0 +1,28 @@
+package se.liu.feljo718.towerdefence.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event covering the time it takes to load and start a sound clip.
+ * <p>
+ * Sounds are played on every shot, so only slow starts above the threshold are recorded.
+ *
+ * @author feljo718
+ */
+@Name("se.liu.feljo718.towerdefence.SoundPlayback")
+@Label("Sound Playback")
+@Category({ "Tower Defence", "Audio" })
+@Description("Loading, opening and starting a sound clip")
+@StackTrace(false)
+@Threshold("1 ms")
+public class SoundPlaybackEvent extends Event
+{
+    @Label("Resource") public String resource;
+    @Label("Started") public boolean started;
+}
@@ -0,0 +1,125 @@
+package se.liu.feljo718.towerdefence.metrics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import se.liu.feljo718.towerdefence.handler.LogHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Starts a Flight Recorder recording automatically when a game tick exceeds its time budget.
+ * <p>
+ * The recorder is armed by setting the system property {@value #BUDGET_PROPERTY} to a budget in milliseconds, for example
+ * {@code -Dtowerdefence.jfr.tickBudgetMs=25}. The first tick that takes longer starts a recording with the JDK "profile" settings, which
+ * runs for {@value #RECORDING_SECONDS} seconds and is then written to the {@code logs} folder. Further slow ticks are ignored until that
+ * recording has been written and a cooldown has passed, so a struggling game does not produce a flood of files.
+ * <p>
+ * Starting a recording takes far longer than a tick, so it is done on a separate daemon thread.
+ *
+ * @author feljo718
+ * @see TickEvent
+ */
+public class TickBudgetRecorder
+{
+    private static final String BUDGET_PROPERTY = "towerdefence.jfr.tickBudgetMs";
+    private static final int RECORDING_SECONDS = 30;
+    private static final long COOLDOWN_NANOS = TimeUnit.MINUTES.toNanos(2);
+    private static final long STATE_POLL_MILLIS = 1000;
+    private static final String RECORDING_FOLDER = "logs";
+    private static final DateTimeFormatter FILE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final long BUDGET_NANOS = readBudget();
+    private static final AtomicBoolean RECORDING = new AtomicBoolean(false);
+    private static volatile long nextAllowedStart = 0;
+
+    private TickBudgetRecorder() {
+    }
+
+    private static long readBudget() {
+	String value = System.getProperty(BUDGET_PROPERTY);
+	if (value == null || value.isBlank()) {
+	    return 0;
+	}
+	try {
+	    long budget = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(value.trim()));
+	    LogHandler.info(TickBudgetRecorder.class, "Flight recording will start when a tick exceeds " + value.trim() + " ms");
+	    return budget;
+	} catch (NumberFormatException e) {
+	    LogHandler.logWarning(TickBudgetRecorder.class, "Ignoring invalid tick budget '" + value + "'");
+	    return 0;
+	}
+    }
+
+    /**
+     * Checks whether a tick budget has been configured. The game loop needs to time its ticks only when this is the case.
+     *
+     * @return {@code true} if slow ticks should trigger a recording
+     */
+    public static boolean isArmed() {
+	return BUDGET_NANOS > 0;
+    }
+
+    /**
+     * Reports the duration of a finished tick and starts a recording if it was over budget.
+     *
+     * @param tickNanos The duration of the tick in nanoseconds
+     */
+    public static void tickCompleted(long tickNanos) {
+	if (BUDGET_NANOS <= 0 || tickNanos <= BUDGET_NANOS) {
+	    return;
+	}
+	if (System.nanoTime() - nextAllowedStart < 0 || !RECORDING.compareAndSet(false, true)) {
+	    return;
+	}
+
+	Thread starter = new Thread(() -> startRecording(tickNanos), "jfr-tick-budget");
+	starter.setDaemon(true);
+	starter.start();
+    }
+
+    private static void startRecording(long tickNanos) {
+	if (!FlightRecorder.isAvailable()) {
+	    LogHandler.logWarning(TickBudgetRecorder.class, "Flight Recorder is not available in this JVM");
+	    return;
+	}
+
+	try {
+	    // The destination is checked when it is set, so the folder has to exist first
+	    File folder = new File(RECORDING_FOLDER);
+	    if (!folder.isDirectory() && !folder.mkdirs()) {
+		throw new IOException("Failed to create directory: " + folder.getAbsolutePath());
+	    }
+	    Recording recording = new Recording(Configuration.getConfiguration("profile"));
+	    recording.setName("Tick budget exceeded");
+	    recording.setDuration(Duration.ofSeconds(RECORDING_SECONDS));
+	    recording.setToDisk(true);
+	    recording.setDestination(Path.of(RECORDING_FOLDER, "tick-budget-" + LocalDateTime.now().format(FILE_TIME_FORMAT) + ".jfr"));
+	    recording.start();
+	    LogHandler.logWarning(TickBudgetRecorder.class,
+				  "Tick took " + TimeUnit.NANOSECONDS.toMillis(tickNanos) + " ms, recording to " + recording.getDestination());
+
+	    // Wait until the recording has been written so that only one runs at a time
+	    while (recording.getState() == RecordingState.NEW || recording.getState() == RecordingState.DELAYED ||
+		   recording.getState() == RecordingState.RUNNING) {
+		Thread.sleep(STATE_POLL_MILLIS);
+	    }
+	} catch (IOException | ParseException e) {
+	    LogHandler.severe(TickBudgetRecorder.class, "Could not start flight recording: " + e.getMessage(), e);
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	} finally {
+	    nextAllowedStart = System.nanoTime() + COOLDOWN_NANOS;
+	    RECORDING.set(false);
+	}
+    }
+}
@@ -0,0 +1,39 @@
+package se.liu.feljo718.towerdefence.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event covering one game loop tick, with the time spent in each of its phases.
+ * <p>
+ * Only ticks that take longer than the threshold are recorded, so a normal 60 Hz session produces no events at all while hitches show up
+ * with a breakdown of which phase caused them.
+ *
+ * @author feljo718
+ * @see TickPhase
+ */
+@Name("se.liu.feljo718.towerdefence.Tick")
+@Label("Game Tick")
+@Category({ "Tower Defence", "Simulation" })
+@Description("A game loop tick that exceeded the threshold, with per-phase durations")
+@StackTrace(false)
+@Threshold("5 ms")
+public class TickEvent extends Event
+{
+    @Label("Tick") public long tick;
+    @Label("Round") public int round;
+    @Label("Enemies") public int enemies;
+    @Label("Towers") public int towers;
+    @Label("Spawn") @Timespan public long spawn;
+    @Label("Explosions") @Timespan public long explosions;
+    @Label("Move Enemies") @Timespan public long moveEnemies;
+    @Label("Towers Phase") @Timespan public long towersPhase;
+    @Label("Remove Enemies") @Timespan public long removeEnemies;
+    @Label("Notify Listeners") @Timespan public long notifyListeners;
+}
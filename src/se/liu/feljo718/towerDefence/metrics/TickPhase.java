@@ -0,0 +1,28 @@
+package se.liu.feljo718.towerdefence.metrics;
+
+import se.liu.feljo718.towerdefence.board.Board;
+
+/**
+ * The measured phases of a single game frame.
+ * <p>
+ * The simulation phases follow the order in which {@link Board#tick()} runs them. {@link #TOTAL} covers the whole tick and {@link #RENDER}
+ * is the time spent painting the board, which happens outside the tick.
+ *
+ * @author feljo718
+ * @see TickProfiler
+ */
+public enum TickPhase
+{
+    SPAWN("Spawn"), EXPLOSIONS("Explosions"), MOVE_ENEMIES("Move"), TOWERS("Towers"), REMOVE_ENEMIES("Cleanup"),
+    NOTIFY_LISTENERS("Listeners"), TOTAL("Tick total"), RENDER("Render");
+
+    private final String label;
+
+    TickPhase(String label) {
+	this.label = label;
+    }
+
+    public String getLabel() {
+	return label;
+    }
+}
@@ -0,0 +1,245 @@
+package se.liu.feljo718.towerdefence.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collects per-phase timings of the game loop and summarises them once per second.
+ * <p>
+ * The board calls {@link #startTick()}, {@link #endPhase(TickPhase, long)} and {@link #endTick(long)} around each phase of a tick, and the
+ * board component reports its paint time through {@link #recordRender(long)}. Timings are fed into one {@link LatencyHistogram} per
+ * phase. Once every {@link #SUMMARY_INTERVAL_NANOS} the histograms are condensed into p50/p99/max values, the tick rate and allocation
+ * rate are computed, and the histograms are cleared for the next interval.
+ * <p>
+ * When the profiler is disabled every method returns immediately without reading the clock, so the instrumentation can stay in place in
+ * the game loop. When enabled the cost is a handful of {@link System#nanoTime()} calls per tick.
+ * <p>
+ * Recording is done by the game loop thread alone. The published summary values are stored in atomic arrays and volatile fields, so
+ * monitoring threads such as JMX can read them without locking and without ever blocking the game loop.
+ *
+ * @author feljo718
+ * @see TickPhase
+ * @see LatencyHistogram
+ */
+public class TickProfiler
+{
+    private static final long SUMMARY_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final double NANOS_PER_SECOND = 1.0e9;
+
+    private final long expectedTickNanos;
+    private final Map<TickPhase, LatencyHistogram> histograms = new EnumMap<>(TickPhase.class);
+    private final AtomicLongArray p50 = new AtomicLongArray(TickPhase.values().length);
+    private final AtomicLongArray p99 = new AtomicLongArray(TickPhase.values().length);
+    private final AtomicLongArray max = new AtomicLongArray(TickPhase.values().length);
+    private final long[] lastPhaseNanos = new long[TickPhase.values().length];
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private volatile boolean enabled = false;
+    private long intervalStart = 0;
+    private long intervalTicks = 0;
+    private long intervalAllocatedBytes = -1;
+    private volatile double ticksPerSecond = 0;
+    private volatile double tickDriftMillis = 0;
+    private volatile double allocationBytesPerSecond = 0;
+    private volatile int summaryVersion = 0;
+
+    /**
+     * Creates a profiler for a game loop that is expected to tick at a fixed rate.
+     *
+     * @param expectedTickNanos The intended time between two ticks in nanoseconds, used to compute tick-rate drift
+     */
+    public TickProfiler(long expectedTickNanos) {
+	this.expectedTickNanos = expectedTickNanos;
+	for (TickPhase phase : TickPhase.values()) {
+	    histograms.put(phase, new LatencyHistogram());
+	}
+    }
+
+    public boolean isEnabled() {
+	return enabled;
+    }
+
+    /**
+     * Turns the profiler on or off. Switching it on starts a fresh measurement interval.
+     *
+     * @param enabled {@code true} to start collecting timings
+     */
+    public void setEnabled(boolean enabled) {
+	if (enabled && !this.enabled) {
+	    resetInterval(System.nanoTime());
+	}
+	this.enabled = enabled;
+    }
+
+    /**
+     * Marks the start of a tick.
+     *
+     * @return The current time to pass to the first {@link #endPhase(TickPhase, long)}, or 0 when disabled
+     */
+    public long startTick() {
+	return startTick(false);
+    }
+
+    /**
+     * Marks the start of a tick, optionally timing it even while the profiler is disabled.
+     * <p>
+     * Forced timing fills in {@link #getLastPhaseNanos(TickPhase)} for consumers such as Flight Recorder events without adding anything to
+     * the histograms.
+     *
+     * @param forceTiming {@code true} to read the clock even when the profiler is disabled
+     *
+     * @return The current time to pass to the first {@link #endPhase(TickPhase, long)}, or 0 when not timing
+     */
+    public long startTick(boolean forceTiming) {
+	if (!enabled && !forceTiming) {
+	    return 0;
+	}
+	if (enabled) {
+	    intervalTicks++;
+	}
+	return System.nanoTime();
+    }
+
+    /**
+     * Records the duration of a finished phase.
+     *
+     * @param phase      The phase that just finished
+     * @param phaseStart The start time of the phase, as returned by the previous call
+     *
+     * @return The current time, to be used as start of the next phase, or 0 when not timing
+     */
+    public long endPhase(TickPhase phase, long phaseStart) {
+	if (phaseStart == 0) {
+	    return 0;
+	}
+	long now = System.nanoTime();
+	recordPhase(phase, now - phaseStart);
+	return now;
+    }
+
+    /**
+     * Records the total duration of a tick and publishes a new summary when the interval has elapsed.
+     *
+     * @param tickStart The value returned by {@link #startTick()}
+     */
+    public void endTick(long tickStart) {
+	if (tickStart == 0) {
+	    return;
+	}
+	long now = System.nanoTime();
+	recordPhase(TickPhase.TOTAL, now - tickStart);
+	if (enabled && now - intervalStart >= SUMMARY_INTERVAL_NANOS) {
+	    publishSummary(now);
+	}
+    }
+
+    /**
+     * Records the time spent painting a frame.
+     *
+     * @param nanos The paint duration in nanoseconds
+     */
+    public void recordRender(long nanos) {
+	recordPhase(TickPhase.RENDER, nanos);
+    }
+
+    private void recordPhase(TickPhase phase, long nanos) {
+	lastPhaseNanos[phase.ordinal()] = nanos;
+	if (enabled) {
+	    histograms.get(phase).record(nanos);
+	}
+    }
+
+    private void publishSummary(long now) {
+	for (TickPhase phase : TickPhase.values()) {
+	    LatencyHistogram histogram = histograms.get(phase);
+	    p50.set(phase.ordinal(), histogram.getValueAtPercentile(50));
+	    p99.set(phase.ordinal(), histogram.getValueAtPercentile(99));
+	    max.set(phase.ordinal(), histogram.getMax());
+	}
+
+	double seconds = (now - intervalStart) / NANOS_PER_SECOND;
+	ticksPerSecond = intervalTicks / seconds;
+	tickDriftMillis = intervalTicks == 0 ? 0 : ((now - intervalStart) / (double) intervalTicks - expectedTickNanos) / 1.0e6;
+
+	long allocated = currentThreadAllocatedBytes();
+	if (allocated >= 0 && intervalAllocatedBytes >= 0) {
+	    allocationBytesPerSecond = (allocated - intervalAllocatedBytes) / seconds;
+	}
+
+	summaryVersion++;
+	resetInterval(now);
+    }
+
+    private void resetInterval(long now) {
+	for (LatencyHistogram histogram : histograms.values()) {
+	    histogram.reset();
+	}
+	intervalStart = now;
+	intervalTicks = 0;
+	intervalAllocatedBytes = currentThreadAllocatedBytes();
+    }
+
+    /**
+     * Reads the number of bytes allocated by the game loop thread, if the JVM supports it.
+     *
+     * @return The allocated byte count, or -1 if unavailable
+     */
+    private long currentThreadAllocatedBytes() {
+	if (threadBean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemoryEnabled()) {
+	    return sunBean.getCurrentThreadAllocatedBytes();
+	}
+	return -1;
+    }
+
+    public long getP50(TickPhase phase) {
+	return p50.get(phase.ordinal());
+    }
+
+    public long getP99(TickPhase phase) {
+	return p99.get(phase.ordinal());
+    }
+
+    public long getMax(TickPhase phase) {
+	return max.get(phase.ordinal());
+    }
+
+    /**
+     * Returns the duration of the given phase in the most recent timed tick.
+     *
+     * @param phase The phase to look up
+     *
+     * @return The duration in nanoseconds
+     */
+    public long getLastPhaseNanos(TickPhase phase) {
+	return lastPhaseNanos[phase.ordinal()];
+    }
+
+    public double getTicksPerSecond() {
+	return ticksPerSecond;
+    }
+
+    /**
+     * Returns how much the average time between ticks differed from the expected period during the last interval.
+     *
+     * @return The drift in milliseconds, positive when the loop is running slow
+     */
+    public double getTickDriftMillis() {
+	return tickDriftMillis;
+    }
+
+    public double getAllocationBytesPerSecond() {
+	return allocationBytesPerSecond;
+    }
+
+    /**
+     * Returns a counter that increases every time a new summary is published, so readers can tell when their cached view is stale.
+     *
+     * @return The summary version
+     */
+    public int getSummaryVersion() {
+	return summaryVersion;
+    }
+}
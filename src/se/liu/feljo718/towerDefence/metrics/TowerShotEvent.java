@@ -0,0 +1,29 @@
+package se.liu.feljo718.towerdefence.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for a single tower shot, including the attack and the shot sound.
+ *
+ * @author feljo718
+ */
+@Name("se.liu.feljo718.towerdefence.TowerShot")
+@Label("Tower Shot")
+@Category({ "Tower Defence", "Combat" })
+@Description("A tower firing at an enemy")
+@StackTrace(false)
+public class TowerShotEvent extends Event
+{
+    @Label("Tower Type") public String towerType;
+    @Label("Tower Level") public int towerLevel;
+    @Label("Damage") public int damage;
+    @Label("Tower X") public int towerX;
+    @Label("Tower Y") public int towerY;
+    @Label("Target X") public int targetX;
+    @Label("Target Y") public int targetY;
+}
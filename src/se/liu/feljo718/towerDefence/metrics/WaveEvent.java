@@ -0,0 +1,27 @@
+package se.liu.feljo718.towerdefence.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning one enemy wave, from its first spawn until the wave cooldown has passed.
+ *
+ * @author feljo718
+ */
+@Name("se.liu.feljo718.towerdefence.Wave")
+@Label("Wave")
+@Category({ "Tower Defence", "Progress" })
+@Description("An enemy wave from its first spawn until the next wave starts")
+@StackTrace(false)
+public class WaveEvent extends Event
+{
+    @Label("Round") public int round;
+    @Label("Wave Index") public int waveIndex;
+    @Label("Enemy Type") public String enemyType;
+    @Label("Enemy Count") public int count;
+    @Label("Spawn Delay (ms)") public int spawnDelay;
+}
@@ -28,7 +28,7 @@ public abstract class Powerup
      * Creates a new powerup applied to a tower.
      *
      * @param tower                  The tower to apply the powerup to
-     * @param duration               The duration in milliseconds that the powerup remains active
+     * @param duration               The duration in game time milliseconds that the powerup remains active
      * @param powerupType            The type of powerup
      * @param multiplier             The multiplier value for this powerup
      * @param applyEffectImmediately If true, the effect will be applied during initialization
@@ -36,7 +36,7 @@ public abstract class Powerup
     protected Powerup(Tower tower, long duration, PowerupType powerupType, double multiplier, boolean applyEffectImmediately)
     {
 	this.tower = tower;
-	this.startTime = System.currentTimeMillis();
+	this.startTime = tower.getBoard().getGameTime();
 	this.duration = duration;
 	this.effectActive = true;
 	this.powerupType = powerupType;
@@ -49,7 +49,7 @@ public abstract class Powerup
      * @return true if the powerup has expired, false otherwise
      */
     public boolean isExpired() {
-	boolean expired = System.currentTimeMillis() - startTime >= duration;
+	boolean expired = tower.getBoard().getGameTime() - startTime >= duration;
 	if (expired && effectActive) {
 	    removeEffect();
 	    effectActive = false;
@@ -63,7 +63,7 @@ public abstract class Powerup
      * @return the remaining time in milliseconds
      */
     public long getRemainingTime() {
-	long elapsed = System.currentTimeMillis() - startTime;
+	long elapsed = tower.getBoard().getGameTime() - startTime;
 	return Math.max(0, duration - elapsed);
     }
 
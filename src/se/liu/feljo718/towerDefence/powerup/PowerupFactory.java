@@ -1,7 +1,11 @@
 package se.liu.feljo718.towerdefence.powerup;
 
+import se.liu.feljo718.towerdefence.telemetry.Telemetry;
+import se.liu.feljo718.towerdefence.telemetry.TelemetryEventType;
 import se.liu.feljo718.towerdefence.tower.Tower;
 
+import java.awt.*;
+
 /**
  * Factory for creating different types of powerups in the Tower Defense game.
  * <p>
@@ -26,6 +30,11 @@ public class PowerupFactory
      * @return A new powerup instance
      */
     public static Powerup createPowerup(PowerupType type, Tower tower, long duration) {
+	if (tower.getBoard() != null) {
+	    Point position = tower.getPosition();
+	    Telemetry.record(tower.getBoard(), TelemetryEventType.POWERUP, type.ordinal(), tower.getId(), 0, position.x, position.y,
+			     (int) duration);
+	}
 	return switch (type) {
 	    case DOUBLE_DAMAGE -> MultiplierPowerup.createDoubleDamage(tower, duration);
 	    case DOUBLE_FIRERATE -> MultiplierPowerup.createDoubleFireRate(tower, duration);
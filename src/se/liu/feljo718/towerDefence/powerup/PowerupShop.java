@@ -1,6 +1,7 @@
 package se.liu.feljo718.towerdefence.powerup;
 
 import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.command.ApplyPowerupCommand;
 import se.liu.feljo718.towerdefence.tower.Tower;
 
 import javax.swing.*;
@@ -85,6 +86,9 @@ public class PowerupShop
 
     /**
      * Handles the powerup purchase logic when a powerup button is clicked.
+     * <p>
+     * The checks here only spare the player a pointless confirmation. The purchase itself is an {@link ApplyPowerupCommand}, which checks
+     * again when it is applied at the next tick.
      *
      * @param type The powerup type to purchase
      */
@@ -101,10 +105,14 @@ public class PowerupShop
 						       JOptionPane.YES_NO_OPTION);
 
 	    if (result == JOptionPane.YES_OPTION) {
-		board.gainCoins(-type.getCost());
-		targetTower.applyPowerup(type, POWERUP_DURATION);
-		selectedPowerupType = type;
-		dialog.dispose();
+		board.submit(new ApplyPowerupCommand(targetTower.getId(), type, POWERUP_DURATION)).thenAcceptAsync(purchase -> {
+		    if (purchase.isAccepted()) {
+			selectedPowerupType = type;
+			dialog.dispose();
+		    } else {
+			JOptionPane.showMessageDialog(dialog, purchase.getRejection() + "!", "Error", JOptionPane.ERROR_MESSAGE);
+		    }
+		}, SwingUtilities::invokeLater);
 	    }
 	} else {
 	    JOptionPane.showMessageDialog(dialog, "Not enough coins!", "Error", JOptionPane.ERROR_MESSAGE);
@@ -0,0 +1,115 @@
+package se.liu.feljo718.towerdefence.scenario;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A way to play a map: which towers to buy, where, and when to buy and upgrade them.
+ * <p>
+ * The towers are kept sorted by build round and then by position, which is also the order they are bought in when several are due at the
+ * same time. Two plans with the same towers are therefore equal no matter in which order the towers were added, and have the same
+ * {@link #getKey() key}, a 64-bit hash that the {@link PlacementOptimiser} uses to avoid simulating a plan it has already simulated.
+ *
+ * @author feljo718
+ * @see PlannedTower
+ * @see PlanSimulation
+ */
+public final class BuildPlan
+{
+    /** The empty plan, which builds nothing. */
+    public static final BuildPlan EMPTY = new BuildPlan(List.of());
+
+    private static final Comparator<PlannedTower> BUY_ORDER =
+	    Comparator.comparingInt(PlannedTower::buildRound).thenComparingInt(PlannedTower::row).thenComparingInt(PlannedTower::col);
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private final List<PlannedTower> towers;
+    private final long key;
+
+    /**
+     * Creates a plan from towers given in any order. At most one tower may stand on each tile.
+     *
+     * @param towers The towers of the plan
+     *
+     * @throws IllegalArgumentException If two towers share a tile
+     */
+    public BuildPlan(List<PlannedTower> towers) {
+	Set<Long> tiles = new HashSet<>();
+	for (PlannedTower tower : towers) {
+	    if (!tiles.add((long) tower.row() << 32 | (tower.col() & 0xFFFFFFFFL))) {
+		throw new IllegalArgumentException("Two towers planned at (" + tower.row() + "," + tower.col() + ")");
+	    }
+	}
+	List<PlannedTower> sorted = new ArrayList<>(towers);
+	sorted.sort(BUY_ORDER);
+	this.towers = Collections.unmodifiableList(sorted);
+	this.key = computeKey(sorted);
+    }
+
+    private static long computeKey(List<PlannedTower> towers) {
+	long hash = SEED;
+	for (PlannedTower tower : towers) {
+	    hash = mix(hash ^ tower.type().ordinal());
+	    hash = mix(hash ^ ((long) tower.row() << 32 | (tower.col() & 0xFFFFFFFFL)));
+	    hash = mix(hash ^ ((long) tower.buildRound() << 32 | (tower.upgradeRound() & 0xFFFFFFFFL)));
+	}
+	return mix(hash ^ towers.size());
+    }
+
+    /**
+     * The finaliser of SplitMix64, which spreads every input bit over the whole hash.
+     */
+    private static long mix(long value) {
+	long z = value;
+	z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+	z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+	return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns the towers in the order they are bought.
+     */
+    public List<PlannedTower> getTowers() {
+	return towers;
+    }
+
+    public int size() {
+	return towers.size();
+    }
+
+    /**
+     * Returns a 64-bit hash of the plan. Equal plans have equal keys, and different plans have equal keys with a chance of about one in
+     * 2<sup>64</sup>.
+     */
+    public long getKey() {
+	return key;
+    }
+
+    /**
+     * Returns the tower standing on the given tile, or null if the plan has none there.
+     */
+    public PlannedTower getTowerAt(int row, int col) {
+	for (PlannedTower tower : towers) {
+	    if (tower.row() == row && tower.col() == col) {
+		return tower;
+	    }
+	}
+	return null;
+    }
+
+    @Override public boolean equals(Object o) {
+	return o instanceof BuildPlan other && key == other.key && towers.equals(other.towers);
+    }
+
+    @Override public int hashCode() {
+	return Long.hashCode(key);
+    }
+
+    @Override public String toString() {
+	return "BuildPlan" + towers;
+    }
+}
@@ -0,0 +1,449 @@
+package se.liu.feljo718.towerdefence.scenario;
+
+import com.google.gson.JsonSyntaxException;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.board.TileGrid;
+import se.liu.feljo718.towerdefence.handler.LogHandler;
+import se.liu.feljo718.towerdefence.handler.SoundManager;
+import se.liu.feljo718.towerdefence.tower.Tower;
+import se.liu.feljo718.towerdefence.tower.TowerType;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+/**
+ * Estimates how hard each level of a level file is by playing it against a library of reference tower layouts.
+ * <p>
+ * Every level is played on its own, on a fresh headless board with one of the layouts already built, so the result for a level does not
+ * depend on how the levels before it went. For each level the estimator reports:
+ * <ul>
+ *   <li>the leak rate - the share of the level's enemies that reach the exit, averaged over the layouts</li>
+ *   <li>the hold rate - the share of layouts that let no enemy through</li>
+ *   <li>the time to clear - the game time from the start of the level until the board is empty, averaged over the layouts</li>
+ *   <li>the overkill ratio - all damage dealt divided by the damage that actually took health off enemies</li>
+ * </ul>
+ * The leak rate is the difficulty of the level, and the leak rates of all levels in order form the difficulty curve. A level whose
+ * difficulty is further than a threshold from the median of its neighbours on both sides is flagged as a spike or a dip, since a good
+ * curve rises smoothly.
+ * <p>
+ * The layouts range from a single tower to a full defence with every tower at its highest level, so a level is rated by how strong a
+ * defence it takes rather than by whether one particular defence holds. They are made from a seed, so the same level file always gets
+ * the same report. Layouts written by the {@link PlacementOptimiser} can be added to the library, with all their towers built up front
+ * and none upgraded.
+ * <p>
+ * Every pair of level and layout is an independent simulation on its own board. The pairs are split into batches over a
+ * {@link ForkJoinPool} with one thread per core, and each result is stored at the index of its pair, so the report does not depend on the
+ * number of threads or the order the simulations finish in. The estimator can be run from the command line, see {@link #main(String[])}.
+ *
+ * @author feljo718
+ * @see PlanSimulation
+ * @see PlacementOptimiser
+ */
+public final class DifficultyEstimator
+{
+    /** A level still running after this many frames, about ten minutes of game time at the highest speed, is cut off. */
+    private static final long MAX_FRAMES_PER_LEVEL = 60L * 60 * 10;
+    /** How many levels on each side of a level its difficulty is compared with. */
+    private static final int NEIGHBOURS = 2;
+    private static final int BAR_WIDTH = 20;
+    private static final double MILLIS_PER_SECOND = 1000.0;
+
+    private static final int DEFAULT_LAYOUTS = 50;
+    private static final int DEFAULT_MAX_TOWERS = 16;
+    private static final int DEFAULT_SEED = 718;
+    private static final double DEFAULT_THRESHOLD = 0.1;
+    /** Held so that the quieter log level set by {@link #main(String[])} is not lost when the logger is garbage collected. */
+    private static final Logger GAME_LOGGER = Logger.getLogger("se.liu.feljo718.towerdefence");
+
+    private final PlanSimulation simulation;
+    private final List<BuildPlan> layouts;
+    private final int threads;
+    private final double threshold;
+
+    /**
+     * Creates an estimator for the map and levels of a simulation.
+     *
+     * @param simulation The map and levels to estimate; its round limit is ignored
+     * @param layouts    The reference layouts to play every level against
+     * @param threads    The number of simulations to run at the same time
+     * @param threshold  How far, as a share of the enemies, a difficulty may lie from its neighbours before the level is flagged
+     */
+    public DifficultyEstimator(PlanSimulation simulation, List<BuildPlan> layouts, int threads, double threshold) {
+	if (layouts.isEmpty() || threads < 1) {
+	    throw new IllegalArgumentException("At least one layout and one thread are needed");
+	}
+	this.simulation = simulation;
+	this.layouts = List.copyOf(layouts);
+	this.threads = threads;
+	this.threshold = threshold;
+    }
+
+    /**
+     * Makes a library of reference layouts of rising strength. The first layout has one tower and no upgrades, the last has the most
+     * towers with all of them upgraded. Towers are only placed on tiles close to the path.
+     *
+     * @param grid      The tiles of the map, including the interface row
+     * @param count     The number of layouts
+     * @param maxTowers The number of towers of the strongest layout
+     * @param seed      The seed for placing the towers
+     *
+     * @return The layouts, weakest first
+     */
+    public static List<BuildPlan> referenceLayouts(TileGrid grid, int count, int maxTowers, long seed) {
+	if (count < 1 || maxTowers < 1) {
+	    throw new IllegalArgumentException("The layout count and the tower limit must be positive values");
+	}
+	int[] tiles = PlacementOptimiser.findCandidateTiles(grid);
+	if (tiles.length == 0) {
+	    throw new IllegalArgumentException("The map has no tiles to build on");
+	}
+	Random random = new Random(seed);
+	TowerType[] types = TowerType.values();
+	List<BuildPlan> library = new ArrayList<>(count);
+	for (int i = 0; i < count; i++) {
+	    double strength = count == 1 ? 1.0 : i / (double) (count - 1);
+	    int towerCount = Math.min(tiles.length, 1 + (int) Math.round(strength * (maxTowers - 1)));
+	    Set<Integer> used = new HashSet<>();
+	    List<PlannedTower> towers = new ArrayList<>(towerCount);
+	    while (towers.size() < towerCount) {
+		int tile = tiles[random.nextInt(tiles.length)];
+		if (used.add(tile)) {
+		    int upgradeRound = random.nextDouble() < strength ? 0 : PlannedTower.NEVER;
+		    towers.add(new PlannedTower(types[random.nextInt(types.length)], tile / grid.getWidth(), tile % grid.getWidth(), 0,
+						upgradeRound));
+		}
+	    }
+	    library.add(new BuildPlan(towers));
+	}
+	return library;
+    }
+
+    /**
+     * Reads a tower layout, such as a plan written by the {@link PlacementOptimiser}, as a reference layout without upgrades. The file
+     * name is resolved like other game files.
+     *
+     * @throws FileNotFoundException If the file cannot be found
+     */
+    public static BuildPlan readLayout(String file) throws FileNotFoundException {
+	List<PlannedTower> towers = new ArrayList<>();
+	for (TowerPlacement placement : new TowerLayoutReader(file).loadFromJson()) {
+	    if (placement.type() != null) {
+		towers.add(new PlannedTower(placement.type(), placement.row(), placement.col(), 0, PlannedTower.NEVER));
+	    }
+	}
+	return new BuildPlan(towers);
+    }
+
+    /**
+     * Plays every level against every layout and rates the levels.
+     *
+     * @return The rating of every level, in round order
+     * @throws InterruptedException If the calling thread is interrupted while waiting for the simulations
+     */
+    public Report estimate() throws InterruptedException {
+	int rounds = simulation.createBoard().getLevelCount();
+	int runCount = rounds * layouts.size();
+	LevelRun[] runs = new LevelRun[runCount];
+	LogHandler.info(DifficultyEstimator.class, "Playing {0} levels against {1} layouts, {2,number,#} simulations on {3} threads",
+			rounds, layouts.size(), runCount, threads);
+
+	long start = System.nanoTime();
+	ForkJoinPool pool = new ForkJoinPool(threads);
+	try {
+	    // The parallel stream splits the runs into batches of neighbouring indices, which every thread works through on its own
+	    pool.submit(() -> IntStream.range(0, runCount).parallel().forEach(
+		    i -> runs[i] = play(i / layouts.size() + 1, layouts.get(i % layouts.size())))).get();
+	} catch (ExecutionException e) {
+	    throw new IllegalStateException("A simulation failed", e.getCause());
+	} finally {
+	    pool.shutdownNow();
+	}
+	long nanos = System.nanoTime() - start;
+
+	List<LevelDifficulty> levels = new ArrayList<>(rounds);
+	for (int round = 1; round <= rounds; round++) {
+	    int first = (round - 1) * layouts.size();
+	    levels.add(rate(round, Arrays.asList(runs).subList(first, first + layouts.size())));
+	}
+	return new Report(flagOutliers(levels), runCount, nanos, threads);
+    }
+
+    /**
+     * Plays one level on a fresh board with a layout already built.
+     */
+    private LevelRun play(int round, BuildPlan layout) {
+	Board board = simulation.createBoard();
+	for (PlannedTower planned : layout.getTowers()) {
+	    // Plans count rows without the interface row
+	    Tower tower = board.getTowerFactory().createTower(planned.type(), planned.row() + 1, planned.col());
+	    if (tower != null && planned.isUpgraded()) {
+		while (tower.upgrade()) {
+		    // Reference layouts are either fresh or fully upgraded
+		}
+	    }
+	}
+
+	int startingLives = board.getLives();
+	board.startRound(round);
+	long frames = 0;
+	while (!board.isRoundCleared()) {
+	    board.tick();
+	    if (++frames > MAX_FRAMES_PER_LEVEL) {
+		LogHandler.logWarning(DifficultyEstimator.class, "Level " + round + " never ended, cut off");
+		break;
+	    }
+	}
+	return new LevelRun(board.getEnemyFactory().getSpawnedCount(), startingLives - board.getLives(), board.getGameTime(),
+			    board.getDamageDealt(), board.getDamageAbsorbed());
+    }
+
+    private static LevelDifficulty rate(int round, List<LevelRun> runs) {
+	double leakRate = 0;
+	int held = 0;
+	int enemies = 0;
+	long gameTime = 0;
+	long dealt = 0;
+	long absorbed = 0;
+	for (LevelRun run : runs) {
+	    enemies = Math.max(enemies, run.enemies());
+	    leakRate += run.enemies() == 0 ? 0 : run.leaked() / (double) run.enemies();
+	    if (run.leaked() == 0) {
+		held++;
+	    }
+	    gameTime += run.gameTime();
+	    dealt += run.damageDealt();
+	    absorbed += run.damageAbsorbed();
+	}
+	return new LevelDifficulty(round, enemies, leakRate / runs.size(), held / (double) runs.size(),
+				   gameTime / MILLIS_PER_SECOND / runs.size(), absorbed == 0 ? 0 : dealt / (double) absorbed, 0, false);
+    }
+
+    /**
+     * Compares every level with the median difficulty of up to {@link #NEIGHBOURS} levels on each side of it. The first and the last
+     * level are never flagged.
+     */
+    private List<LevelDifficulty> flagOutliers(List<LevelDifficulty> levels) {
+	List<LevelDifficulty> flagged = new ArrayList<>(levels.size());
+	for (int i = 0; i < levels.size(); i++) {
+	    List<Double> neighbours = new ArrayList<>();
+	    for (int j = Math.max(0, i - NEIGHBOURS); j <= Math.min(levels.size() - 1, i + NEIGHBOURS); j++) {
+		if (j != i) {
+		    neighbours.add(levels.get(j).leakRate());
+		}
+	    }
+	    LevelDifficulty level = levels.get(i);
+	    double expected = neighbours.isEmpty() ? level.leakRate() : median(neighbours);
+	    // The first and the last level only have neighbours on one side, where a rising curve is expected to differ
+	    boolean inner = i > 0 && i < levels.size() - 1;
+	    flagged.add(level.withExpected(expected, inner && Math.abs(level.leakRate() - expected) > threshold));
+	}
+	return flagged;
+    }
+
+    private static double median(List<Double> values) {
+	List<Double> sorted = new ArrayList<>(values);
+	sorted.sort(null);
+	int middle = sorted.size() / 2;
+	return sorted.size() % 2 == 1 ? sorted.get(middle) : (sorted.get(middle - 1) + sorted.get(middle)) / 2;
+    }
+
+    /**
+     * Estimates the levels of a map from command line arguments and prints the report. Run with {@code --help} to list the options.
+     *
+     * @param args The command line arguments
+     */
+    public static void main(String[] args) {
+	Options options = new Options();
+	options.addOption(Option.builder("m").longOpt("map").hasArg().desc("map name (default " + Board.DEFAULT_MAP + ")").build());
+	options.addOption(Option.builder("f").longOpt("map-file").hasArg().desc("map file (default " + Board.MAP_FILE + ")").build());
+	options.addOption(Option.builder("v").longOpt("level-file").hasArg().desc("level file (default " + Board.LEVEL_FILE + ")").build());
+	options.addOption(Option.builder("w").longOpt("width").hasArg().desc("map width (default " + Board.DEFAULT_WIDTH + ")").build());
+	options.addOption(Option.builder("t").longOpt("height").hasArg().desc("map height (default " + Board.DEFAULT_HEIGHT + ")").build());
+	options.addOption(
+		Option.builder("n").longOpt("layouts").hasArg().desc("generated layouts (default " + DEFAULT_LAYOUTS + ")").build());
+	options.addOption(
+		Option.builder("x").longOpt("max-towers").hasArg().desc("towers in the largest layout (default " + DEFAULT_MAX_TOWERS + ")")
+			.build());
+	options.addOption(Option.builder("l").longOpt("layout").hasArgs().desc("extra layout files to add to the library").build());
+	options.addOption(
+		Option.builder("d").longOpt("threshold").hasArg().desc("leak rate jump to flag (default " + DEFAULT_THRESHOLD + ")")
+			.build());
+	options.addOption(Option.builder("j").longOpt("threads").hasArg().desc("simulation threads (default one per core)").build());
+	options.addOption(Option.builder("s").longOpt("seed").hasArg().desc("random seed (default " + DEFAULT_SEED + ")").build());
+	options.addOption(Option.builder("o").longOpt("output").hasArg().desc("CSV file to write the report to").build());
+	options.addOption(Option.builder("h").longOpt("help").desc("show this help").build());
+
+	try {
+	    CommandLine line = new DefaultParser().parse(options, args);
+	    if (line.hasOption("help")) {
+		new HelpFormatter().printHelp("DifficultyEstimator", options);
+		return;
+	    }
+
+	    String map = line.getOptionValue("map", Board.DEFAULT_MAP);
+	    int width = Integer.parseInt(line.getOptionValue("width", String.valueOf(Board.DEFAULT_WIDTH)));
+	    int height = Integer.parseInt(line.getOptionValue("height", String.valueOf(Board.DEFAULT_HEIGHT)));
+	    int layoutCount = Integer.parseInt(line.getOptionValue("layouts", String.valueOf(DEFAULT_LAYOUTS)));
+	    int maxTowers = Integer.parseInt(line.getOptionValue("max-towers", String.valueOf(DEFAULT_MAX_TOWERS)));
+	    double threshold = Double.parseDouble(line.getOptionValue("threshold", String.valueOf(DEFAULT_THRESHOLD)));
+	    int threads = Integer.parseInt(line.getOptionValue("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+	    long seed = Long.parseLong(line.getOptionValue("seed", String.valueOf(DEFAULT_SEED)));
+
+	    // Thousands of simulated levels would otherwise log every tower and every level
+	    GAME_LOGGER.setLevel(Level.WARNING);
+	    LogHandler.getLogger(DifficultyEstimator.class).setLevel(Level.INFO);
+	    SoundManager.setEnabled(false);
+
+	    PlanSimulation simulation = new PlanSimulation(width, height, line.getOptionValue("map-file", Board.MAP_FILE),
+							   line.getOptionValue("level-file", Board.LEVEL_FILE), map, Integer.MAX_VALUE);
+	    List<BuildPlan> layouts = new ArrayList<>(
+		    referenceLayouts(simulation.createBoard().getTileGrid(), layoutCount, maxTowers, seed));
+	    if (line.hasOption("layout")) {
+		for (String file : line.getOptionValues("layout")) {
+		    layouts.add(readLayout(file));
+		}
+	    }
+
+	    Report report = new DifficultyEstimator(simulation, layouts, threads, threshold).estimate();
+	    System.out.print(report.format());
+	    LogHandler.info(DifficultyEstimator.class, report.toString());
+	    if (line.hasOption("output")) {
+		File output = new File(line.getOptionValue("output"));
+		report.writeCsv(output);
+		LogHandler.info(DifficultyEstimator.class, "Wrote the report to " + output.getAbsolutePath());
+	    }
+	} catch (ParseException | IllegalArgumentException e) {
+	    System.err.println(e.getMessage());
+	    new HelpFormatter().printHelp("DifficultyEstimator", options);
+	    System.exit(1);
+	} catch (FileNotFoundException | JsonSyntaxException e) {
+	    LogHandler.severe(DifficultyEstimator.class, "Could not read layout: " + e.getMessage(), e);
+	    System.exit(1);
+	} catch (IOException e) {
+	    LogHandler.severe(DifficultyEstimator.class, "Could not write report: " + e.getMessage(), e);
+	    System.exit(1);
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    LogHandler.logWarning(DifficultyEstimator.class, "Interrupted before the estimate finished");
+	}
+    }
+
+    /**
+     * How one level went against one layout.
+     *
+     * @param enemies        The number of enemies spawned
+     * @param leaked         The number of enemies that reached the exit
+     * @param gameTime       The game time in milliseconds until the board was clear
+     * @param damageDealt    All damage the towers dealt
+     * @param damageAbsorbed The part of the damage that took health off enemies
+     */
+    private record LevelRun(int enemies, int leaked, long gameTime, long damageDealt, long damageAbsorbed)
+    {
+    }
+
+    /**
+     * The rating of one level over all layouts.
+     *
+     * @param round         The one-based round of the level
+     * @param enemies       The number of enemies of the level
+     * @param leakRate      The average share of the enemies that reached the exit, which is the difficulty of the level
+     * @param holdRate      The share of layouts that let no enemy through
+     * @param clearSeconds  The average game time in seconds until the board was clear
+     * @param overkillRatio All damage dealt divided by the damage that took health off enemies, 0 if no enemy was hit
+     * @param expected      The median leak rate of the neighbouring levels
+     * @param flagged       Whether the leak rate is too far from the expected one
+     */
+    public record LevelDifficulty(int round, int enemies, double leakRate, double holdRate, double clearSeconds, double overkillRatio,
+				  double expected, boolean flagged)
+    {
+	private LevelDifficulty withExpected(double expected, boolean flagged) {
+	    return new LevelDifficulty(round, enemies, leakRate, holdRate, clearSeconds, overkillRatio, expected, flagged);
+	}
+
+	/**
+	 * Returns whether a flagged level is harder ("spike") or easier ("dip") than its neighbours, or an empty string if it is not
+	 * flagged.
+	 */
+	public String getFlag() {
+	    if (!flagged) {
+		return "";
+	    }
+	    return leakRate > expected ? "spike" : "dip";
+	}
+    }
+
+    /**
+     * The ratings of all levels of a level file.
+     *
+     * @param levels      The rating of every level, in round order
+     * @param simulations The number of simulations played
+     * @param nanos       How long the estimate took
+     * @param threads     The number of simulation threads
+     */
+    public record Report(List<LevelDifficulty> levels, int simulations, long nanos, int threads)
+    {
+	public double getSimulationsPerSecond() {
+	    return simulations * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(1, nanos);
+	}
+
+	/**
+	 * Returns the report as a table with one line per level, with a bar drawing the difficulty curve.
+	 */
+	public String format() {
+	    StringBuilder text = new StringBuilder();
+	    text.append(String.format(Locale.ROOT, "%5s %7s %6s %6s %8s %8s  %-" + BAR_WIDTH + "s %s%n", "round", "enemies", "leak", "held",
+				      "clear s", "overkill", "curve", "flag"));
+	    for (LevelDifficulty level : levels) {
+		String bar = "#".repeat((int) Math.round(level.leakRate() * BAR_WIDTH));
+		text.append(String.format(Locale.ROOT, "%5d %7d %5.1f%% %5.1f%% %8.1f %8.2f  %-" + BAR_WIDTH + "s %s%n", level.round(),
+					  level.enemies(), level.leakRate() * 100, level.holdRate() * 100, level.clearSeconds(),
+					  level.overkillRatio(), bar, level.getFlag()));
+	    }
+	    return text.toString();
+	}
+
+	/**
+	 * Writes the report as CSV with a header line.
+	 *
+	 * @throws IOException If the file cannot be written
+	 */
+	public void writeCsv(File file) throws IOException {
+	    try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+		writer.println("round,enemies,leak_rate,hold_rate,clear_seconds,overkill_ratio,expected_leak_rate,flag");
+		for (LevelDifficulty level : levels) {
+		    writer.println(String.format(Locale.ROOT, "%d,%d,%.4f,%.4f,%.2f,%.4f,%.4f,%s", level.round(), level.enemies(),
+						 level.leakRate(), level.holdRate(), level.clearSeconds(), level.overkillRatio(),
+						 level.expected(), level.getFlag()));
+		}
+	    }
+	}
+
+	@Override public String toString() {
+	    long flagged = levels.stream().filter(LevelDifficulty::flagged).count();
+	    return String.format(Locale.ROOT, "%d levels, %d simulations in %.1f s (%.0f/s on %d threads), %d levels flagged",
+				 levels.size(), simulations, nanos / 1.0e9, getSimulationsPerSecond(), threads, flagged);
+	}
+    }
+}
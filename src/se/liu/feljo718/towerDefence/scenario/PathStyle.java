@@ -0,0 +1,20 @@
+package se.liu.feljo718.towerdefence.scenario;
+
+/**
+ * The shape of the enemy path in a generated map.
+ *
+ * @author feljo718
+ * @see ScenarioGenerator
+ */
+public enum PathStyle
+{
+    /**
+     * A single path that runs back and forth across the whole map, with two rows of buildable ground between its lanes.
+     */
+    SERPENTINE,
+
+    /**
+     * A serpentine path with wider lanes where some stretches split into two routes that join again further on.
+     */
+    BRANCHING
+}
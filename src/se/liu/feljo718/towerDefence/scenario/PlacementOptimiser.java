@@ -0,0 +1,500 @@
+package se.liu.feljo718.towerdefence.scenario;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.board.TileGrid;
+import se.liu.feljo718.towerdefence.handler.LogHandler;
+import se.liu.feljo718.towerdefence.handler.SoundManager;
+import se.liu.feljo718.towerdefence.tower.TowerType;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Searches for a good {@link BuildPlan} for a map and its levels by simulating many candidate plans.
+ * <p>
+ * The search is an evolutionary strategy. It keeps the best plans found so far and makes new candidates from them by moving, adding,
+ * removing or changing towers, by shifting when they are bought or upgraded, and now and then by mixing two plans. Every candidate is
+ * played to the end by a {@link PlanSimulation} on its own headless board.
+ * <p>
+ * The simulations run on a {@link ForkJoinPool} with one thread per core. The search does not wait for a whole generation to finish:
+ * whenever a simulation ends its plan joins the population and a new candidate is started in its place, so every core stays busy until
+ * the time budget runs out. Simulations still running at that point are abandoned.
+ * <p>
+ * Candidates are only ever placed on open ground close to the path, since towers further away cannot reach any enemy. Each outcome is
+ * cached under the plan's {@link BuildPlan#getKey() key}, so a candidate that has been simulated before is skipped instead of simulated
+ * again. Simulations stop as soon as the last life is lost, so hopeless plans cost little.
+ * <p>
+ * The optimiser can be run from the command line, see {@link #main(String[])}. It writes the best plan as JSON that
+ * {@link TowerLayoutReader} can also read as a plain tower layout.
+ *
+ * @author feljo718
+ * @see BuildPlan
+ * @see PlanSimulation
+ */
+public final class PlacementOptimiser
+{
+    private static final int POPULATION_SIZE = 32;
+    private static final int TOURNAMENT_SIZE = 3;
+    private static final double CROSSOVER_CHANCE = 0.3;
+    private static final int MAX_MUTATIONS = 3;
+    /** Candidates kept in flight per thread, so a thread never waits for the coordinator to hand it the next one. */
+    private static final int CANDIDATES_PER_THREAD = 2;
+    /** How many times a new candidate is made before giving up on finding one that has not been simulated yet. */
+    private static final int MAX_CANDIDATE_ATTEMPTS = 16;
+    /** Towers are only planned on tiles this close to a walkable tile, measured in tiles in any direction. */
+    private static final int TOWER_REACH = 3;
+    /** How far a tower moves at most when it is moved to a nearby tile. */
+    private static final int MOVE_DISTANCE = 2;
+    private static final int MUTATION_KINDS = 6;
+
+    private static final int DEFAULT_SECONDS = 60;
+    private static final int DEFAULT_MAX_TOWERS = 12;
+    private static final int DEFAULT_SEED = 718;
+    private static final String DEFAULT_OUTPUT = "resources" + File.separator + "generated";
+    /** Held so that the quieter log level set by {@link #main(String[])} is not lost when the logger is garbage collected. */
+    private static final Logger GAME_LOGGER = Logger.getLogger("se.liu.feljo718.towerdefence");
+
+    private final PlanSimulation simulation;
+    private final int rounds;
+    private final int maxTowers;
+    private final int threads;
+    private final Random random;
+    private final int mapWidth;
+    private final int[] candidateTiles;
+    private final Set<Long> candidateTileSet = new HashSet<>();
+    private final Map<Long, PlanSimulation.Outcome> outcomes = new ConcurrentHashMap<>();
+    /** Keys of the plans being simulated, so the same candidate is not started twice. Only touched by the coordinating thread. */
+    private final Set<Long> running = new HashSet<>();
+    /** The best plans found so far, best first. Only touched by the coordinating thread. */
+    private final List<Candidate> population = new ArrayList<>();
+    private long simulations = 0;
+    private long cacheHits = 0;
+
+    /**
+     * Creates an optimiser for the map and levels of a simulation.
+     *
+     * @param simulation The simulation to evaluate plans with
+     * @param maxTowers  The most towers a plan may have
+     * @param threads    The number of simulations to run at the same time
+     * @param seed       The seed for making candidates
+     */
+    public PlacementOptimiser(PlanSimulation simulation, int maxTowers, int threads, long seed) {
+	if (maxTowers < 1 || threads < 1) {
+	    throw new IllegalArgumentException("The tower limit and the thread count must be positive values");
+	}
+	this.simulation = simulation;
+	this.rounds = simulation.getRoundCount();
+	this.maxTowers = maxTowers;
+	this.threads = threads;
+	this.random = new Random(seed);
+
+	TileGrid grid = simulation.createBoard().getTileGrid();
+	this.mapWidth = grid.getWidth();
+	this.candidateTiles = findCandidateTiles(grid);
+	for (int tile : candidateTiles) {
+	    candidateTileSet.add((long) tile);
+	}
+	if (candidateTiles.length == 0) {
+	    throw new IllegalArgumentException("The map has no tiles to build on");
+	}
+    }
+
+    /**
+     * Returns the map tiles, as row times width plus column without the interface row, where towers can be built and can reach the path.
+     * If no buildable tile is near the path every buildable tile is used.
+     */
+    static int[] findCandidateTiles(TileGrid grid) {
+	List<Integer> near = new ArrayList<>();
+	List<Integer> all = new ArrayList<>();
+	// Row 0 is the interface row
+	for (int row = 1; row < grid.getHeight(); row++) {
+	    for (int col = 0; col < grid.getWidth(); col++) {
+		if (!grid.isBuildable(row, col)) {
+		    continue;
+		}
+		int tile = (row - 1) * grid.getWidth() + col;
+		all.add(tile);
+		if (isNearWalkable(grid, row, col)) {
+		    near.add(tile);
+		}
+	    }
+	}
+	List<Integer> tiles = near.isEmpty() ? all : near;
+	return tiles.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static boolean isNearWalkable(TileGrid grid, int row, int col) {
+	for (int r = row - TOWER_REACH; r <= row + TOWER_REACH; r++) {
+	    for (int c = col - TOWER_REACH; c <= col + TOWER_REACH; c++) {
+		if (grid.isWalkable(r, c)) {
+		    return true;
+		}
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Searches until the time budget runs out and returns the best plan found.
+     *
+     * @param budget How long to search
+     *
+     * @return The best plan and how the search went
+     * @throws InterruptedException If the calling thread is interrupted while waiting for simulations
+     */
+    public Result optimise(Duration budget) throws InterruptedException {
+	long start = System.nanoTime();
+	long deadline = start + budget.toNanos();
+	BooleanSupplier expired = () -> System.nanoTime() - deadline >= 0;
+	ForkJoinPool pool = new ForkJoinPool(threads);
+	CompletionService<Candidate> completed = new ExecutorCompletionService<>(pool);
+	LogHandler.info(PlacementOptimiser.class, "Optimising {0} rounds on {1,number,#} candidate tiles with {2} threads for {3}", rounds,
+			candidateTiles.length, threads, budget);
+
+	int inFlight = 0;
+	try {
+	    submit(completed, BuildPlan.EMPTY, expired);
+	    inFlight++;
+	    while (inFlight < threads * CANDIDATES_PER_THREAD) {
+		submit(completed, nextCandidate(), expired);
+		inFlight++;
+	    }
+
+	    while (inFlight > 0) {
+		Candidate candidate = completed.take().get();
+		inFlight--;
+		if (candidate != null) {
+		    running.remove(candidate.plan().getKey());
+		    outcomes.put(candidate.plan().getKey(), candidate.outcome());
+		    simulations++;
+		    addToPopulation(candidate);
+		}
+		if (!expired.getAsBoolean()) {
+		    submit(completed, nextCandidate(), expired);
+		    inFlight++;
+		}
+	    }
+	} catch (ExecutionException e) {
+	    throw new IllegalStateException("A simulation failed", e.getCause());
+	} finally {
+	    pool.shutdownNow();
+	}
+
+	Candidate best = population.isEmpty() ? null : population.get(0);
+	return new Result(best != null ? best.plan() : BuildPlan.EMPTY, best != null ? best.outcome() : null, simulations, cacheHits,
+			  System.nanoTime() - start, threads);
+    }
+
+    private void submit(CompletionService<Candidate> completed, BuildPlan plan, BooleanSupplier expired) {
+	running.add(plan.getKey());
+	completed.submit(() -> {
+	    PlanSimulation.Outcome outcome = simulation.run(plan, expired);
+	    return outcome != null ? new Candidate(plan, outcome) : null;
+	});
+    }
+
+    private void addToPopulation(Candidate candidate) {
+	int index = 0;
+	while (index < population.size() && population.get(index).outcome().compareTo(candidate.outcome()) >= 0) {
+	    index++;
+	}
+	if (index >= POPULATION_SIZE) {
+	    return;
+	}
+	population.add(index, candidate);
+	if (population.size() > POPULATION_SIZE) {
+	    population.remove(population.size() - 1);
+	}
+	if (index == 0) {
+	    PlanSimulation.Outcome outcome = candidate.outcome();
+	    LogHandler.info(PlacementOptimiser.class, "Best after {0,number,#} simulations: {1} rounds, {2} lives, {3,number,#} coins",
+			    simulations, outcome.roundsCleared(), outcome.lives(), outcome.coins());
+	}
+    }
+
+    /**
+     * Makes a candidate that is neither cached nor already being simulated, if one can be found in a few attempts.
+     */
+    private BuildPlan nextCandidate() {
+	BuildPlan plan = null;
+	for (int attempt = 0; attempt < MAX_CANDIDATE_ATTEMPTS; attempt++) {
+	    plan = population.size() < TOURNAMENT_SIZE ? randomPlan() : breed();
+	    long key = plan.getKey();
+	    if (outcomes.containsKey(key)) {
+		cacheHits++;
+	    } else if (!running.contains(key)) {
+		return plan;
+	    }
+	}
+	return plan;
+    }
+
+    private BuildPlan randomPlan() {
+	List<PlannedTower> towers = new ArrayList<>();
+	Set<Long> used = new HashSet<>();
+	int count = 1 + random.nextInt(Math.max(1, maxTowers / 2));
+	for (int i = 0; i < count; i++) {
+	    addRandomTower(towers, used);
+	}
+	return new BuildPlan(towers);
+    }
+
+    private BuildPlan breed() {
+	BuildPlan parent = tournament();
+	List<PlannedTower> towers;
+	if (random.nextDouble() < CROSSOVER_CHANCE) {
+	    towers = crossover(parent, tournament());
+	} else {
+	    towers = new ArrayList<>(parent.getTowers());
+	}
+	Set<Long> used = new HashSet<>();
+	for (PlannedTower tower : towers) {
+	    used.add(tileOf(tower.row(), tower.col()));
+	}
+	int mutations = 1 + random.nextInt(MAX_MUTATIONS);
+	for (int i = 0; i < mutations; i++) {
+	    mutate(towers, used);
+	}
+	return new BuildPlan(towers);
+    }
+
+    private BuildPlan tournament() {
+	int best = random.nextInt(population.size());
+	for (int i = 1; i < TOURNAMENT_SIZE; i++) {
+	    best = Math.min(best, random.nextInt(population.size()));
+	}
+	return population.get(best).plan();
+    }
+
+    /**
+     * Takes each tower of either parent with even chance, as long as its tile is still free.
+     */
+    private List<PlannedTower> crossover(BuildPlan first, BuildPlan second) {
+	List<PlannedTower> towers = new ArrayList<>();
+	Set<Long> used = new HashSet<>();
+	for (BuildPlan parent : List.of(first, second)) {
+	    for (PlannedTower tower : parent.getTowers()) {
+		if (towers.size() < maxTowers && random.nextBoolean() && used.add(tileOf(tower.row(), tower.col()))) {
+		    towers.add(tower);
+		}
+	    }
+	}
+	return towers;
+    }
+
+    private void mutate(List<PlannedTower> towers, Set<Long> used) {
+	int kind = towers.isEmpty() ? 0 : random.nextInt(MUTATION_KINDS);
+	if (kind == 0) {
+	    if (towers.size() < maxTowers) {
+		addRandomTower(towers, used);
+	    }
+	    return;
+	}
+
+	int index = random.nextInt(towers.size());
+	PlannedTower tower = towers.get(index);
+	switch (kind) {
+	    case 1 -> {
+		towers.remove(index);
+		used.remove(tileOf(tower.row(), tower.col()));
+	    }
+	    case 2 -> {
+		int row = tower.row() + random.nextInt(2 * MOVE_DISTANCE + 1) - MOVE_DISTANCE;
+		int col = tower.col() + random.nextInt(2 * MOVE_DISTANCE + 1) - MOVE_DISTANCE;
+		long tile = tileOf(row, col);
+		if (col >= 0 && col < mapWidth && candidateTileSet.contains(tile) && used.add(tile)) {
+		    used.remove(tileOf(tower.row(), tower.col()));
+		    towers.set(index, new PlannedTower(tower.type(), row, col, tower.buildRound(), tower.upgradeRound()));
+		}
+	    }
+	    case 3 -> towers.set(index, new PlannedTower(randomType(), tower.row(), tower.col(), tower.buildRound(), tower.upgradeRound()));
+	    case 4 -> {
+		int buildRound = Math.max(0, Math.min(rounds - 1, tower.buildRound() + (random.nextBoolean() ? 1 : -1)));
+		int upgradeRound = tower.isUpgraded() ? Math.max(buildRound, tower.upgradeRound()) : PlannedTower.NEVER;
+		towers.set(index, new PlannedTower(tower.type(), tower.row(), tower.col(), buildRound, upgradeRound));
+	    }
+	    default -> {
+		int upgradeRound;
+		if (!tower.isUpgraded()) {
+		    upgradeRound = randomRound(tower.buildRound());
+		} else if (random.nextInt(3) == 0) {
+		    upgradeRound = PlannedTower.NEVER;
+		} else {
+		    upgradeRound = Math.max(tower.buildRound(), tower.upgradeRound() + (random.nextBoolean() ? 1 : -1));
+		}
+		towers.set(index, new PlannedTower(tower.type(), tower.row(), tower.col(), tower.buildRound(), upgradeRound));
+	    }
+	}
+    }
+
+    private void addRandomTower(List<PlannedTower> towers, Set<Long> used) {
+	for (int attempt = 0; attempt < MAX_CANDIDATE_ATTEMPTS; attempt++) {
+	    int tile = candidateTiles[random.nextInt(candidateTiles.length)];
+	    if (used.add((long) tile)) {
+		int buildRound = randomRound(0);
+		int upgradeRound = random.nextBoolean() ? randomRound(buildRound) : PlannedTower.NEVER;
+		towers.add(new PlannedTower(randomType(), tile / mapWidth, tile % mapWidth, buildRound, upgradeRound));
+		return;
+	    }
+	}
+    }
+
+    /**
+     * Returns a random round from the given one to the last, with early rounds more likely, since towers bought early defend more rounds.
+     */
+    private int randomRound(int first) {
+	int span = Math.max(1, rounds - first);
+	return first + (int) (span * random.nextDouble() * random.nextDouble());
+    }
+
+    private TowerType randomType() {
+	TowerType[] types = TowerType.values();
+	return types[random.nextInt(types.length)];
+    }
+
+    private long tileOf(int row, int col) {
+	return (long) row * mapWidth + col;
+    }
+
+    /**
+     * Writes a plan as JSON.
+     *
+     * @param plan The plan to write
+     * @param file The file to write to
+     *
+     * @throws IOException If the file cannot be written
+     */
+    public static void writePlan(BuildPlan plan, File file) throws IOException {
+	Gson gson = new GsonBuilder().setPrettyPrinting().create();
+	try (Writer writer = new FileWriter(file)) {
+	    gson.toJson(plan.getTowers(), writer);
+	}
+    }
+
+    /**
+     * Searches for a good plan from command line arguments. Run with {@code --help} to list the options.
+     *
+     * @param args The command line arguments
+     */
+    public static void main(String[] args) {
+	Options options = new Options();
+	options.addOption(Option.builder("m").longOpt("map").hasArg().desc("map name (default " + Board.DEFAULT_MAP + ")").build());
+	options.addOption(Option.builder("f").longOpt("map-file").hasArg().desc("map file (default " + Board.MAP_FILE + ")").build());
+	options.addOption(Option.builder("v").longOpt("level-file").hasArg().desc("level file (default " + Board.LEVEL_FILE + ")").build());
+	options.addOption(Option.builder("w").longOpt("width").hasArg().desc("map width (default " + Board.DEFAULT_WIDTH + ")").build());
+	options.addOption(Option.builder("t").longOpt("height").hasArg().desc("map height (default " + Board.DEFAULT_HEIGHT + ")").build());
+	options.addOption(Option.builder("r").longOpt("rounds").hasArg().desc("most rounds to play (default all)").build());
+	options.addOption(
+		Option.builder("x").longOpt("max-towers").hasArg().desc("most towers (default " + DEFAULT_MAX_TOWERS + ")").build());
+	options.addOption(
+		Option.builder("b").longOpt("budget").hasArg().desc("seconds to search (default " + DEFAULT_SECONDS + ")").build());
+	options.addOption(Option.builder("j").longOpt("threads").hasArg().desc("simulation threads (default one per core)").build());
+	options.addOption(Option.builder("s").longOpt("seed").hasArg().desc("random seed (default " + DEFAULT_SEED + ")").build());
+	options.addOption(Option.builder("o").longOpt("output").hasArg().desc("file to write the best plan to").build());
+	options.addOption(Option.builder("h").longOpt("help").desc("show this help").build());
+
+	try {
+	    CommandLine line = new DefaultParser().parse(options, args);
+	    if (line.hasOption("help")) {
+		new HelpFormatter().printHelp("PlacementOptimiser", options);
+		return;
+	    }
+
+	    String map = line.getOptionValue("map", Board.DEFAULT_MAP);
+	    int width = Integer.parseInt(line.getOptionValue("width", String.valueOf(Board.DEFAULT_WIDTH)));
+	    int height = Integer.parseInt(line.getOptionValue("height", String.valueOf(Board.DEFAULT_HEIGHT)));
+	    int rounds = Integer.parseInt(line.getOptionValue("rounds", String.valueOf(Integer.MAX_VALUE)));
+	    int maxTowers = Integer.parseInt(line.getOptionValue("max-towers", String.valueOf(DEFAULT_MAX_TOWERS)));
+	    int seconds = Integer.parseInt(line.getOptionValue("budget", String.valueOf(DEFAULT_SECONDS)));
+	    int threads = Integer.parseInt(line.getOptionValue("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+	    long seed = Long.parseLong(line.getOptionValue("seed", String.valueOf(DEFAULT_SEED)));
+	    File output = new File(line.getOptionValue("output", DEFAULT_OUTPUT + File.separator + defaultFileName(map)));
+
+	    // Thousands of simulated games would otherwise log every tower and every level
+	    GAME_LOGGER.setLevel(Level.WARNING);
+	    LogHandler.getLogger(PlacementOptimiser.class).setLevel(Level.INFO);
+	    SoundManager.setEnabled(false);
+
+	    PlanSimulation simulation = new PlanSimulation(width, height, line.getOptionValue("map-file", Board.MAP_FILE),
+							   line.getOptionValue("level-file", Board.LEVEL_FILE), map, rounds);
+	    Result result = new PlacementOptimiser(simulation, maxTowers, threads, seed).optimise(Duration.ofSeconds(seconds));
+	    LogHandler.info(PlacementOptimiser.class, result.toString());
+	    File folder = output.getAbsoluteFile().getParentFile();
+	    if (folder != null && !folder.isDirectory() && !folder.mkdirs()) {
+		throw new IOException("Could not create " + folder);
+	    }
+	    writePlan(result.plan(), output);
+	    LogHandler.info(PlacementOptimiser.class, "Wrote the best plan to " + output.getAbsolutePath());
+	} catch (ParseException | IllegalArgumentException e) {
+	    System.err.println(e.getMessage());
+	    new HelpFormatter().printHelp("PlacementOptimiser", options);
+	    System.exit(1);
+	} catch (IOException e) {
+	    LogHandler.severe(PlacementOptimiser.class, "Could not write plan: " + e.getMessage(), e);
+	    System.exit(1);
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    LogHandler.logWarning(PlacementOptimiser.class, "Interrupted before the search finished");
+	}
+    }
+
+    /**
+     * Builds the file name used when none is given, for example {@code default-map-plan.json}.
+     */
+    public static String defaultFileName(String map) {
+	return map.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-") + "-plan.json";
+    }
+
+    private record Candidate(BuildPlan plan, PlanSimulation.Outcome outcome)
+    {
+    }
+
+    /**
+     * The outcome of a search.
+     *
+     * @param plan        The best plan found
+     * @param outcome     How the best plan did, or null if no simulation finished in time
+     * @param simulations The number of simulations that finished
+     * @param cacheHits   The number of candidates skipped because they had been simulated before
+     * @param nanos       How long the search took
+     * @param threads     The number of simulation threads
+     */
+    public record Result(BuildPlan plan, PlanSimulation.Outcome outcome, long simulations, long cacheHits, long nanos, int threads)
+    {
+	public double getSimulationsPerSecond() {
+	    return simulations * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(1, nanos);
+	}
+
+	@Override public String toString() {
+	    return String.format(Locale.ROOT, "%d simulations (%.1f/s on %d threads), %d cache hits, best: %s with %d towers planned",
+				 simulations, getSimulationsPerSecond(), threads, cacheHits, outcome, plan.size());
+	}
+    }
+}
@@ -0,0 +1,206 @@
+package se.liu.feljo718.towerdefence.scenario;
+
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.command.CommandResult;
+import se.liu.feljo718.towerdefence.command.PlaceTowerCommand;
+import se.liu.feljo718.towerdefence.command.StartRoundCommand;
+import se.liu.feljo718.towerdefence.command.UpgradeTowerCommand;
+import se.liu.feljo718.towerdefence.handler.LogHandler;
+import se.liu.feljo718.towerdefence.tower.Tower;
+import se.liu.feljo718.towerdefence.viewer.TowerShop;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Plays a {@link BuildPlan} on a headless board from the first round until the player loses, the levels run out or a round limit is
+ * reached.
+ * <p>
+ * Before every round the towers that are due are bought and upgraded through the same {@link se.liu.feljo718.towerdefence.command.Command}s
+ * the interface uses, so a plan can only do what a player could do with the same coins. Towers that could not be afforded before the round
+ * are bought during it as soon as the coins from killed enemies allow. The next round is started as soon as the board is
+ * clear, and the board runs at its highest game speed without any window, sound or listeners. The simulation stops as soon as the last
+ * life is lost, which makes bad plans much cheaper to evaluate than good ones.
+ * <p>
+ * A board does not depend on anything but its map, its levels and the commands it is given, so the same plan always has the same
+ * {@link Outcome}. A simulation only touches its own board, so any number of them can run on different threads at the same time.
+ *
+ * @author feljo718
+ * @see BuildPlan
+ * @see PlacementOptimiser
+ */
+public final class PlanSimulation
+{
+    /** A round still running after this many frames, about ten minutes of game time at the highest speed, is counted as lost. */
+    private static final long MAX_FRAMES_PER_ROUND = 60L * 60 * 10;
+    /** How often, in frames, a running round buys towers the player could not afford before and checks whether it has been cancelled. */
+    private static final int CHECK_FRAMES = 30;
+    /** Tower ids start at one, so these can mark planned towers without a tower on the board. */
+    private static final int NOT_BUILT = -1;
+    private static final int FAILED = -2;
+
+    private final int width;
+    private final int height;
+    private final String mapFile;
+    private final String levelFile;
+    private final String mapName;
+    private final int maxRounds;
+
+    /**
+     * Creates a simulation of the given map and levels.
+     *
+     * @param width     The width of the map in tiles
+     * @param height    The height of the map in tiles, without the interface row
+     * @param mapFile   The JSON file containing the map
+     * @param levelFile The JSON file containing the levels
+     * @param mapName   The name of the map
+     * @param maxRounds The most rounds to play
+     */
+    public PlanSimulation(int width, int height, String mapFile, String levelFile, String mapName, int maxRounds) {
+	if (maxRounds < 1) {
+	    throw new IllegalArgumentException("At least one round must be played");
+	}
+	this.width = width;
+	this.height = height;
+	this.mapFile = mapFile;
+	this.levelFile = levelFile;
+	this.mapName = mapName;
+	this.maxRounds = maxRounds;
+    }
+
+    /**
+     * Creates a fresh board of the simulated map, before the first round.
+     */
+    public Board createBoard() {
+	Board board = new Board(width, height, mapFile, levelFile, mapName);
+	board.setGameSpeed(Board.MAX_GAME_SPEED);
+	return board;
+    }
+
+    /**
+     * Returns the number of rounds a simulation plays at most, which is the round limit or the number of levels, whichever is smaller.
+     */
+    public int getRoundCount() {
+	return Math.min(maxRounds, createBoard().getLevelCount());
+    }
+
+    /**
+     * Plays a plan to the end.
+     *
+     * @param plan      The plan to play
+     * @param cancelled Checked now and then while the simulation runs; once it returns true the simulation is abandoned
+     *
+     * @return The outcome, or null if the simulation was cancelled
+     */
+    public Outcome run(BuildPlan plan, BooleanSupplier cancelled) {
+	Board board = createBoard();
+	int rounds = Math.min(maxRounds, board.getLevelCount());
+	List<PlannedTower> towers = plan.getTowers();
+	int[] towerIds = new int[towers.size()];
+	Arrays.fill(towerIds, NOT_BUILT);
+
+	long frames = 0;
+	int cleared = 0;
+	while (cleared < rounds) {
+	    buyTowers(board, towers, towerIds, cleared);
+	    upgradeTowers(board, towers, towerIds, cleared);
+	    int round = board.getRound();
+	    new StartRoundCommand().apply(board);
+	    if (board.getRound() == round) {
+		// The board declared the game completed instead of starting another round
+		break;
+	    }
+
+	    long roundFrames = 0;
+	    do {
+		board.tick();
+		frames++;
+		roundFrames++;
+		if (board.getLives() <= 0) {
+		    return new Outcome(cleared, 0, board.getCoins(), frames, built(towerIds));
+		}
+		if (roundFrames % CHECK_FRAMES == 0) {
+		    if (cancelled.getAsBoolean()) {
+			return null;
+		    }
+		    buyTowers(board, towers, towerIds, cleared);
+		}
+		if (roundFrames > MAX_FRAMES_PER_ROUND) {
+		    LogHandler.logWarning(PlanSimulation.class, "Round " + board.getRound() + " never ended, counted as lost");
+		    return new Outcome(cleared, 0, board.getCoins(), frames, built(towerIds));
+		}
+	    } while (!board.isRoundCleared());
+	    cleared++;
+	}
+	return new Outcome(cleared, board.getLives(), board.getCoins(), frames, built(towerIds));
+    }
+
+    /**
+     * Buys the towers that are due in the given round. Towers the player cannot afford yet are tried again as coins come in during the
+     * round, towers that cannot be built where they are planned are given up.
+     */
+    private static void buyTowers(Board board, List<PlannedTower> towers, int[] towerIds, int round) {
+	for (int i = 0; i < towerIds.length; i++) {
+	    PlannedTower tower = towers.get(i);
+	    if (towerIds[i] != NOT_BUILT || tower.buildRound() > round || board.getCoins() < TowerShop.getStaticTowerCost(tower.type())) {
+		continue;
+	    }
+	    // Plans count rows without the interface row
+	    CommandResult<Tower> result = new PlaceTowerCommand(tower.type(), tower.row() + 1, tower.col()).apply(board);
+	    towerIds[i] = result.isAccepted() ? result.getValue().getId() : FAILED;
+	}
+    }
+
+    /**
+     * Upgrades each built tower whose upgrade round has come by one level, as far as the coins allow.
+     */
+    private static void upgradeTowers(Board board, List<PlannedTower> towers, int[] towerIds, int round) {
+	for (int i = 0; i < towerIds.length; i++) {
+	    PlannedTower tower = towers.get(i);
+	    if (towerIds[i] >= 0 && tower.isUpgraded() && tower.upgradeRound() <= round) {
+		new UpgradeTowerCommand(towerIds[i]).apply(board);
+	    }
+	}
+    }
+
+    private static int built(int[] towerIds) {
+	int count = 0;
+	for (int id : towerIds) {
+	    if (id >= 0) {
+		count++;
+	    }
+	}
+	return count;
+    }
+
+    /**
+     * How a plan did. Outcomes are ordered from worst to best: more rounds cleared is better, then more lives left. Of two lost games the
+     * one that lasted longer is better, which lets a search tell apart plans that all lose. Otherwise more coins left is better.
+     *
+     * @param roundsCleared The number of rounds won
+     * @param lives         The lives left, zero if the game was lost
+     * @param coins         The coins left when the simulation ended
+     * @param frames        The number of frames simulated
+     * @param towersBuilt   The number of towers of the plan that were actually built
+     */
+    public record Outcome(int roundsCleared, int lives, int coins, long frames, int towersBuilt) implements Comparable<Outcome>
+    {
+	public boolean isLost() {
+	    return lives <= 0;
+	}
+
+	@Override public int compareTo(Outcome other) {
+	    if (roundsCleared != other.roundsCleared) {
+		return Integer.compare(roundsCleared, other.roundsCleared);
+	    }
+	    if (lives != other.lives) {
+		return Integer.compare(lives, other.lives);
+	    }
+	    if (isLost() && frames != other.frames) {
+		return Long.compare(frames, other.frames);
+	    }
+	    return Integer.compare(coins, other.coins);
+	}
+    }
+}
@@ -0,0 +1,29 @@
+package se.liu.feljo718.towerdefence.scenario;
+
+import se.liu.feljo718.towerdefence.tower.TowerType;
+
+/**
+ * A tower in a {@link BuildPlan}: where it stands, and in which rounds it is bought and upgraded.
+ * <p>
+ * The tower is bought before the given build round starts, or as soon as the player can afford it after that. From the upgrade round on
+ * it is upgraded by one level before every round, as far as the coins allow, until it reaches its highest level. The field names match
+ * {@link TowerPlacement}, so a saved plan can also be read as a plain tower layout.
+ *
+ * @param type         The tower type
+ * @param row          The map row, counted without the board's interface row
+ * @param col          The map column
+ * @param buildRound   The first round, counted from zero, before which the tower is bought
+ * @param upgradeRound The first round before which the tower is upgraded, or {@link #NEVER}
+ *
+ * @author feljo718
+ * @see BuildPlan
+ */
+public record PlannedTower(TowerType type, int row, int col, int buildRound, int upgradeRound)
+{
+    /** Upgrade round of a tower that is never upgraded. */
+    public static final int NEVER = -1;
+
+    public boolean isUpgraded() {
+	return upgradeRound >= 0;
+    }
+}
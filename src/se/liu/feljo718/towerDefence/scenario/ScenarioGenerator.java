@@ -0,0 +1,428 @@
+package se.liu.feljo718.towerdefence.scenario;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import se.liu.feljo718.towerdefence.enemy.EnemyType;
+import se.liu.feljo718.towerdefence.handler.LogHandler;
+import se.liu.feljo718.towerdefence.tower.TowerType;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates large synthetic scenarios for stress testing: a map, a set of levels and a tower layout.
+ * <p>
+ * The bundled content is far too small to show how the game scales, so this class writes files in the same formats as {@code maps.json}
+ * and {@code levels.json}, but with maps of up to {@value #MAX_SIZE}×{@value #MAX_SIZE} tiles, levels with tens of thousands of enemies and
+ * a matching layout with towers packed along the path. Everything is derived from a single seed, so the same arguments always produce the
+ * same files. The map, the levels and the towers each use their own random sequence, which means that changing for example the tower
+ * density leaves the map untouched.
+ * <p>
+ * Generated paths run back and forth across the map in horizontal lanes, joined by vertical connectors at alternating ends. In
+ * {@link PathStyle#BRANCHING} maps some stretches of the lanes that run to the right get a bypass above or below them. A bypass is a few
+ * tiles longer than the stretch it runs beside, and the board's {@link se.liu.feljo718.towerdefence.board.FlowField} sends part of the
+ * enemies along it.
+ * <p>
+ * The generator can be run from the command line, see {@link #main(String[])}, and writes {@code <name>-maps.json},
+ * {@code <name>-levels.json} and {@code <name>-towers.json}. The files can be loaded with
+ * {@link se.liu.feljo718.towerdefence.board.Board#Board(int, int, String, String, String)} and {@link TowerLayoutReader}.
+ *
+ * @author feljo718
+ * @see PathStyle
+ * @see TowerLayoutReader
+ */
+public class ScenarioGenerator
+{
+    /** Largest supported width and height of a generated map. */
+    public static final int MAX_SIZE = 1000;
+    private static final int MIN_WIDTH = 8;
+    private static final int MIN_HEIGHT = 3;
+
+    private static final char GRASS = 'G';
+    private static final char PATH = 'P';
+    private static final char WATER = 'W';
+    private static final char SAND = 'S';
+    private static final char START = 'B';
+    private static final char END = 'E';
+
+    /** Rows from one serpentine lane to the next, leaving two rows of ground between them. */
+    private static final int SERPENTINE_SPACING = 3;
+    /** Branching lanes need an extra row so that a bypass never touches the next lane. */
+    private static final int BRANCHING_SPACING = 4;
+    /** Distance of a bypass from its lane. */
+    private static final int BYPASS_OFFSET = 2;
+    private static final int MIN_BYPASS_LENGTH = 4;
+    /** Roughly one bypass is attempted for every this many columns of a lane. */
+    private static final int COLUMNS_PER_BYPASS = 30;
+    /** One patch of water or sand per this many tiles. */
+    private static final int TILES_PER_PATCH = 150;
+    private static final int MAX_PATCH_RADIUS = 3;
+    /** Towers are only placed this close to the path, measured in tiles in any direction. */
+    private static final int TOWER_REACH = 2;
+
+    private static final int DEFAULT_SEED = 718;
+    private static final int DEFAULT_SIZE = 200;
+    private static final int DEFAULT_LEVELS = 10;
+    private static final int DEFAULT_ENEMIES = 20000;
+    private static final int DEFAULT_SPAWN_DELAY = 20;
+    private static final double DEFAULT_TOWER_DENSITY = 0.5;
+    private static final String DEFAULT_OUTPUT = "resources" + File.separator + "generated";
+
+    private final long seed;
+    private final int width;
+    private final int height;
+    private final PathStyle style;
+    private char[][] tiles = null;
+
+    /**
+     * Creates a generator for maps of the given size.
+     *
+     * @param seed   The seed all content is derived from
+     * @param width  The map width in tiles
+     * @param height The map height in tiles
+     * @param style  The shape of the path
+     *
+     * @throws IllegalArgumentException If the size is outside the supported range
+     */
+    public ScenarioGenerator(long seed, int width, int height, PathStyle style) {
+	if (width < MIN_WIDTH || width > MAX_SIZE || height < MIN_HEIGHT || height > MAX_SIZE) {
+	    throw new IllegalArgumentException(
+		    "Map size must be between " + MIN_WIDTH + "x" + MIN_HEIGHT + " and " + MAX_SIZE + "x" + MAX_SIZE + ", was " + width + "x" +
+		    height);
+	}
+	this.seed = seed;
+	this.width = width;
+	this.height = height;
+	this.style = style;
+    }
+
+    /**
+     * Generates the map, or returns the one generated before.
+     *
+     * @return The map rows, using the same tile letters as {@code maps.json}
+     */
+    public String[] generateMap() {
+	if (tiles == null) {
+	    Random random = new Random(seed);
+	    tiles = new char[height][width];
+	    for (char[] row : tiles) {
+		Arrays.fill(row, GRASS);
+	    }
+	    addPatches(random);
+	    carvePath(random);
+	}
+
+	String[] rows = new String[height];
+	for (int row = 0; row < height; row++) {
+	    rows[row] = new String(tiles[row]);
+	}
+	return rows;
+    }
+
+    /**
+     * Scatters patches of water and sand over the map. The path is carved afterwards, so patches never block it.
+     */
+    private void addPatches(Random random) {
+	int patches = width * height / TILES_PER_PATCH;
+	for (int i = 0; i < patches; i++) {
+	    char tile = random.nextBoolean() ? WATER : SAND;
+	    int centerRow = random.nextInt(height);
+	    int centerCol = random.nextInt(width);
+	    int radius = 1 + random.nextInt(MAX_PATCH_RADIUS);
+	    for (int row = Math.max(0, centerRow - radius); row <= Math.min(height - 1, centerRow + radius); row++) {
+		for (int col = Math.max(0, centerCol - radius); col <= Math.min(width - 1, centerCol + radius); col++) {
+		    if (Math.abs(row - centerRow) + Math.abs(col - centerCol) <= radius) {
+			tiles[row][col] = tile;
+		    }
+		}
+	    }
+	}
+    }
+
+    /**
+     * Carves the lanes, connectors and bypasses of the path, starting at the left edge of the first lane.
+     */
+    private void carvePath(Random random) {
+	int spacing = style == PathStyle.BRANCHING ? BRANCHING_SPACING : SERPENTINE_SPACING;
+	List<Integer> lanes = new ArrayList<>();
+	for (int row = 1; row < height - 1; row += spacing) {
+	    lanes.add(row);
+	}
+	if (lanes.isEmpty()) {
+	    lanes.add(height / 2);
+	}
+
+	for (int lane = 0; lane < lanes.size(); lane++) {
+	    int row = lanes.get(lane);
+	    boolean toTheRight = lane % 2 == 0;
+	    boolean first = lane == 0;
+	    boolean last = lane == lanes.size() - 1;
+
+	    int fromCol = first || (last && !toTheRight) ? 0 : 1;
+	    int toCol = last && toTheRight ? width - 1 : width - 2;
+	    for (int col = fromCol; col <= toCol; col++) {
+		tiles[row][col] = PATH;
+	    }
+
+	    if (!last) {
+		int connectorCol = toTheRight ? width - 2 : 1;
+		for (int r = row; r <= lanes.get(lane + 1); r++) {
+		    tiles[r][connectorCol] = PATH;
+		}
+	    }
+
+	    if (style == PathStyle.BRANCHING && toTheRight) {
+		addBypasses(random, row, !first, row + BYPASS_OFFSET < height);
+	    }
+
+	    if (first) {
+		tiles[row][0] = START;
+	    }
+	    if (last) {
+		tiles[row][toTheRight ? width - 1 : 0] = END;
+	    }
+	}
+    }
+
+    /**
+     * Adds bypasses to a lane that runs to the right. Bypasses stay clear of the connectors at both ends of the lane and never overlap.
+     */
+    private void addBypasses(Random random, int laneRow, boolean canGoUp, boolean canGoDown) {
+	if (!canGoUp && !canGoDown) {
+	    return;
+	}
+	int firstCol = 3;
+	int lastCol = width - 4;
+	int attempts = Math.max(1, width / COLUMNS_PER_BYPASS);
+	int col = firstCol;
+	for (int i = 0; i < attempts && col + MIN_BYPASS_LENGTH <= lastCol; i++) {
+	    int start = col + random.nextInt(Math.max(1, (lastCol - col) / (attempts - i)));
+	    int length = MIN_BYPASS_LENGTH + random.nextInt(COLUMNS_PER_BYPASS / 2);
+	    int end = Math.min(lastCol, start + length);
+	    if (end - start < MIN_BYPASS_LENGTH) {
+		break;
+	    }
+
+	    boolean up = canGoUp && (!canGoDown || random.nextBoolean());
+	    int direction = up ? -1 : 1;
+	    for (int offset = 1; offset <= BYPASS_OFFSET; offset++) {
+		tiles[laneRow + direction * offset][start] = PATH;
+		tiles[laneRow + direction * offset][end] = PATH;
+	    }
+	    for (int c = start; c <= end; c++) {
+		tiles[laneRow + direction * BYPASS_OFFSET][c] = PATH;
+	    }
+	    // Leave a gap so two bypasses never touch
+	    col = end + 2;
+	}
+    }
+
+    /**
+     * Generates levels in the format of {@code levels.json}.
+     * <p>
+     * The number of enemies grows linearly from level to level and reaches {@code enemiesInLastLevel} in the last one. Each level is
+     * split into a few waves of random enemy types, with spawn delays between {@code minSpawnDelay} and three times that.
+     *
+     * @param levelCount         The number of levels
+     * @param enemiesInLastLevel The number of enemies in the last level
+     * @param minSpawnDelay      The shortest delay between two spawns in milliseconds
+     *
+     * @return The levels as a JSON array
+     */
+    public JsonArray generateLevels(int levelCount, int enemiesInLastLevel, int minSpawnDelay) {
+	Random random = new Random(seed ^ 0x5DEECE66DL);
+	EnemyType[] types = EnemyType.values();
+	JsonArray levels = new JsonArray();
+
+	for (int level = 1; level <= levelCount; level++) {
+	    int enemies = Math.max(1, (int) ((long) enemiesInLastLevel * level / levelCount));
+	    int waveCount = Math.min(enemies, 3 + random.nextInt(4));
+
+	    JsonArray waves = new JsonArray();
+	    int remaining = enemies;
+	    for (int wave = 0; wave < waveCount; wave++) {
+		int count = wave == waveCount - 1 ? remaining : Math.max(1, remaining / (waveCount - wave) + random.nextInt(3) - 1);
+		remaining -= count;
+
+		JsonObject waveJson = new JsonObject();
+		// Bosses are the last type and should stay rare
+		EnemyType type = random.nextInt(20) == 0 ? EnemyType.BOSS : types[random.nextInt(types.length - 1)];
+		waveJson.addProperty("enemyType", type.name());
+		waveJson.addProperty("count", count);
+		waveJson.addProperty("spawnDelay", minSpawnDelay + random.nextInt(2 * minSpawnDelay + 1));
+		waves.add(waveJson);
+	    }
+
+	    JsonObject levelJson = new JsonObject();
+	    levelJson.addProperty("name", "Stress " + level);
+	    levelJson.addProperty("waveCooldown", 200 + random.nextInt(800));
+	    levelJson.add("waves", waves);
+	    levels.add(levelJson);
+	}
+	return levels;
+    }
+
+    /**
+     * Generates a tower layout for the map. Every buildable tile within {@value #TOWER_REACH} tiles of the path gets a tower of a random
+     * type with the given probability.
+     *
+     * @param density The share of candidate tiles that get a tower, between 0 and 1
+     *
+     * @return The tower placements in map coordinates
+     */
+    public List<TowerPlacement> generateTowers(double density) {
+	generateMap();
+	Random random = new Random(seed * 31 + 17);
+	TowerType[] types = TowerType.values();
+	List<TowerPlacement> towers = new ArrayList<>();
+
+	for (int row = 0; row < height; row++) {
+	    for (int col = 0; col < width; col++) {
+		boolean buildable = tiles[row][col] == GRASS || tiles[row][col] == SAND;
+		if (buildable && isNearPath(row, col) && random.nextDouble() < density) {
+		    towers.add(new TowerPlacement(types[random.nextInt(types.length)], row, col));
+		}
+	    }
+	}
+	return towers;
+    }
+
+    private boolean isNearPath(int row, int col) {
+	for (int r = Math.max(0, row - TOWER_REACH); r <= Math.min(height - 1, row + TOWER_REACH); r++) {
+	    for (int c = Math.max(0, col - TOWER_REACH); c <= Math.min(width - 1, col + TOWER_REACH); c++) {
+		char tile = tiles[r][c];
+		if (tile == PATH || tile == START || tile == END) {
+		    return true;
+		}
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Writes a complete scenario to a folder.
+     *
+     * @param folder        The folder to write to, created if missing
+     * @param name          The scenario name, used as map name and as prefix of the file names
+     * @param levelCount    The number of levels
+     * @param enemies       The number of enemies in the last level
+     * @param minSpawnDelay The shortest delay between two spawns in milliseconds
+     * @param towerDensity  The share of tiles near the path that get a tower
+     *
+     * @throws IOException If a file cannot be written
+     */
+    public void writeScenario(File folder, String name, int levelCount, int enemies, int minSpawnDelay, double towerDensity)
+	    throws IOException
+    {
+	if (!folder.isDirectory() && !folder.mkdirs()) {
+	    throw new IOException("Failed to create directory: " + folder.getAbsolutePath());
+	}
+	Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+	JsonObject map = new JsonObject();
+	map.addProperty("name", name);
+	JsonArray rows = new JsonArray();
+	for (String row : generateMap()) {
+	    rows.add(row);
+	}
+	map.add("tiles", rows);
+	JsonArray maps = new JsonArray();
+	maps.add(map);
+
+	write(gson, maps, new File(folder, mapFileName(name)));
+	write(gson, generateLevels(levelCount, enemies, minSpawnDelay), new File(folder, levelFileName(name)));
+	write(gson, generateTowers(towerDensity), new File(folder, towerFileName(name)));
+	LogHandler.info(ScenarioGenerator.class, "Wrote " + width + "x" + height + " scenario '" + name + "' to " + folder.getAbsolutePath());
+    }
+
+    private static void write(Gson gson, Object data, File file) throws IOException {
+	try (Writer writer = new FileWriter(file)) {
+	    gson.toJson(data, writer);
+	}
+    }
+
+    public static String mapFileName(String name) {
+	return name + "-maps.json";
+    }
+
+    public static String levelFileName(String name) {
+	return name + "-levels.json";
+    }
+
+    public static String towerFileName(String name) {
+	return name + "-towers.json";
+    }
+
+    /**
+     * Generates a scenario from command line arguments. Run with {@code --help} to list the options.
+     *
+     * @param args The command line arguments
+     */
+    public static void main(String[] args) {
+	Options options = new Options();
+	options.addOption(Option.builder("s").longOpt("seed").hasArg().desc("random seed (default " + DEFAULT_SEED + ")").build());
+	options.addOption(Option.builder("w").longOpt("width").hasArg().desc("map width, at most " + MAX_SIZE).build());
+	options.addOption(Option.builder("t").longOpt("height").hasArg().desc("map height, at most " + MAX_SIZE).build());
+	options.addOption(Option.builder("p").longOpt("style").hasArg().desc("serpentine or branching (default serpentine)").build());
+	options.addOption(Option.builder("l").longOpt("levels").hasArg().desc("number of levels (default " + DEFAULT_LEVELS + ")").build());
+	options.addOption(
+		Option.builder("e").longOpt("enemies").hasArg().desc("enemies in the last level (default " + DEFAULT_ENEMIES + ")").build());
+	options.addOption(Option.builder("d").longOpt("spawn-delay").hasArg()
+			      .desc("shortest spawn delay in ms (default " + DEFAULT_SPAWN_DELAY + ")").build());
+	options.addOption(Option.builder("r").longOpt("tower-density").hasArg()
+			      .desc("share of tiles near the path with a tower (default " + DEFAULT_TOWER_DENSITY + ")").build());
+	options.addOption(Option.builder("n").longOpt("name").hasArg().desc("scenario name, used for the map and the files").build());
+	options.addOption(Option.builder("o").longOpt("output").hasArg().desc("output folder (default " + DEFAULT_OUTPUT + ")").build());
+	options.addOption(Option.builder("h").longOpt("help").desc("show this help").build());
+
+	try {
+	    CommandLine line = new DefaultParser().parse(options, args);
+	    if (line.hasOption("help")) {
+		new HelpFormatter().printHelp("ScenarioGenerator", options);
+		return;
+	    }
+
+	    long seed = Long.parseLong(line.getOptionValue("seed", String.valueOf(DEFAULT_SEED)));
+	    int width = Integer.parseInt(line.getOptionValue("width", String.valueOf(DEFAULT_SIZE)));
+	    int height = Integer.parseInt(line.getOptionValue("height", String.valueOf(DEFAULT_SIZE)));
+	    PathStyle style = PathStyle.valueOf(line.getOptionValue("style", "serpentine").toUpperCase(Locale.ROOT));
+	    int levels = Integer.parseInt(line.getOptionValue("levels", String.valueOf(DEFAULT_LEVELS)));
+	    int enemies = Integer.parseInt(line.getOptionValue("enemies", String.valueOf(DEFAULT_ENEMIES)));
+	    int spawnDelay = Integer.parseInt(line.getOptionValue("spawn-delay", String.valueOf(DEFAULT_SPAWN_DELAY)));
+	    double density = Double.parseDouble(line.getOptionValue("tower-density", String.valueOf(DEFAULT_TOWER_DENSITY)));
+	    String name = line.getOptionValue("name", defaultName(style, width, height, seed));
+	    File output = new File(line.getOptionValue("output", DEFAULT_OUTPUT));
+
+	    new ScenarioGenerator(seed, width, height, style).writeScenario(output, name, levels, enemies, spawnDelay, density);
+	} catch (ParseException | IllegalArgumentException e) {
+	    System.err.println(e.getMessage());
+	    new HelpFormatter().printHelp("ScenarioGenerator", options);
+	    System.exit(1);
+	} catch (IOException e) {
+	    LogHandler.severe(ScenarioGenerator.class, "Could not write scenario: " + e.getMessage(), e);
+	    System.exit(1);
+	}
+    }
+
+    /**
+     * Builds the name used when none is given, for example {@code stress-serpentine-200x200-718}.
+     */
+    public static String defaultName(PathStyle style, int width, int height, long seed) {
+	return "stress-" + style.name().toLowerCase(Locale.ROOT) + "-" + width + "x" + height + "-" + seed;
+    }
+}
@@ -0,0 +1,81 @@
+package se.liu.feljo718.towerdefence.scenario;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.handler.JsonFileHandler;
+import se.liu.feljo718.towerdefence.handler.LogHandler;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a tower layout written by {@link ScenarioGenerator} and places the towers on a board.
+ * <p>
+ * Like the other readers the file name is resolved relative to the {@code resources} folder, with the classpath as fallback.
+ *
+ * @author feljo718
+ * @see ScenarioGenerator
+ * @see TowerPlacement
+ */
+public class TowerLayoutReader extends JsonFileHandler
+{
+    /**
+     * Creates a reader for the given layout file.
+     *
+     * @param layoutFile The layout file, relative to the resources folder
+     */
+    public TowerLayoutReader(String layoutFile) {
+	super(layoutFile);
+    }
+
+    /**
+     * Loads the tower placements from the layout file.
+     *
+     * @return The placements, in the order they were generated
+     * @throws FileNotFoundException If the layout file cannot be found
+     * @throws JsonSyntaxException   If the JSON is malformed
+     */
+    public List<TowerPlacement> loadFromJson() throws FileNotFoundException, JsonSyntaxException {
+	try (Reader reader = getJsonReader()) {
+	    Type placementListType = new TypeToken<List<TowerPlacement>>()
+	    {
+	    }.getType();
+	    List<TowerPlacement> placements = gson.fromJson(reader, placementListType);
+	    return placements != null ? placements : new ArrayList<>();
+	} catch (FileNotFoundException | JsonSyntaxException e) {
+	    LogHandler.severe(TowerLayoutReader.class, "Failed to load tower layout '" + filename + "': " + e.getMessage());
+	    throw e;
+	} catch (IOException e) {
+	    LogHandler.logWarning(TowerLayoutReader.class, "Encountered IO exception: " + e.getMessage());
+	    return new ArrayList<>();
+	}
+    }
+
+    /**
+     * Places every tower of the layout on the board. Towers are placed for free and placements outside the board are skipped.
+     *
+     * @param board The board to place the towers on
+     *
+     * @return The number of towers placed
+     * @throws FileNotFoundException If the layout file cannot be found
+     */
+    public int placeTowers(Board board) throws FileNotFoundException {
+	int placed = 0;
+	for (TowerPlacement placement : loadFromJson()) {
+	    // The board has an interface row above the map
+	    int row = placement.row() + 1;
+	    if (placement.type() == null || board.getTileAt(row, placement.col()) == null) {
+		continue;
+	    }
+	    board.getTowerFactory().createTower(placement.type(), row, placement.col());
+	    placed++;
+	}
+	LogHandler.info(TowerLayoutReader.class, "Placed " + placed + " towers from " + filename);
+	return placed;
+    }
+}
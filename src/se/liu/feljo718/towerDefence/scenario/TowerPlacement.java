@@ -0,0 +1,17 @@
+package se.liu.feljo718.towerdefence.scenario;
+
+import se.liu.feljo718.towerdefence.tower.TowerType;
+
+/**
+ * A tower to be placed on a generated map.
+ *
+ * @param type The tower type
+ * @param row  The map row, counted without the board's interface row
+ * @param col  The map column
+ *
+ * @author feljo718
+ * @see TowerLayoutReader
+ */
+public record TowerPlacement(TowerType type, int row, int col)
+{
+}
@@ -0,0 +1,122 @@
+package se.liu.feljo718.towerdefence.spectator;
+
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.enemy.Enemy;
+import se.liu.feljo718.towerdefence.tower.Tower;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * What a spectator sees of a board at the end of a tick: the enemies, the towers and the numbers shown in the interface row.
+ * <p>
+ * Enemy positions are stored in {@link SpectatorFormat#UNITS_PER_TILE sub-tile units}, which is finer than a pixel at the normal tile
+ * size and lets an enemy that walks at a steady speed move by the same whole number of units every tick. Everything else is stored as
+ * the board has it.
+ * <p>
+ * A snapshot is captured on the thread that ticks the board and never changed after that, so it can be handed to the server thread
+ * without copying. The enemy and tower arrays are parallel arrays indexed alike.
+ *
+ * @author feljo718
+ * @see SnapshotCodec
+ */
+final class BoardSnapshot
+{
+    /** A snapshot of an empty board, the baseline of a spectator that has not been sent anything yet. */
+    static final BoardSnapshot EMPTY = new BoardSnapshot(0, 0, 0, 0, 0, 0);
+
+    final long tick;
+    final int round;
+    final int lives;
+    final int coins;
+
+    final int enemyCount;
+    final int[] enemyIds;
+    final byte[] enemyTypes;
+    final int[] enemyX;
+    final int[] enemyY;
+    final int[] enemyHealth;
+
+    final int towerCount;
+    final int[] towerIds;
+    /** The type, level and powerup of a tower packed into one value, see {@link SpectatorFormat#packTower}. */
+    final int[] towerKinds;
+    final int[] towerRows;
+    final int[] towerCols;
+
+    BoardSnapshot(long tick, int round, int lives, int coins, int enemyCount, int towerCount) {
+	this(tick, round, lives, coins, enemyCount, towerCount, new int[towerCount], new int[towerCount], new int[towerCount],
+	     new int[towerCount]);
+    }
+
+    /**
+     * Creates a snapshot with the towers of another snapshot. The tower arrays are shared, which is safe since they are not changed once
+     * a snapshot is filled in.
+     */
+    BoardSnapshot(long tick, int round, int lives, int coins, int enemyCount, BoardSnapshot towers) {
+	this(tick, round, lives, coins, enemyCount, towers.towerCount, towers.towerIds, towers.towerKinds, towers.towerRows,
+	     towers.towerCols);
+    }
+
+    private BoardSnapshot(long tick, int round, int lives, int coins, int enemyCount, int towerCount, int[] towerIds, int[] towerKinds,
+			  int[] towerRows, int[] towerCols)
+    {
+	this.tick = tick;
+	this.round = round;
+	this.lives = lives;
+	this.coins = coins;
+	this.enemyCount = enemyCount;
+	this.enemyIds = new int[enemyCount];
+	this.enemyTypes = new byte[enemyCount];
+	this.enemyX = new int[enemyCount];
+	this.enemyY = new int[enemyCount];
+	this.enemyHealth = new int[enemyCount];
+	this.towerCount = towerCount;
+	this.towerIds = towerIds;
+	this.towerKinds = towerKinds;
+	this.towerRows = towerRows;
+	this.towerCols = towerCols;
+    }
+
+    /**
+     * Captures the board as it is now. Only called on the thread that ticks the board.
+     *
+     * @param board The board to capture
+     *
+     * @return A snapshot of the board
+     */
+    static BoardSnapshot capture(Board board) {
+	List<Enemy> enemies = board.getEnemyFactory().getEnemies();
+	List<Tower> towers = board.getTowerFactory().getTowers();
+	BoardSnapshot snapshot = new BoardSnapshot(board.getTickCount(), board.getRound(), board.getLives(), board.getCoins(),
+						   enemies.size(), towers.size());
+
+	for (int i = 0; i < snapshot.enemyCount; i++) {
+	    Enemy enemy = enemies.get(i);
+	    snapshot.enemyIds[i] = enemy.getId();
+	    snapshot.enemyTypes[i] = (byte) enemy.getType().ordinal();
+	    snapshot.enemyX[i] = SpectatorFormat.toUnits(enemy.getX());
+	    snapshot.enemyY[i] = SpectatorFormat.toUnits(enemy.getY());
+	    snapshot.enemyHealth[i] = enemy.getHealth();
+	}
+	for (int i = 0; i < snapshot.towerCount; i++) {
+	    Tower tower = towers.get(i);
+	    snapshot.towerIds[i] = tower.getId();
+	    snapshot.towerKinds[i] = SpectatorFormat.packTower(tower.getType(), tower.getLevel(), !tower.getActivePowerups().isEmpty());
+	    snapshot.towerRows[i] = tower.getPosition().y;
+	    snapshot.towerCols[i] = tower.getPosition().x;
+	}
+	return snapshot;
+    }
+
+    /**
+     * Returns true if the towers of this snapshot are the same as those of another, in the same order.
+     */
+    boolean sameTowers(BoardSnapshot other) {
+	if (towerIds == other.towerIds) {
+	    return true;
+	}
+	return towerCount == other.towerCount && Arrays.equals(towerIds, other.towerIds) && Arrays.equals(towerKinds, other.towerKinds) &&
+	       Arrays.equals(towerRows, other.towerRows) && Arrays.equals(towerCols, other.towerCols);
+    }
+}
@@ -0,0 +1,329 @@
+package se.liu.feljo718.towerdefence.spectator;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes snapshots as the difference from the last snapshot one spectator was sent, and decodes them again on the other side.
+ * <p>
+ * Both ends keep the same baseline: the snapshot last sent, as the viewer has rebuilt it. A frame only carries what changed since then,
+ * and a keyframe starts again from an empty board, so that a spectator that joins or falls behind does not depend on anything it may not
+ * have. After each frame both ends make the snapshot just sent their new baseline, so the server needs one codec per spectator while
+ * the viewer needs one in all.
+ * <p>
+ * The enemies of a frame are written as:
+ * <ol>
+ *   <li>a bitmap with one bit for each enemy of the baseline, set if it is still on the board;</li>
+ *   <li>the enemies that are new, with their id, type, position and health in full;</li>
+ *   <li>the movement of the remaining enemies, as the difference from where they would be had they moved as far as they did in the frame
+ *   before. Two bits an axis say whether the difference is none, one unit forwards or one back, or too large, in which case it follows
+ *   as a varint after all the others. An enemy walking straight at a steady speed costs half a byte a frame;</li>
+ *   <li>the enemies whose health changed, with the change.</li>
+ * </ol>
+ * The towers only change when the player builds, so they are sent whole when they differ from the baseline and left out otherwise.
+ * <p>
+ * Enemies that are still on the board keep their order, and new enemies go after them, so both ends see them in the same order.
+ *
+ * @author feljo718
+ * @see SpectatorFormat
+ */
+final class SnapshotCodec
+{
+    private static final int SAME = 0;
+    private static final int FORWARD = 1;
+    private static final int BACK = 2;
+    private static final int ESCAPE = 3;
+    private static final int[] NO_VELOCITY = new int[0];
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private BoardSnapshot baseline = BoardSnapshot.EMPTY;
+    private int[] velocityX = NO_VELOCITY;
+    private int[] velocityY = NO_VELOCITY;
+
+    /**
+     * Returns the last snapshot encoded or decoded.
+     */
+    BoardSnapshot getBaseline() {
+	return baseline;
+    }
+
+    /**
+     * Encodes a snapshot as a frame and makes it the new baseline.
+     *
+     * @param current  The snapshot to send
+     * @param keyframe true to encode the snapshot without depending on the baseline
+     *
+     * @return The frame with its length, ready to be written
+     */
+    ByteBuffer encode(BoardSnapshot current, boolean keyframe) {
+	BoardSnapshot base = keyframe ? BoardSnapshot.EMPTY : baseline;
+	int[] baseVelocityX = keyframe ? NO_VELOCITY : velocityX;
+	int[] baseVelocityY = keyframe ? NO_VELOCITY : velocityY;
+	int flags = flags(base, current, keyframe);
+
+	out.reset();
+	out.write(SpectatorFormat.FRAME);
+	out.write(flags);
+	SpectatorFormat.writeVarLong(out, keyframe ? current.tick : current.tick - base.tick);
+	if ((flags & SpectatorFormat.ROUND) != 0) {
+	    SpectatorFormat.writeSigned(out, current.round);
+	}
+	if ((flags & SpectatorFormat.LIVES) != 0) {
+	    SpectatorFormat.writeSigned(out, current.lives);
+	}
+	if ((flags & SpectatorFormat.COINS) != 0) {
+	    SpectatorFormat.writeSigned(out, current.coins);
+	}
+	if ((flags & SpectatorFormat.TOWERS) != 0) {
+	    writeTowers(current);
+	}
+
+	// Find the enemies of the baseline that are still on the board
+	Map<Integer, Integer> currentIndex = new HashMap<>(current.enemyCount * 2);
+	for (int i = 0; i < current.enemyCount; i++) {
+	    currentIndex.put(current.enemyIds[i], i);
+	}
+	boolean[] survived = new boolean[current.enemyCount];
+	int[] survivors = new int[base.enemyCount];
+	int survivorCount = 0;
+	int[] bitmap = new int[(base.enemyCount + 7) / 8];
+	for (int i = 0; i < base.enemyCount; i++) {
+	    Integer index = currentIndex.get(base.enemyIds[i]);
+	    if (index != null) {
+		survived[index] = true;
+		survivors[survivorCount++] = i;
+		bitmap[i / 8] |= 1 << (i % 8);
+	    }
+	}
+	for (int bits : bitmap) {
+	    out.write(bits);
+	}
+
+	// The next baseline has the survivors in their old order and the new enemies after them
+	BoardSnapshot next = new BoardSnapshot(current.tick, current.round, current.lives, current.coins, current.enemyCount, current);
+	int[] order = new int[next.enemyCount];
+	for (int k = 0; k < survivorCount; k++) {
+	    order[k] = currentIndex.get(base.enemyIds[survivors[k]]);
+	}
+	int newCount = 0;
+	for (int i = 0; i < current.enemyCount; i++) {
+	    if (!survived[i]) {
+		order[survivorCount + newCount++] = i;
+	    }
+	}
+	for (int k = 0; k < next.enemyCount; k++) {
+	    int i = order[k];
+	    next.enemyIds[k] = current.enemyIds[i];
+	    next.enemyTypes[k] = current.enemyTypes[i];
+	    next.enemyX[k] = current.enemyX[i];
+	    next.enemyY[k] = current.enemyY[i];
+	    next.enemyHealth[k] = current.enemyHealth[i];
+	}
+
+	// New enemies in full
+	SpectatorFormat.writeVarLong(out, newCount);
+	int previousId = 0;
+	for (int k = survivorCount; k < next.enemyCount; k++) {
+	    SpectatorFormat.writeSigned(out, next.enemyIds[k] - previousId);
+	    previousId = next.enemyIds[k];
+	    out.write(next.enemyTypes[k]);
+	    SpectatorFormat.writeSigned(out, next.enemyX[k]);
+	    SpectatorFormat.writeSigned(out, next.enemyY[k]);
+	    SpectatorFormat.writeSigned(out, next.enemyHealth[k]);
+	}
+
+	// Movement of the survivors against where they were expected to be
+	int[] nextVelocityX = new int[next.enemyCount];
+	int[] nextVelocityY = new int[next.enemyCount];
+	int[] residuals = new int[survivorCount * 2];
+	int packed = 0;
+	for (int k = 0; k < survivorCount; k++) {
+	    int i = survivors[k];
+	    nextVelocityX[k] = next.enemyX[k] - base.enemyX[i];
+	    nextVelocityY[k] = next.enemyY[k] - base.enemyY[i];
+	    residuals[2 * k] = nextVelocityX[k] - baseVelocityX[i];
+	    residuals[2 * k + 1] = nextVelocityY[k] - baseVelocityY[i];
+	    packed |= (code(residuals[2 * k]) | code(residuals[2 * k + 1]) << 2) << (k % 2) * 4;
+	    if (k % 2 == 1 || k == survivorCount - 1) {
+		out.write(packed);
+		packed = 0;
+	    }
+	}
+	for (int residual : residuals) {
+	    if (code(residual) == ESCAPE) {
+		SpectatorFormat.writeSigned(out, residual);
+	    }
+	}
+
+	// Health of the survivors
+	int changed = 0;
+	for (int k = 0; k < survivorCount; k++) {
+	    if (next.enemyHealth[k] != base.enemyHealth[survivors[k]]) {
+		changed++;
+	    }
+	}
+	SpectatorFormat.writeVarLong(out, changed);
+	int previous = 0;
+	for (int k = 0; k < survivorCount; k++) {
+	    int change = next.enemyHealth[k] - base.enemyHealth[survivors[k]];
+	    if (change != 0) {
+		SpectatorFormat.writeVarLong(out, k - previous);
+		SpectatorFormat.writeSigned(out, change);
+		previous = k;
+	    }
+	}
+
+	baseline = next;
+	velocityX = nextVelocityX;
+	velocityY = nextVelocityY;
+	return SpectatorFormat.frame(out);
+    }
+
+    /**
+     * Decodes a frame against the baseline and makes the result the new baseline.
+     *
+     * @param in The frame, positioned just after its type
+     *
+     * @return The snapshot the frame was encoded from
+     * @throws java.nio.BufferUnderflowException If the frame is cut short
+     */
+    BoardSnapshot decode(ByteBuffer in) {
+	int flags = in.get() & 0xFF;
+	boolean keyframe = (flags & SpectatorFormat.KEYFRAME) != 0;
+	BoardSnapshot base = keyframe ? BoardSnapshot.EMPTY : baseline;
+	int[] baseVelocityX = keyframe ? NO_VELOCITY : velocityX;
+	int[] baseVelocityY = keyframe ? NO_VELOCITY : velocityY;
+
+	long tick = SpectatorFormat.readVarLong(in) + (keyframe ? 0 : base.tick);
+	int round = (flags & SpectatorFormat.ROUND) != 0 ? (int) SpectatorFormat.readSigned(in) : base.round;
+	int lives = (flags & SpectatorFormat.LIVES) != 0 ? (int) SpectatorFormat.readSigned(in) : base.lives;
+	int coins = (flags & SpectatorFormat.COINS) != 0 ? (int) SpectatorFormat.readSigned(in) : base.coins;
+	BoardSnapshot towers = (flags & SpectatorFormat.TOWERS) != 0 ? readTowers(in) : base;
+
+	int[] survivors = new int[base.enemyCount];
+	int survivorCount = 0;
+	for (int offset = 0; offset < base.enemyCount; offset += 8) {
+	    int bits = in.get() & 0xFF;
+	    for (int i = offset; i < Math.min(offset + 8, base.enemyCount); i++) {
+		if ((bits & (1 << (i - offset))) != 0) {
+		    survivors[survivorCount++] = i;
+		}
+	    }
+	}
+
+	int newCount = SpectatorFormat.readVarInt(in);
+	BoardSnapshot next = new BoardSnapshot(tick, round, lives, coins, survivorCount + newCount, towers);
+	int previousId = 0;
+	for (int k = survivorCount; k < next.enemyCount; k++) {
+	    next.enemyIds[k] = previousId + (int) SpectatorFormat.readSigned(in);
+	    previousId = next.enemyIds[k];
+	    next.enemyTypes[k] = in.get();
+	    next.enemyX[k] = (int) SpectatorFormat.readSigned(in);
+	    next.enemyY[k] = (int) SpectatorFormat.readSigned(in);
+	    next.enemyHealth[k] = (int) SpectatorFormat.readSigned(in);
+	}
+
+	int[] codes = new int[survivorCount * 2];
+	for (int k = 0; k < survivorCount; k += 2) {
+	    int packed = in.get() & 0xFF;
+	    codes[2 * k] = packed & 3;
+	    codes[2 * k + 1] = (packed >> 2) & 3;
+	    if (k + 1 < survivorCount) {
+		codes[2 * k + 2] = (packed >> 4) & 3;
+		codes[2 * k + 3] = (packed >> 6) & 3;
+	    }
+	}
+	int[] nextVelocityX = new int[next.enemyCount];
+	int[] nextVelocityY = new int[next.enemyCount];
+	int[] residuals = new int[codes.length];
+	for (int j = 0; j < codes.length; j++) {
+	    residuals[j] = codes[j] == ESCAPE ? (int) SpectatorFormat.readSigned(in) : residual(codes[j]);
+	}
+	for (int k = 0; k < survivorCount; k++) {
+	    int i = survivors[k];
+	    nextVelocityX[k] = baseVelocityX[i] + residuals[2 * k];
+	    nextVelocityY[k] = baseVelocityY[i] + residuals[2 * k + 1];
+	    next.enemyIds[k] = base.enemyIds[i];
+	    next.enemyTypes[k] = base.enemyTypes[i];
+	    next.enemyX[k] = base.enemyX[i] + nextVelocityX[k];
+	    next.enemyY[k] = base.enemyY[i] + nextVelocityY[k];
+	    next.enemyHealth[k] = base.enemyHealth[i];
+	}
+
+	int changed = SpectatorFormat.readVarInt(in);
+	int k = 0;
+	for (int c = 0; c < changed; c++) {
+	    k += SpectatorFormat.readVarInt(in);
+	    next.enemyHealth[k] += (int) SpectatorFormat.readSigned(in);
+	}
+
+	baseline = next;
+	velocityX = nextVelocityX;
+	velocityY = nextVelocityY;
+	return next;
+    }
+
+    private static int flags(BoardSnapshot base, BoardSnapshot current, boolean keyframe) {
+	int flags = 0;
+	if (keyframe) {
+	    flags |= SpectatorFormat.KEYFRAME;
+	}
+	if (keyframe || current.round != base.round) {
+	    flags |= SpectatorFormat.ROUND;
+	}
+	if (keyframe || current.lives != base.lives) {
+	    flags |= SpectatorFormat.LIVES;
+	}
+	if (keyframe || current.coins != base.coins) {
+	    flags |= SpectatorFormat.COINS;
+	}
+	if (keyframe || !current.sameTowers(base)) {
+	    flags |= SpectatorFormat.TOWERS;
+	}
+	return flags;
+    }
+
+    private void writeTowers(BoardSnapshot snapshot) {
+	SpectatorFormat.writeVarLong(out, snapshot.towerCount);
+	int previousId = 0;
+	for (int i = 0; i < snapshot.towerCount; i++) {
+	    SpectatorFormat.writeSigned(out, snapshot.towerIds[i] - previousId);
+	    previousId = snapshot.towerIds[i];
+	    SpectatorFormat.writeVarLong(out, snapshot.towerKinds[i]);
+	    SpectatorFormat.writeVarLong(out, snapshot.towerRows[i]);
+	    SpectatorFormat.writeVarLong(out, snapshot.towerCols[i]);
+	}
+    }
+
+    private static BoardSnapshot readTowers(ByteBuffer in) {
+	BoardSnapshot towers = new BoardSnapshot(0, 0, 0, 0, 0, SpectatorFormat.readVarInt(in));
+	int previousId = 0;
+	for (int i = 0; i < towers.towerCount; i++) {
+	    towers.towerIds[i] = previousId + (int) SpectatorFormat.readSigned(in);
+	    previousId = towers.towerIds[i];
+	    towers.towerKinds[i] = SpectatorFormat.readVarInt(in);
+	    towers.towerRows[i] = SpectatorFormat.readVarInt(in);
+	    towers.towerCols[i] = SpectatorFormat.readVarInt(in);
+	}
+	return towers;
+    }
+
+    private static int code(int residual) {
+	return switch (residual) {
+	    case 0 -> SAME;
+	    case 1 -> FORWARD;
+	    case -1 -> BACK;
+	    default -> ESCAPE;
+	};
+    }
+
+    private static int residual(int code) {
+	return switch (code) {
+	    case FORWARD -> 1;
+	    case BACK -> -1;
+	    default -> 0;
+	};
+    }
+}
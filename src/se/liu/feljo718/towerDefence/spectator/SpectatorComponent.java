@@ -0,0 +1,144 @@
+package se.liu.feljo718.towerdefence.spectator;
+
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.board.BoardComponent;
+import se.liu.feljo718.towerdefence.board.TileChunkCache;
+import se.liu.feljo718.towerdefence.board.Viewport;
+import se.liu.feljo718.towerdefence.enemy.Enemy;
+import se.liu.feljo718.towerdefence.enemy.EnemyType;
+import se.liu.feljo718.towerdefence.tower.TowerFactory;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.io.Serial;
+
+/**
+ * Shows the last snapshot a spectator received, drawn the way the player sees the board.
+ * <p>
+ * The map comes from a local board loaded from the same files as the game's, which is never ticked. Everything on the map is drawn with
+ * the drawing code of {@link BoardComponent}. The map can be scrolled by dragging and zoomed with the mouse wheel.
+ *
+ * @author feljo718
+ * @see SpectatorViewer
+ */
+class SpectatorComponent extends JComponent
+{
+    private static final Font FONT = new Font(Font.SANS_SERIF, Font.BOLD, 14);
+    private static final Color TEXT_COLOR = Color.BLACK;
+    private static final int TEXT_MARGIN = 10;
+    private static final EnemyType[] ENEMY_TYPES = EnemyType.values();
+    @Serial private static final long serialVersionUID = 1L;
+
+    // The component is never serialized, the fields only stand for the live state of the view
+    private final transient Board board;
+    private final transient Viewport viewport;
+    private final transient TileChunkCache chunkCache;
+    private transient volatile BoardSnapshot snapshot = BoardSnapshot.EMPTY;
+    private volatile String status = "Waiting for the game";
+
+    /**
+     * Creates a view of the given map.
+     *
+     * @param board A board with the map of the game that is watched
+     */
+    SpectatorComponent(Board board) {
+	this.board = board;
+	this.viewport = new Viewport(board);
+	this.chunkCache = new TileChunkCache(board);
+
+	MouseAdapter mouseHandler = new MouseAdapter()
+	{
+	    private Point dragStart = null;
+
+	    @Override public void mousePressed(MouseEvent e) {
+		dragStart = e.getPoint();
+	    }
+
+	    @Override public void mouseReleased(MouseEvent e) {
+		dragStart = null;
+	    }
+
+	    @Override public void mouseDragged(MouseEvent e) {
+		if (dragStart != null) {
+		    viewport.pan(dragStart.x - e.getX(), dragStart.y - e.getY());
+		    dragStart = e.getPoint();
+		    repaint();
+		}
+	    }
+
+	    @Override public void mouseWheelMoved(MouseWheelEvent e) {
+		if (viewport.zoom(-e.getWheelRotation(), e.getX(), e.getY() - BoardComponent.TILE_SIZE)) {
+		    repaint();
+		}
+	    }
+	};
+	addMouseListener(mouseHandler);
+	addMouseMotionListener(mouseHandler);
+	addMouseWheelListener(mouseHandler);
+    }
+
+    /**
+     * Shows a new snapshot. Safe to call from any thread.
+     */
+    void show(BoardSnapshot next) {
+	snapshot = next;
+	status = null;
+	repaint();
+    }
+
+    /**
+     * Shows a message in place of the numbers of the game, for when the stream has ended. Safe to call from any thread.
+     */
+    void setStatus(String message) {
+	status = message;
+	repaint();
+    }
+
+    @Override protected void paintComponent(Graphics g) {
+	super.paintComponent(g);
+	Graphics2D g2d = (Graphics2D) g;
+	BoardSnapshot shown = snapshot;
+	viewport.setViewSize(getWidth(), getHeight() - BoardComponent.TILE_SIZE);
+	BoardComponent.drawBackground(g2d, getWidth(), getHeight());
+
+	String message = status;
+	String text = "Lives: " + shown.lives + "    Coins: " + shown.coins + "    Round: " + shown.round;
+	g2d.setFont(FONT);
+	g2d.setColor(TEXT_COLOR);
+	g2d.drawString(message != null ? message : text, TEXT_MARGIN,
+		       (BoardComponent.TILE_SIZE + g2d.getFontMetrics().getAscent()) / 2 - 1);
+
+	Graphics2D mapGraphics = BoardComponent.createMapGraphics(g2d, viewport, chunkCache);
+	try {
+	    Rectangle visible = viewport.getVisibleBounds();
+	    for (int i = 0; i < shown.enemyCount; i++) {
+		int x = shown.enemyX[i] * BoardComponent.TILE_SIZE / SpectatorFormat.UNITS_PER_TILE;
+		int y = shown.enemyY[i] * BoardComponent.TILE_SIZE / SpectatorFormat.UNITS_PER_TILE;
+		BoardComponent.drawEnemy(mapGraphics, visible, x, y, Enemy.getColor(ENEMY_TYPES[shown.enemyTypes[i]]));
+	    }
+	    Rectangle visibleTiles = viewport.getVisibleTiles();
+	    for (int i = 0; i < shown.towerCount; i++) {
+		int row = shown.towerRows[i];
+		int col = shown.towerCols[i];
+		if (visibleTiles.contains(col, row)) {
+		    int kind = shown.towerKinds[i];
+		    BoardComponent.drawTower(mapGraphics, row, col, TowerFactory.getColor(SpectatorFormat.towerType(kind)),
+					     SpectatorFormat.isPowered(kind));
+		}
+	    }
+	} finally {
+	    mapGraphics.dispose();
+	}
+    }
+
+    /**
+     * Returns the size of the whole map, up to {@link BoardComponent#MAX_VIEW_SIZE}, like the player's view.
+     */
+    @Override public Dimension getPreferredSize() {
+	return new Dimension(Math.min(board.getWidth() * BoardComponent.TILE_SIZE, BoardComponent.MAX_VIEW_SIZE.width),
+			     Math.min(board.getHeight() * BoardComponent.TILE_SIZE, BoardComponent.MAX_VIEW_SIZE.height));
+    }
+}
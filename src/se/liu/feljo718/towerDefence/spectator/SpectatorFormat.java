@@ -0,0 +1,136 @@
+package se.liu.feljo718.towerdefence.spectator;
+
+import se.liu.feljo718.towerdefence.tower.TowerType;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Layout of the spectator stream, shared by the server and the viewer.
+ * <p>
+ * The stream is a sequence of messages, each a varint length followed by that many bytes, the first of which is the message type. Numbers
+ * are written as unsigned LEB128 varints, seven bits to a byte; numbers that may be negative are zigzag encoded first, so that small
+ * values of either sign take one byte.
+ * <pre>
+ * Hello, sent once on connect              Frame, sent after each tick
+ *  byte   type 1                            byte   type 2
+ *  varint protocol version                  byte   flags: KEYFRAME, ROUND, LIVES, COINS, TOWERS
+ *  varint map width, height in tiles        varint tick, or ticks since the last frame
+ *  string map file, level file, map name    varint round, lives, coins, each only if flagged
+ *  byte   1 if maze mode                    towers, only if flagged
+ *                                           enemies, see {@link SnapshotCodec}
+ * </pre>
+ * A string is a varint byte count followed by the UTF-8 bytes.
+ *
+ * @author feljo718
+ * @see SpectatorServer
+ * @see SpectatorViewer
+ */
+final class SpectatorFormat
+{
+    static final int VERSION = 1;
+    static final byte HELLO = 1;
+    static final byte FRAME = 2;
+
+    static final int KEYFRAME = 1;
+    static final int ROUND = 1 << 1;
+    static final int LIVES = 1 << 2;
+    static final int COINS = 1 << 3;
+    static final int TOWERS = 1 << 4;
+
+    /** The number of position units in a tile. */
+    static final int UNITS_PER_TILE = 16;
+    /** No message is longer than this; a longer length means the stream is not a spectator stream. */
+    static final int MAX_MESSAGE_SIZE = 1 << 20;
+
+    private static final int TOWER_TYPE_BITS = 3;
+    private static final int TOWER_POWERED = 1 << 7;
+    private static final TowerType[] TOWER_TYPES = TowerType.values();
+
+    private SpectatorFormat() {
+    }
+
+    static int toUnits(double tiles) {
+	return (int) Math.round(tiles * UNITS_PER_TILE);
+    }
+
+    static int packTower(TowerType type, int level, boolean powered) {
+	return type.ordinal() | (level << TOWER_TYPE_BITS) | (powered ? TOWER_POWERED : 0);
+    }
+
+    static TowerType towerType(int kind) {
+	return TOWER_TYPES[kind & ((1 << TOWER_TYPE_BITS) - 1)];
+    }
+
+    static boolean isPowered(int kind) {
+	return (kind & TOWER_POWERED) != 0;
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+	long rest = value;
+	while ((rest & ~0x7FL) != 0) {
+	    out.write((int) (rest & 0x7F) | 0x80);
+	    rest >>>= 7;
+	}
+	out.write((int) rest);
+    }
+
+    static void writeSigned(ByteArrayOutputStream out, long value) {
+	writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    static void writeString(ByteArrayOutputStream out, String value) {
+	byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+	writeVarLong(out, bytes.length);
+	out.writeBytes(bytes);
+    }
+
+    /**
+     * Reads a varint.
+     *
+     * @throws BufferUnderflowException If the buffer ends inside the number
+     */
+    static long readVarLong(ByteBuffer in) {
+	long value = 0;
+	for (int shift = 0; shift < Long.SIZE; shift += 7) {
+	    int b = in.get();
+	    value |= (long) (b & 0x7F) << shift;
+	    if ((b & 0x80) == 0) {
+		return value;
+	    }
+	}
+	throw new IllegalArgumentException("Varint longer than 64 bits");
+    }
+
+    static int readVarInt(ByteBuffer in) {
+	return Math.toIntExact(readVarLong(in));
+    }
+
+    static long readSigned(ByteBuffer in) {
+	long raw = readVarLong(in);
+	return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    static String readString(ByteBuffer in) {
+	byte[] bytes = new byte[readVarInt(in)];
+	in.get(bytes);
+	return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Wraps a message in its length, ready to be written to a channel.
+     *
+     * @param message The message, starting with its type
+     *
+     * @return A buffer holding the length and the message
+     */
+    static ByteBuffer frame(ByteArrayOutputStream message) {
+	byte[] body = message.toByteArray();
+	ByteArrayOutputStream framed = new ByteArrayOutputStream(body.length + 3);
+	writeVarLong(framed, body.length);
+	framed.writeBytes(body);
+	return ByteBuffer.wrap(framed.toByteArray());
+    }
+}
@@ -0,0 +1,381 @@
+package se.liu.feljo718.towerdefence.spectator;
+
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.handler.LogHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streams a board to any number of spectators over a local TCP socket, so an exhibition match can be watched from other processes with
+ * the {@link SpectatorViewer}.
+ * <p>
+ * After every tick the game calls {@link #publish()}, which captures a {@link BoardSnapshot} of the board and hands it to the server
+ * thread. The server thread serves all spectators from one non-blocking selector and sends each of them the snapshot as the difference
+ * from the last snapshot it was sent, see {@link SnapshotCodec}. Every {@value #KEYFRAME_INTERVAL} frames a spectator gets a keyframe
+ * instead, which does not depend on anything sent before. A spectator that joins gets a hello with the map to load, followed by a
+ * keyframe of the board as it is.
+ * <p>
+ * A spectator that cannot keep up does not hold up the game or the other spectators. As long as a spectator's previous frame is still
+ * waiting to be written, new snapshots are skipped for it; the next frame it gets is encoded against the last one it was sent, so it
+ * simply sees the board jump ahead. A spectator that has not taken any data for {@value #STALL_SECONDS} seconds is dropped.
+ * <p>
+ * The game only pays for capturing a snapshot while someone is watching, and not at all while the board is paused and nothing is
+ * changed. Setting the system property {@value #PORT_PROPERTY} to a port number makes every game start a server on that port.
+ *
+ * @author feljo718
+ * @see SpectatorViewer
+ * @see SpectatorFormat
+ */
+public final class SpectatorServer implements AutoCloseable
+{
+    /** The system property with the port to stream games on. */
+    public static final String PORT_PROPERTY = "towerdefence.spectate.port";
+    /** How many frames a spectator gets between keyframes, two seconds at 60 ticks a second. */
+    private static final int KEYFRAME_INTERVAL = 120;
+    private static final int STALL_SECONDS = 10;
+    private static final long STALL_NANOS = TimeUnit.SECONDS.toNanos(STALL_SECONDS);
+    private static final long SHUTDOWN_MILLIS = 2000;
+    /** Kept small, so that frames waiting for a slow spectator are skipped rather than piling up in the socket and lagging behind. */
+    private static final int SEND_BUFFER_BYTES = 4 * 1024;
+
+    private final Board board;
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final Thread thread;
+    private final ByteBuffer hello;
+    private final AtomicReference<BoardSnapshot> latest = new AtomicReference<>();
+    /** Only used on the server thread. */
+    private final List<Spectator> spectators = new ArrayList<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(256);
+    private volatile boolean running = true;
+    private volatile int spectatorCount = 0;
+    private volatile long framesSent = 0;
+    private volatile long framesSkipped = 0;
+    private volatile long bytesSent = 0;
+    /** The snapshot last sent out, only used on the server thread. */
+    private BoardSnapshot broadcast = null;
+    /** The tick and command count of the board when it was last captured, only used on the game thread. */
+    private long publishedTick = -1;
+    private long publishedCommands = -1;
+
+    private SpectatorServer(Board board, ServerSocketChannel serverChannel, Selector selector) {
+	this.board = board;
+	this.serverChannel = serverChannel;
+	this.selector = selector;
+	this.hello = createHello(board);
+	this.thread = new Thread(this::run, "spectator-server");
+	this.thread.setDaemon(true);
+    }
+
+    /**
+     * Starts streaming a board on a port of the loopback interface.
+     *
+     * @param board The board to stream; {@link #publish()} must be called on the thread that ticks it
+     * @param port  The port to listen on, or 0 for any free port
+     *
+     * @return The running server
+     * @throws IOException If the port cannot be listened on
+     */
+    public static SpectatorServer start(Board board, int port) throws IOException {
+	ServerSocketChannel serverChannel = ServerSocketChannel.open();
+	Selector selector = null;
+	try {
+	    serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+	    serverChannel.configureBlocking(false);
+	    selector = Selector.open();
+	    serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+	} catch (IOException e) {
+	    serverChannel.close();
+	    if (selector != null) {
+		selector.close();
+	    }
+	    throw e;
+	}
+
+	SpectatorServer server = new SpectatorServer(board, serverChannel, selector);
+	server.thread.start();
+	LogHandler.info(SpectatorServer.class, "Spectators can watch on port {0,number,#}", server.getPort());
+	return server;
+    }
+
+    /**
+     * Starts streaming a board if the system property {@value #PORT_PROPERTY} is set.
+     *
+     * @param board The board to stream
+     *
+     * @return The running server, or null if spectating is not enabled or the server could not be started
+     */
+    public static SpectatorServer startIfEnabled(Board board) {
+	String port = System.getProperty(PORT_PROPERTY);
+	if (port == null) {
+	    return null;
+	}
+	try {
+	    return start(board, Integer.parseInt(port.trim()));
+	} catch (NumberFormatException e) {
+	    LogHandler.logWarning(SpectatorServer.class, "Not a port number: " + port);
+	} catch (IOException e) {
+	    LogHandler.logWarning(SpectatorServer.class, "Spectators cannot watch on port " + port + ": " + e.getMessage());
+	}
+	return null;
+    }
+
+    /**
+     * Hands the board as it is now to the spectators. Called after every tick, on the thread that ticks the board.
+     * <p>
+     * Nothing is captured while no one is watching or when nothing can have changed since the last call.
+     */
+    public void publish() {
+	if (spectatorCount == 0) {
+	    publishedTick = -1;
+	    return;
+	}
+	if (board.getTickCount() == publishedTick && board.getCommandCount() == publishedCommands) {
+	    return;
+	}
+	publishedTick = board.getTickCount();
+	publishedCommands = board.getCommandCount();
+	latest.set(BoardSnapshot.capture(board));
+	selector.wakeup();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     */
+    public int getPort() {
+	try {
+	    SocketAddress address = serverChannel.getLocalAddress();
+	    return address instanceof InetSocketAddress inet ? inet.getPort() : -1;
+	} catch (IOException e) {
+	    return -1;
+	}
+    }
+
+    public int getSpectatorCount() {
+	return spectatorCount;
+    }
+
+    /**
+     * Returns the number of frames sent to all spectators together.
+     */
+    public long getFramesSent() {
+	return framesSent;
+    }
+
+    /**
+     * Returns the number of frames left out for spectators that were still taking the previous one.
+     */
+    public long getFramesSkipped() {
+	return framesSkipped;
+    }
+
+    /**
+     * Returns the number of bytes sent to all spectators together.
+     */
+    public long getBytesSent() {
+	return bytesSent;
+    }
+
+    /**
+     * Disconnects all spectators and stops listening. The port is free again when this method returns.
+     */
+    @Override public void close() {
+	running = false;
+	selector.wakeup();
+	try {
+	    thread.join(SHUTDOWN_MILLIS);
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	}
+    }
+
+    private void run() {
+	try {
+	    while (running) {
+		selector.select(this::handle);
+		BoardSnapshot snapshot = latest.get();
+		if (snapshot != broadcast) {
+		    broadcast = snapshot;
+		    send(snapshot);
+		}
+	    }
+	} catch (IOException | ClosedSelectorException e) {
+	    LogHandler.severe(SpectatorServer.class, "Spectator server stopped", e);
+	} finally {
+	    for (Spectator spectator : new ArrayList<>(spectators)) {
+		disconnect(spectator, "server closed");
+	    }
+	    try {
+		serverChannel.close();
+		selector.close();
+	    } catch (IOException e) {
+		LogHandler.logWarning(SpectatorServer.class, "Could not close the spectator server: " + e.getMessage());
+	    }
+	}
+    }
+
+    private void handle(SelectionKey key) {
+	if (key.channel() == serverChannel) {
+	    accept();
+	    return;
+	}
+	Spectator spectator = (Spectator) key.attachment();
+	try {
+	    if (key.isReadable()) {
+		// Spectators have nothing to say, anything they send is dropped; end of stream means they left
+		readBuffer.clear();
+		if (spectator.channel.read(readBuffer) < 0) {
+		    disconnect(spectator, "left");
+		    return;
+		}
+	    }
+	    if (key.isValid() && key.isWritable()) {
+		write(spectator, spectator.pending);
+	    }
+	} catch (IOException e) {
+	    disconnect(spectator, e.getMessage());
+	}
+    }
+
+    private void accept() {
+	SocketChannel channel = null;
+	try {
+	    channel = serverChannel.accept();
+	    if (channel == null) {
+		return;
+	    }
+	    channel.configureBlocking(false);
+	    channel.socket().setTcpNoDelay(true);
+	    channel.socket().setSendBufferSize(SEND_BUFFER_BYTES);
+	    Spectator spectator = new Spectator(channel);
+	    spectator.key = channel.register(selector, SelectionKey.OP_READ, spectator);
+	    spectators.add(spectator);
+	    spectatorCount = spectators.size();
+	    LogHandler.info(SpectatorServer.class, "Spectator joined from {0}, {1,number,#} watching", channel.getRemoteAddress(),
+			    spectatorCount);
+
+	    write(spectator, hello.duplicate());
+	    // Show the board as it is at once, even if it is paused and nothing new is published
+	    if (broadcast != null && spectator.pending == null) {
+		sendFrame(spectator, broadcast);
+	    }
+	} catch (IOException e) {
+	    LogHandler.logWarning(SpectatorServer.class, "Could not accept a spectator: " + e.getMessage());
+	    if (channel != null) {
+		try {
+		    channel.close();
+		} catch (IOException ignored) {
+		    // The spectator is gone either way
+		}
+	    }
+	}
+    }
+
+    private void send(BoardSnapshot snapshot) {
+	long now = System.nanoTime();
+	for (Spectator spectator : new ArrayList<>(spectators)) {
+	    if (spectator.pending == null) {
+		try {
+		    sendFrame(spectator, snapshot);
+		} catch (IOException e) {
+		    disconnect(spectator, e.getMessage());
+		}
+	    } else if (now - spectator.stalledSince > STALL_NANOS) {
+		disconnect(spectator, "too slow");
+	    } else {
+		spectator.framesSkipped++;
+		framesSkipped++;
+	    }
+	}
+    }
+
+    private void sendFrame(Spectator spectator, BoardSnapshot snapshot) throws IOException {
+	boolean keyframe = spectator.framesSinceKeyframe >= KEYFRAME_INTERVAL;
+	spectator.framesSinceKeyframe = keyframe ? 1 : spectator.framesSinceKeyframe + 1;
+	spectator.framesSent++;
+	framesSent++;
+	write(spectator, spectator.codec.encode(snapshot, keyframe));
+    }
+
+    /**
+     * Writes as much of a buffer as the spectator's socket takes, and keeps the rest to be written when the socket has room again.
+     */
+    private void write(Spectator spectator, ByteBuffer buffer) throws IOException {
+	int written = spectator.channel.write(buffer);
+	spectator.bytesSent += written;
+	bytesSent += written;
+	if (buffer.hasRemaining()) {
+	    if (spectator.pending == null || written > 0) {
+		spectator.stalledSince = System.nanoTime();
+	    }
+	    spectator.pending = buffer;
+	    spectator.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+	} else if (spectator.pending != null) {
+	    spectator.pending = null;
+	    spectator.key.interestOps(SelectionKey.OP_READ);
+	}
+    }
+
+    private void disconnect(Spectator spectator, String reason) {
+	if (!spectators.remove(spectator)) {
+	    return;
+	}
+	spectatorCount = spectators.size();
+	try {
+	    spectator.channel.close();
+	} catch (IOException ignored) {
+	    // Closing a broken connection may fail, it is dropped either way
+	}
+	LogHandler.info(SpectatorServer.class, "Spectator {0}: {1,number,#} frames, {2,number,#} skipped, {3,number,#} bytes sent", reason,
+			spectator.framesSent, spectator.framesSkipped, spectator.bytesSent);
+    }
+
+    private static ByteBuffer createHello(Board board) {
+	ByteArrayOutputStream out = new ByteArrayOutputStream();
+	out.write(SpectatorFormat.HELLO);
+	SpectatorFormat.writeVarLong(out, SpectatorFormat.VERSION);
+	SpectatorFormat.writeVarLong(out, board.getWidth());
+	SpectatorFormat.writeVarLong(out, board.getHeight() - 1); // Without the interface row
+	SpectatorFormat.writeString(out, board.getMapFile());
+	SpectatorFormat.writeString(out, board.getLevelFile());
+	SpectatorFormat.writeString(out, board.getMapName());
+	out.write(board.isMazeMode() ? 1 : 0);
+	return SpectatorFormat.frame(out);
+    }
+
+    /**
+     * A connected spectator, only used on the server thread.
+     */
+    private static final class Spectator
+    {
+	private final SocketChannel channel;
+	private final SnapshotCodec codec = new SnapshotCodec();
+	private SelectionKey key = null;
+	/** The rest of a message the socket did not take, or null if everything sent has been written. */
+	private ByteBuffer pending = null;
+	private long stalledSince = 0;
+	/** Starts at the interval so that the first frame is a keyframe. */
+	private int framesSinceKeyframe = KEYFRAME_INTERVAL;
+	private long framesSent = 0;
+	private long framesSkipped = 0;
+	private long bytesSent = 0;
+
+	private Spectator(SocketChannel channel) {
+	    this.channel = channel;
+	}
+    }
+}
@@ -0,0 +1,208 @@
+package se.liu.feljo718.towerdefence.spectator;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.handler.LogHandler;
+import se.liu.feljo718.towerdefence.handler.SoundManager;
+
+import javax.swing.*;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watches a game streamed by a {@link SpectatorServer} from another process.
+ * <p>
+ * The viewer connects, loads the map named in the server's hello from its own resources and then shows every frame it receives in a
+ * {@link SpectatorComponent}. It only draws what it is sent and never simulates anything itself, so it shows the game exactly as it is,
+ * only a frame or so late. The viewer cannot change the game.
+ * <p>
+ * The viewer is started from the command line, see {@link #main(String[])}.
+ *
+ * @author feljo718
+ * @see SpectatorServer
+ */
+public final class SpectatorViewer
+{
+    private static final String WINDOW_TITLE = "Tower Defence - Spectating ";
+    /** Held so that the quieter log level set by {@link #main(String[])} is not lost when the logger is garbage collected. */
+    private static final Logger GAME_LOGGER = Logger.getLogger("se.liu.feljo718.towerdefence");
+
+    private final String host;
+    private final int port;
+    private final SnapshotCodec codec = new SnapshotCodec();
+    private SpectatorComponent component = null;
+    private long framesReceived = 0;
+    private long bytesReceived = 0;
+
+    /**
+     * Creates a viewer for a game streamed on the given host and port.
+     *
+     * @param host The host the game runs on, or null for this machine
+     * @param port The port the game streams on
+     */
+    public SpectatorViewer(String host, int port) {
+	this.host = host;
+	this.port = port;
+    }
+
+    /**
+     * Connects to the game and shows it until the stream ends. Blocks the calling thread, which must not be the event dispatch thread.
+     *
+     * @throws IOException If the game cannot be reached or the stream breaks off
+     */
+    public void watch() throws IOException {
+	InetAddress address = host != null ? InetAddress.getByName(host) : InetAddress.getLoopbackAddress();
+	try (Socket socket = new Socket(address, port)) {
+	    socket.setTcpNoDelay(true);
+	    DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+	    ByteBuffer message;
+	    while ((message = readMessage(in)) != null) {
+		bytesReceived += message.remaining();
+		receive(message);
+	    }
+	} catch (BufferUnderflowException | IllegalArgumentException | ArithmeticException e) {
+	    throw new IOException("Not a spectator stream", e);
+	} finally {
+	    LogHandler.info(SpectatorViewer.class, "Stream ended after {0,number,#} frames, {1,number,#} bytes", framesReceived,
+			    bytesReceived);
+	    if (component != null) {
+		component.setStatus("The game has ended");
+	    }
+	}
+    }
+
+    private void receive(ByteBuffer message) throws IOException {
+	byte type = message.get();
+	if (type == SpectatorFormat.HELLO) {
+	    hello(message);
+	} else if (type == SpectatorFormat.FRAME) {
+	    BoardSnapshot snapshot = codec.decode(message);
+	    framesReceived++;
+	    if (component != null) {
+		component.show(snapshot);
+	    }
+	} else {
+	    throw new IOException("Unknown message type " + type);
+	}
+    }
+
+    private void hello(ByteBuffer message) throws IOException {
+	int version = SpectatorFormat.readVarInt(message);
+	if (version != SpectatorFormat.VERSION) {
+	    throw new IOException("The game streams version " + version + ", this viewer reads version " + SpectatorFormat.VERSION);
+	}
+	int width = SpectatorFormat.readVarInt(message);
+	int height = SpectatorFormat.readVarInt(message);
+	String mapFile = SpectatorFormat.readString(message);
+	String levelFile = SpectatorFormat.readString(message);
+	String mapName = SpectatorFormat.readString(message);
+	boolean mazeMode = message.get() != 0;
+	LogHandler.info(SpectatorViewer.class, "Watching {0} ({1,number,#}x{2,number,#}) on port {3,number,#}", mapName, width, height,
+			port);
+
+	Board board = new Board(width, height, mapFile, levelFile, mapName);
+	board.setMazeMode(mazeMode);
+	try {
+	    SwingUtilities.invokeAndWait(() -> {
+		component = new SpectatorComponent(board);
+		JFrame frame = new JFrame(WINDOW_TITLE + mapName);
+		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		frame.add(component);
+		frame.pack();
+		frame.setLocationRelativeTo(null);
+		frame.setVisible(true);
+	    });
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new IOException("Interrupted while opening the window", e);
+	} catch (InvocationTargetException e) {
+	    throw new IOException("Could not open the window", e.getCause());
+	}
+    }
+
+    /**
+     * Reads one message of the stream.
+     *
+     * @param in The stream
+     *
+     * @return The message, starting with its type, or null if the stream ended between messages
+     * @throws IOException If the stream ends inside a message or is not a spectator stream
+     */
+    static ByteBuffer readMessage(DataInputStream in) throws IOException {
+	int length = 0;
+	for (int shift = 0; ; shift += 7) {
+	    int b = in.read();
+	    if (b < 0) {
+		if (shift == 0) {
+		    return null;
+		}
+		throw new EOFException("Stream ended inside a message length");
+	    }
+	    length |= (b & 0x7F) << shift;
+	    if ((b & 0x80) == 0) {
+		break;
+	    }
+	    if (shift > 2 * 7) {
+		throw new IOException("Message length too long");
+	    }
+	}
+	if (length < 1 || length > SpectatorFormat.MAX_MESSAGE_SIZE) {
+	    throw new IOException("Not a spectator message: length " + length);
+	}
+	byte[] message = new byte[length];
+	in.readFully(message);
+	return ByteBuffer.wrap(message);
+    }
+
+    /**
+     * Watches a game from command line arguments. Run with {@code --help} to list the options.
+     *
+     * @param args The command line arguments
+     */
+    public static void main(String[] args) {
+	Options options = new Options();
+	options.addOption(Option.builder("H").longOpt("host").hasArg().desc("host the game runs on (default this machine)").build());
+	options.addOption(Option.builder("p").longOpt("port").hasArg().desc("port the game streams on").build());
+	options.addOption(Option.builder("h").longOpt("help").desc("show this help").build());
+
+	try {
+	    CommandLine line = new DefaultParser().parse(options, args);
+	    if (line.hasOption("help")) {
+		new HelpFormatter().printHelp("SpectatorViewer", options);
+		return;
+	    }
+	    if (!line.hasOption("port")) {
+		throw new ParseException("Missing the port to watch");
+	    }
+	    int port = Integer.parseInt(line.getOptionValue("port"));
+
+	    // The local board is only used for its map, there is nothing to hear or to log about it
+	    GAME_LOGGER.setLevel(Level.WARNING);
+	    LogHandler.getLogger(SpectatorViewer.class).setLevel(Level.INFO);
+	    SoundManager.setEnabled(false);
+
+	    new SpectatorViewer(line.getOptionValue("host"), port).watch();
+	} catch (ParseException | IllegalArgumentException e) {
+	    System.err.println(e.getMessage());
+	    new HelpFormatter().printHelp("SpectatorViewer", options);
+	    System.exit(1);
+	} catch (IOException e) {
+	    LogHandler.severe(SpectatorViewer.class, "Could not watch the game: " + e.getMessage(), e);
+	    System.exit(1);
+	}
+    }
+}
@@ -0,0 +1,165 @@
+package se.liu.feljo718.towerdefence.startup;
+
+import se.liu.feljo718.towerdefence.handler.LogHandler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Records what happens between launching the game and showing the first frame of a game, on every thread involved.
+ * <p>
+ * The launch path records milestones, such as the main menu becoming visible, and spans, such as the warm-up tasks that run behind the
+ * menu. All times are measured from the start of the JVM, so they include JVM startup and class loading before {@code main}. When the first
+ * game frame has been painted the timeline is written to the log, together with a warning for each milestone that missed its target:
+ * <pre>
+ *    start    took  thread               what
+ *     92.1           main                 main
+ *     95.3     3.0  main                 logging
+ *     96.0    41.7  startup-warmup-1     levels
+ *    ...
+ *    243.8           AWT-EventQueue-0     main menu visible
+ * </pre>
+ * Recording is cheap and thread-safe, so it is always on.
+ *
+ * @author feljo718
+ * @see Warmup
+ */
+public final class StartupTimeline
+{
+    /** Milestone reached when the main menu has been painted for the first time. */
+    public static final String MENU_VISIBLE = "main menu visible";
+    /** Milestone reached when a game board has been painted for the first time. */
+    public static final String FIRST_FRAME = "first game frame";
+    private static final long MENU_TARGET_MILLIS = 300;
+    private static final long FIRST_FRAME_TARGET_MILLIS = 500;
+    private static final long ORIGIN_NANOS = System.nanoTime();
+    /** How long the JVM had been running when this class was initialised. */
+    private static final long JVM_START_OFFSET_NANOS = measureJvmStartOffset();
+    private static final Queue<Entry> ENTRIES = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean MENU_MARKED = new AtomicBoolean();
+    private static final AtomicBoolean REPORTED = new AtomicBoolean();
+
+    private StartupTimeline() {
+    }
+
+    /**
+     * Records a milestone reached now.
+     *
+     * @param milestone What was reached
+     */
+    public static void mark(String milestone) {
+	long now = System.nanoTime();
+	ENTRIES.add(new Entry(milestone, Thread.currentThread().getName(), now, now));
+    }
+
+    /**
+     * Records a span of work that started at the given time and ends now.
+     *
+     * @param phase      What was done
+     * @param startNanos When the work started, from {@link System#nanoTime()}
+     */
+    public static void record(String phase, long startNanos) {
+	ENTRIES.add(new Entry(phase, Thread.currentThread().getName(), startNanos, System.nanoTime()));
+    }
+
+    /**
+     * Runs the work and records it as a span.
+     *
+     * @param phase What is done
+     * @param work  The work
+     */
+    public static void time(String phase, Runnable work) {
+	long start = System.nanoTime();
+	try {
+	    work.run();
+	} finally {
+	    record(phase, start);
+	}
+    }
+
+    /**
+     * Records {@link #MENU_VISIBLE} the first time it is called.
+     */
+    public static void menuPainted() {
+	if (!MENU_MARKED.get() && !MENU_MARKED.getAndSet(true)) {
+	    mark(MENU_VISIBLE);
+	}
+    }
+
+    /**
+     * Records {@link #FIRST_FRAME} and writes the timeline to the log the first time it is called.
+     *
+     * @return true if this was the first game frame
+     */
+    public static boolean gameFramePainted() {
+	if (REPORTED.get() || REPORTED.getAndSet(true)) {
+	    return false;
+	}
+	mark(FIRST_FRAME);
+	report();
+	return true;
+    }
+
+    /**
+     * Returns the time since the JVM started.
+     *
+     * @return Milliseconds since JVM start
+     */
+    public static double sinceJvmStartMillis() {
+	return toMillis(System.nanoTime());
+    }
+
+    /**
+     * Returns the recorded entries, ordered by when they started.
+     *
+     * @return The lines of the timeline, formatted like in the log
+     */
+    public static List<String> format() {
+	List<Entry> entries = new ArrayList<>(ENTRIES);
+	entries.sort(Comparator.comparingLong(Entry::startNanos));
+
+	List<String> lines = new ArrayList<>(entries.size() + 1);
+	lines.add(String.format("%9s %7s  %-20s %s", "start", "took", "thread", "what"));
+	for (Entry entry : entries) {
+	    String took = entry.endNanos() == entry.startNanos() ? "" : String.format("%7.1f", (entry.endNanos() - entry.startNanos()) / 1.0e6);
+	    lines.add(String.format("%9.1f %7s  %-20s %s", toMillis(entry.startNanos()), took, entry.thread(), entry.name()));
+	}
+	return lines;
+    }
+
+    private static void report() {
+	LogHandler.info(StartupTimeline.class, "Startup timeline in milliseconds since JVM start:\n" + String.join("\n", format()));
+	for (Entry entry : ENTRIES) {
+	    checkTarget(entry, MENU_VISIBLE, MENU_TARGET_MILLIS);
+	    checkTarget(entry, FIRST_FRAME, FIRST_FRAME_TARGET_MILLIS);
+	}
+    }
+
+    private static void checkTarget(Entry entry, String milestone, long targetMillis) {
+	if (entry.name().equals(milestone) && toMillis(entry.startNanos()) > targetMillis) {
+	    LogHandler.logWarning(StartupTimeline.class,
+				  String.format("%s after %.0f ms, target is %d ms", milestone, toMillis(entry.startNanos()), targetMillis));
+	}
+    }
+
+    private static double toMillis(long nanos) {
+	return (nanos - ORIGIN_NANOS + JVM_START_OFFSET_NANOS) / 1.0e6;
+    }
+
+    private static long measureJvmStartOffset() {
+	// The process start time has a coarse resolution on some systems, but it is the only clock that covers JVM startup
+	return ProcessHandle.current().info().startInstant().map(start -> Duration.between(start, Instant.now()).toNanos())
+		.filter(offset -> offset >= 0 && offset < TimeUnit.MINUTES.toNanos(1)).orElse(0L);
+    }
+
+    private record Entry(String name, String thread, long startNanos, long endNanos)
+    {
+    }
+}
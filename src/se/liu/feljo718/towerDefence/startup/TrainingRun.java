@@ -0,0 +1,83 @@
+package se.liu.feljo718.towerdefence.startup;
+
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.board.TileType;
+import se.liu.feljo718.towerdefence.handler.LogHandler;
+import se.liu.feljo718.towerdefence.handler.PersistenceExecutor;
+import se.liu.feljo718.towerdefence.tower.TowerType;
+
+import javax.swing.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A scripted launch that loads the classes of a normal game, used to create an AppCDS archive.
+ * <p>
+ * Class loading and verification make up most of the time before the main menu appears. A class data sharing archive holds the classes
+ * already parsed and verified, so the JVM maps them instead of loading them. The archive is created by running the game once in training
+ * mode and used by every later launch:
+ * <pre>
+ * java -XX:ArchiveClassesAtExit=towerdefence.jsa -Dtowerdefence.startup.training=true -cp $JARS se.liu.feljo718.towerdefence.TowerDefenceViewer
+ * java -XX:SharedArchiveFile=towerdefence.jsa -cp $JARS se.liu.feljo718.towerdefence.TowerDefenceViewer
+ * </pre>
+ * The classpath must only contain jar files, with the game packaged as a jar; the JVM does not archive classes loaded from a directory
+ * and refuses to create the archive.
+ * On JDK 19 and later {@code -XX:+AutoCreateSharedArchive -XX:SharedArchiveFile=towerdefence.jsa} does both, but creates the archive
+ * from whatever the first launch happened to do. The archive must be created again whenever the classes or the classpath change; the
+ * JVM ignores an archive that does not match and logs a warning with {@code -Xshare:auto}, the default.
+ * <p>
+ * In training mode the main menu starts a game on the default map at once. The game places a tower next to the path, starts the first
+ * round, plays for {@value #PLAY_SECONDS} seconds so that enemies spawn, towers shoot and sounds play, and then exits, which is when the
+ * JVM writes the archive. Nothing is saved.
+ *
+ * @author feljo718
+ * @see StartupTimeline
+ */
+public final class TrainingRun
+{
+    private static final String TRAINING_PROPERTY = "towerdefence.startup.training";
+    private static final int PLAY_SECONDS = 5;
+    private static final boolean ENABLED = Boolean.getBoolean(TRAINING_PROPERTY);
+
+    private TrainingRun() {
+    }
+
+    public static boolean isEnabled() {
+	return ENABLED;
+    }
+
+    /**
+     * Plays the scripted game on the board and exits the application afterwards. Must be called on the event dispatch thread.
+     *
+     * @param board The board of the game that was just started
+     */
+    public static void play(Board board) {
+	placeTowerNextToPath(board);
+	board.startNextRound();
+
+	Timer exitTimer = new Timer((int) TimeUnit.SECONDS.toMillis(PLAY_SECONDS), e -> {
+	    LogHandler.info(TrainingRun.class, "Training run finished after " + board.getTickCount() + " ticks, exiting");
+	    PersistenceExecutor.flush(PLAY_SECONDS, TimeUnit.SECONDS);
+	    System.exit(0);
+	});
+	exitTimer.setRepeats(false);
+	exitTimer.start();
+    }
+
+    private static void placeTowerNextToPath(Board board) {
+	// Row 0 is the interface row
+	for (int row = 1; row < board.getHeight(); row++) {
+	    for (int col = 0; col < board.getWidth(); col++) {
+		if (board.getTileAt(row, col) == TileType.GRASS && isNextToPath(board, row, col)) {
+		    board.getTowerFactory().createTower(TowerType.BASIC, row, col);
+		    return;
+		}
+	    }
+	}
+	LogHandler.logWarning(TrainingRun.class, "No grass next to the path, training without towers");
+    }
+
+    private static boolean isNextToPath(Board board, int row, int col) {
+	return board.getTileAt(row - 1, col) == TileType.PATH || board.getTileAt(row + 1, col) == TileType.PATH ||
+	       board.getTileAt(row, col - 1) == TileType.PATH || board.getTileAt(row, col + 1) == TileType.PATH;
+    }
+}
@@ -0,0 +1,96 @@
+package se.liu.feljo718.towerdefence.startup;
+
+import se.liu.feljo718.towerdefence.TowerDefenceViewer;
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.board.BoardComponent;
+import se.liu.feljo718.towerdefence.enemy.EnemyFactory;
+import se.liu.feljo718.towerdefence.handler.AssetCache;
+import se.liu.feljo718.towerdefence.handler.LogHandler;
+import se.liu.feljo718.towerdefence.handler.SoundManager;
+import se.liu.feljo718.towerdefence.highscore.HighscoreStore;
+import se.liu.feljo718.towerdefence.tower.Tower;
+import se.liu.feljo718.towerdefence.tower.TowerFactory;
+import se.liu.feljo718.towerdefence.viewer.PerformanceOverlay;
+import se.liu.feljo718.towerdefence.viewer.TowerShop;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Does the work the first game needs on background threads while the main menu is shown.
+ * <p>
+ * Without the warm-up, pressing "New Game" parses the levels and the map, decodes the explosion image and loads the game classes on the
+ * event dispatch thread, and the first shot opens the audio system in the middle of a tick. All of these are independent of each other
+ * and of the menu, so {@link #start()} hands them to a small pool of daemon threads. Each of them fills a cache the game reads anyway,
+ * {@link se.liu.feljo718.towerdefence.handler.ContentCache}, {@link AssetCache}, {@link SoundManager} and the shared {@link
+ * HighscoreStore}, so the game does not wait for the warm-up: if a task has not finished yet, the game waits for that one result or loads
+ * it itself.
+ * <p>
+ * Every task is recorded in the {@link StartupTimeline}.
+ *
+ * @author feljo718
+ * @see StartupTimeline
+ */
+public final class Warmup
+{
+    private static final int MAX_THREADS = 4;
+    private static final AtomicBoolean STARTED = new AtomicBoolean();
+
+    private Warmup() {
+    }
+
+    /**
+     * Starts the warm-up tasks. Calls after the first do nothing.
+     */
+    public static void start() {
+	if (STARTED.getAndSet(true)) {
+	    return;
+	}
+
+	AtomicInteger threadCount = new AtomicInteger();
+	int threads = Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors());
+	ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+	    Thread thread = new Thread(runnable, "startup-warmup-" + threadCount.incrementAndGet());
+	    thread.setDaemon(true);
+	    return thread;
+	});
+
+	// Ordered by how soon the game needs the result
+	submit(pool, "levels", Board::preloadLevels);
+	submit(pool, "map", () -> Board.preloadMap(Board.DEFAULT_WIDTH, Board.DEFAULT_HEIGHT, Board.DEFAULT_MAP));
+	submit(pool, "game classes", Warmup::initializeGameClasses);
+	submit(pool, "images", AssetCache::preload);
+	submit(pool, "highscores", HighscoreStore::getShared);
+	submit(pool, "audio", () -> SoundManager.warmUp(Tower.SHOT_SOUND));
+	pool.shutdown();
+    }
+
+    private static void submit(ExecutorService pool, String phase, Runnable task) {
+	pool.execute(() -> {
+	    try {
+		StartupTimeline.time(phase, task);
+	    } catch (RuntimeException e) {
+		// The game loads whatever failed again when it needs it, and reports the error then
+		LogHandler.logWarning(Warmup.class, "Warm-up of " + phase + " failed: " + e.getMessage());
+	    }
+	});
+    }
+
+    /**
+     * Loads and initialises the classes created when a game starts, so that the event dispatch thread finds them ready.
+     */
+    private static void initializeGameClasses() {
+	List<Class<?>> classes = List.of(TowerDefenceViewer.class, BoardComponent.class, EnemyFactory.class, TowerFactory.class,
+					 TowerShop.class, PerformanceOverlay.class);
+	for (Class<?> clazz : classes) {
+	    try {
+		Class.forName(clazz.getName(), true, clazz.getClassLoader());
+	    } catch (ClassNotFoundException e) {
+		throw new IllegalStateException("Game class disappeared: " + clazz.getName(), e);
+	    }
+	}
+    }
+}
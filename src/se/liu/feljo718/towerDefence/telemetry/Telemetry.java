@@ -0,0 +1,100 @@
+package se.liu.feljo718.towerdefence.telemetry;
+
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.handler.LogHandler;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Entry point for recording gameplay telemetry.
+ * <p>
+ * Telemetry is off unless the game is started with {@code -Dtowerdefence.telemetry=true}. The segments are then written to the
+ * {@code telemetry} folder, or the folder given by {@code towerdefence.telemetry.dir}, in segments of
+ * {@code towerdefence.telemetry.segmentSize} megabytes. Because the switch is read once into a constant, the JIT compiler removes the
+ * recording calls entirely when telemetry is off.
+ * <p>
+ * Only events of the thread that records first, the game loop, are written. Boards simulated on other threads do not end up in the
+ * player's session, see {@link TelemetryWriter}.
+ * <p>
+ * Recording never throws: if the files cannot be written, a warning is logged and telemetry is turned off for the rest of the session.
+ * The files are read with {@link TelemetryReader}.
+ *
+ * @author feljo718
+ * @see TelemetryWriter
+ * @see TelemetryEventType
+ */
+public final class Telemetry
+{
+    public static final String ENABLED_PROPERTY = "towerdefence.telemetry";
+    public static final String DIRECTORY_PROPERTY = "towerdefence.telemetry.dir";
+    public static final String SEGMENT_SIZE_PROPERTY = "towerdefence.telemetry.segmentSize";
+    private static final String DEFAULT_DIRECTORY = "telemetry";
+    private static final int DEFAULT_SEGMENT_MEGABYTES = 16;
+    private static final int BYTES_PER_MEGABYTE = 1024 * 1024;
+
+    private static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+    private static final TelemetryWriter WRITER = ENABLED ? openWriter() : null;
+    private static volatile boolean failed = false;
+
+    private Telemetry() {
+    }
+
+    /**
+     * Returns whether events are being recorded.
+     *
+     * @return true if telemetry is on and has not failed
+     */
+    public static boolean isEnabled() {
+	return WRITER != null && !failed;
+    }
+
+    /**
+     * Records an event on the given board, stamped with the board's current tick and round. Events on {@link Board#copy() copies} of a
+     * board are dropped, since they did not happen in the game.
+     *
+     * @param board    The board the event happened on
+     * @param type     The event type
+     * @param subtype  The ordinal of the enemy, tower or powerup type, or 0
+     * @param entityId The id of the entity the event is about, or 0
+     * @param targetId The id of the entity it affected, or 0
+     * @param x        The column of the event, in tiles
+     * @param y        The row of the event, in tiles
+     * @param amount   The amount described by the event type
+     */
+    public static void record(Board board, TelemetryEventType type, int subtype, int entityId, int targetId, double x, double y,
+			      int amount)
+    {
+	if (WRITER == null || failed || board.isCopy()) {
+	    return;
+	}
+	try {
+	    WRITER.append(type, subtype, board.getTickCount(), board.getRound(), entityId, targetId, (float) x, (float) y, amount);
+	} catch (IOException e) {
+	    failed = true;
+	    LogHandler.logWarning(Telemetry.class, "Telemetry turned off, could not write segment: " + e.getMessage());
+	}
+    }
+
+    private static TelemetryWriter openWriter() {
+	File directory = new File(System.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY));
+	int segmentSize = Integer.getInteger(SEGMENT_SIZE_PROPERTY, DEFAULT_SEGMENT_MEGABYTES) * BYTES_PER_MEGABYTE;
+	try {
+	    TelemetryWriter writer = new TelemetryWriter(directory, segmentSize);
+	    Runtime.getRuntime().addShutdownHook(new Thread(() -> closeQuietly(writer), "telemetry-shutdown"));
+	    LogHandler.info(Telemetry.class, "Recording telemetry to " + directory + " as " + writer.getSessionName());
+	    return writer;
+	} catch (IOException | IllegalArgumentException e) {
+	    LogHandler.logWarning(Telemetry.class, "Could not start telemetry: " + e.getMessage());
+	    return null;
+	}
+    }
+
+    private static void closeQuietly(TelemetryWriter writer) {
+	try {
+	    writer.close();
+	} catch (IOException ignored) {
+	    // The logging system may already be shut down, and the records are in the page cache anyway
+	}
+    }
+}
@@ -0,0 +1,99 @@
+package se.liu.feljo718.towerdefence.telemetry;
+
+import se.liu.feljo718.towerdefence.enemy.EnemyType;
+import se.liu.feljo718.towerdefence.powerup.PowerupType;
+import se.liu.feljo718.towerdefence.tower.TowerType;
+
+/**
+ * The kinds of gameplay events stored in the telemetry files.
+ * <p>
+ * Every record has the same fields, and the event type decides what they mean. The subtype is the ordinal of the enemy, tower or powerup
+ * type involved, and the amount is documented for each constant below. Each type is stored as a one byte code, where code 0 is left
+ * unused so that the zero-filled tail of a segment can never be mistaken for a record.
+ *
+ * @author feljo718
+ * @see Telemetry
+ */
+public enum TelemetryEventType
+{
+    /** An enemy entered the board. The entity is the enemy, the subtype its {@link EnemyType} and the amount its health. */
+    SPAWN(EnemyType.values()),
+
+    /**
+     * A tower fired. The entity is the tower, the target the enemy it aimed at, the subtype its {@link TowerType} and the amount the damage
+     * of the shot.
+     */
+    SHOT(TowerType.values()),
+
+    /** An enemy was killed. The entity is the enemy, the subtype its {@link EnemyType} and the amount the reward paid for it. */
+    KILL(EnemyType.values()),
+
+    /** An enemy reached the end of the path. The entity is the enemy, the subtype its {@link EnemyType} and the amount its health left. */
+    LEAK(EnemyType.values()),
+
+    /** The player's coins changed. The amount is the change, negative when coins were spent. */
+    COINS(null),
+
+    /** The player lost a life. The amount is the number of lives left. */
+    LIFE_LOST(null),
+
+    /** A powerup was bought. The entity is the tower, the subtype the {@link PowerupType} and the amount the duration in milliseconds. */
+    POWERUP(PowerupType.values());
+
+    private static final TelemetryEventType[] BY_CODE = values();
+
+    private final Enum<?>[] subtypes;
+
+    TelemetryEventType(Enum<?>[] subtypes) {
+	this.subtypes = subtypes;
+    }
+
+    /**
+     * Returns the byte stored for this event type.
+     *
+     * @return The code, never 0
+     */
+    public byte getCode() {
+	return (byte) (ordinal() + 1);
+    }
+
+    /**
+     * Returns the event type stored as the given code.
+     *
+     * @param code The code read from a record
+     *
+     * @return The event type, or null if the code is unknown
+     */
+    public static TelemetryEventType fromCode(int code) {
+	if (code < 1 || code > BY_CODE.length) {
+	    return null;
+	}
+	return BY_CODE[code - 1];
+    }
+
+    /**
+     * Returns a readable name for the subtype of a record of this type.
+     *
+     * @param subtype The subtype read from a record
+     *
+     * @return The name of the enemy, tower or powerup type, or an empty string if this event type has no subtypes
+     */
+    public String getSubtypeName(int subtype) {
+	if (subtypes == null) {
+	    return "";
+	}
+	if (subtype < 0 || subtype >= subtypes.length) {
+	    return Integer.toString(subtype);
+	}
+	return subtypes[subtype].name();
+    }
+
+    /**
+     * Returns the number of subtypes records of this type can have.
+     *
+     * @return The number of subtypes, 0 if this event type has none
+     */
+    public int getSubtypeCount() {
+	return subtypes == null ? 0 : subtypes.length;
+    }
+}
@@ -0,0 +1,54 @@
+package se.liu.feljo718.towerdefence.telemetry;
+
+/**
+ * Layout of the telemetry segment files, shared by the writer and the reader.
+ * <p>
+ * A segment starts with a {@value #HEADER_SIZE} byte header followed by fixed size records of {@value #RECORD_SIZE} bytes. All values
+ * are stored in big-endian byte order, the default of {@link java.nio.ByteBuffer}.
+ * <pre>
+ * Header                           Record
+ *  0  int   magic "TDT1"            0  long  tick
+ *  4  short format version          8  byte  event type code
+ *  6  short record size             9  byte  subtype
+ *  8  int   segment index          10  short round
+ * 12  int   record count           12  int   entity id
+ * 16  long  session start (millis) 16  int   target id
+ * 24  long  reserved               20  float x
+ *                                  24  float y
+ *                                  28  int   amount
+ * </pre>
+ * The record count is updated after every record, so a segment left behind by a crashed game can still be read up to its last complete
+ * record.
+ *
+ * @author feljo718
+ * @see TelemetryWriter
+ * @see TelemetryReader
+ */
+final class TelemetryFormat
+{
+    static final int MAGIC = 0x54445431;
+    static final short VERSION = 1;
+    static final String FILE_EXTENSION = ".tdt";
+
+    static final int HEADER_SIZE = 32;
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int RECORD_SIZE_OFFSET = 6;
+    static final int SEGMENT_INDEX_OFFSET = 8;
+    static final int RECORD_COUNT_OFFSET = 12;
+    static final int SESSION_START_OFFSET = 16;
+
+    static final int RECORD_SIZE = 32;
+    static final int TICK_OFFSET = 0;
+    static final int TYPE_OFFSET = 8;
+    static final int SUBTYPE_OFFSET = 9;
+    static final int ROUND_OFFSET = 10;
+    static final int ENTITY_OFFSET = 12;
+    static final int TARGET_OFFSET = 16;
+    static final int X_OFFSET = 20;
+    static final int Y_OFFSET = 24;
+    static final int AMOUNT_OFFSET = 28;
+
+    private TelemetryFormat() {
+    }
+}
@@ -0,0 +1,200 @@
+package se.liu.feljo718.towerdefence.telemetry;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static se.liu.feljo718.towerdefence.telemetry.TelemetryFormat.*;
+
+/**
+ * Reads the segment files written by {@link TelemetryWriter}.
+ * <p>
+ * Segments are mapped read-only and streamed record by record, so files far larger than the heap can be read. Folders are expanded to
+ * the segment files they contain, in name order, which is the order the segments were written in.
+ * <p>
+ * Run from the command line, the reader prints a {@link TelemetrySummary} of the given files or converts them to CSV:
+ * <pre>
+ * java ... TelemetryReader telemetry
+ * java ... TelemetryReader --csv --output session.csv telemetry/session-20250101-120000-0000.tdt
+ * </pre>
+ *
+ * @author feljo718
+ * @see TelemetryRecord
+ */
+public class TelemetryReader
+{
+    private static final String CSV_HEADER = "tick,round,event,subtype,entity,target,x,y,amount";
+    private static final String DEFAULT_INPUT = "telemetry";
+
+    private final List<File> segments = new ArrayList<>();
+
+    /**
+     * Creates a reader for the given segment files and folders of segment files.
+     *
+     * @param paths The files and folders to read
+     */
+    public TelemetryReader(List<File> paths) {
+	for (File path : paths) {
+	    if (path.isDirectory()) {
+		File[] files = path.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+		if (files != null) {
+		    Arrays.sort(files, Comparator.comparing(File::getName));
+		    segments.addAll(Arrays.asList(files));
+		}
+	    } else {
+		segments.add(path);
+	    }
+	}
+    }
+
+    public List<File> getSegments() {
+	return segments;
+    }
+
+    /**
+     * Passes every record of every segment to the consumer, in the order they were written.
+     * <p>
+     * The consumer is handed the same {@link TelemetryRecord} each time, pointing at the next record.
+     *
+     * @param consumer Receives the records
+     *
+     * @return The number of records read
+     * @throws IOException If a segment cannot be read or is not a telemetry segment
+     */
+    public long read(Consumer<TelemetryRecord> consumer) throws IOException {
+	TelemetryRecord record = new TelemetryRecord();
+	long total = 0;
+	for (File segment : segments) {
+	    try (RandomAccessFile file = new RandomAccessFile(segment, "r")) {
+		long size = file.length();
+		if (size < HEADER_SIZE) {
+		    throw new IOException("Not a telemetry segment: " + segment);
+		}
+		MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+		if (buffer.getInt(MAGIC_OFFSET) != MAGIC || buffer.getShort(RECORD_SIZE_OFFSET) != RECORD_SIZE) {
+		    throw new IOException("Not a telemetry segment: " + segment);
+		}
+
+		// A segment cut short by a crash may claim more records than the file holds
+		long count = Math.min(buffer.getInt(RECORD_COUNT_OFFSET), (size - HEADER_SIZE) / RECORD_SIZE);
+		for (int index = 0; index < count; index++) {
+		    record.moveTo(buffer, HEADER_SIZE + index * RECORD_SIZE);
+		    consumer.accept(record);
+		}
+		total += count;
+	    }
+	}
+	return total;
+    }
+
+    /**
+     * Writes every record as a line of CSV, preceded by a header line.
+     *
+     * @param writer The writer to write to, left open
+     *
+     * @return The number of records written
+     * @throws IOException If a segment cannot be read or the output cannot be written
+     */
+    public long writeCsv(Writer writer) throws IOException {
+	PrintWriter out = new PrintWriter(writer);
+	out.println(CSV_HEADER);
+	long count = read(record -> {
+	    TelemetryEventType type = record.getType();
+	    out.print(record.getTick());
+	    out.print(',');
+	    out.print(record.getRound());
+	    out.print(',');
+	    out.print(type != null ? type.name() : "UNKNOWN");
+	    out.print(',');
+	    out.print(type != null ? type.getSubtypeName(record.getSubtype()) : Integer.toString(record.getSubtype()));
+	    out.print(',');
+	    out.print(record.getEntityId());
+	    out.print(',');
+	    out.print(record.getTargetId());
+	    out.print(',');
+	    out.print(record.getX());
+	    out.print(',');
+	    out.print(record.getY());
+	    out.print(',');
+	    out.println(record.getAmount());
+	});
+	out.flush();
+	if (out.checkError()) {
+	    throw new IOException("Could not write CSV output");
+	}
+	return count;
+    }
+
+    /**
+     * Command line entry point. Prints a summary of the given segments, or converts them to CSV with {@code --csv}.
+     *
+     * @param args Options followed by the segment files or folders, the {@code telemetry} folder if none are given
+     */
+    public static void main(String[] args) {
+	Options options = new Options();
+	options.addOption(Option.builder("c").longOpt("csv").desc("write the records as CSV instead of a summary").build());
+	options.addOption(Option.builder("o").longOpt("output").hasArg().desc("CSV output file (default standard output)").build());
+	options.addOption(Option.builder("h").longOpt("help").desc("show this help").build());
+
+	try {
+	    CommandLine line = new DefaultParser().parse(options, args);
+	    if (line.hasOption("help")) {
+		new HelpFormatter().printHelp("TelemetryReader [options] [files or folders]", options);
+		return;
+	    }
+
+	    List<File> paths = new ArrayList<>();
+	    for (String path : line.getArgList()) {
+		paths.add(new File(path));
+	    }
+	    if (paths.isEmpty()) {
+		paths.add(new File(DEFAULT_INPUT));
+	    }
+	    TelemetryReader reader = new TelemetryReader(paths);
+	    if (reader.getSegments().isEmpty()) {
+		System.err.println("No telemetry segments found in " + paths);
+		System.exit(1);
+	    }
+
+	    if (line.hasOption("csv")) {
+		String output = line.getOptionValue("output");
+		try (Writer writer = output != null
+				     ? new BufferedWriter(new FileWriter(output, StandardCharsets.UTF_8))
+				     : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+		    reader.writeCsv(writer);
+		}
+	    } else {
+		TelemetrySummary summary = new TelemetrySummary();
+		reader.read(summary);
+		summary.print(System.out);
+	    }
+	} catch (ParseException e) {
+	    System.err.println(e.getMessage());
+	    new HelpFormatter().printHelp("TelemetryReader [options] [files or folders]", options);
+	    System.exit(1);
+	} catch (IOException e) {
+	    System.err.println("Could not read telemetry: " + e.getMessage());
+	    System.exit(1);
+	}
+    }
+}
@@ -0,0 +1,66 @@
+package se.liu.feljo718.towerdefence.telemetry;
+
+import java.nio.ByteBuffer;
+
+import static se.liu.feljo718.towerdefence.telemetry.TelemetryFormat.*;
+
+/**
+ * A view of one record in a telemetry segment.
+ * <p>
+ * The reader moves a single instance from record to record instead of creating one object per record, so consumers must copy the values
+ * they want to keep rather than the record itself.
+ *
+ * @author feljo718
+ * @see TelemetryReader
+ */
+public class TelemetryRecord
+{
+    private ByteBuffer buffer = null;
+    private int offset = 0;
+
+    void moveTo(ByteBuffer buffer, int offset) {
+	this.buffer = buffer;
+	this.offset = offset;
+    }
+
+    public long getTick() {
+	return buffer.getLong(offset + TICK_OFFSET);
+    }
+
+    /**
+     * Returns the event type of the record.
+     *
+     * @return The event type, or null if the record was written by a newer version of the game
+     */
+    public TelemetryEventType getType() {
+	return TelemetryEventType.fromCode(buffer.get(offset + TYPE_OFFSET));
+    }
+
+    public int getSubtype() {
+	return Byte.toUnsignedInt(buffer.get(offset + SUBTYPE_OFFSET));
+    }
+
+    public int getRound() {
+	return buffer.getShort(offset + ROUND_OFFSET);
+    }
+
+    public int getEntityId() {
+	return buffer.getInt(offset + ENTITY_OFFSET);
+    }
+
+    public int getTargetId() {
+	return buffer.getInt(offset + TARGET_OFFSET);
+    }
+
+    public float getX() {
+	return buffer.getFloat(offset + X_OFFSET);
+    }
+
+    public float getY() {
+	return buffer.getFloat(offset + Y_OFFSET);
+    }
+
+    public int getAmount() {
+	return buffer.getInt(offset + AMOUNT_OFFSET);
+    }
+}
@@ -0,0 +1,95 @@
+package se.liu.feljo718.towerdefence.telemetry;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Aggregates telemetry records into totals per event type and subtype.
+ * <p>
+ * For every combination of event type and subtype the summary keeps the number of records and the sum of their amounts, which gives for
+ * example the shots and damage per tower type, the kills and leaks per enemy type and the coins earned and spent. Only arrays of counters
+ * are kept, so a session of any length can be summarised in constant memory.
+ *
+ * @author feljo718
+ * @see TelemetryReader
+ */
+public class TelemetrySummary implements Consumer<TelemetryRecord>
+{
+    private final Map<TelemetryEventType, long[]> counts = new EnumMap<>(TelemetryEventType.class);
+    private final Map<TelemetryEventType, long[]> amounts = new EnumMap<>(TelemetryEventType.class);
+    private long records = 0;
+    private long unknownRecords = 0;
+    private long firstTick = Long.MAX_VALUE;
+    private long lastTick = Long.MIN_VALUE;
+    private int lastRound = 0;
+    private long coinsEarned = 0;
+    private long coinsSpent = 0;
+
+    /**
+     * Creates an empty summary.
+     */
+    public TelemetrySummary() {
+	for (TelemetryEventType type : TelemetryEventType.values()) {
+	    // Types without subtypes keep their totals in a single slot
+	    int slots = Math.max(1, type.getSubtypeCount());
+	    counts.put(type, new long[slots]);
+	    amounts.put(type, new long[slots]);
+	}
+    }
+
+    @Override public void accept(TelemetryRecord record) {
+	records++;
+	TelemetryEventType type = record.getType();
+	if (type == null) {
+	    unknownRecords++;
+	    return;
+	}
+
+	long tick = record.getTick();
+	firstTick = Math.min(firstTick, tick);
+	lastTick = Math.max(lastTick, tick);
+	lastRound = Math.max(lastRound, record.getRound());
+
+	int slot = Math.min(record.getSubtype(), counts.get(type).length - 1);
+	int amount = record.getAmount();
+	counts.get(type)[slot]++;
+	amounts.get(type)[slot] += amount;
+
+	if (type == TelemetryEventType.COINS) {
+	    if (amount >= 0) {
+		coinsEarned += amount;
+	    } else {
+		coinsSpent -= amount;
+	    }
+	}
+    }
+
+    /**
+     * Prints the summary as a readable table.
+     *
+     * @param out The stream to print to
+     */
+    public void print(PrintStream out) {
+	out.printf("Records: %d%n", records);
+	if (records == unknownRecords) {
+	    return;
+	}
+	out.printf("Ticks:   %d to %d, %d rounds%n", firstTick, lastTick, lastRound);
+	out.printf("Coins:   %d earned, %d spent%n", coinsEarned, coinsSpent);
+	out.printf("%n%-10s %-16s %10s %14s%n", "Event", "Subtype", "Count", "Amount");
+	for (TelemetryEventType type : TelemetryEventType.values()) {
+	    long[] typeCounts = counts.get(type);
+	    long[] typeAmounts = amounts.get(type);
+	    for (int slot = 0; slot < typeCounts.length; slot++) {
+		if (typeCounts[slot] > 0) {
+		    out.printf("%-10s %-16s %10d %14d%n", type, type.getSubtypeName(slot), typeCounts[slot], typeAmounts[slot]);
+		}
+	    }
+	}
+	if (unknownRecords > 0) {
+	    out.printf("%nSkipped %d records of unknown type%n", unknownRecords);
+	}
+    }
+}
@@ -0,0 +1,258 @@
+package se.liu.feljo718.towerdefence.telemetry;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static se.liu.feljo718.towerdefence.telemetry.TelemetryFormat.*;
+
+/**
+ * Appends telemetry records to memory-mapped segment files.
+ * <p>
+ * Each segment is created at its full size and mapped into memory once, so appending a record is a handful of absolute puts into the
+ * mapping: no system call, no copying and no objects created. The operating system writes the pages to disk in the background, and
+ * because the pages belong to the file they survive a crash of the game. When a segment is full the writer moves on to the next one,
+ * named after the session and numbered from 0.
+ * <p>
+ * Two things would otherwise make an append cost far more than the puts themselves. The first write to every page of a fresh file
+ * faults the page in, so a background thread creates the next segment and touches all its pages while the current one is being filled,
+ * and also forces full segments to disk.
+ * And a lock, even an uncontended one, costs more than the record, so the writer is owned by a single thread instead: the first thread
+ * to append, which in the game is the event dispatch thread running the game loop. Records from other threads, such as headless
+ * simulations, are counted and dropped.
+ *
+ * @author feljo718
+ * @see TelemetryFormat
+ * @see Telemetry
+ */
+public class TelemetryWriter implements Closeable
+{
+    /** Pages are touched at this stride, which is the smallest page size of the platforms the game runs on. */
+    private static final int PAGE_SIZE = 4096;
+
+    private final File directory;
+    private final String sessionName;
+    private final long sessionStart;
+    private final int recordsPerSegment;
+    private final ExecutorService preparer;
+    private final AtomicReference<Thread> owner = new AtomicReference<>();
+    private final LongAdder rejectedRecords = new LongAdder();
+    private CompletableFuture<Segment> nextSegment;
+    private Segment segment;
+    private int recordsInSegment = 0;
+    private long recordsWritten = 0;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a writer for a new session and opens its first segment.
+     *
+     * @param directory   The folder to write the segments to, created if missing
+     * @param segmentSize The size of each segment file in bytes
+     *
+     * @throws IOException If the folder or the first segment cannot be created
+     */
+    public TelemetryWriter(File directory, int segmentSize) throws IOException {
+	if (segmentSize < HEADER_SIZE + RECORD_SIZE) {
+	    throw new IllegalArgumentException("Segment size must fit at least one record: " + segmentSize);
+	}
+	if (!directory.isDirectory() && !directory.mkdirs()) {
+	    throw new IOException("Could not create telemetry folder " + directory);
+	}
+	this.directory = directory;
+	this.sessionStart = System.currentTimeMillis();
+	this.sessionName = "session-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date(sessionStart));
+	this.recordsPerSegment = (segmentSize - HEADER_SIZE) / RECORD_SIZE;
+	this.preparer = Executors.newSingleThreadExecutor(runnable -> {
+	    Thread thread = new Thread(runnable, "telemetry-preparer");
+	    thread.setDaemon(true);
+	    return thread;
+	});
+
+	segment = createSegment(0);
+	prepareNextSegment();
+    }
+
+    /**
+     * Appends one record. Only the thread that appended first may append, records from other threads are dropped.
+     *
+     * @param type     The event type
+     * @param subtype  The ordinal of the enemy, tower or powerup type, or 0
+     * @param tick     The board tick the event happened on
+     * @param round    The round being played
+     * @param entityId The id of the entity the event is about
+     * @param targetId The id of the entity it affected, or 0
+     * @param x        The column of the event, in tiles
+     * @param y        The row of the event, in tiles
+     * @param amount   The amount described by the event type
+     *
+     * @throws IOException If the next segment could not be created
+     */
+    public void append(TelemetryEventType type, int subtype, long tick, int round, int entityId, int targetId, float x, float y,
+		       int amount) throws IOException
+    {
+	Thread current = Thread.currentThread();
+	if (owner.get() != current && !owner.compareAndSet(null, current)) {
+	    rejectedRecords.increment();
+	    return;
+	}
+	if (closed) {
+	    return;
+	}
+	if (recordsInSegment == recordsPerSegment) {
+	    rollOver();
+	}
+
+	MappedByteBuffer buffer = segment.buffer;
+	int offset = HEADER_SIZE + recordsInSegment * RECORD_SIZE;
+	buffer.putLong(offset + TICK_OFFSET, tick);
+	buffer.put(offset + TYPE_OFFSET, type.getCode());
+	buffer.put(offset + SUBTYPE_OFFSET, (byte) subtype);
+	buffer.putShort(offset + ROUND_OFFSET, (short) round);
+	buffer.putInt(offset + ENTITY_OFFSET, entityId);
+	buffer.putInt(offset + TARGET_OFFSET, targetId);
+	buffer.putFloat(offset + X_OFFSET, x);
+	buffer.putFloat(offset + Y_OFFSET, y);
+	buffer.putInt(offset + AMOUNT_OFFSET, amount);
+
+	recordsInSegment++;
+	recordsWritten++;
+	// Publish the record only after it is complete, so a reader of a crashed session never sees half a record
+	buffer.putInt(RECORD_COUNT_OFFSET, recordsInSegment);
+    }
+
+    /**
+     * Returns the number of records written in this session. Only exact when called by the owning thread.
+     *
+     * @return The number of records over all segments
+     */
+    public long getRecordsWritten() {
+	return recordsWritten;
+    }
+
+    /**
+     * Returns the number of records dropped because they were appended by another thread than the owner.
+     *
+     * @return The number of rejected records
+     */
+    public long getRejectedRecordCount() {
+	return rejectedRecords.sum();
+    }
+
+    public File getDirectory() {
+	return directory;
+    }
+
+    public String getSessionName() {
+	return sessionName;
+    }
+
+    /**
+     * Forces the current segment to disk and closes it, and deletes the segment prepared in advance. Records appended afterwards are
+     * ignored.
+     * <p>
+     * This is normally called from a shutdown hook while the game loop may still be running, so a record appended at the same moment
+     * may be left out of the record count of the segment.
+     */
+    @Override public synchronized void close() throws IOException {
+	if (closed) {
+	    return;
+	}
+	closed = true;
+	preparer.shutdown();
+	segment.finish();
+	try {
+	    nextSegment.join().discard();
+	} catch (CompletionException ignored) {
+	    // The next segment was never created, so there is nothing to delete
+	}
+    }
+
+    private synchronized void rollOver() throws IOException {
+	if (closed) {
+	    return;
+	}
+	// Forcing the full segment to disk takes milliseconds, so it is left to the background thread
+	Segment full = segment;
+	preparer.execute(() -> {
+	    try {
+		full.finish();
+	    } catch (IOException ignored) {
+		// The records are in the page cache and are written back when the mapping is released
+	    }
+	});
+	try {
+	    segment = nextSegment.join();
+	} catch (CompletionException e) {
+	    throw new IOException("Could not create telemetry segment", e.getCause());
+	}
+	recordsInSegment = 0;
+	prepareNextSegment();
+    }
+
+    private void prepareNextSegment() {
+	int index = segment.index + 1;
+	nextSegment = CompletableFuture.supplyAsync(() -> {
+	    try {
+		return createSegment(index);
+	    } catch (IOException e) {
+		throw new UncheckedIOException(e);
+	    }
+	}, preparer);
+    }
+
+    private Segment createSegment(int index) throws IOException {
+	File file = new File(directory, String.format("%s-%04d%s", sessionName, index, FILE_EXTENSION));
+	RandomAccessFile access = new RandomAccessFile(file, "rw");
+	try {
+	    long size = HEADER_SIZE + (long) recordsPerSegment * RECORD_SIZE;
+	    access.setLength(size);
+	    MappedByteBuffer buffer = access.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+	    // Fault every page in now, so the game loop does not pay for it on its first write to the page
+	    for (int position = 0; position < size; position += PAGE_SIZE) {
+		buffer.put(position, (byte) 0);
+	    }
+
+	    buffer.putInt(MAGIC_OFFSET, MAGIC);
+	    buffer.putShort(VERSION_OFFSET, VERSION);
+	    buffer.putShort(RECORD_SIZE_OFFSET, (short) RECORD_SIZE);
+	    buffer.putInt(SEGMENT_INDEX_OFFSET, index);
+	    buffer.putInt(RECORD_COUNT_OFFSET, 0);
+	    buffer.putLong(SESSION_START_OFFSET, sessionStart);
+	    return new Segment(index, file, access, buffer);
+	} catch (IOException e) {
+	    access.close();
+	    throw e;
+	}
+    }
+
+    /**
+     * An open, mapped segment file.
+     */
+    private record Segment(int index, File file, RandomAccessFile access, MappedByteBuffer buffer)
+    {
+	private void finish() throws IOException {
+	    buffer.force();
+	    // The mapping stays valid after the file is closed and is released when the buffer is collected
+	    access.close();
+	}
+
+	private void discard() throws IOException {
+	    access.close();
+	    if (!file.delete()) {
+		throw new IOException("Could not delete unused telemetry segment " + file);
+	    }
+	}
+    }
+}
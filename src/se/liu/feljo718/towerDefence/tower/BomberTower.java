@@ -19,7 +19,7 @@ public class BomberTower extends Tower
 
     public BomberTower(Point position) {
 	super(position);
-	LogHandler.info(BomberTower.class, "Bomber tower created at position: " + position);
+	LogHandler.info(BomberTower.class, "Bomber tower created at position: {0}", position);
     }
 
     @Override public TowerType getType() {
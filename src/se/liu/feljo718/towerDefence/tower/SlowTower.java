@@ -20,7 +20,7 @@ public class SlowTower extends Tower
 
     public SlowTower(Point position) {
 	super(position);
-	LogHandler.info(SlowTower.class, "Slow tower created at position: " + position);
+	LogHandler.info(SlowTower.class, "Slow tower created at position: {0}", position);
     }
 
     @Override public TowerType getType() {
@@ -35,8 +35,7 @@ public class SlowTower extends Tower
 	// Apply both damage and slowing effect
 	target.takeDamage(getDamage());
 	target.applySpeedModifier(SLOW_FACTOR, SLOW_DURATION);
-	LogHandler.fine(SlowTower.class,
-			"Slow tower applied " + getDamage() + " damage and reduced speed to " +
-			(SLOW_FACTOR * 100) + "% for " + (SLOW_DURATION / 1000) + " seconds");
+	LogHandler.fine(SlowTower.class, () -> "Slow tower applied " + getDamage() + " damage and reduced speed to " +
+					       (SLOW_FACTOR * 100) + "% for " + (SLOW_DURATION / 1000) + " seconds");
     }
 }
\ No newline at end of file
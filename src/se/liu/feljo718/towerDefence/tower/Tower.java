@@ -4,9 +4,12 @@ import se.liu.feljo718.towerdefence.board.Board;
 import se.liu.feljo718.towerdefence.enemy.Enemy;
 import se.liu.feljo718.towerdefence.handler.LogHandler;
 import se.liu.feljo718.towerdefence.handler.SoundManager;
+import se.liu.feljo718.towerdefence.metrics.TowerShotEvent;
 import se.liu.feljo718.towerdefence.powerup.Powerup;
 import se.liu.feljo718.towerdefence.powerup.PowerupFactory;
 import se.liu.feljo718.towerdefence.powerup.PowerupType;
+import se.liu.feljo718.towerdefence.telemetry.Telemetry;
+import se.liu.feljo718.towerdefence.telemetry.TelemetryEventType;
 
 import java.awt.*;
 import java.util.ArrayList;
@@ -22,6 +25,8 @@ import java.util.List;
  */
 public abstract class Tower
 {
+    /** The sound played when a tower shoots, also loaded by the startup warm-up. */
+    public static final String SHOT_SOUND = "/audio/shot.wav";
     private static final float SOUND_VOLUME_REDUCTION = -30.0f;
     private static final double DEFAULT_MULTIPLIER = 1.0;
     private final Point position;
@@ -30,6 +35,7 @@ public abstract class Tower
     private int level = 1;
     private double lastShotTime;
     private Board board = null;
+    private int id = 0;
     private double damageMultiplier = DEFAULT_MULTIPLIER;
     private double fireRateMultiplier = DEFAULT_MULTIPLIER;
     private double rangeMultiplier = DEFAULT_MULTIPLIER;
@@ -114,8 +120,43 @@ public abstract class Tower
 	return level;
     }
 
+    /**
+     * Puts this tower on a board. The tower gets its id from the first board it is put on.
+     *
+     * @param board The board the tower stands on
+     */
     public void setBoard(Board board) {
 	this.board = board;
+	if (id == 0) {
+	    id = board.nextEntityId();
+	}
+    }
+
+    public int getId() {
+	return id;
+    }
+
+    /**
+     * Puts this tower on a board as a copy of a tower of the same type on another board, with its id, level, shot timer and active
+     * powerups. The powerups keep the time they have left, so the board must have the same game time as the original's.
+     *
+     * @param original The tower to copy
+     * @param board    The board the copy stands on
+     */
+    void copyFrom(Tower original, Board board) {
+	id = original.id;
+	level = original.level;
+	lastShotTime = original.lastShotTime;
+	setBoard(board);
+	for (Powerup powerup : original.activePowerups) {
+	    if (powerup.getRemainingTime() > 0) {
+		applyPowerup(powerup.powerupType, powerup.getRemainingTime());
+	    }
+	}
+    }
+
+    public Board getBoard() {
+	return board;
     }
 
     public Point getPosition() {
@@ -183,12 +224,28 @@ public abstract class Tower
      * @param currentTime The current game time in seconds
      */
     public void shoot(Enemy target, double currentTime) {
+	TowerShotEvent event = new TowerShotEvent();
+	event.begin();
 	playShootSound();
 	board.addExplosion(target.getPixelPosition());
 
 	// Call the subclass implementation
 	performAttack(target);
 	lastShotTime = currentTime;
+	Telemetry.record(board, TelemetryEventType.SHOT, getType().ordinal(), id, target.getId(), position.x, position.y, getDamage());
+
+	event.end();
+	if (event.shouldCommit()) {
+	    Point targetPos = target.getPosition();
+	    event.towerType = getType().name();
+	    event.towerLevel = level;
+	    event.damage = getDamage();
+	    event.towerX = position.x;
+	    event.towerY = position.y;
+	    event.targetX = targetPos.x;
+	    event.targetY = targetPos.y;
+	    event.commit();
+	}
     }
 
     /**
@@ -271,7 +328,7 @@ public abstract class Tower
     }
 
     protected void performSplashAttack(Enemy target, double splashRadius, String towerType) {
-	LogHandler.fine(getClass(), towerType + " tower performing area attack");
+	LogHandler.fine(getClass(), "{0} tower performing area attack", towerType);
 
 	// Get the main target's position for the splash center
 	Point splashCenter = target.getPosition();
@@ -294,7 +351,8 @@ public abstract class Tower
 	    }
 	}
 
-	LogHandler.fine(getClass(), towerType + " tower hit " + enemiesHit + " enemies with " + getDamage() + " damage");
+	int hits = enemiesHit;
+	LogHandler.fine(getClass(), () -> towerType + " tower hit " + hits + " enemies with " + getDamage() + " damage");
     }
 
 
@@ -305,8 +363,10 @@ public abstract class Tower
      * classpath, not the file system. This is different from file system paths which would require File.separator.
      */
     private void playShootSound() {
-	String resourcePath = "/audio/shot.wav";
-	SoundManager.playSound(resourcePath, SOUND_VOLUME_REDUCTION);
+	if (board.isCopy()) {
+	    return;
+	}
+	SoundManager.playSound(SHOT_SOUND, SOUND_VOLUME_REDUCTION);
     }
 
     public double getRange() {
@@ -5,51 +5,129 @@ import se.liu.feljo718.towerdefence.enemy.Enemy;
 import se.liu.feljo718.towerdefence.handler.LogHandler;
 
 import java.awt.*;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manages the creation and operation of defensive towers in the Tower Defense game.
  * <p>
  * This class handles the placement of towers on the game board, manages the collection of active towers, and coordinates tower attacks
  * against enemies. Each tower operates independently based on its type, range, and attack patterns.
+ * <p>
+ * The towers are kept in a {@link TowerRegistry}, which finds the tower on a tile without searching and keeps two towers from sharing a
+ * tile.
  *
  * @author feljo718
  * @see Tower
  * @see TowerType
  * @see Board
+ * @see TowerRegistry
  */
 public class TowerFactory
 {
     /** 0.017 is approximately 60 fps **/
     private static final double FRAME_TIME_SECONDS = 0.017;
+    private static final Map<TowerType, Color> COLORS = new ConcurrentHashMap<>();
     private final Board board;
-    private final List<Tower> towers;
+    private final TowerRegistry registry;
     private double gameTime;
 
     public TowerFactory(Board board) {
 	this.board = board;
-	this.towers = new ArrayList<>();
+	this.registry = new TowerRegistry(board.getWidth(), board.getHeight());
 	this.gameTime = 0;
     }
 
+    /**
+     * Creates a tower and puts it on the board.
+     *
+     * @param type The type of tower
+     * @param row  The board row
+     * @param col  The board column
+     *
+     * @return The new tower, or null if the tile is outside the board or already has a tower
+     */
     public Tower createTower(TowerType type, int row, int col) {
+	if (!registry.isFree(row, col)) {
+	    LogHandler.logWarning(TowerFactory.class, "Tile (" + row + "," + col + ") is taken or off the board, no tower placed");
+	    return null;
+	}
 	Point position = new Point(col, row);
 
-	LogHandler.info(TowerFactory.class, "Creating " + type + " tower at position (" + row + "," + col + ")");
+	LogHandler.info(TowerFactory.class, "Creating {0} tower at position ({1,number,#},{2,number,#})", type, row, col);
+
+	Tower tower = newTower(type, position);
+	tower.setBoard(board);
+	registry.add(tower);
+	board.setTowerOnTile(row, col, true);
+	return tower;
+    }
+
+    /**
+     * Returns the colour towers of a type are drawn with, for views that only know the type of a tower.
+     *
+     * @param type The tower type
+     *
+     * @return The colour of a tower of the type
+     */
+    public static Color getColor(TowerType type) {
+	return COLORS.computeIfAbsent(type, key -> newTower(key, new Point()).getColor());
+    }
 
-	Tower tower = switch (type) {
+    private static Tower newTower(TowerType type, Point position) {
+	return switch (type) {
 	    case BASIC -> new BasicTower(position);
 	    case SNIPER -> new SniperTower(position);
 	    case SPLASH -> new SplashTower(position);
 	    case BOMBER -> new BomberTower(position);
 	    case SLOW -> new SlowTower(position);
 	};
+    }
 
-	tower.setBoard(board);
-	towers.add(tower);
-	return tower;
+    /**
+     * Fills an empty factory with copies of the towers of another board, for a {@link Board#copy() board copy}. The tiles of the board are
+     * copied with their towers already marked, so only the towers themselves are made here.
+     *
+     * @param original The factory of the board being copied
+     */
+    public void copyTowers(TowerFactory original) {
+	gameTime = original.gameTime;
+	for (Tower tower : original.registry.getTowers()) {
+	    Tower copy = newTower(tower.getType(), new Point(tower.getPosition()));
+	    copy.copyFrom(tower, board);
+	    registry.add(copy);
+	}
+    }
+
+    /**
+     * Removes a tower from the board and frees its tile for building again.
+     *
+     * @param tower The tower to remove
+     *
+     * @return true if the tower was on the board
+     */
+    public boolean removeTower(Tower tower) {
+	if (!registry.remove(tower)) {
+	    return false;
+	}
+	Point position = tower.getPosition();
+	board.setTowerOnTile(position.y, position.x, false);
+	return true;
+    }
+
+    /**
+     * Returns the tower standing on the given tile.
+     *
+     * @param row The board row
+     * @param col The board column
+     *
+     * @return The tower, or null if the tile has none
+     */
+    public Tower getTowerAt(int row, int col) {
+	return registry.getTowerAt(row, col);
     }
+
     /**
      * Updates all towers for one game tick.
      * <p>
@@ -70,7 +148,7 @@ public class TowerFactory
      * Updates powerups for all towers, removing expired ones.
      */
     private void updateTowerPowerups() {
-	for (Tower tower : towers) {
+	for (Tower tower : registry.getTowers()) {
 	    tower.updatePowerups();
 	}
     }
@@ -78,14 +156,21 @@ public class TowerFactory
     private void processTowerAttacks() {
 	List<Enemy> enemies = board.getEnemyFactory().getEnemies();
 
-	for (Tower tower : towers) {
+	for (Tower tower : registry.getTowers()) {
 	    if (tower.canShoot(gameTime)) {
 		tower.processAttack(enemies, gameTime);
 	    }
 	}
     }
 
+    /**
+     * Returns a read-only view of the towers on the board, in no particular order.
+     */
     public List<Tower> getTowers() {
-	return towers;
+	return registry.getTowers();
+    }
+
+    public TowerRegistry getRegistry() {
+	return registry;
     }
 }
\ No newline at end of file
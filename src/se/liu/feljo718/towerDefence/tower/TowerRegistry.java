@@ -0,0 +1,210 @@
+package se.liu.feljo718.towerdefence.tower;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the towers on a board by tile and by id.
+ * <p>
+ * Every tile of the board has a slot in a flat array holding the tower standing on it, so finding the tower under the mouse, checking
+ * whether a tile is free and finding the towers around a point cost the same no matter how many towers there are. A tile holds at most one
+ * tower; {@link #add(Tower)} refuses a second one.
+ * <p>
+ * The towers are also kept in a dense list for the game loop to iterate over. Removing a tower moves the last tower of the list into its
+ * place, so removal is constant time but does not keep the order the towers were added in. Tower ids come from the board and never change,
+ * so code that needs to refer to a tower across ticks can keep its id and look it up with {@link #getById(int)}.
+ *
+ * @author feljo718
+ * @see TowerFactory
+ * @see Tower
+ */
+public final class TowerRegistry
+{
+    private final int width;
+    private final int height;
+    private final Tower[] byTile;
+    /** The position in {@link #towers} of the tower on each tile, only meaningful where {@link #byTile} has a tower. */
+    private final int[] slotByTile;
+    private final List<Tower> towers = new ArrayList<>();
+    private final List<Tower> towersView = Collections.unmodifiableList(towers);
+    private final Map<Integer, Tower> byId = new HashMap<>();
+
+    /**
+     * Creates an empty registry for a board of the given size.
+     *
+     * @param width  The number of columns of the board
+     * @param height The number of rows of the board, counting the interface row
+     */
+    public TowerRegistry(int width, int height) {
+	if (width < 1 || height < 1) {
+	    throw new IllegalArgumentException("Board dimensions must be positive values");
+	}
+	this.width = width;
+	this.height = height;
+	this.byTile = new Tower[Math.multiplyExact(width, height)];
+	this.slotByTile = new int[byTile.length];
+    }
+
+    /**
+     * Returns true if the position is on the board and no tower stands on it. Whether the terrain allows building is up to the board.
+     */
+    public boolean isFree(int row, int col) {
+	return contains(row, col) && byTile[indexOf(row, col)] == null;
+    }
+
+    /**
+     * Registers a tower on the tile given by its position.
+     *
+     * @param tower The tower to add
+     *
+     * @throws IllegalArgumentException If the position is outside the board or another tower already stands there
+     */
+    public void add(Tower tower) {
+	Point position = tower.getPosition();
+	if (!contains(position.y, position.x)) {
+	    throw new IllegalArgumentException("Tower position (" + position.y + "," + position.x + ") is outside the board");
+	}
+	int index = indexOf(position.y, position.x);
+	if (byTile[index] != null) {
+	    throw new IllegalArgumentException("Tile (" + position.y + "," + position.x + ") already has a tower");
+	}
+	byTile[index] = tower;
+	slotByTile[index] = towers.size();
+	towers.add(tower);
+	byId.put(tower.getId(), tower);
+    }
+
+    /**
+     * Removes a tower.
+     *
+     * @param tower The tower to remove
+     *
+     * @return true if the tower was registered
+     */
+    public boolean remove(Tower tower) {
+	Point position = tower.getPosition();
+	if (!contains(position.y, position.x)) {
+	    return false;
+	}
+	int index = indexOf(position.y, position.x);
+	if (byTile[index] != tower) {
+	    return false;
+	}
+
+	int slot = slotByTile[index];
+	Tower last = towers.remove(towers.size() - 1);
+	if (last != tower) {
+	    towers.set(slot, last);
+	    Point lastPosition = last.getPosition();
+	    slotByTile[indexOf(lastPosition.y, lastPosition.x)] = slot;
+	}
+	byTile[index] = null;
+	byId.remove(tower.getId());
+	return true;
+    }
+
+    /**
+     * Returns the tower standing on the given tile.
+     *
+     * @return The tower, or null if the tile has none or is outside the board
+     */
+    public Tower getTowerAt(int row, int col) {
+	return contains(row, col) ? byTile[indexOf(row, col)] : null;
+    }
+
+    /**
+     * Returns the tower with the given id.
+     *
+     * @return The tower, or null if no registered tower has the id
+     */
+    public Tower getById(int id) {
+	return byId.get(id);
+    }
+
+    /**
+     * Adds the towers within the given distance of a tile to a list, for effects that reach the towers around a point. The cost depends on
+     * the radius and not on the number of towers.
+     *
+     * @param row    The board row of the centre
+     * @param col    The board column of the centre
+     * @param radius The distance in tiles, measured between tile centres
+     * @param into   The list to add the towers to
+     */
+    public void collectInRadius(int row, int col, double radius, List<Tower> into) {
+	int reach = (int) Math.floor(radius);
+	double radiusSquared = radius * radius;
+	int firstRow = Math.max(0, row - reach);
+	int lastRow = Math.min(height - 1, row + reach);
+	int firstCol = Math.max(0, col - reach);
+	int lastCol = Math.min(width - 1, col + reach);
+	for (int r = firstRow; r <= lastRow; r++) {
+	    int dy = r - row;
+	    for (int c = firstCol; c <= lastCol; c++) {
+		Tower tower = byTile[indexOf(r, c)];
+		int dx = c - col;
+		if (tower != null && dx * dx + dy * dy <= radiusSquared) {
+		    into.add(tower);
+		}
+	    }
+	}
+    }
+
+    /**
+     * Adds the towers standing inside a rectangle of tiles to a list. Scans whichever is smaller, the tiles of the rectangle or the towers,
+     * so a small area on a board full of towers and a large area on an empty board are both cheap.
+     *
+     * @param tiles The area, with x and y as the first column and row and the size in tiles
+     * @param into  The list to add the towers to
+     */
+    public void collectInArea(Rectangle tiles, List<Tower> into) {
+	int firstRow = Math.max(0, tiles.y);
+	int lastRow = Math.min(height - 1, tiles.y + tiles.height - 1);
+	int firstCol = Math.max(0, tiles.x);
+	int lastCol = Math.min(width - 1, tiles.x + tiles.width - 1);
+	if (firstRow > lastRow || firstCol > lastCol) {
+	    return;
+	}
+
+	long area = (long) (lastRow - firstRow + 1) * (lastCol - firstCol + 1);
+	if (area > towers.size()) {
+	    for (Tower tower : towers) {
+		Point position = tower.getPosition();
+		if (position.y >= firstRow && position.y <= lastRow && position.x >= firstCol && position.x <= lastCol) {
+		    into.add(tower);
+		}
+	    }
+	    return;
+	}
+	for (int r = firstRow; r <= lastRow; r++) {
+	    for (int c = firstCol; c <= lastCol; c++) {
+		Tower tower = byTile[indexOf(r, c)];
+		if (tower != null) {
+		    into.add(tower);
+		}
+	    }
+	}
+    }
+
+    /**
+     * Returns a read-only view of all registered towers, in no particular order.
+     */
+    public List<Tower> getTowers() {
+	return towersView;
+    }
+
+    public int size() {
+	return towers.size();
+    }
+
+    private boolean contains(int row, int col) {
+	return row >= 0 && row < height && col >= 0 && col < width;
+    }
+
+    private int indexOf(int row, int col) {
+	return row * width + col;
+    }
+}
@@ -0,0 +1,158 @@
+package se.liu.feljo718.towerdefence.viewer;
+
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.forecast.WaveForecast;
+import se.liu.feljo718.towerdefence.forecast.WaveForecaster;
+import se.liu.feljo718.towerdefence.handler.LogHandler;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Overlay showing what the next round is expected to do to the current defence.
+ * <p>
+ * While the overlay is on and the board is between rounds, it keeps a {@link WaveForecast} of the next round up to date. A new forecast is
+ * asked for whenever a command has changed the board, so building, upgrading or selling a tower shows its effect on the forecast a moment
+ * later, without starting the round. The forecast runs on a background thread; its result is only shown if the board has not changed
+ * again in the meantime.
+ * <p>
+ * The overlay marks the tiles where enemies get away, with the number of enemies that leak there, and sums the forecast up in one line.
+ *
+ * @author feljo718
+ * @see WaveForecaster
+ */
+public class ForecastOverlay
+{
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.BOLD, 12);
+    private static final Color BACKGROUND = new Color(0, 0, 0, 170);
+    private static final Color TEXT_COLOR = Color.WHITE;
+    private static final Color LEAK_COLOR = new Color(255, 0, 0, 120);
+    private static final Color HOLD_COLOR = new Color(120, 255, 120);
+    private static final int PADDING = 6;
+    /** The command count of a board no forecast has been asked for. */
+    private static final long NOT_REQUESTED = -1;
+
+    private final Board board;
+    private final Component component;
+    private final WaveForecaster forecaster = new WaveForecaster();
+    private boolean enabled = false;
+    private long requestedAt = NOT_REQUESTED;
+    private WaveForecast forecast = null;
+
+    /**
+     * Creates an overlay for a board.
+     *
+     * @param board     The board to forecast
+     * @param component The component the overlay is drawn on, repainted when a forecast arrives
+     */
+    public ForecastOverlay(Board board, Component component) {
+	this.board = board;
+	this.component = component;
+    }
+
+    public boolean isEnabled() {
+	return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+	this.enabled = enabled;
+	update();
+    }
+
+    /**
+     * Asks for a new forecast if the board has changed since the last one. Called whenever the board changes, on the thread that ticks
+     * it.
+     */
+    public void update() {
+	if (!enabled || !WaveForecaster.canForecast(board)) {
+	    if (requestedAt != NOT_REQUESTED) {
+		forecaster.cancel();
+	    }
+	    requestedAt = NOT_REQUESTED;
+	    forecast = null;
+	    return;
+	}
+
+	long commandCount = board.getCommandCount();
+	if (commandCount == requestedAt) {
+	    return;
+	}
+	requestedAt = commandCount;
+	forecast = null;
+	forecaster.forecast(board).whenCompleteAsync(this::forecastDone, SwingUtilities::invokeLater);
+    }
+
+    private void forecastDone(WaveForecast result, Throwable error) {
+	if (error != null) {
+	    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+	    if (!(cause instanceof CancellationException)) {
+		LogHandler.logWarning(ForecastOverlay.class, "Forecast failed: " + cause);
+	    }
+	    return;
+	}
+	if (enabled && result.commandCount() == requestedAt && result.commandCount() == board.getCommandCount()) {
+	    forecast = result;
+	    component.repaint();
+	}
+    }
+
+    /**
+     * Marks the tiles where enemies are forecast to get away.
+     *
+     * @param g2d      The graphics context, in board pixels
+     * @param visible  The visible area in board pixels
+     * @param tileSize The size of a tile in board pixels
+     */
+    public void drawLeaks(Graphics2D g2d, Rectangle visible, int tileSize) {
+	if (forecast == null) {
+	    return;
+	}
+	g2d.setFont(FONT);
+	FontMetrics metrics = g2d.getFontMetrics();
+	for (WaveForecast.LeakSite site : forecast.leakSites()) {
+	    int x = site.col() * tileSize;
+	    int y = site.row() * tileSize;
+	    if (!visible.intersects(x, y, tileSize, tileSize)) {
+		continue;
+	    }
+	    g2d.setColor(LEAK_COLOR);
+	    g2d.fillOval(x, y, tileSize, tileSize);
+	    String label = String.valueOf(site.leaks());
+	    g2d.setColor(TEXT_COLOR);
+	    g2d.drawString(label, x + (tileSize - metrics.stringWidth(label)) / 2, y + (tileSize + metrics.getAscent()) / 2 - 1);
+	}
+    }
+
+    /**
+     * Draws a one line summary of the forecast with its bottom-left corner at the given position.
+     *
+     * @param g2d The graphics context to draw on
+     * @param x   The left edge in pixels
+     * @param y   The bottom edge in pixels
+     */
+    public void drawSummary(Graphics2D g2d, int x, int y) {
+	if (requestedAt == NOT_REQUESTED) {
+	    return;
+	}
+	String text;
+	if (forecast == null) {
+	    text = "Forecasting round " + (board.getRound() + 1) + "...";
+	} else if (forecast.holds()) {
+	    text = String.format("Round %d forecast: holds, all %d enemies stopped", forecast.round(), forecast.enemies());
+	} else {
+	    text = String.format("Round %d forecast: %d of %d enemies leak (%d never hit), lives %d -> %s", forecast.round(),
+				 forecast.leaks(), forecast.enemies(), forecast.untouched(), forecast.livesBefore(),
+				 forecast.isGameOver() ? "game over" : String.valueOf(forecast.livesAfter()));
+	}
+
+	g2d.setFont(FONT);
+	FontMetrics metrics = g2d.getFontMetrics();
+	int height = metrics.getHeight() + 2 * PADDING;
+	g2d.setColor(BACKGROUND);
+	g2d.fillRect(x, y - height, metrics.stringWidth(text) + 2 * PADDING, height);
+	g2d.setColor(forecast != null && forecast.holds() ? HOLD_COLOR : TEXT_COLOR);
+	g2d.drawString(text, x + PADDING, y - height + PADDING + metrics.getAscent());
+    }
+}
@@ -1,10 +1,12 @@
 package se.liu.feljo718.towerdefence.viewer;
 
-import com.google.gson.JsonSyntaxException;
 import se.liu.feljo718.towerdefence.TowerDefenceViewer;
 import se.liu.feljo718.towerdefence.board.Board;
 import se.liu.feljo718.towerdefence.handler.LogHandler;
 import se.liu.feljo718.towerdefence.highscore.HighscoreList;
+import se.liu.feljo718.towerdefence.lockstep.LockstepSession;
+import se.liu.feljo718.towerdefence.scenario.ScenarioGenerator;
+import se.liu.feljo718.towerdefence.startup.StartupTimeline;
 
 import javax.swing.*;
 import java.awt.*;
@@ -18,6 +20,14 @@ import java.util.logging.Level;
  * configuring options, viewing high scores, and exiting the application.
  * <p>
  * The menu features a graphical background, styled buttons, and a responsive layout.
+ * <p>
+ * Setting the system property {@code towerdefence.scenario} to the name of a scenario written by {@link ScenarioGenerator} makes new games
+ * use its map and levels instead of the selected map. Its size is given with {@code towerdefence.scenario.width} and
+ * {@code towerdefence.scenario.height}, which allows maps far larger than the window. Setting {@code towerdefence.maze} to true starts new
+ * games in maze mode, see {@link Board#setMazeMode(boolean)}.
+ * <p>
+ * Setting {@value LockstepSession#HOST_PROPERTY} to a port makes a new game wait for a second player to join it, and setting
+ * {@value LockstepSession#JOIN_PROPERTY} to a host and port makes it join the game hosted there instead, see {@link LockstepSession}.
  *
  * @author feljo718
  * @see Board
@@ -37,9 +47,14 @@ public class MainMenu
     private static final Color BUTTON_BACKGROUND = new Color(70, 70, 120);
     private static final int BUTTON_BORDER_THICKNESS = 2;
     private static final int BUTTON_PADDING = 10;
+    private static final String SCENARIO_PROPERTY = "towerdefence.scenario";
+    private static final String SCENARIO_WIDTH_PROPERTY = "towerdefence.scenario.width";
+    private static final String SCENARIO_HEIGHT_PROPERTY = "towerdefence.scenario.height";
+    private static final String SCENARIO_FOLDER = "generated";
+    private static final String MAZE_PROPERTY = "towerdefence.maze";
     private final JFrame frame;
     private JPanel buttonPanel = null;
-    private String selectedMapName = "Default Map";
+    private String selectedMapName = Board.DEFAULT_MAP;
 
     /**
      * Creates and initializes the main menu interface.
@@ -69,6 +84,7 @@ public class MainMenu
 		// Just draw the solid color background directly
 		g.setColor(new Color(30, 30, 60));
 		g.fillRect(0, 0, getWidth(), getHeight());
+		StartupTimeline.menuPainted();
 	    }
 	});
 
@@ -157,20 +173,93 @@ public class MainMenu
     /**
      * Starts a new game session with the currently selected map.
      * <p>
-     * Closes the menu window and initializes the game components including the board and viewer.
+     * Closes the menu window and initializes the game components including the board and viewer. Both steps are recorded in the {@link
+     * StartupTimeline}.
      */
-    private void startNewGame() {
+    public void startNewGame() {
+	String hostPort = System.getProperty(LockstepSession.HOST_PROPERTY);
+	String joinAddress = System.getProperty(LockstepSession.JOIN_PROPERTY);
+	if ((hostPort != null && !hostPort.isBlank()) || (joinAddress != null && !joinAddress.isBlank())) {
+	    startSharedGame(hostPort, joinAddress);
+	    return;
+	}
+
 	LogHandler.info(MainMenu.class, "Starting new game with map: " + selectedMapName);
+	StartupTimeline.mark("new game requested");
 	frame.dispose();
 
 	// Start game with selected map name
 	SwingUtilities.invokeLater(() -> {
-	    Board board = new Board(20, 15, selectedMapName);
+	    long start = System.nanoTime();
+	    Board board = createBoard();
+	    board.setMazeMode(Boolean.getBoolean(MAZE_PROPERTY));
+	    StartupTimeline.record("create board", start);
+
+	    start = System.nanoTime();
 	    TowerDefenceViewer viewer = new TowerDefenceViewer(board);
 	    viewer.show();
+	    StartupTimeline.record("create game window", start);
 	});
     }
 
+    /**
+     * Starts a game shared with another player. Connecting happens in the background, since the host waits for the other player to join;
+     * the menu stays open but disabled until the game window is shown. If the game cannot be started the player is told and the menu is
+     * enabled again.
+     *
+     * @param hostPort    The port to host the game on, or null to join one
+     * @param joinAddress The host and port of the game to join, used when not hosting
+     */
+    private void startSharedGame(String hostPort, String joinAddress) {
+	boolean hosting = hostPort != null && !hostPort.isBlank();
+	frame.setEnabled(false);
+	frame.setTitle(hosting ? "Tower Defense - Waiting for the second player" : "Tower Defense - Joining " + joinAddress);
+
+	Thread connect = new Thread(() -> {
+	    try {
+		LockstepSession session;
+		if (hosting) {
+		    Board board = createBoard();
+		    board.setMazeMode(Boolean.getBoolean(MAZE_PROPERTY));
+		    session = LockstepSession.host(board, Integer.parseInt(hostPort.trim()));
+		} else {
+		    session = LockstepSession.join(joinAddress.trim());
+		}
+		SwingUtilities.invokeLater(() -> {
+		    frame.dispose();
+		    TowerDefenceViewer viewer = new TowerDefenceViewer(session.getBoard(), session);
+		    viewer.show();
+		});
+	    } catch (IOException | IllegalArgumentException e) {
+		LogHandler.severe(MainMenu.class, "Could not start the shared game", e);
+		SwingUtilities.invokeLater(() -> {
+		    JOptionPane.showMessageDialog(frame, "Could not start the shared game:\n" + e.getMessage(), "Error",
+						  JOptionPane.ERROR_MESSAGE);
+		    frame.setTitle("Tower Defense");
+		    frame.setEnabled(true);
+		});
+	    }
+	}, "lockstep-connect");
+	connect.setDaemon(true);
+	connect.start();
+    }
+
+    /**
+     * Creates the board for a new game, from the configured scenario if there is one and otherwise from the selected map.
+     */
+    private Board createBoard() {
+	String scenario = System.getProperty(SCENARIO_PROPERTY);
+	if (scenario == null || scenario.isBlank()) {
+	    return new Board(Board.DEFAULT_WIDTH, Board.DEFAULT_HEIGHT, selectedMapName);
+	}
+
+	int width = Integer.getInteger(SCENARIO_WIDTH_PROPERTY, Board.DEFAULT_WIDTH);
+	int height = Integer.getInteger(SCENARIO_HEIGHT_PROPERTY, Board.DEFAULT_HEIGHT);
+	LogHandler.info(MainMenu.class, "Starting scenario " + scenario + " (" + width + "x" + height + ")");
+	return new Board(width, height, SCENARIO_FOLDER + "/" + ScenarioGenerator.mapFileName(scenario),
+			 SCENARIO_FOLDER + "/" + ScenarioGenerator.levelFileName(scenario), scenario);
+    }
+
     /**
      * Displays a dialog for selecting the game map.
      * <p>
@@ -195,28 +284,18 @@ public class MainMenu
     /**
      * Displays the high scores to the user.
      * <p>
-     * Attempts to load and display high scores in a dialog window. If running in a headless environment, falls back to displaying scores in
-     * the console log.
+     * Displays the high scores of the shared highscore store in a dialog window. If running in a headless environment, falls back to
+     * displaying scores in the console log.
      */
     private void showHighScores() {
 	LogHandler.info(MainMenu.class, "Displaying highscores");
 	HighscoreList highscoreList = new HighscoreList();
 
 	try {
-	    highscoreList.loadFromJson();
 	    JOptionPane.showMessageDialog(frame, createHighscoreDisplay(highscoreList), "Highscores", JOptionPane.INFORMATION_MESSAGE);
 	} catch (HeadlessException e) {
 	    LogHandler.severe(MainMenu.class, "Cannot display highscores in headless environment", e);
 	    displayHighscoresInConsole();
-	    return;
-	} catch (JsonSyntaxException e) {
-	    LogHandler.severe(MainMenu.class, "Invalid highscore file format: " + e.getMessage(), e);
-	    JOptionPane.showMessageDialog(frame, "Highscore file is corrupted or invalid.", "Format Error", JOptionPane.ERROR_MESSAGE);
-	    return;
-	} catch (IOException e) {
-	    LogHandler.severe(MainMenu.class, "Failed to load highscores file: " + e.getMessage(), e);
-	    JOptionPane.showMessageDialog(frame, "Could not load highscores file.", "Error", JOptionPane.ERROR_MESSAGE);
-	    return;
 	}
     }
 
@@ -240,21 +319,8 @@ public class MainMenu
     private void displayHighscoresInConsole() {
 	LogHandler.info(MainMenu.class, "Displaying highscores in console");
 	HighscoreList highscoreList = new HighscoreList();
+	String highscoresText = highscoreList.toString().trim().isEmpty() ? "No highscores available yet." : highscoreList.toString();
 
-	try {
-	    highscoreList.loadFromJson();
-
-	    String highscoresText = highscoreList.toString().trim().isEmpty() ? "No highscores available yet." : highscoreList.toString();
-
-	    LogHandler.info(MainMenu.class, "\n=== HIGHSCORES ===\n" + highscoresText + "\n=================\n");
-	} catch (JsonSyntaxException e) {
-	    LogHandler.severe(MainMenu.class, "Invalid highscore file format for console display: " + e.getMessage(), e);
-	    LogHandler.info(MainMenu.class, "\n=== HIGHSCORES ===\nNo highscores available (format error)\n=================\n");
-	    return;
-	} catch (IOException e) {
-	    LogHandler.severe(MainMenu.class, "Failed to load highscores file for console display: " + e.getMessage(), e);
-	    LogHandler.info(MainMenu.class, "\n=== HIGHSCORES ===\nNo highscores available (file error)\n=================\n");
-	    return;
-	}
+	LogHandler.info(MainMenu.class, "\n=== HIGHSCORES ===\n" + highscoresText + "\n=================\n");
     }
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package se.liu.feljo718.towerdefence.viewer;
+
+import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.metrics.TickPhase;
+import se.liu.feljo718.towerdefence.metrics.TickProfiler;
+
+import java.awt.*;
+
+/**
+ * Heads-up display showing where frame time goes.
+ * <p>
+ * The overlay draws the p50/p99/max timings of every {@link TickPhase}, the number of live entities, the allocation rate of the game loop
+ * thread and how far the tick rate drifts from its target. The text lines are only rebuilt when the board's {@link TickProfiler} publishes
+ * a new summary, so drawing the overlay every frame costs little more than a few {@code drawString} calls.
+ *
+ * @author feljo718
+ * @see TickProfiler
+ */
+public class PerformanceOverlay
+{
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final Color BACKGROUND = new Color(0, 0, 0, 170);
+    private static final Color TEXT_COLOR = Color.WHITE;
+    private static final int PADDING = 6;
+    private static final double NANOS_PER_MILLI = 1.0e6;
+    private static final double BYTES_PER_MEGABYTE = 1024.0 * 1024.0;
+
+    private final Board board;
+    private String[] lines = new String[0];
+    private int renderedVersion = -1;
+
+    public PerformanceOverlay(Board board) {
+	this.board = board;
+    }
+
+    /**
+     * Draws the overlay with its top-left corner at the given position.
+     *
+     * @param g2d The graphics context to draw on
+     * @param x   The left edge in pixels
+     * @param y   The top edge in pixels
+     */
+    public void draw(Graphics2D g2d, int x, int y) {
+	TickProfiler profiler = board.getTickProfiler();
+	if (profiler.getSummaryVersion() != renderedVersion) {
+	    lines = buildLines(profiler);
+	    renderedVersion = profiler.getSummaryVersion();
+	}
+
+	g2d.setFont(FONT);
+	FontMetrics metrics = g2d.getFontMetrics();
+	int lineHeight = metrics.getHeight();
+	int width = 0;
+	for (String line : lines) {
+	    width = Math.max(width, metrics.stringWidth(line));
+	}
+
+	g2d.setColor(BACKGROUND);
+	g2d.fillRect(x, y, width + 2 * PADDING, lines.length * lineHeight + 2 * PADDING);
+	g2d.setColor(TEXT_COLOR);
+	for (int i = 0; i < lines.length; i++) {
+	    g2d.drawString(lines[i], x + PADDING, y + PADDING + metrics.getAscent() + i * lineHeight);
+	}
+    }
+
+    private String[] buildLines(TickProfiler profiler) {
+	TickPhase[] phases = TickPhase.values();
+	String[] result = new String[phases.length + 3];
+	result[0] = String.format("%-11s %8s %8s %8s", "Phase (ms)", "p50", "p99", "max");
+	for (int i = 0; i < phases.length; i++) {
+	    TickPhase phase = phases[i];
+	    result[i + 1] = String.format("%-11s %8.3f %8.3f %8.3f", phase.getLabel(), profiler.getP50(phase) / NANOS_PER_MILLI,
+					  profiler.getP99(phase) / NANOS_PER_MILLI, profiler.getMax(phase) / NANOS_PER_MILLI);
+	}
+	result[phases.length + 1] = String.format("Enemies %d  Towers %d  Explosions %d", board.getEnemyFactory().getEnemies().size(),
+						  board.getTowerFactory().getTowers().size(), board.getExplosions().size());
+	result[phases.length + 2] = String.format("Alloc %.2f MB/s  TPS %.1f  Drift %+.2f ms",
+						  profiler.getAllocationBytesPerSecond() / BYTES_PER_MEGABYTE, profiler.getTicksPerSecond(),
+						  profiler.getTickDriftMillis());
+	return result;
+    }
+}
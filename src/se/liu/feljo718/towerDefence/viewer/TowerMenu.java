@@ -1,10 +1,11 @@
 package se.liu.feljo718.towerdefence.viewer;
 
 import se.liu.feljo718.towerdefence.board.Board;
+import se.liu.feljo718.towerdefence.command.RemoveTowerCommand;
+import se.liu.feljo718.towerdefence.command.UpgradeTowerCommand;
 import se.liu.feljo718.towerdefence.powerup.Powerup;
 import se.liu.feljo718.towerdefence.powerup.PowerupShop;
 import se.liu.feljo718.towerdefence.tower.Tower;
-import se.liu.feljo718.towerdefence.tower.TowerType;
 
 import javax.swing.*;
 import java.awt.*;
@@ -25,7 +26,6 @@ import java.util.List;
  */
 public class TowerMenu
 {
-    private static final double TOWER_REFUND_PERCENTAGE = 0.5;
     private static final int POWERUP_LIST_COLUMNS = 1;
     private static final long MILLISECONDS_PER_SECOND = 1000;
     private static final String POWERUP_DISPLAY_FORMAT = "%s (%ds)";
@@ -164,40 +164,27 @@ public class TowerMenu
     /**
      * Attempts to upgrade the current tower.
      * <p>
-     * Checks if the tower can be upgraded (not at max level) and if the player has enough coins for the upgrade. Deducts coins and
-     * increases the tower's level if conditions are met.
+     * The upgrade is submitted as an {@link UpgradeTowerCommand}, which checks that the tower is not at max level and that the player has
+     * enough coins for the upgrade when it is applied at the next tick. The player is told the outcome once it is known.
      */
     private void upgradeTower() {
-	// Check if tower is already at max level
-	if (tower.getLevel() >= tower.getType().getMaxLevel()) {
-	    JOptionPane.showMessageDialog(dialog, "Tower is already at maximum level!", "Upgrade Failed", JOptionPane.INFORMATION_MESSAGE);
-	    return;
-	}
-
-	// Get upgrade cost
-	int upgradeCost = getTowerCost(tower.getType());
-
-	if (board.getCoins() >= upgradeCost) {
-	    // Deduct coins and upgrade tower
-	    board.gainCoins(-upgradeCost);
-	    tower.upgrade();
-
-	    JOptionPane.showMessageDialog(dialog, "Tower upgraded to level " + tower.getLevel() + "!", "Upgrade Complete",
-					  JOptionPane.INFORMATION_MESSAGE);
-
-	    // Close the dialog after upgrade
-	    closeDialog();
-	} else {
-	    // Show error if not enough coins
-	    JOptionPane.showMessageDialog(dialog, "Not enough coins to upgrade! You need " + upgradeCost + " coins.", "Upgrade Failed",
-					  JOptionPane.ERROR_MESSAGE);
-	}
+	board.submit(new UpgradeTowerCommand(tower.getId())).thenAcceptAsync(result -> {
+	    if (result.isAccepted()) {
+		JOptionPane.showMessageDialog(dialog, "Tower upgraded to level " + result.getValue() + "!", "Upgrade Complete",
+					      JOptionPane.INFORMATION_MESSAGE);
+		// Close the dialog after upgrade
+		closeDialog();
+	    } else {
+		JOptionPane.showMessageDialog(dialog, result.getRejection() + "!", "Upgrade Failed", JOptionPane.ERROR_MESSAGE);
+	    }
+	}, SwingUtilities::invokeLater);
     }
 
     /**
      * Removes the current tower from the game board.
      * <p>
-     * Confirms the action with the player before removing the tower. Returns a portion of the tower's cost to the player's coin balance.
+     * Confirms the action with the player before submitting a {@link RemoveTowerCommand}. Returns a portion of the tower's cost to the
+     * player's coin balance.
      */
     private void removeTower() {
 	// Confirm tower removal
@@ -205,22 +192,18 @@ public class TowerMenu
 						   JOptionPane.YES_NO_OPTION);
 
 	if (result == JOptionPane.YES_OPTION) {
-	    // Remove tower and refund some coins (50% of original cost)
-	    int refund = (int) (getTowerCost(tower.getType()) * TOWER_REFUND_PERCENTAGE);
-	    board.getTowerFactory().getTowers().remove(tower);
-	    board.gainCoins(refund);
-
-	    JOptionPane.showMessageDialog(dialog, "Tower removed. You received " + refund + " coins.", "Tower Removed",
-					  JOptionPane.INFORMATION_MESSAGE);
-
-	    closeDialog();
+	    board.submit(new RemoveTowerCommand(tower.getId())).thenAcceptAsync(removal -> {
+		if (removal.isAccepted()) {
+		    JOptionPane.showMessageDialog(dialog, "Tower removed. You received " + removal.getValue() + " coins.", "Tower Removed",
+						  JOptionPane.INFORMATION_MESSAGE);
+		} else {
+		    JOptionPane.showMessageDialog(dialog, removal.getRejection() + ".", "Remove Failed", JOptionPane.ERROR_MESSAGE);
+		}
+		closeDialog();
+	    }, SwingUtilities::invokeLater);
 	}
     }
 
-    private int getTowerCost(TowerType type) {
-	return TowerShop.getStaticTowerCost(type);
-    }
-
     private void closeDialog() {
 	dialog.dispose();
     }